@@ -0,0 +1,31 @@
+package raytracer.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Accès aux scènes utilisées par les benchmarks.
+ */
+final class BenchmarkScenes {
+
+    private BenchmarkScenes() {
+    }
+
+    /**
+     * Copie final.scene (ressource du classpath) dans un fichier temporaire, le parseur lisant un chemin.
+     */
+    static Path copyFinalScene() throws IOException {
+        Path file = Files.createTempFile("bench-final", ".scene");
+        file.toFile().deleteOnExit();
+        try (InputStream in = BenchmarkScenes.class.getResourceAsStream("/final.scene")) {
+            if (in == null) {
+                throw new IOException("Ressource final.scene introuvable dans le classpath.");
+            }
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+}
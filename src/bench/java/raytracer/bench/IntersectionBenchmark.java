@@ -0,0 +1,115 @@
+package raytracer.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Shape;
+import raytracer.geometry.Sphere;
+import raytracer.geometry.Triangle;
+import raytracer.math.Point;
+import raytracer.math.Ray;
+import raytracer.math.Vector;
+import raytracer.scene.Scene;
+import raytracer.trace.Intersection;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Noyaux d'intersection Rayon-Forme : API Optional (intersect) et requête bornée sans allocation (closestHit).
+ * Chaque invocation traite un lot de rayons aléatoires, dont une partie manque la forme.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+    private static final int RAY_COUNT = 1024;
+
+    private Sphere sphere;
+    private Plane plane;
+    private Triangle triangle;
+    private Ray[] rays;
+
+    @Setup
+    public void setup() {
+        sphere = new Sphere(new Point(0, 0, -5), 1.0);
+        plane = new Plane(new Point(0, -1, 0), new Vector(0, 1, 0));
+
+        Scene scene = new Scene();
+        scene.addVertex(new Point(-1, -1, -5));
+        scene.addVertex(new Point(1, -1, -5));
+        scene.addVertex(new Point(0, 1, -5));
+        triangle = new Triangle(0, 1, 2);
+        triangle.setScene(scene);
+        scene.getMesh().prepare();
+
+        Random random = new Random(42);
+        rays = new Ray[RAY_COUNT];
+        for (int i = 0; i < RAY_COUNT; i++) {
+            rays[i] = new Ray(new Point(0, 0, 0), new Vector(random.nextGaussian() * 0.3, random.nextGaussian() * 0.3, -1));
+        }
+    }
+
+    private int intersectAll(Shape shape) {
+        int hits = 0;
+        for (Ray ray : rays) {
+            Optional<Intersection> intersection = shape.intersect(ray);
+            if (intersection.isPresent()) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private double closestHitAll(Shape shape) {
+        double sum = 0;
+        for (Ray ray : rays) {
+            double t = shape.closestHit(ray, 0.0, Shape.NO_HIT);
+            if (t != Shape.NO_HIT) {
+                sum += t;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int sphereIntersect() {
+        return intersectAll(sphere);
+    }
+
+    @Benchmark
+    public int planeIntersect() {
+        return intersectAll(plane);
+    }
+
+    @Benchmark
+    public int triangleIntersect() {
+        return intersectAll(triangle);
+    }
+
+    @Benchmark
+    public double sphereClosestHit() {
+        return closestHitAll(sphere);
+    }
+
+    @Benchmark
+    public double planeClosestHit() {
+        return closestHitAll(plane);
+    }
+
+    @Benchmark
+    public double triangleClosestHit() {
+        return closestHitAll(triangle);
+    }
+}
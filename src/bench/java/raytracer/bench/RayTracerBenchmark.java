@@ -0,0 +1,59 @@
+package raytracer.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import raytracer.math.Color;
+import raytracer.parsing.SceneFileParser;
+import raytracer.scene.Scene;
+import raytracer.trace.RayTracer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'un pixel de final.scene : une ligne horizontale traversant le centre de l'image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RayTracerBenchmark {
+
+    private Scene scene;
+    private RayTracer rayTracer;
+
+    @Setup
+    public void setup() throws Exception {
+        scene = new SceneFileParser().parse(BenchmarkScenes.copyFinalScene().toString());
+        rayTracer = new RayTracer(scene);
+    }
+
+    @Benchmark
+    public double getPixelColorRow() {
+        int j = scene.getHeight() / 2;
+        double sum = 0;
+        for (int i = 0; i < scene.getWidth(); i++) {
+            Color color = rayTracer.getPixelColor(i, j);
+            sum += color.getR();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getPixelRGBRow() {
+        int j = scene.getHeight() / 2;
+        long sum = 0;
+        for (int i = 0; i < scene.getWidth(); i++) {
+            sum += rayTracer.getPixelRGB(i, j);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,63 @@
+package raytracer.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import raytracer.parsing.SceneFileParser;
+import raytracer.scene.Scene;
+import raytracer.trace.ImageRenderer;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing de final.scene et rendu complet de l'image (écriture du PNG comprise).
+ * Le nombre de threads de rendu est un paramètre : -p threads=1,8 par exemple.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SceneBenchmark {
+
+    @Param("0")
+    private int threads;
+
+    private Path sceneFile;
+    private Scene scene;
+    private ImageRenderer renderer;
+
+    @Setup
+    public void setup() throws Exception {
+        sceneFile = BenchmarkScenes.copyFinalScene();
+        scene = new SceneFileParser().parse(sceneFile.toString());
+
+        File output = File.createTempFile("bench-final", ".png");
+        output.deleteOnExit();
+        scene.setOutput(output.getPath());
+
+        int threadCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        renderer = new ImageRenderer(threadCount, ImageRenderer.DEFAULT_TILE_SIZE);
+    }
+
+    @Benchmark
+    public Scene parse() throws Exception {
+        return new SceneFileParser().parse(sceneFile.toString());
+    }
+
+    @Benchmark
+    public Scene render() throws Exception {
+        renderer.render(scene);
+        return scene;
+    }
+}
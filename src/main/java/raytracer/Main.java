@@ -1,42 +1,108 @@
 package raytracer;
 
+import raytracer.distributed.RenderCoordinator;
+import raytracer.distributed.TileWorker;
+import raytracer.parsing.AnimationFileParser;
+import raytracer.parsing.SceneCache;
 import raytracer.parsing.SceneFileParser;
 import raytracer.parsing.SceneParseException;
+import raytracer.scene.Animation;
 import raytracer.scene.Scene;
+import raytracer.server.RenderServer;
 import raytracer.trace.ImageRenderer;
+import raytracer.trace.ProgressiveRenderer;
+import raytracer.trace.RenderStats;
+import raytracer.trace.SequenceRenderer;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class Main {
     public static void main(String[] args) {
-        String sceneFilePath;
+        RenderOptions options;
+        try {
+            options = RenderOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java -jar raytracer.jar [<path_to_scene_file>] [--threads=N] [--tile=N] [--packet=N] [--progressive=N] [--aa[=SEUIL]] [--cache] [--stats] [--png-level=N] [--band=N] [--float-mesh] [--accel=TYPE] [--wavefront] [--gbuffer=FICHIER | --relight=FICHIER] [--animation=FICHIER] [--coordinator=PORT]");
+            System.err.println("       java -jar raytracer.jar --worker=HOTE:PORT [--threads=N]");
+            System.err.println("       java -jar raytracer.jar --server=PORT [--server-cache=MO] [--png-level=N] [--threads=N] [--tile=N] [--packet=N] [--aa[=SEUIL]]");
+            System.err.println("Ou sans argument pour utiliser le fichier par défaut: " + RenderOptions.DEFAULT_SCENE_PATH);
+            System.exit(1);
+            return;
+        }
 
-        if (args.length == 1) {
-            sceneFilePath = args[0];
+        if (options.isWorker()) {
+            runWorker(options);
+            return;
+        }
+
+        if (options.isServer()) {
+            runServer(options);
+            return;
+        }
+
+        String sceneFilePath = options.getSceneFilePath();
+        if (options.hasSceneFilePath()) {
             System.out.println("Fichier de scène lu depuis les arguments: " + sceneFilePath);
-        } else if (args.length == 0) {
-            sceneFilePath = "src/main/resources/final.scene";
-            System.out.println("Aucun argument fourni. Utilisation du chemin par défaut: " + sceneFilePath);
         } else {
-            System.err.println("Usage: java -jar raytracer.jar <path_to_scene_file>");
-            System.err.println("Ou sans argument pour utiliser le fichier par défaut: src/main/resources/final.scee");
-            System.exit(1);
-            return;
+            System.out.println("Aucun argument fourni. Utilisation du chemin par défaut: " + sceneFilePath);
         }
 
         SceneFileParser parser = new SceneFileParser();
-        ImageRenderer renderer = new ImageRenderer();
+        ImageRenderer renderer = new ImageRenderer(options.getThreads(), options.getTileSize(), options.getPacketSize());
+        renderer.setAntialiasingThreshold(options.getAntialiasingThreshold());
+        renderer.setPngLevel(options.getPngLevel());
+        renderer.setWavefront(options.isWavefront());
+
+        RenderStats stats = new RenderStats();
+        stats.putInfo("scene", sceneFilePath);
 
         try {
             System.out.println("Lecture de la scène");
-            Scene scene = parser.parse(sceneFilePath);
+            long start = System.nanoTime();
+            Scene scene = options.isSceneCacheEnabled() ? new SceneCache().load(sceneFilePath) : parser.parse(sceneFilePath);
+            stats.recordPhase(RenderStats.PARSE, System.nanoTime() - start);
             System.out.println("Lecture de la scène réussie.");
+            stats.putInfo("output", scene.getOutput());
+            stats.putInfo("shapes", scene.getShapes().size());
+            stats.putInfo("triangles", scene.getMesh().getTriangleCount());
+            if (options.isFloatMesh()) {
+                scene.getMesh().setSinglePrecision(true);
+                stats.putInfo("floatMesh", true);
+            }
+            options.getAcceleratorType().ifPresent(scene::setAcceleratorType);
 
             if (scene.getCamera() == null) {
                 throw new SceneParseException("La caméra n'est pas définie dans le fichier de scène.");
             }
 
             System.out.println("Rendu de l'image");
-            renderer.render(scene); // Lancement du rendu
+            if (options.isAnimation()) {
+                Animation animation = new AnimationFileParser().parse(options.getAnimationFile());
+                new SequenceRenderer(renderer).render(scene, animation, stats);
+            } else if (options.isCoordinator()) {
+                try (RenderCoordinator coordinator = new RenderCoordinator(options.getCoordinatorPort(), options.getTileSize(), options.getPacketSize())) {
+                    coordinator.setPngLevel(options.getPngLevel());
+                    coordinator.render(scene, Files.readAllBytes(Path.of(sceneFilePath)), stats);
+                }
+            } else if (options.isStreamed()) {
+                renderer.renderStreamed(scene, options.getBandHeight(), stats);
+            } else if (options.getGBufferFile().isPresent()) {
+                renderer.renderWithGBuffer(scene, options.getGBufferFile().get(), stats);
+            } else if (options.getRelightFile().isPresent()) {
+                renderer.relight(scene, options.getRelightFile().get(), stats);
+            } else if (options.isProgressive()) {
+                new ProgressiveRenderer(options.getThreads(), options.getPreviewInterval() * 1000L).render(scene, stats);
+            } else {
+                renderer.render(scene, stats); // Lancement du rendu
+            }
+
+            if (options.isStatsEnabled()) {
+                Path report = RenderStats.reportFile(scene.getOutput());
+                stats.writeJson(report);
+                System.out.println("Statistiques du rendu écrites dans : " + report);
+            }
 
         } catch (IOException e) {
             System.err.println("Erreur: Impossible de lire le fichier de scène (" + sceneFilePath + ") ou d'écrire l'image.");
@@ -52,4 +118,37 @@ public class Main {
             System.exit(1);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Démarre le serveur de rendu ; le processus reste actif tant que le serveur tourne.
+     */
+    private static void runServer(RenderOptions options) {
+        ImageRenderer renderer = new ImageRenderer(options.getThreads(), options.getTileSize(), options.getPacketSize());
+        renderer.setAntialiasingThreshold(options.getAntialiasingThreshold());
+        renderer.setPngLevel(options.getPngLevel());
+        renderer.setWavefront(options.isWavefront());
+        try {
+            RenderServer server = new RenderServer(options.getServerPort(), options.getServerCacheMegabytes() * 1024L * 1024L, renderer);
+            System.out.println("Serveur de rendu à l'écoute sur http://127.0.0.1:" + server.getPort()
+                    + "/render (cache de " + options.getServerCacheMegabytes() + " Mo).");
+        } catch (IOException e) {
+            System.err.println("Erreur: impossible d'ouvrir le port " + options.getServerPort() + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void runWorker(RenderOptions options) {
+        String coordinator = options.getWorkerHost() + ":" + options.getWorkerPort();
+        System.out.println("Connexion au coordinateur " + coordinator);
+        try {
+            int tiles = new TileWorker(options.getThreads()).run(options.getWorkerHost(), options.getWorkerPort());
+            System.out.println("Rendu terminé : " + tiles + " tuile(s) calculée(s).");
+        } catch (IOException e) {
+            System.err.println("Erreur: connexion au coordinateur " + coordinator + " impossible ou perdue: " + e.getMessage());
+            System.exit(1);
+        } catch (SceneParseException e) {
+            System.err.println("Erreur fatale lors du parsing de la scène reçue: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package raytracer;
+
+import raytracer.accel.AcceleratorType;
+import raytracer.accel.RayPacket;
+import raytracer.png.PngStreamWriter;
+import raytracer.server.RenderServer;
+import raytracer.trace.ImageRenderer;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Options de la ligne de commande : un chemin de scène facultatif suivi d'options de la forme --nom=valeur.
+ */
+public final class RenderOptions {
+    public static final String DEFAULT_SCENE_PATH = "src/main/resources/final.scene";
+
+    private String sceneFilePath;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int tileSize = ImageRenderer.DEFAULT_TILE_SIZE;
+    private int packetSize = ImageRenderer.DEFAULT_PACKET_SIZE;
+    private boolean packetGiven;
+    private boolean sceneCache;
+    private int previewInterval;
+    private double antialiasingThreshold;
+    private boolean stats;
+    private int coordinatorPort;
+    private String workerHost;
+    private String animationFile;
+    private String gbufferFile;
+    private String relightFile;
+    private int workerPort;
+    private int serverPort;
+    private int bandHeight;
+    private boolean floatMesh;
+    private boolean wavefront;
+    private AcceleratorType acceleratorType;
+    private int pngLevel = PngStreamWriter.DEFAULT_LEVEL;
+    private boolean pngLevelGiven;
+    private int serverCacheMegabytes = RenderServer.DEFAULT_CACHE_MEGABYTES;
+
+    private RenderOptions() {
+    }
+
+    /**
+     * Analyse les arguments du programme.
+     * @throws IllegalArgumentException si une option est inconnue, mal formée ou si plusieurs scènes sont données.
+     */
+    public static RenderOptions parse(String[] args) {
+        RenderOptions options = new RenderOptions();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                if (options.sceneFilePath != null) {
+                    throw new IllegalArgumentException("Un seul fichier de scène peut être fourni.");
+                }
+                options.sceneFilePath = arg;
+                continue;
+            }
+
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            String value = eq < 0 ? null : arg.substring(eq + 1);
+
+            switch (name) {
+                case "threads":
+                    options.threads = parsePositiveInt(name, value);
+                    break;
+                case "tile":
+                    options.tileSize = parsePositiveInt(name, value);
+                    break;
+                case "packet":
+                    options.packetSize = parsePositiveInt(name, value);
+                    options.packetGiven = true;
+                    if (options.packetSize > RayPacket.MAX_SIZE) {
+                        throw new IllegalArgumentException("L'option --packet accepte au plus " + RayPacket.MAX_SIZE + " rayons.");
+                    }
+                    break;
+                case "progressive":
+                    options.previewInterval = parsePositiveInt(name, value);
+                    break;
+                case "aa":
+                    options.antialiasingThreshold = value == null ? ImageRenderer.DEFAULT_ANTIALIASING_THRESHOLD : parseThreshold(name, value);
+                    break;
+                case "cache":
+                    requireNoValue(name, value);
+                    options.sceneCache = true;
+                    break;
+                case "stats":
+                    requireNoValue(name, value);
+                    options.stats = true;
+                    break;
+                case "animation":
+                    if (value == null || value.isEmpty()) {
+                        throw new IllegalArgumentException("L'option --animation attend un fichier d'animation (--animation=FICHIER).");
+                    }
+                    options.animationFile = value;
+                    break;
+                case "gbuffer":
+                case "relight":
+                    if (value == null || value.isEmpty()) {
+                        throw new IllegalArgumentException("L'option --" + name + " attend un fichier de G-buffer (--" + name + "=FICHIER).");
+                    }
+                    if (name.equals("gbuffer")) {
+                        options.gbufferFile = value;
+                    } else {
+                        options.relightFile = value;
+                    }
+                    break;
+                case "coordinator":
+                    options.coordinatorPort = parsePort(name, value);
+                    break;
+                case "worker":
+                    int colon = value == null ? -1 : value.lastIndexOf(':');
+                    if (colon <= 0) {
+                        throw new IllegalArgumentException("L'option --worker attend l'adresse du coordinateur (--worker=HOTE:PORT).");
+                    }
+                    options.workerHost = value.substring(0, colon);
+                    options.workerPort = parsePort(name, value.substring(colon + 1));
+                    break;
+                case "png-level":
+                    try {
+                        options.pngLevel = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        options.pngLevel = -1;
+                    }
+                    if (options.pngLevel < 0 || options.pngLevel > 9) {
+                        throw new IllegalArgumentException("L'option --png-level attend un niveau de compression entre 0 et 9.");
+                    }
+                    options.pngLevelGiven = true;
+                    break;
+                case "float-mesh":
+                    requireNoValue(name, value);
+                    options.floatMesh = true;
+                    break;
+                case "accel":
+                    options.acceleratorType = AcceleratorType.forName(value == null ? "" : value).orElseThrow(
+                            () -> new IllegalArgumentException("L'option --accel attend une structure d'accélération (bvh, grid, brute ou auto)."));
+                    break;
+                case "wavefront":
+                    requireNoValue(name, value);
+                    options.wavefront = true;
+                    break;
+                case "band":
+                    options.bandHeight = parsePositiveInt(name, value);
+                    break;
+                case "server":
+                    options.serverPort = parsePort(name, value);
+                    break;
+                case "server-cache":
+                    options.serverCacheMegabytes = parsePositiveInt(name, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Option inconnue: " + arg);
+            }
+        }
+
+        if (options.isCoordinator()) {
+            if (options.isWorker()) {
+                throw new IllegalArgumentException("Les options --coordinator et --worker sont exclusives.");
+            }
+            if (options.isProgressive() || options.antialiasingThreshold > 0.0) {
+                throw new IllegalArgumentException("Le rendu réparti ne prend en charge ni --progressive ni --aa.");
+            }
+        }
+        if (options.isProgressive() && (options.antialiasingThreshold > 0.0 || options.packetGiven
+                || options.pngLevelGiven)) {
+            // Le rendu progressif trace pixel par pixel, sans anticrénelage, et écrit ses aperçus par ImageIO.
+            throw new IllegalArgumentException("L'option --progressive ne se combine ni avec --aa, ni avec --packet, ni avec --png-level.");
+        }
+        if (options.isAnimation() && (options.isCoordinator() || options.isWorker() || options.isProgressive())) {
+            throw new IllegalArgumentException("L'option --animation ne se combine ni avec le rendu réparti ni avec --progressive.");
+        }
+        if (options.isStreamed() && (options.antialiasingThreshold > 0.0 || options.isProgressive() || options.isAnimation()
+                || options.isCoordinator() || options.isWorker() || options.isServer())) {
+            throw new IllegalArgumentException("L'option --band ne se combine qu'avec --threads, --tile, --packet, --cache et --stats.");
+        }
+        if (options.isServer()) {
+            if (options.isCoordinator() || options.isWorker() || options.isAnimation() || options.isProgressive()) {
+                throw new IllegalArgumentException("L'option --server ne se combine ni avec le rendu réparti, ni avec --animation, ni avec --progressive.");
+            }
+            if (options.sceneFilePath != null) {
+                throw new IllegalArgumentException("Le serveur reçoit les scènes par ses requêtes : aucun fichier de scène ne doit être donné.");
+            }
+        }
+        if (options.floatMesh && (options.isCoordinator() || options.isWorker() || options.isServer())) {
+            throw new IllegalArgumentException("L'option --float-mesh ne se combine ni avec le rendu réparti ni avec --server.");
+        }
+        if (options.acceleratorType != null && (options.isCoordinator() || options.isWorker() || options.isServer() || options.isAnimation())) {
+            throw new IllegalArgumentException("L'option --accel ne se combine ni avec le rendu réparti, ni avec --server, ni avec --animation : utiliser la directive accel de la scène.");
+        }
+        if (options.wavefront && (options.isCoordinator() || options.isWorker() || options.isProgressive())) {
+            throw new IllegalArgumentException("L'option --wavefront ne se combine ni avec le rendu réparti ni avec --progressive.");
+        }
+        if (options.gbufferFile != null && options.relightFile != null) {
+            throw new IllegalArgumentException("Les options --gbuffer et --relight sont exclusives.");
+        }
+        if ((options.gbufferFile != null || options.relightFile != null) && (options.antialiasingThreshold > 0.0 || options.isProgressive()
+                || options.isAnimation() || options.isStreamed() || options.wavefront || options.isCoordinator() || options.isWorker() || options.isServer())) {
+            throw new IllegalArgumentException("Les options --gbuffer et --relight ne se combinent qu'avec --threads, --tile, --cache, --stats, --png-level, --float-mesh et --accel.");
+        }
+        if (options.isWorker() && options.sceneFilePath != null) {
+            throw new IllegalArgumentException("Un worker reçoit la scène du coordinateur : aucun fichier de scène ne doit être donné.");
+        }
+        return options;
+    }
+
+    private static int parsePositiveInt(String name, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < 1) {
+                throw new IllegalArgumentException("L'option --" + name + " doit être un entier positif.");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("L'option --" + name + " attend un entier (--" + name + "=N).");
+        }
+    }
+
+    private static int parsePort(String name, String value) {
+        int port = parsePositiveInt(name, value);
+        if (port > 65535) {
+            throw new IllegalArgumentException("L'option --" + name + " attend un port entre 1 et 65535.");
+        }
+        return port;
+    }
+
+    private static double parseThreshold(String name, String value) {
+        try {
+            double parsed = Double.parseDouble(value);
+            if (!(parsed > 0.0 && parsed <= 1.0)) {
+                throw new IllegalArgumentException("L'option --" + name + " attend un seuil dans ]0, 1].");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("L'option --" + name + " attend un nombre (--" + name + "=0.1).");
+        }
+    }
+
+    private static void requireNoValue(String name, String value) {
+        if (value != null) {
+            throw new IllegalArgumentException("L'option --" + name + " ne prend pas de valeur.");
+        }
+    }
+
+    /**
+     * @return true si le chemin de la scène a été donné en argument.
+     */
+    public boolean hasSceneFilePath() {
+        return sceneFilePath != null;
+    }
+
+    public String getSceneFilePath() {
+        return sceneFilePath != null ? sceneFilePath : DEFAULT_SCENE_PATH;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @return Nombre de rayons primaires tracés ensemble (1 : pas de paquets).
+     */
+    public int getPacketSize() {
+        return packetSize;
+    }
+
+    /**
+     * @return true si l'image doit être rendue en passes progressives (ProgressiveRenderer).
+     */
+    public boolean isProgressive() {
+        return previewInterval > 0;
+    }
+
+    /**
+     * @return Délai entre deux écritures de l'aperçu en mode progressif, en secondes.
+     */
+    public int getPreviewInterval() {
+        return previewInterval;
+    }
+
+    /**
+     * @return Seuil de l'anticrénelage adaptatif, 0 s'il est désactivé (voir ImageRenderer.setAntialiasingThreshold).
+     */
+    public double getAntialiasingThreshold() {
+        return antialiasingThreshold;
+    }
+
+    /**
+     * @return true si un rapport JSON des statistiques du rendu doit être écrit à côté de l'image.
+     */
+    public boolean isStatsEnabled() {
+        return stats;
+    }
+
+    /**
+     * @return true si la scène doit être lue depuis (et enregistrée dans) son cache binaire.
+     */
+    public boolean isSceneCacheEnabled() {
+        return sceneCache;
+    }
+
+    /**
+     * @return true si l'image doit être répartie entre des workers connectés au port getCoordinatorPort().
+     */
+    public boolean isCoordinator() {
+        return coordinatorPort > 0;
+    }
+
+    public int getCoordinatorPort() {
+        return coordinatorPort;
+    }
+
+    /**
+     * @return true si le programme doit servir de worker au coordinateur getWorkerHost():getWorkerPort().
+     */
+    public boolean isWorker() {
+        return workerHost != null;
+    }
+
+    public String getWorkerHost() {
+        return workerHost;
+    }
+
+    public int getWorkerPort() {
+        return workerPort;
+    }
+
+    /**
+     * @return true si une séquence d'images doit être rendue d'après le fichier d'animation getAnimationFile().
+     */
+    public boolean isAnimation() {
+        return animationFile != null;
+    }
+
+    public String getAnimationFile() {
+        return animationFile;
+    }
+
+    /**
+     * @return Le fichier où écrire le G-buffer du rendu (voir ImageRenderer.renderWithGBuffer).
+     */
+    public Optional<Path> getGBufferFile() {
+        return Optional.ofNullable(gbufferFile).map(Path::of);
+    }
+
+    /**
+     * @return Le G-buffer depuis lequel l'image doit être ré-éclairée au lieu d'être tracée (voir ImageRenderer.relight).
+     */
+    public Optional<Path> getRelightFile() {
+        return Optional.ofNullable(relightFile).map(Path::of);
+    }
+
+    /**
+     * @return true si le programme doit rester à l'écoute des requêtes de rendu HTTP sur le port getServerPort().
+     */
+    public boolean isServer() {
+        return serverPort > 0;
+    }
+
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    /**
+     * @return Mémoire estimée maximale, en mégaoctets, des scènes préparées gardées en cache par le serveur.
+     */
+    public int getServerCacheMegabytes() {
+        return serverCacheMegabytes;
+    }
+
+    /**
+     * @return true si l'image doit être calculée et encodée par bandes de getBandHeight() lignes.
+     */
+    public boolean isStreamed() {
+        return bandHeight > 0;
+    }
+
+    public int getBandHeight() {
+        return bandHeight;
+    }
+
+    /**
+     * @return Niveau de compression des images PNG, de 0 à 9.
+     */
+    public int getPngLevel() {
+        return pngLevel;
+    }
+
+    /**
+     * @return true si le maillage doit être stocké et intersecté en simple précision (voir Mesh.setSinglePrecision).
+     */
+    public boolean isFloatMesh() {
+        return floatMesh;
+    }
+
+    /**
+     * @return true si les tuiles doivent être tracées en front d'onde (voir ImageRenderer.setWavefront).
+     */
+    public boolean isWavefront() {
+        return wavefront;
+    }
+
+    /**
+     * @return La structure d'accélération imposée par --accel, qui remplace la directive accel de la scène.
+     */
+    public Optional<AcceleratorType> getAcceleratorType() {
+        return Optional.ofNullable(acceleratorType);
+    }
+}
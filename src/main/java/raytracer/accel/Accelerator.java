@@ -0,0 +1,82 @@
+package raytracer.accel;
+
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Shape;
+import raytracer.trace.HitRecord;
+import java.util.List;
+
+/**
+ * Structure d'accélération interrogée par le moteur : plus proche intersection (rayon seul ou paquet) et occultation.
+ * Une primitive est référencée par un entier : indice de forme, ou nombre de formes + indice de face du maillage.
+ * Toutes les implémentations donnent le même résultat pour un même rayon (à distance égale, la plus petite
+ * référence l'emporte) : le choix de la structure ne change que le temps de rendu, pas l'image.
+ * Une structure construite est immuable et peut être parcourue par plusieurs threads.
+ */
+public interface Accelerator {
+
+    /**
+     * Construit la structure demandée sur les formes, dans l'ordre de la scène, et les triangles du maillage.
+     * AcceleratorType.AUTO est résolu par AcceleratorType.choose.
+     */
+    static Accelerator create(AcceleratorType type, List<Shape> shapes, Mesh mesh) {
+        // Boîtes calculées une fois, pour le choix du mode auto comme pour la construction.
+        Primitives primitives = new Primitives(shapes, mesh);
+        switch (type == AcceleratorType.AUTO ? AcceleratorType.choose(primitives) : type) {
+            case GRID:
+                return new UniformGrid(primitives);
+            case BRUTE_FORCE:
+                return new BruteForce(primitives);
+            default:
+                return new BVH(primitives);
+        }
+    }
+
+    /**
+     * Nom de la structure (celui de AcceleratorType), repris dans les statistiques du rendu.
+     */
+    String getName();
+
+    /**
+     * Taille de la pile de parcours à fournir aux requêtes sans allocation.
+     */
+    int getStackSize();
+
+    /**
+     * Estimation de la mémoire occupée par les tableaux de la structure (nœuds, cellules, listes de références),
+     * sans les formes ni le maillage qu'elle indexe.
+     */
+    long getRetainedBytes();
+
+    /**
+     * Plus proche intersection au-delà de tMin ; le résultat (distance, point, normale, primitive) est écrit dans hit.
+     * Les tests sont comptés dans counters (ignoré s'il est null).
+     * @param stack Pile d'au moins getStackSize() éléments.
+     * @return true si le rayon touche une forme.
+     */
+    boolean closestHit(double ox, double oy, double oz, double dx, double dy, double dz,
+                       double tMin, int[] stack, HitRecord hit, IntersectionCounters counters);
+
+    /**
+     * Plus proche intersection de chaque rayon du paquet, au-delà de tMin, lue ensuite par recordHit.
+     * Le résultat de chaque voie est celui de closestHit pour le même rayon.
+     */
+    void closestHit(RayPacket packet, double tMin, int[] stack, IntersectionCounters counters);
+
+    /**
+     * Écrit dans hit le résultat de la voie lane du dernier parcours de paquet, comme le ferait closestHit.
+     * @return false si le rayon de cette voie ne touche rien.
+     */
+    boolean recordHit(RayPacket packet, int lane, HitRecord hit);
+
+    /**
+     * Référence d'une primitive qui coupe le rayon strictement entre tMin et tMax, ou -1.
+     */
+    int findOccluder(double ox, double oy, double oz, double dx, double dy, double dz,
+                     double tMin, double tMax, int[] stack, IntersectionCounters counters);
+
+    /**
+     * Indique si la primitive ref (retournée par findOccluder) coupe le rayon strictement entre tMin et tMax.
+     */
+    boolean occludes(int ref, double ox, double oy, double oz, double dx, double dy, double dz,
+                     double tMin, double tMax, IntersectionCounters counters);
+}
@@ -0,0 +1,77 @@
+package raytracer.accel;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Structures d'accélération disponibles, choisies par la directive de scène "accel" ou l'option --accel.
+ */
+public enum AcceleratorType {
+    /** Hiérarchie de volumes englobants (SAH) : le choix par défaut, robuste à toutes les scènes. */
+    BVH("bvh"),
+    /** Grille uniforme parcourue par 3D-DDA : efficace pour des primitives de tailles proches, réparties dans la scène. */
+    GRID("grid"),
+    /** Test de toutes les primitives : référence, et choix le plus rapide pour une poignée de formes. */
+    BRUTE_FORCE("brute"),
+    /** Choix d'après le nombre de primitives et la dispersion de leurs tailles (voir choose). */
+    AUTO("auto");
+
+    /**
+     * En dessous de ce nombre de primitives, les tester toutes coûte moins que parcourir une structure.
+     */
+    static final int BRUTE_FORCE_LIMIT = 8;
+
+    /**
+     * Au-delà de ce coefficient de variation de la taille des primitives (écart type / moyenne de la diagonale
+     * de leur boîte), une grille uniforme a des cellules trop grandes pour les petites ou trop petites pour les grandes.
+     */
+    static final double GRID_MAX_SIZE_VARIATION = 0.5;
+
+    private final String name;
+
+    AcceleratorType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Le type nommé name (bvh, grid, brute ou auto, sans tenir compte de la casse), s'il existe.
+     */
+    public static Optional<AcceleratorType> forName(String name) {
+        for (AcceleratorType type : values()) {
+            if (type.name.equals(name.toLowerCase(Locale.ROOT))) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Choix du mode auto : force brute pour moins de BRUTE_FORCE_LIMIT primitives bornées, grille si leurs
+     * tailles sont homogènes (coefficient de variation au plus GRID_MAX_SIZE_VARIATION), BVH sinon.
+     */
+    static AcceleratorType choose(Primitives primitives) {
+        int count = primitives.boundedCount();
+        if (count < BRUTE_FORCE_LIMIT) {
+            return BRUTE_FORCE;
+        }
+
+        double[] bounds = primitives.bounds();
+        double sum = 0.0;
+        double sumSquares = 0.0;
+        for (int i = 0; i < count; i++) {
+            double ex = bounds[i * 6 + 3] - bounds[i * 6];
+            double ey = bounds[i * 6 + 4] - bounds[i * 6 + 1];
+            double ez = bounds[i * 6 + 5] - bounds[i * 6 + 2];
+            double diagonal = Math.sqrt(ex * ex + ey * ey + ez * ez);
+            sum += diagonal;
+            sumSquares += diagonal * diagonal;
+        }
+        double mean = sum / count;
+        double variance = Math.max(0.0, sumSquares / count - mean * mean);
+        return mean > 0.0 && Math.sqrt(variance) <= GRID_MAX_SIZE_VARIATION * mean ? GRID : BVH;
+    }
+}
@@ -0,0 +1,839 @@
+package raytracer.accel;
+
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Shape;
+import raytracer.math.Point;
+import raytracer.math.Ray;
+import raytracer.math.Vector;
+import raytracer.trace.HitRecord;
+import raytracer.trace.Intersection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Hiérarchie de volumes englobants (BVH) construite une seule fois à partir des formes de la scène.
+ * La construction découpe les formes selon l'heuristique d'aire de surface (SAH) évaluée par intervalles
+ * (binning) et se parallélise sur le pool fork/join. Les formes non bornées (plans) sont testées à part.
+ * Une fois construite, la hiérarchie est immuable et peut être parcourue par plusieurs threads ;
+ * refit en dérive une hiérarchie de même topologie pour des formes déplacées.
+ */
+public final class BVH implements Accelerator {
+    private static final int BIN_COUNT = 16;
+    private static final int MAX_LEAF_SIZE = 4;
+    private static final int MAX_FORCED_LEAF_SIZE = 16;
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private static final double TRAVERSAL_COST = 1.0;
+    static final double SLAB_PADDING = 1e-9;
+
+    // Une primitive est référencée par un entier : indice dans shapes, ou shapes.length + indice de face du maillage.
+    // Cette référence sert aussi d'ordre de la scène pour départager les égalités.
+    private final Shape[] shapes;
+    private final Mesh mesh;
+    private final int[] primitives;
+    private final int[] unbounded;
+    // Type de chaque forme pour les compteurs (voir IntersectionCounters.kindOf).
+    private final int[] shapeKinds;
+
+    private final double[] nodeBounds;
+    private final int[] nodeOffset;
+    private final int[] nodeCount;
+    private final int[] nodeAxis;
+    private final int stackSize;
+
+    /**
+     * Construit la hiérarchie à partir de formes isolées uniquement.
+     */
+    public BVH(List<Shape> shapes) {
+        this(shapes, new Mesh());
+    }
+
+    /**
+     * Construit la hiérarchie à partir des formes, dans l'ordre de la scène, et des triangles du maillage.
+     * L'ordre d'origine sert à départager deux intersections à la même distance,
+     * afin de retrouver exactement le résultat d'un parcours linéaire.
+     */
+    public BVH(List<Shape> shapes, Mesh mesh) {
+        this(new Primitives(shapes, mesh));
+    }
+
+    /**
+     * Construit la hiérarchie sur des primitives déjà rassemblées (boîtes comprises).
+     */
+    BVH(Primitives source) {
+        this.shapes = source.shapes();
+        this.mesh = source.mesh();
+        this.unbounded = source.unbounded();
+        this.shapeKinds = source.shapeKinds();
+
+        int n = source.boundedCount();
+        Builder builder = new Builder(source.bounds(), n);
+        BuildNode root = n == 0 ? null : ForkJoinPool.commonPool().invoke(builder.task(0, n));
+
+        int nodes = root == null ? 0 : root.size();
+        this.nodeBounds = new double[nodes * 6];
+        this.nodeOffset = new int[nodes];
+        this.nodeCount = new int[nodes];
+        this.nodeAxis = new int[nodes];
+        this.stackSize = root == null ? 1 : root.depth() + 1;
+
+        if (root != null) {
+            flatten(root, 0);
+        }
+
+        this.primitives = new int[n];
+        for (int i = 0; i < n; i++) {
+            this.primitives[i] = source.ref(builder.indices[i]);
+        }
+    }
+
+    /**
+     * Hiérarchie de même topologie que base, sur d'autres formes et avec d'autres boîtes de nœuds.
+     */
+    private BVH(BVH base, Shape[] shapes, double[] nodeBounds) {
+        this.shapes = shapes;
+        this.mesh = base.mesh;
+        this.primitives = base.primitives;
+        this.unbounded = base.unbounded;
+        this.shapeKinds = base.shapeKinds;
+        this.nodeBounds = nodeBounds;
+        this.nodeOffset = base.nodeOffset;
+        this.nodeCount = base.nodeCount;
+        this.nodeAxis = base.nodeAxis;
+        this.stackSize = base.stackSize;
+    }
+
+    /**
+     * Réajuste la hiérarchie à des formes déplacées sans la reconstruire : l'arbre et la répartition des
+     * primitives sont conservés, seules les boîtes des nœuds sont recalculées, des feuilles vers la racine.
+     * Les feuilles qui ne contiennent que des triangles du maillage gardent leur boîte. Le parcours reste exact ;
+     * seule la qualité de la découpe peut se dégrader si les formes s'éloignent beaucoup de leur position d'origine.
+     * Cette hiérarchie n'est pas modifiée.
+     * @param shapes Nouvelles formes, une par forme d'origine, dans le même ordre et de même type.
+     * @throws IllegalArgumentException si le nombre ou le type des formes diffère, ou si une forme devient (non) bornée.
+     */
+    public BVH refit(List<Shape> shapes) {
+        Shape[] moved = shapes.toArray(new Shape[0]);
+        if (moved.length != this.shapes.length) {
+            throw new IllegalArgumentException("Le réajustement attend " + this.shapes.length + " formes, " + moved.length + " reçues.");
+        }
+        double[][] shapeBounds = new double[moved.length][];
+        for (int i = 0; i < moved.length; i++) {
+            if (IntersectionCounters.kindOf(moved[i]) != shapeKinds[i]) {
+                throw new IllegalArgumentException("La forme " + i + " a changé de type.");
+            }
+            Optional<BoundingBox> box = moved[i].getBoundingBox();
+            if (box.isPresent() != this.shapes[i].getBoundingBox().isPresent()) {
+                throw new IllegalArgumentException("La forme " + i + " ne peut pas devenir bornée ou non bornée.");
+            }
+            if (box.isPresent()) {
+                Point min = box.get().getMin();
+                Point max = box.get().getMax();
+                shapeBounds[i] = new double[] {min.getX(), min.getY(), min.getZ(), max.getX(), max.getY(), max.getZ()};
+            }
+        }
+
+        // Les enfants d'un nœud ont un indice supérieur au sien : un parcours à rebours traite les enfants d'abord.
+        double[] bounds = nodeBounds.clone();
+        for (int node = nodeCount.length - 1; node >= 0; node--) {
+            int b = node * 6;
+            int count = nodeCount[node];
+            if (count == 0) {
+                int left = (node + 1) * 6;
+                int right = nodeOffset[node] * 6;
+                for (int axis = 0; axis < 3; axis++) {
+                    bounds[b + axis] = Math.min(bounds[left + axis], bounds[right + axis]);
+                    bounds[b + 3 + axis] = Math.max(bounds[left + 3 + axis], bounds[right + 3 + axis]);
+                }
+                continue;
+            }
+
+            int first = nodeOffset[node];
+            boolean hasShape = false;
+            for (int i = first; i < first + count && !hasShape; i++) {
+                hasShape = primitives[i] < moved.length;
+            }
+            if (!hasShape) {
+                continue;
+            }
+            double[] primitive = new double[6];
+            Builder.resetBounds(bounds, b);
+            for (int i = first; i < first + count; i++) {
+                int ref = primitives[i];
+                if (ref < moved.length) {
+                    System.arraycopy(shapeBounds[ref], 0, primitive, 0, 6);
+                } else {
+                    mesh.getBounds(ref - moved.length, primitive, 0);
+                }
+                for (int axis = 0; axis < 3; axis++) {
+                    bounds[b + axis] = Math.min(bounds[b + axis], primitive[axis]);
+                    bounds[b + 3 + axis] = Math.max(bounds[b + 3 + axis], primitive[3 + axis]);
+                }
+            }
+        }
+        return new BVH(this, moved, bounds);
+    }
+
+    @Override
+    public String getName() {
+        return AcceleratorType.BVH.getName();
+    }
+
+    /**
+     * Taille de la pile de parcours à fournir aux requêtes sans allocation.
+     */
+    @Override
+    public int getStackSize() {
+        return stackSize;
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        long ints = (long) primitives.length + unbounded.length + shapeKinds.length
+                + nodeOffset.length + nodeCount.length + nodeAxis.length;
+        return ints * Integer.BYTES + (long) nodeBounds.length * Double.BYTES + (long) shapes.length * Long.BYTES;
+    }
+
+    /**
+     * Trouve l'intersection la plus proche dont la distance est strictement supérieure à tMin.
+     * @param ray Le rayon à tracer.
+     * @param tMin Distance minimale acceptée (évite l'auto-intersection).
+     * @return L'intersection la plus proche, ou Optional.empty() si le rayon ne touche rien.
+     */
+    public Optional<Intersection> findClosestIntersection(Ray ray, double tMin) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        HitRecord hit = new HitRecord();
+
+        int closest = traverseClosest(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), tMin, Double.MAX_VALUE, new int[stackSize], hit, null);
+        if (closest < 0) {
+            return Optional.empty();
+        }
+
+        double t = hit.getT();
+        Shape shape = closest < shapes.length ? shapes[closest] : mesh.getTriangle(closest - shapes.length);
+        return Optional.of(new Intersection(t, ray.pointAt(t), shape));
+    }
+
+    /**
+     * Variante sans allocation de findClosestIntersection : le rayon est passé par composantes,
+     * la pile de parcours est fournie par l'appelant et le résultat (distance, point, normale, primitive)
+     * est écrit dans l'enregistrement hit.
+     * @param stack Pile d'au moins getStackSize() éléments.
+     * @return true si le rayon touche une forme.
+     */
+    public boolean closestHit(double ox, double oy, double oz, double dx, double dy, double dz,
+                              double tMin, int[] stack, HitRecord hit) {
+        return closestHit(ox, oy, oz, dx, dy, dz, tMin, stack, hit, null);
+    }
+
+    /**
+     * closestHit dont les tests sont comptés dans counters (ignoré s'il est null).
+     */
+    @Override
+    public boolean closestHit(double ox, double oy, double oz, double dx, double dy, double dz,
+                              double tMin, int[] stack, HitRecord hit, IntersectionCounters counters) {
+        int closest = traverseClosest(ox, oy, oz, dx, dy, dz, tMin, Double.MAX_VALUE, stack, hit, counters);
+        if (closest < 0) {
+            return false;
+        }
+
+        recordHit(closest, ox, oy, oz, dx, dy, dz, hit);
+        return true;
+    }
+
+    /**
+     * Plus proche intersection dans ]tMin, tMax[, sans calcul du point ni de la normale : la distance est écrite
+     * dans hit. Requête des formes qui portent leur propre hiérarchie (Instance).
+     * @param stack Pile d'au moins getStackSize() éléments.
+     * @return La référence de la primitive touchée, ou -1.
+     */
+    public int closestPrimitive(double ox, double oy, double oz, double dx, double dy, double dz,
+                                double tMin, double tMax, int[] stack, HitRecord hit) {
+        return traverseClosest(ox, oy, oz, dx, dy, dz, tMin, tMax, stack, hit, null);
+    }
+
+    /**
+     * Complète l'enregistrement hit (dont la distance est déjà écrite) pour la primitive ref : point, normale, référence.
+     */
+    private void recordHit(int ref, double ox, double oy, double oz, double dx, double dy, double dz, HitRecord hit) {
+        double t = hit.getT();
+        hit.setPoint(ox + dx * t, oy + dy * t, oz + dz * t);
+        hit.setPrimitive(ref);
+
+        if (ref < shapes.length) {
+            shapes[ref].computeNormal(hit, ox, oy, oz, dx, dy, dz);
+        } else {
+            mesh.computeNormal(ref - shapes.length, hit);
+        }
+    }
+
+    /**
+     * Plus proche intersection de chaque rayon du paquet, au-delà de tMin. Les rayons parcourent la hiérarchie
+     * ensemble : un nœud est visité si l'un d'eux coupe sa boîte, et ses primitives sont testées pour toutes
+     * les voies concernées à la fois. Le résultat de chaque voie est celui de closestHit pour le même rayon.
+     * Les résultats se lisent ensuite par RayPacket.isHit, RayPacket.getT et recordHit.
+     * @param stack Pile d'au moins getStackSize() éléments.
+     */
+    public void closestHit(RayPacket packet, double tMin, int[] stack) {
+        closestHit(packet, tMin, stack, null);
+    }
+
+    /**
+     * closestHit pour un paquet, dont les tests sont comptés dans counters (ignoré s'il est null).
+     */
+    @Override
+    public void closestHit(RayPacket packet, double tMin, int[] stack, IntersectionCounters counters) {
+        PacketIntersector intersector = packet.getIntersector();
+        int lanes = packet.begin();
+        int size = packet.size();
+
+        for (int ref : unbounded) {
+            intersector.intersect(shapes[ref], ref, packet, lanes, tMin);
+            if (counters != null) {
+                counters.countTests(shapeKinds[ref], size);
+            }
+        }
+
+        if (nodeCount.length == 0) {
+            return;
+        }
+
+        int sp = 0;
+        stack[sp++] = 0;
+
+        while (sp > 0) {
+            int node = stack[--sp];
+
+            int mask = intersector.intersectsBox(nodeBounds, node * 6, packet, lanes);
+            if (counters != null) {
+                counters.countNodes(size);
+            }
+            if (mask == 0) {
+                continue;
+            }
+
+            int count = nodeCount[node];
+            if (count > 0) {
+                int first = nodeOffset[node];
+                for (int i = first; i < first + count; i++) {
+                    int ref = primitives[i];
+                    if (ref < shapes.length) {
+                        intersector.intersect(shapes[ref], ref, packet, mask, tMin);
+                    } else {
+                        intersector.intersect(mesh, ref - shapes.length, ref, packet, mask, tMin);
+                    }
+                    if (counters != null) {
+                        counters.countTests(kindOf(ref), Integer.bitCount(mask));
+                    }
+                }
+            } else {
+                // Ordre de visite choisi d'après le premier rayon qui coupe le nœud : les rayons du paquet sont cohérents.
+                int lane = Integer.numberOfTrailingZeros(mask);
+                int left = node + 1;
+                int right = nodeOffset[node];
+                if (directionIsNegative(nodeAxis[node], packet.inverseX[lane], packet.inverseY[lane], packet.inverseZ[lane])) {
+                    stack[sp++] = left;
+                    stack[sp++] = right;
+                } else {
+                    stack[sp++] = right;
+                    stack[sp++] = left;
+                }
+            }
+        }
+    }
+
+    /**
+     * Écrit dans hit le résultat de la voie lane du dernier parcours de paquet, comme le ferait closestHit.
+     * @return false si le rayon de cette voie ne touche rien.
+     */
+    @Override
+    public boolean recordHit(RayPacket packet, int lane, HitRecord hit) {
+        int ref = (int) packet.ref[lane];
+        if (ref < 0) {
+            return false;
+        }
+        hit.setT(packet.t[lane]);
+        recordHit(ref, packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+                packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], hit);
+        return true;
+    }
+
+    /**
+     * Parcours "plus proche intersection" avant tMax (exclu) : écrit la distance dans hit et retourne la référence
+     * de la primitive touchée, ou -1.
+     */
+    private int traverseClosest(double ox, double oy, double oz, double dx, double dy, double dz,
+                                double tMin, double tMax, int[] stack, HitRecord hit, IntersectionCounters counters) {
+        double minT = tMax;
+        int closest = -1;
+
+        // Math.nextUp inclut la distance courante pour départager les égalités selon l'ordre de la scène.
+        for (int ref : unbounded) {
+            if (counters != null) {
+                counters.countTests(shapeKinds[ref], 1);
+            }
+            double t = shapes[ref].closestHit(ox, oy, oz, dx, dy, dz, tMin, Math.nextUp(minT));
+            if (isCloser(t, ref, minT, closest)) {
+                closest = ref;
+                minT = t;
+            }
+        }
+
+        if (nodeCount.length > 0) {
+            double invDx = 1.0 / dx, invDy = 1.0 / dy, invDz = 1.0 / dz;
+
+            int sp = 0;
+            stack[sp++] = 0;
+
+            while (sp > 0) {
+                int node = stack[--sp];
+
+                if (counters != null) {
+                    counters.countNodes(1);
+                }
+                if (!intersectsBox(nodeBounds, node * 6, ox, oy, oz, invDx, invDy, invDz, minT)) {
+                    continue;
+                }
+
+                int count = nodeCount[node];
+                if (count > 0) {
+                    int first = nodeOffset[node];
+                    for (int i = first; i < first + count; i++) {
+                        int ref = primitives[i];
+                        if (counters != null) {
+                            counters.countTests(kindOf(ref), 1);
+                        }
+                        double t = closestHit(ref, ox, oy, oz, dx, dy, dz, tMin, Math.nextUp(minT));
+                        if (isCloser(t, ref, minT, closest)) {
+                            closest = ref;
+                            minT = t;
+                        }
+                    }
+                } else {
+                    // On empile l'enfant lointain en premier pour visiter d'abord l'enfant le plus proche.
+                    int left = node + 1;
+                    int right = nodeOffset[node];
+                    if (directionIsNegative(nodeAxis[node], invDx, invDy, invDz)) {
+                        stack[sp++] = left;
+                        stack[sp++] = right;
+                    } else {
+                        stack[sp++] = right;
+                        stack[sp++] = left;
+                    }
+                }
+            }
+        }
+
+        hit.setT(minT);
+        return closest;
+    }
+
+    /**
+     * Indique si une forme coupe le rayon à une distance comprise strictement entre tMin et tMax.
+     * Le parcours s'arrête au premier obstacle trouvé, sans chercher le plus proche.
+     */
+    public boolean isOccluded(Ray ray, double tMin, double tMax) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return isOccluded(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), tMin, tMax, new int[stackSize]);
+    }
+
+    /**
+     * Variante sans allocation de isOccluded, avec une pile fournie par l'appelant.
+     */
+    public boolean isOccluded(double ox, double oy, double oz, double dx, double dy, double dz,
+                              double tMin, double tMax, int[] stack) {
+        return isOccluded(ox, oy, oz, dx, dy, dz, tMin, tMax, stack, null);
+    }
+
+    /**
+     * isOccluded dont les tests sont comptés dans counters (ignoré s'il est null).
+     */
+    public boolean isOccluded(double ox, double oy, double oz, double dx, double dy, double dz,
+                              double tMin, double tMax, int[] stack, IntersectionCounters counters) {
+        return findOccluder(ox, oy, oz, dx, dy, dz, tMin, tMax, stack, counters) >= 0;
+    }
+
+    /**
+     * Variante de isOccluded qui retourne la référence du premier obstacle trouvé, ou -1.
+     * Cette référence peut être testée seule par occludes, par exemple pour le rayon d'ombre d'un pixel voisin.
+     */
+    @Override
+    public int findOccluder(double ox, double oy, double oz, double dx, double dy, double dz,
+                            double tMin, double tMax, int[] stack, IntersectionCounters counters) {
+        for (int ref : unbounded) {
+            if (counters != null) {
+                counters.countTests(shapeKinds[ref], 1);
+            }
+            if (shapes[ref].anyHit(ox, oy, oz, dx, dy, dz, tMin, tMax)) {
+                return ref;
+            }
+        }
+
+        if (nodeCount.length == 0) {
+            return -1;
+        }
+
+        double invDx = 1.0 / dx, invDy = 1.0 / dy, invDz = 1.0 / dz;
+
+        int sp = 0;
+        stack[sp++] = 0;
+
+        while (sp > 0) {
+            int node = stack[--sp];
+
+            if (counters != null) {
+                counters.countNodes(1);
+            }
+            if (!intersectsBox(nodeBounds, node * 6, ox, oy, oz, invDx, invDy, invDz, tMax)) {
+                continue;
+            }
+
+            int count = nodeCount[node];
+            if (count > 0) {
+                int first = nodeOffset[node];
+                for (int i = first; i < first + count; i++) {
+                    if (counters != null) {
+                        counters.countTests(kindOf(primitives[i]), 1);
+                    }
+                    if (anyHit(primitives[i], ox, oy, oz, dx, dy, dz, tMin, tMax)) {
+                        return primitives[i];
+                    }
+                }
+            } else {
+                stack[sp++] = nodeOffset[node];
+                stack[sp++] = node + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Indique si la primitive ref (retournée par findOccluder) coupe le rayon strictement entre tMin et tMax.
+     * Le test est celui du parcours : un résultat positif donne la même réponse que isOccluded.
+     */
+    @Override
+    public boolean occludes(int ref, double ox, double oy, double oz, double dx, double dy, double dz,
+                            double tMin, double tMax, IntersectionCounters counters) {
+        if (counters != null) {
+            counters.countTests(kindOf(ref), 1);
+        }
+        return anyHit(ref, ox, oy, oz, dx, dy, dz, tMin, tMax);
+    }
+
+    /** Nombre de nœuds de la hiérarchie aplatie. */
+    public int getNodeCount() {
+        return nodeCount.length;
+    }
+
+    private int kindOf(int ref) {
+        return ref < shapes.length ? shapeKinds[ref] : IntersectionCounters.TRIANGLE;
+    }
+
+    private double closestHit(int ref, double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        if (ref < shapes.length) {
+            return shapes[ref].closestHit(ox, oy, oz, dx, dy, dz, tMin, tMax);
+        }
+        return mesh.closestHit(ref - shapes.length, ox, oy, oz, dx, dy, dz, tMin, tMax);
+    }
+
+    private boolean anyHit(int ref, double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        if (ref < shapes.length) {
+            return shapes[ref].anyHit(ox, oy, oz, dx, dy, dz, tMin, tMax);
+        }
+        return mesh.anyHit(ref - shapes.length, ox, oy, oz, dx, dy, dz, tMin, tMax);
+    }
+
+    static boolean isCloser(double t, int ref, double minT, int closest) {
+        return t < minT || (t == minT && t != Shape.NO_HIT && ref < closest);
+    }
+
+    private static boolean directionIsNegative(int axis, double invDx, double invDy, double invDz) {
+        switch (axis) {
+            case 0:
+                return invDx < 0;
+            case 1:
+                return invDy < 0;
+            default:
+                return invDz < 0;
+        }
+    }
+
+    /**
+     * Test rayon-boîte par la méthode des dalles (slabs), restreint à l'intervalle [0, tMax].
+     * La boîte occupe bounds[b] à bounds[b + 5] (min x, y, z puis max x, y, z).
+     * Les comparaisons écrites explicitement ignorent les NaN produits par 0 * infini.
+     */
+    static boolean intersectsBox(double[] bounds, int b, double ox, double oy, double oz,
+                                 double invDx, double invDy, double invDz, double tMax) {
+        double tNear = 0.0;
+        double tFar = tMax * (1.0 + SLAB_PADDING);
+
+        double t1 = (bounds[b] - ox) * invDx;
+        double t2 = (bounds[b + 3] - ox) * invDx;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        t1 = (bounds[b + 1] - oy) * invDy;
+        t2 = (bounds[b + 4] - oy) * invDy;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        t1 = (bounds[b + 2] - oz) * invDz;
+        t2 = (bounds[b + 5] - oz) * invDz;
+        if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        return tNear * (1.0 - SLAB_PADDING) <= tFar * (1.0 + SLAB_PADDING);
+    }
+
+    /**
+     * Recopie l'arbre en profondeur d'abord dans les tableaux plats :
+     * l'enfant gauche suit directement son parent, l'enfant droit est référencé par nodeOffset.
+     * @return L'indice du prochain nœud libre.
+     */
+    private int flatten(BuildNode node, int index) {
+        System.arraycopy(node.bounds, 0, nodeBounds, index * 6, 6);
+        nodeAxis[index] = node.axis;
+
+        if (node.isLeaf()) {
+            nodeOffset[index] = node.first;
+            nodeCount[index] = node.count;
+            return index + 1;
+        }
+
+        int next = flatten(node.left, index + 1);
+        nodeOffset[index] = next;
+        nodeCount[index] = 0;
+        return flatten(node.right, next);
+    }
+
+    /**
+     * Nœud temporaire de construction, avant aplatissement.
+     */
+    private static final class BuildNode {
+        private final double[] bounds;
+        private int first;
+        private int count;
+        private int axis;
+        private BuildNode left;
+        private BuildNode right;
+
+        private BuildNode(double[] bounds) {
+            this.bounds = bounds;
+        }
+
+        private boolean isLeaf() {
+            return left == null;
+        }
+
+        private int size() {
+            return isLeaf() ? 1 : 1 + left.size() + right.size();
+        }
+
+        private int depth() {
+            return isLeaf() ? 1 : 1 + Math.max(left.depth(), right.depth());
+        }
+    }
+
+    /**
+     * Construction SAH par intervalles. Chaque tâche travaille sur une plage disjointe du tableau
+     * d'indices, ce qui permet de traiter les deux enfants en parallèle sans synchronisation.
+     */
+    private static final class Builder {
+        private final double[] boxes;
+        private final double[] centroids;
+        private final int[] indices;
+
+        private Builder(double[] boxes, int n) {
+            this.boxes = boxes;
+            this.centroids = new double[n * 3];
+            this.indices = new int[n];
+
+            for (int i = 0; i < n; i++) {
+                for (int axis = 0; axis < 3; axis++) {
+                    centroids[i * 3 + axis] = (boxes[i * 6 + axis] + boxes[i * 6 + 3 + axis]) * 0.5;
+                }
+                indices[i] = i;
+            }
+        }
+
+        private RecursiveTask<BuildNode> task(int start, int end) {
+            return new RecursiveTask<>() {
+                @Override
+                protected BuildNode compute() {
+                    return build(start, end);
+                }
+            };
+        }
+
+        private BuildNode build(int start, int end) {
+            double[] bounds = emptyBounds();
+            double[] centroidBounds = emptyBounds();
+            for (int i = start; i < end; i++) {
+                int prim = indices[i];
+                for (int axis = 0; axis < 3; axis++) {
+                    bounds[axis] = Math.min(bounds[axis], boxes[prim * 6 + axis]);
+                    bounds[axis + 3] = Math.max(bounds[axis + 3], boxes[prim * 6 + 3 + axis]);
+                    double c = centroids[prim * 3 + axis];
+                    centroidBounds[axis] = Math.min(centroidBounds[axis], c);
+                    centroidBounds[axis + 3] = Math.max(centroidBounds[axis + 3], c);
+                }
+            }
+
+            BuildNode node = new BuildNode(bounds);
+            int count = end - start;
+
+            if (count <= MAX_LEAF_SIZE) {
+                return makeLeaf(node, start, count);
+            }
+
+            // Recherche du meilleur plan de coupe sur les trois axes.
+            double bestCost = Double.POSITIVE_INFINITY;
+            int bestAxis = -1;
+            int bestSplit = -1;
+
+            for (int axis = 0; axis < 3; axis++) {
+                double cMin = centroidBounds[axis];
+                double extent = centroidBounds[axis + 3] - cMin;
+                if (extent <= 0) {
+                    continue;
+                }
+
+                int[] binCounts = new int[BIN_COUNT];
+                double[] binBounds = new double[BIN_COUNT * 6];
+                for (int b = 0; b < BIN_COUNT; b++) {
+                    resetBounds(binBounds, b * 6);
+                }
+
+                for (int i = start; i < end; i++) {
+                    int prim = indices[i];
+                    int b = binIndex(centroids[prim * 3 + axis], cMin, extent);
+                    binCounts[b]++;
+                    growBounds(binBounds, b * 6, boxes, prim * 6);
+                }
+
+                // Balayage de droite à gauche pour les aires cumulées, puis de gauche à droite.
+                double[] rightArea = new double[BIN_COUNT];
+                int[] rightCount = new int[BIN_COUNT];
+                double[] acc = emptyBounds();
+                int accCount = 0;
+                for (int b = BIN_COUNT - 1; b > 0; b--) {
+                    growBounds(acc, 0, binBounds, b * 6);
+                    accCount += binCounts[b];
+                    rightArea[b] = area(acc, 0);
+                    rightCount[b] = accCount;
+                }
+
+                acc = emptyBounds();
+                accCount = 0;
+                for (int split = 1; split < BIN_COUNT; split++) {
+                    growBounds(acc, 0, binBounds, (split - 1) * 6);
+                    accCount += binCounts[split - 1];
+                    if (accCount == 0 || rightCount[split] == 0) {
+                        continue;
+                    }
+                    double cost = area(acc, 0) * accCount + rightArea[split] * rightCount[split];
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestSplit = split;
+                    }
+                }
+            }
+
+            int mid;
+            if (bestAxis < 0) {
+                // Tous les centroïdes sont confondus : coupe arbitraire au milieu de la plage.
+                if (count <= MAX_FORCED_LEAF_SIZE) {
+                    return makeLeaf(node, start, count);
+                }
+                mid = (start + end) >>> 1;
+                node.axis = 0;
+            } else {
+                double parentArea = area(bounds, 0);
+                double splitCost = TRAVERSAL_COST + (parentArea > 0 ? bestCost / parentArea : count);
+                if (splitCost >= count && count <= MAX_FORCED_LEAF_SIZE) {
+                    return makeLeaf(node, start, count);
+                }
+                mid = partition(start, end, bestAxis, bestSplit, centroidBounds);
+                node.axis = bestAxis;
+            }
+
+            if (count >= PARALLEL_THRESHOLD) {
+                RecursiveTask<BuildNode> leftTask = task(start, mid);
+                leftTask.fork();
+                node.right = build(mid, end);
+                node.left = leftTask.join();
+            } else {
+                node.left = build(start, mid);
+                node.right = build(mid, end);
+            }
+            return node;
+        }
+
+        private int partition(int start, int end, int axis, int split, double[] centroidBounds) {
+            double cMin = centroidBounds[axis];
+            double extent = centroidBounds[axis + 3] - cMin;
+            int i = start;
+            int j = end - 1;
+            while (i <= j) {
+                if (binIndex(centroids[indices[i] * 3 + axis], cMin, extent) < split) {
+                    i++;
+                } else {
+                    int tmp = indices[i];
+                    indices[i] = indices[j];
+                    indices[j] = tmp;
+                    j--;
+                }
+            }
+            return i;
+        }
+
+        private static BuildNode makeLeaf(BuildNode node, int start, int count) {
+            node.first = start;
+            node.count = count;
+            return node;
+        }
+
+        private static int binIndex(double c, double cMin, double extent) {
+            int b = (int) ((c - cMin) * BIN_COUNT / extent);
+            return Math.min(Math.max(b, 0), BIN_COUNT - 1);
+        }
+
+        private static double[] emptyBounds() {
+            double[] bounds = new double[6];
+            resetBounds(bounds, 0);
+            return bounds;
+        }
+
+        private static void resetBounds(double[] bounds, int offset) {
+            for (int axis = 0; axis < 3; axis++) {
+                bounds[offset + axis] = Double.POSITIVE_INFINITY;
+                bounds[offset + 3 + axis] = Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        private static void growBounds(double[] target, int offset, double[] source, int sourceOffset) {
+            for (int axis = 0; axis < 3; axis++) {
+                target[offset + axis] = Math.min(target[offset + axis], source[sourceOffset + axis]);
+                target[offset + 3 + axis] = Math.max(target[offset + 3 + axis], source[sourceOffset + 3 + axis]);
+            }
+        }
+
+        private static double area(double[] bounds, int offset) {
+            double dx = bounds[offset + 3] - bounds[offset];
+            double dy = bounds[offset + 4] - bounds[offset + 1];
+            double dz = bounds[offset + 5] - bounds[offset + 2];
+            if (dx < 0 || dy < 0 || dz < 0) {
+                return 0.0;
+            }
+            return 2.0 * (dx * dy + dy * dz + dz * dx);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package raytracer.accel;
+
+import raytracer.math.Point;
+
+/**
+ * Boîte englobante alignée sur les axes (AABB), définie par ses coins minimum et maximum.
+ */
+public final class BoundingBox {
+    private final Point min;
+    private final Point max;
+
+    public BoundingBox(Point min, Point max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Construit la plus petite boîte contenant les points donnés.
+     */
+    public static BoundingBox of(Point... points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+
+        for (Point p : points) {
+            minX = Math.min(minX, p.getX());
+            minY = Math.min(minY, p.getY());
+            minZ = Math.min(minZ, p.getZ());
+            maxX = Math.max(maxX, p.getX());
+            maxY = Math.max(maxY, p.getY());
+            maxZ = Math.max(maxZ, p.getZ());
+        }
+        return new BoundingBox(new Point(minX, minY, minZ), new Point(maxX, maxY, maxZ));
+    }
+
+    public Point getMin() {
+        return min;
+    }
+
+    public Point getMax() {
+        return max;
+    }
+
+    /**
+     * Union de deux boîtes : la plus petite boîte contenant les deux.
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(
+                new Point(Math.min(min.getX(), other.min.getX()), Math.min(min.getY(), other.min.getY()), Math.min(min.getZ(), other.min.getZ())),
+                new Point(Math.max(max.getX(), other.max.getX()), Math.max(max.getY(), other.max.getY()), Math.max(max.getZ(), other.max.getZ())));
+    }
+
+    /**
+     * Aire de la surface de la boîte, utilisée par l'heuristique SAH.
+     */
+    public double surfaceArea() {
+        double dx = max.getX() - min.getX();
+        double dy = max.getY() - min.getY();
+        double dz = max.getZ() - min.getZ();
+        return 2.0 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    public Point centroid() {
+        return new Point((min.getX() + max.getX()) * 0.5, (min.getY() + max.getY()) * 0.5, (min.getZ() + max.getZ()) * 0.5);
+    }
+}
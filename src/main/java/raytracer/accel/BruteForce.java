@@ -0,0 +1,54 @@
+package raytracer.accel;
+
+import raytracer.trace.HitRecord;
+
+/**
+ * Structure de référence : chaque rayon teste toutes les primitives, dans l'ordre de la scène.
+ * Sans construction ni parcours, c'est le choix le plus rapide pour une poignée de formes.
+ */
+final class BruteForce extends PrimitiveAccelerator {
+
+    BruteForce(Primitives primitives) {
+        super(primitives);
+    }
+
+    @Override
+    public String getName() {
+        return AcceleratorType.BRUTE_FORCE.getName();
+    }
+
+    @Override
+    int traverseClosest(double ox, double oy, double oz, double dx, double dy, double dz,
+                        double tMin, HitRecord hit, IntersectionCounters counters) {
+        int closest = closestUnbounded(ox, oy, oz, dx, dy, dz, tMin, hit, counters);
+        double minT = hit.getT();
+        for (int i = 0; i < primitives.boundedCount(); i++) {
+            int ref = primitives.ref(i);
+            if (counters != null) {
+                counters.countTests(primitives.kindOf(ref), 1);
+            }
+            double t = primitives.closestHit(ref, ox, oy, oz, dx, dy, dz, tMin, Math.nextUp(minT));
+            if (BVH.isCloser(t, ref, minT, closest)) {
+                closest = ref;
+                minT = t;
+            }
+        }
+        hit.setT(minT);
+        return closest;
+    }
+
+    @Override
+    public int findOccluder(double ox, double oy, double oz, double dx, double dy, double dz,
+                            double tMin, double tMax, int[] stack, IntersectionCounters counters) {
+        int occluder = unboundedOccluder(ox, oy, oz, dx, dy, dz, tMin, tMax, counters);
+        if (occluder >= 0) {
+            return occluder;
+        }
+        for (int i = 0; i < primitives.boundedCount(); i++) {
+            if (occludes(primitives.ref(i), ox, oy, oz, dx, dy, dz, tMin, tMax, counters)) {
+                return primitives.ref(i);
+            }
+        }
+        return -1;
+    }
+}
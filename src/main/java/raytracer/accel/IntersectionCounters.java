@@ -0,0 +1,80 @@
+package raytracer.accel;
+
+import raytracer.geometry.Plane;
+import raytracer.geometry.Shape;
+import raytracer.geometry.Sphere;
+import raytracer.geometry.Triangle;
+
+/**
+ * Compteurs des parcours de la BVH : nœuds visités et tests rayon-primitive par type de primitive.
+ * Un objet appartient à un seul thread et n'est pas synchronisé ; les totaux sont faits à la fin du rendu (add).
+ */
+public final class IntersectionCounters {
+    public static final int SPHERE = 0;
+    public static final int PLANE = 1;
+    public static final int TRIANGLE = 2;
+    public static final int OTHER = 3;
+    public static final int KIND_COUNT = 4;
+
+    private static final String[] KIND_NAMES = {"sphere", "plane", "triangle", "other"};
+
+    private final long[] tests = new long[KIND_COUNT];
+    private long nodeVisits;
+
+    /**
+     * Type de primitive (SPHERE, PLANE, TRIANGLE ou OTHER) d'une forme.
+     */
+    static int kindOf(Shape shape) {
+        if (shape instanceof Sphere) {
+            return SPHERE;
+        }
+        if (shape instanceof Plane) {
+            return PLANE;
+        }
+        return shape instanceof Triangle ? TRIANGLE : OTHER;
+    }
+
+    public static String getKindName(int kind) {
+        return KIND_NAMES[kind];
+    }
+
+    void countNodes(int count) {
+        nodeVisits += count;
+    }
+
+    void countTests(int kind, int count) {
+        tests[kind] += count;
+    }
+
+    /**
+     * @return Nombre de tests rayon-primitive du type kind (un par rayon pour les paquets).
+     */
+    public long getTests(int kind) {
+        return tests[kind];
+    }
+
+    public long getTotalTests() {
+        long total = 0;
+        for (long count : tests) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return Nombre de tests rayon-boîte sur les nœuds de la hiérarchie (un par rayon pour les paquets).
+     */
+    public long getNodeVisits() {
+        return nodeVisits;
+    }
+
+    /**
+     * Ajoute les compteurs de other à ceux-ci.
+     */
+    public void add(IntersectionCounters other) {
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            tests[kind] += other.tests[kind];
+        }
+        nodeVisits += other.nodeVisits;
+    }
+}
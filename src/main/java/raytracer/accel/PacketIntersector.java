@@ -0,0 +1,45 @@
+package raytracer.accel;
+
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Shape;
+
+/**
+ * Noyaux d'intersection d'un paquet de rayons avec une boîte ou une primitive.
+ * Les voies à traiter sont données par un masque (bit i pour la voie i). Un noyau peut en traiter davantage :
+ * une voie testée contre une primitive hors de sa boîte garde le même résultat. Pour chaque voie, une primitive
+ * touchée à une distance dans ]tMin, t de la voie] remplace le résultat courant selon la même règle que
+ * le parcours individuel (plus proche, puis ordre de la scène en cas d'égalité).
+ */
+interface PacketIntersector {
+
+    /**
+     * Noyaux vectoriels si le module jdk.incubator.vector est présent (java --add-modules jdk.incubator.vector),
+     * noyaux scalaires sinon. La classe vectorielle n'est chargée que dans le premier cas.
+     */
+    PacketIntersector DEFAULT = create();
+
+    static PacketIntersector create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (PacketIntersector) Class.forName("raytracer.accel.VectorPacketIntersector")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarPacketIntersector();
+            }
+        }
+        return new ScalarPacketIntersector();
+    }
+
+    boolean isVectorized();
+
+    /**
+     * Test rayon-boîte (voir BVH.intersectsBox) borné par la distance courante de chaque voie.
+     * @param bounds Boîtes (min x, y, z puis max x, y, z), celle testée commençant à offset.
+     * @return Un masque, parmi mask, contenant au moins les voies dont le rayon coupe la boîte.
+     */
+    int intersectsBox(double[] bounds, int offset, RayPacket packet, int mask);
+
+    void intersect(Shape shape, int ref, RayPacket packet, int mask, double tMin);
+
+    void intersect(Mesh mesh, int tri, int ref, RayPacket packet, int mask, double tMin);
+}
@@ -0,0 +1,114 @@
+package raytracer.accel;
+
+import raytracer.trace.HitRecord;
+
+/**
+ * Base des structures sans pile de parcours (grille, force brute) : elles ne fournissent que la recherche
+ * de la plus proche primitive et de l'occultation ; les paquets sont tracés voie par voie.
+ */
+abstract class PrimitiveAccelerator implements Accelerator {
+    protected final Primitives primitives;
+
+    PrimitiveAccelerator(Primitives primitives) {
+        this.primitives = primitives;
+    }
+
+    /**
+     * Plus proche intersection au-delà de tMin : écrit la distance dans hit et retourne la référence
+     * de la primitive touchée, ou -1.
+     */
+    abstract int traverseClosest(double ox, double oy, double oz, double dx, double dy, double dz,
+                                 double tMin, HitRecord hit, IntersectionCounters counters);
+
+    @Override
+    public int getStackSize() {
+        return 1;
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        return primitives.getRetainedBytes();
+    }
+
+    @Override
+    public boolean closestHit(double ox, double oy, double oz, double dx, double dy, double dz,
+                              double tMin, int[] stack, HitRecord hit, IntersectionCounters counters) {
+        int closest = traverseClosest(ox, oy, oz, dx, dy, dz, tMin, hit, counters);
+        if (closest < 0) {
+            return false;
+        }
+        primitives.recordHit(closest, ox, oy, oz, dx, dy, dz, hit);
+        return true;
+    }
+
+    @Override
+    public void closestHit(RayPacket packet, double tMin, int[] stack, IntersectionCounters counters) {
+        HitRecord hit = packet.hit;
+        packet.begin();
+        for (int lane = 0; lane < packet.size(); lane++) {
+            int ref = traverseClosest(packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+                    packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], tMin, hit, counters);
+            packet.t[lane] = hit.getT();
+            packet.ref[lane] = ref;
+        }
+    }
+
+    @Override
+    public boolean recordHit(RayPacket packet, int lane, HitRecord hit) {
+        int ref = (int) packet.ref[lane];
+        if (ref < 0) {
+            return false;
+        }
+        hit.setT(packet.t[lane]);
+        primitives.recordHit(ref, packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+                packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], hit);
+        return true;
+    }
+
+    @Override
+    public boolean occludes(int ref, double ox, double oy, double oz, double dx, double dy, double dz,
+                            double tMin, double tMax, IntersectionCounters counters) {
+        if (counters != null) {
+            counters.countTests(primitives.kindOf(ref), 1);
+        }
+        return primitives.anyHit(ref, ox, oy, oz, dx, dy, dz, tMin, tMax);
+    }
+
+    /**
+     * Teste les formes non bornées : écrit dans hit la plus petite distance trouvée (Double.MAX_VALUE sinon)
+     * et retourne la référence correspondante, ou -1. Point de départ commun des parcours.
+     */
+    final int closestUnbounded(double ox, double oy, double oz, double dx, double dy, double dz,
+                               double tMin, HitRecord hit, IntersectionCounters counters) {
+        double minT = Double.MAX_VALUE;
+        int closest = -1;
+        for (int ref : primitives.unbounded()) {
+            if (counters != null) {
+                counters.countTests(primitives.kindOf(ref), 1);
+            }
+            double t = primitives.closestHit(ref, ox, oy, oz, dx, dy, dz, tMin, Math.nextUp(minT));
+            if (BVH.isCloser(t, ref, minT, closest)) {
+                closest = ref;
+                minT = t;
+            }
+        }
+        hit.setT(minT);
+        return closest;
+    }
+
+    /**
+     * Première forme non bornée qui coupe le rayon entre tMin et tMax, ou -1.
+     */
+    final int unboundedOccluder(double ox, double oy, double oz, double dx, double dy, double dz,
+                                double tMin, double tMax, IntersectionCounters counters) {
+        for (int ref : primitives.unbounded()) {
+            if (counters != null) {
+                counters.countTests(primitives.kindOf(ref), 1);
+            }
+            if (primitives.anyHit(ref, ox, oy, oz, dx, dy, dz, tMin, tMax)) {
+                return ref;
+            }
+        }
+        return -1;
+    }
+}
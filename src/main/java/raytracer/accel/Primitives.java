@@ -0,0 +1,146 @@
+package raytracer.accel;
+
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Shape;
+import raytracer.math.Point;
+import raytracer.trace.HitRecord;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Primitives d'une scène telles que les voient les structures d'accélération : formes isolées puis faces
+ * du maillage, référencées comme dans la BVH. Les formes non bornées (plans) sont mises à part ;
+ * les autres primitives sont rangées avec leur boîte englobante.
+ */
+final class Primitives {
+    private final Shape[] shapes;
+    private final Mesh mesh;
+    private final int[] unbounded;
+    private final int[] shapeKinds;
+    private final int[] refs;
+    private final double[] bounds;
+
+    Primitives(List<Shape> shapes, Mesh mesh) {
+        this.shapes = shapes.toArray(new Shape[0]);
+        this.mesh = mesh;
+        mesh.prepare();
+
+        int triangleCount = mesh.getTriangleCount();
+        int[] bounded = new int[this.shapes.length + triangleCount];
+        int[] infinite = new int[this.shapes.length];
+        double[] boxes = new double[bounded.length * 6];
+        int n = 0;
+        int u = 0;
+        this.shapeKinds = new int[this.shapes.length];
+        for (int i = 0; i < this.shapes.length; i++) {
+            shapeKinds[i] = IntersectionCounters.kindOf(this.shapes[i]);
+            Optional<BoundingBox> box = this.shapes[i].getBoundingBox();
+            if (box.isEmpty()) {
+                infinite[u++] = i;
+                continue;
+            }
+            Point min = box.get().getMin();
+            Point max = box.get().getMax();
+            boxes[n * 6] = min.getX();
+            boxes[n * 6 + 1] = min.getY();
+            boxes[n * 6 + 2] = min.getZ();
+            boxes[n * 6 + 3] = max.getX();
+            boxes[n * 6 + 4] = max.getY();
+            boxes[n * 6 + 5] = max.getZ();
+            bounded[n++] = i;
+        }
+        for (int tri = 0; tri < triangleCount; tri++) {
+            mesh.getBounds(tri, boxes, n * 6);
+            bounded[n++] = this.shapes.length + tri;
+        }
+
+        this.unbounded = Arrays.copyOf(infinite, u);
+        this.refs = Arrays.copyOf(bounded, n);
+        this.bounds = Arrays.copyOf(boxes, n * 6);
+    }
+
+    Shape[] shapes() {
+        return shapes;
+    }
+
+    Mesh mesh() {
+        return mesh;
+    }
+
+    /**
+     * Type de chaque forme pour les compteurs (voir IntersectionCounters.kindOf). Tableau partagé.
+     */
+    int[] shapeKinds() {
+        return shapeKinds;
+    }
+
+    /**
+     * Nombre de primitives bornées (formes avec boîte et faces du maillage).
+     */
+    int boundedCount() {
+        return refs.length;
+    }
+
+    /**
+     * Référence de la i-ème primitive bornée, dans l'ordre de la scène.
+     */
+    int ref(int i) {
+        return refs[i];
+    }
+
+    /**
+     * Boîtes des primitives bornées, 6 valeurs par primitive (min x, y, z puis max x, y, z). Tableau partagé.
+     */
+    double[] bounds() {
+        return bounds;
+    }
+
+    /**
+     * Formes non bornées, testées par chaque rayon. Tableau partagé.
+     */
+    int[] unbounded() {
+        return unbounded;
+    }
+
+    /**
+     * Estimation de la mémoire occupée par les tableaux de références et de boîtes.
+     */
+    long getRetainedBytes() {
+        long ints = (long) unbounded.length + shapeKinds.length + refs.length;
+        return ints * Integer.BYTES + (long) bounds.length * Double.BYTES + (long) shapes.length * Long.BYTES;
+    }
+
+    int kindOf(int ref) {
+        return ref < shapes.length ? shapeKinds[ref] : IntersectionCounters.TRIANGLE;
+    }
+
+    double closestHit(int ref, double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        if (ref < shapes.length) {
+            return shapes[ref].closestHit(ox, oy, oz, dx, dy, dz, tMin, tMax);
+        }
+        return mesh.closestHit(ref - shapes.length, ox, oy, oz, dx, dy, dz, tMin, tMax);
+    }
+
+    boolean anyHit(int ref, double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        if (ref < shapes.length) {
+            return shapes[ref].anyHit(ox, oy, oz, dx, dy, dz, tMin, tMax);
+        }
+        return mesh.anyHit(ref - shapes.length, ox, oy, oz, dx, dy, dz, tMin, tMax);
+    }
+
+    /**
+     * Complète l'enregistrement hit (dont la distance est déjà écrite) pour la primitive ref : point, normale, référence.
+     */
+    void recordHit(int ref, double ox, double oy, double oz, double dx, double dy, double dz, HitRecord hit) {
+        double t = hit.getT();
+        hit.setPoint(ox + dx * t, oy + dy * t, oz + dz * t);
+        hit.setPrimitive(ref);
+
+        if (ref < shapes.length) {
+            shapes[ref].computeNormal(hit, ox, oy, oz, dx, dy, dz);
+        } else {
+            mesh.computeNormal(ref - shapes.length, hit);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package raytracer.accel;
+
+import raytracer.trace.HitRecord;
+
+/**
+ * Paquet de rayons tracés ensemble dans la BVH (rayons primaires de pixels voisins).
+ * Les rayons sont rangés en structure de tableaux, une voie (lane) par rayon, pour que les noyaux
+ * d'intersection puissent traiter plusieurs voies à la fois. Le résultat de chaque voie (distance
+ * et primitive touchée) est identique à celui d'une requête individuelle BVH.closestHit.
+ * Un paquet est réutilisé d'un appel à l'autre par un même thread ; il n'est pas partageable.
+ */
+public final class RayPacket {
+    public static final int MAX_SIZE = 16;
+
+    final double[] originX = new double[MAX_SIZE];
+    final double[] originY = new double[MAX_SIZE];
+    final double[] originZ = new double[MAX_SIZE];
+    final double[] directionX = new double[MAX_SIZE];
+    final double[] directionY = new double[MAX_SIZE];
+    final double[] directionZ = new double[MAX_SIZE];
+    final double[] inverseX = new double[MAX_SIZE];
+    final double[] inverseY = new double[MAX_SIZE];
+    final double[] inverseZ = new double[MAX_SIZE];
+
+    // Distance et référence BVH de la primitive la plus proche trouvée pour chaque voie (-1 si aucune).
+    // Les références sont rangées en double (exactes jusqu'à 2^53) pour être mêlées aux distances dans les noyaux vectoriels.
+    final double[] t = new double[MAX_SIZE];
+    final double[] ref = new double[MAX_SIZE];
+
+    // Premier sommet et arêtes du triangle en cours de test (voir Mesh.getTriangleData).
+    final double[] triangle = new double[9];
+    // Enregistrement de travail des structures qui tracent le paquet voie par voie (PrimitiveAccelerator).
+    final HitRecord hit = new HitRecord();
+
+    private final PacketIntersector intersector;
+    private int size;
+
+    /**
+     * Paquet utilisant les noyaux vectoriels (jdk.incubator.vector) lorsque le module est chargé,
+     * les noyaux scalaires sinon.
+     */
+    public RayPacket() {
+        this(PacketIntersector.DEFAULT);
+    }
+
+    RayPacket(PacketIntersector intersector) {
+        this.intersector = intersector;
+    }
+
+    PacketIntersector getIntersector() {
+        return intersector;
+    }
+
+    /**
+     * @return true si les intersections sont calculées avec l'API Vector.
+     */
+    public boolean isVectorized() {
+        return intersector.isVectorized();
+    }
+
+    /**
+     * Vide le paquet et fixe son nombre de rayons.
+     */
+    public void reset(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("La taille d'un paquet doit être comprise entre 1 et " + MAX_SIZE + ".");
+        }
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void setRay(int lane, double ox, double oy, double oz, double dx, double dy, double dz) {
+        originX[lane] = ox;
+        originY[lane] = oy;
+        originZ[lane] = oz;
+        directionX[lane] = dx;
+        directionY[lane] = dy;
+        directionZ[lane] = dz;
+    }
+
+    public double getDirectionX(int lane) {
+        return directionX[lane];
+    }
+
+    public double getDirectionY(int lane) {
+        return directionY[lane];
+    }
+
+    public double getDirectionZ(int lane) {
+        return directionZ[lane];
+    }
+
+    /**
+     * @return true si le rayon de la voie lane a touché une forme lors du dernier parcours.
+     */
+    public boolean isHit(int lane) {
+        return ref[lane] >= 0;
+    }
+
+    /**
+     * Distance de l'intersection trouvée pour la voie lane.
+     */
+    public double getT(int lane) {
+        return t[lane];
+    }
+
+    /**
+     * Prépare le parcours : inverses des directions, aucune intersection trouvée.
+     * Les voies inutilisées reçoivent une distance de -inf : aucune boîte ni primitive ne peut les retenir.
+     * @return Le masque des voies actives (bit i pour la voie i).
+     */
+    int begin() {
+        for (int lane = 0; lane < MAX_SIZE; lane++) {
+            inverseX[lane] = 1.0 / directionX[lane];
+            inverseY[lane] = 1.0 / directionY[lane];
+            inverseZ[lane] = 1.0 / directionZ[lane];
+            t[lane] = lane < size ? Double.MAX_VALUE : Double.NEGATIVE_INFINITY;
+            ref[lane] = -1;
+        }
+        return (1 << size) - 1;
+    }
+}
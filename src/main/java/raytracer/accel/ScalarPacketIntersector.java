@@ -0,0 +1,56 @@
+package raytracer.accel;
+
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Shape;
+
+/**
+ * Noyaux de repli : chaque voie active est traitée par les intersections scalaires des formes.
+ * Utilisés lorsque l'API Vector n'est pas disponible, et pour les formes sans noyau vectoriel.
+ */
+final class ScalarPacketIntersector implements PacketIntersector {
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public int intersectsBox(double[] bounds, int offset, RayPacket packet, int mask) {
+        int result = 0;
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            int lane = Integer.numberOfTrailingZeros(bits);
+            if (BVH.intersectsBox(bounds, offset, packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+                    packet.inverseX[lane], packet.inverseY[lane], packet.inverseZ[lane], packet.t[lane])) {
+                result |= 1 << lane;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void intersect(Shape shape, int ref, RayPacket packet, int mask, double tMin) {
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            int lane = Integer.numberOfTrailingZeros(bits);
+            double t = shape.closestHit(packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+                    packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], tMin, Math.nextUp(packet.t[lane]));
+            update(packet, lane, t, ref);
+        }
+    }
+
+    @Override
+    public void intersect(Mesh mesh, int tri, int ref, RayPacket packet, int mask, double tMin) {
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            int lane = Integer.numberOfTrailingZeros(bits);
+            double t = mesh.closestHit(tri, packet.originX[lane], packet.originY[lane], packet.originZ[lane],
+                    packet.directionX[lane], packet.directionY[lane], packet.directionZ[lane], tMin, Math.nextUp(packet.t[lane]));
+            update(packet, lane, t, ref);
+        }
+    }
+
+    private static void update(RayPacket packet, int lane, double t, int ref) {
+        if (BVH.isCloser(t, ref, packet.t[lane], (int) packet.ref[lane])) {
+            packet.t[lane] = t;
+            packet.ref[lane] = ref;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package raytracer.accel;
+
+import raytracer.trace.HitRecord;
+
+/**
+ * Grille uniforme : la boîte de la scène est découpée en cellules de même taille, chacune listant les primitives
+ * dont la boîte la recouvre. Un rayon parcourt les cellules qu'il traverse dans l'ordre (3D-DDA d'Amanatides et Woo)
+ * et s'arrête dès que l'intersection trouvée précède la sortie de la cellule courante.
+ * Adaptée aux primitives de tailles proches, réparties dans la scène ; une primitive qui recouvre plusieurs
+ * cellules est testée une fois par cellule traversée.
+ */
+final class UniformGrid extends PrimitiveAccelerator {
+    /** Nombre visé de cellules par primitive, à la manière de la grille de PBRT. */
+    private static final double CELLS_PER_PRIMITIVE = 3.0;
+    private static final int MAX_RESOLUTION = 128;
+    /**
+     * Marge relative (à la plus grande dimension de la scène) ajoutée aux boîtes : une primitive touchée sur la
+     * frontière de deux cellules est listée dans les deux, malgré les arrondis du parcours.
+     */
+    private static final double PADDING = 1e-7;
+
+    private final int[] resolution = new int[3];
+    private final double[] origin = new double[3];
+    private final double[] cellSize = new double[3];
+    private final double[] gridBounds = new double[6];
+    // Listes des cellules à la suite (format CSR) : la cellule c liste cellItems[cellStart[c] .. cellStart[c + 1] - 1].
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    UniformGrid(Primitives primitives) {
+        super(primitives);
+        int count = primitives.boundedCount();
+        double[] bounds = primitives.bounds();
+        if (count == 0) {
+            this.cellStart = new int[0];
+            this.cellItems = new int[0];
+            return;
+        }
+
+        double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int i = 0; i < count; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                min[axis] = Math.min(min[axis], bounds[i * 6 + axis]);
+                max[axis] = Math.max(max[axis], bounds[i * 6 + 3 + axis]);
+            }
+        }
+        double maxExtent = Math.max(max[0] - min[0], Math.max(max[1] - min[1], max[2] - min[2]));
+        double padding = maxExtent > 0.0 ? maxExtent * PADDING : PADDING;
+        double cellsPerUnit = CELLS_PER_PRIMITIVE * Math.cbrt(count) / (maxExtent + 2 * padding);
+        int cellCount = 1;
+        for (int axis = 0; axis < 3; axis++) {
+            origin[axis] = min[axis] - padding;
+            double extent = max[axis] - min[axis] + 2 * padding;
+            resolution[axis] = (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(extent * cellsPerUnit)));
+            cellSize[axis] = extent / resolution[axis];
+            gridBounds[axis] = origin[axis];
+            gridBounds[axis + 3] = origin[axis] + extent;
+            cellCount *= resolution[axis];
+        }
+
+        // Deux passes : nombre de primitives par cellule, puis remplissage des listes.
+        int[] cellRange = new int[6];
+        this.cellStart = new int[cellCount + 1];
+        for (int i = 0; i < count; i++) {
+            cellRange(bounds, i, padding, cellRange);
+            for (int z = cellRange[2]; z <= cellRange[5]; z++) {
+                for (int y = cellRange[1]; y <= cellRange[4]; y++) {
+                    for (int x = cellRange[0]; x <= cellRange[3]; x++) {
+                        cellStart[cellIndex(x, y, z) + 1]++;
+                    }
+                }
+            }
+        }
+        for (int c = 0; c < cellCount; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.cellItems = new int[cellStart[cellCount]];
+        int[] fill = new int[cellCount];
+        for (int i = 0; i < count; i++) {
+            cellRange(bounds, i, padding, cellRange);
+            for (int z = cellRange[2]; z <= cellRange[5]; z++) {
+                for (int y = cellRange[1]; y <= cellRange[4]; y++) {
+                    for (int x = cellRange[0]; x <= cellRange[3]; x++) {
+                        int cell = cellIndex(x, y, z);
+                        cellItems[cellStart[cell] + fill[cell]++] = primitives.ref(i);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return AcceleratorType.GRID.getName();
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        return super.getRetainedBytes() + ((long) cellStart.length + cellItems.length) * Integer.BYTES;
+    }
+
+    @Override
+    int traverseClosest(double ox, double oy, double oz, double dx, double dy, double dz,
+                        double tMin, HitRecord hit, IntersectionCounters counters) {
+        int closest = closestUnbounded(ox, oy, oz, dx, dy, dz, tMin, hit, counters);
+        double minT = hit.getT();
+        if (cellItems.length == 0) {
+            return closest;
+        }
+
+        double entry = entryDistance(ox, oy, oz, dx, dy, dz, minT);
+        if (entry < 0.0) {
+            return closest;
+        }
+
+        // État du parcours par axe : cellule courante, distance du prochain plan de cellule, pas entre deux plans.
+        double px = ox + dx * entry, py = oy + dy * entry, pz = oz + dz * entry;
+        int x = cellCoordinate(0, px), y = cellCoordinate(1, py), z = cellCoordinate(2, pz);
+        int stepX = dx < 0.0 ? -1 : 1, stepY = dy < 0.0 ? -1 : 1, stepZ = dz < 0.0 ? -1 : 1;
+        double nextX = nextCrossing(0, x, ox, dx), nextY = nextCrossing(1, y, oy, dy), nextZ = nextCrossing(2, z, oz, dz);
+        double deltaX = Math.abs(cellSize[0] / dx), deltaY = Math.abs(cellSize[1] / dy), deltaZ = Math.abs(cellSize[2] / dz);
+
+        while (true) {
+            if (counters != null) {
+                counters.countNodes(1);
+            }
+            int cell = cellIndex(x, y, z);
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                int ref = cellItems[i];
+                if (counters != null) {
+                    counters.countTests(primitives.kindOf(ref), 1);
+                }
+                double t = primitives.closestHit(ref, ox, oy, oz, dx, dy, dz, tMin, Math.nextUp(minT));
+                if (BVH.isCloser(t, ref, minT, closest)) {
+                    closest = ref;
+                    minT = t;
+                }
+            }
+
+            // Les cellules suivantes ne contiennent que des intersections au-delà de la sortie de celle-ci.
+            double exit = Math.min(nextX, Math.min(nextY, nextZ));
+            if (minT <= exit) {
+                break;
+            }
+            if (nextX == exit) {
+                x += stepX;
+                nextX += deltaX;
+                if (x < 0 || x >= resolution[0]) {
+                    break;
+                }
+            } else if (nextY == exit) {
+                y += stepY;
+                nextY += deltaY;
+                if (y < 0 || y >= resolution[1]) {
+                    break;
+                }
+            } else {
+                z += stepZ;
+                nextZ += deltaZ;
+                if (z < 0 || z >= resolution[2]) {
+                    break;
+                }
+            }
+        }
+
+        hit.setT(minT);
+        return closest;
+    }
+
+    @Override
+    public int findOccluder(double ox, double oy, double oz, double dx, double dy, double dz,
+                            double tMin, double tMax, int[] stack, IntersectionCounters counters) {
+        int occluder = unboundedOccluder(ox, oy, oz, dx, dy, dz, tMin, tMax, counters);
+        if (occluder >= 0 || cellItems.length == 0) {
+            return occluder;
+        }
+
+        double entry = entryDistance(ox, oy, oz, dx, dy, dz, tMax);
+        if (entry < 0.0) {
+            return -1;
+        }
+
+        double px = ox + dx * entry, py = oy + dy * entry, pz = oz + dz * entry;
+        int x = cellCoordinate(0, px), y = cellCoordinate(1, py), z = cellCoordinate(2, pz);
+        int stepX = dx < 0.0 ? -1 : 1, stepY = dy < 0.0 ? -1 : 1, stepZ = dz < 0.0 ? -1 : 1;
+        double nextX = nextCrossing(0, x, ox, dx), nextY = nextCrossing(1, y, oy, dy), nextZ = nextCrossing(2, z, oz, dz);
+        double deltaX = Math.abs(cellSize[0] / dx), deltaY = Math.abs(cellSize[1] / dy), deltaZ = Math.abs(cellSize[2] / dz);
+
+        while (true) {
+            if (counters != null) {
+                counters.countNodes(1);
+            }
+            int cell = cellIndex(x, y, z);
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                if (occludes(cellItems[i], ox, oy, oz, dx, dy, dz, tMin, tMax, counters)) {
+                    return cellItems[i];
+                }
+            }
+
+            double exit = Math.min(nextX, Math.min(nextY, nextZ));
+            if (exit >= tMax) {
+                return -1;
+            }
+            if (nextX == exit) {
+                x += stepX;
+                nextX += deltaX;
+                if (x < 0 || x >= resolution[0]) {
+                    return -1;
+                }
+            } else if (nextY == exit) {
+                y += stepY;
+                nextY += deltaY;
+                if (y < 0 || y >= resolution[1]) {
+                    return -1;
+                }
+            } else {
+                z += stepZ;
+                nextZ += deltaZ;
+                if (z < 0 || z >= resolution[2]) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Distance (au moins 0) à laquelle le rayon entre dans la grille avant tMax, ou -1 s'il la manque.
+     */
+    private double entryDistance(double ox, double oy, double oz, double dx, double dy, double dz, double tMax) {
+        double near = 0.0;
+        double far = tMax;
+        for (int axis = 0; axis < 3; axis++) {
+            double o = axis == 0 ? ox : axis == 1 ? oy : oz;
+            double inverse = 1.0 / (axis == 0 ? dx : axis == 1 ? dy : dz);
+            double t0 = (gridBounds[axis] - o) * inverse;
+            double t1 = (gridBounds[axis + 3] - o) * inverse;
+            // Rayon parallèle à l'axe : NaN quand l'origine est sur un plan de la grille, ignoré par les comparaisons.
+            double slabNear = Math.min(t0, t1);
+            double slabFar = Math.max(t0, t1);
+            if (slabNear > near) {
+                near = slabNear;
+            }
+            if (slabFar < far) {
+                far = slabFar;
+            }
+        }
+        return near <= far ? near : -1.0;
+    }
+
+    /**
+     * Distance à laquelle le rayon franchit le prochain plan de cellule sur axis, depuis la cellule cell.
+     */
+    private double nextCrossing(int axis, int cell, double o, double d) {
+        if (d == 0.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double plane = origin[axis] + (d > 0.0 ? cell + 1 : cell) * cellSize[axis];
+        return (plane - o) / d;
+    }
+
+    private int cellCoordinate(int axis, double p) {
+        int cell = (int) Math.floor((p - origin[axis]) / cellSize[axis]);
+        return Math.max(0, Math.min(resolution[axis] - 1, cell));
+    }
+
+    private int cellIndex(int x, int y, int z) {
+        return (z * resolution[1] + y) * resolution[0] + x;
+    }
+
+    /**
+     * Cellules recouvertes par la boîte i, élargie de padding : x, y, z minimaux puis maximaux.
+     */
+    private void cellRange(double[] bounds, int i, double padding, int[] range) {
+        for (int axis = 0; axis < 3; axis++) {
+            range[axis] = cellCoordinate(axis, bounds[i * 6 + axis] - padding);
+            range[axis + 3] = cellCoordinate(axis, bounds[i * 6 + 3 + axis] + padding);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package raytracer.accel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Shape;
+import raytracer.geometry.Sphere;
+
+/**
+ * Noyaux vectoriels (jdk.incubator.vector) : les voies du paquet sont traitées par blocs de la largeur
+ * SIMD préférée de la machine, les voies divergentes (rayon qui manque la forme, racine hors intervalle...)
+ * étant écartées par des masques. Toutes les voies d'un bloc sont calculées : tester un rayon contre une
+ * primitive hors de sa boîte ne change pas son résultat, et les voies au-delà de la taille du paquet sont
+ * neutralisées par RayPacket.begin(). Les masques ne quittent donc jamais les registres vectoriels.
+ * Chaque noyau reprend exactement la suite d'opérations (sans FMA) de l'intersection scalaire de la forme,
+ * les distances obtenues sont donc identiques bit à bit.
+ * Cette classe n'est chargée que si le module est présent, voir PacketIntersector.create().
+ */
+final class VectorPacketIntersector implements PacketIntersector {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    private final ScalarPacketIntersector scalar = new ScalarPacketIntersector();
+
+    VectorPacketIntersector() {
+        if (RayPacket.MAX_SIZE % LANES != 0) {
+            throw new IllegalStateException("Largeur SIMD non prise en charge: " + LANES);
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    /**
+     * Le paquet entier est retenu dès qu'une de ses voies coupe la boîte.
+     */
+    @Override
+    public int intersectsBox(double[] bounds, int offset, RayPacket packet, int mask) {
+        for (int base = 0; base < packet.size(); base += LANES) {
+
+            DoubleVector tNear = DoubleVector.zero(SPECIES);
+            DoubleVector tFar = DoubleVector.fromArray(SPECIES, packet.t, base).mul(1.0 + BVH.SLAB_PADDING);
+
+            for (int axis = 0; axis < 3; axis++) {
+                double[] origin = axis == 0 ? packet.originX : axis == 1 ? packet.originY : packet.originZ;
+                double[] inverse = axis == 0 ? packet.inverseX : axis == 1 ? packet.inverseY : packet.inverseZ;
+                DoubleVector o = DoubleVector.fromArray(SPECIES, origin, base);
+                DoubleVector inv = DoubleVector.fromArray(SPECIES, inverse, base);
+
+                DoubleVector t1 = DoubleVector.broadcast(SPECIES, bounds[offset + axis]).sub(o).mul(inv);
+                DoubleVector t2 = DoubleVector.broadcast(SPECIES, bounds[offset + 3 + axis]).sub(o).mul(inv);
+
+                // Échange et bornes écrits par comparaisons, comme en scalaire, pour ignorer les NaN.
+                VectorMask<Double> swap = t1.compare(VectorOperators.GT, t2);
+                DoubleVector near = t1.blend(t2, swap);
+                DoubleVector far = t2.blend(t1, swap);
+                tNear = tNear.blend(near, near.compare(VectorOperators.GT, tNear));
+                tFar = tFar.blend(far, far.compare(VectorOperators.LT, tFar));
+            }
+
+            if (tNear.mul(1.0 - BVH.SLAB_PADDING).compare(VectorOperators.LE, tFar.mul(1.0 + BVH.SLAB_PADDING)).anyTrue()) {
+                return mask;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void intersect(Shape shape, int ref, RayPacket packet, int mask, double tMin) {
+        if (shape instanceof Sphere) {
+            intersectSphere((Sphere) shape, ref, packet, mask, tMin);
+        } else if (shape instanceof Plane) {
+            intersectPlane((Plane) shape, ref, packet, mask, tMin);
+        } else {
+            scalar.intersect(shape, ref, packet, mask, tMin);
+        }
+    }
+
+    /**
+     * Voir Sphere.closestHit.
+     */
+    private void intersectSphere(Sphere sphere, int ref, RayPacket packet, int mask, double tMin) {
+        double cX = sphere.getCenter().getX();
+        double cY = sphere.getCenter().getY();
+        double cZ = sphere.getCenter().getZ();
+        double radius = sphere.getRadius();
+        double radiusSquared = radius * radius;
+
+        for (int base = 0; base < packet.size(); base += LANES) {
+
+            DoubleVector dX = DoubleVector.fromArray(SPECIES, packet.directionX, base);
+            DoubleVector dY = DoubleVector.fromArray(SPECIES, packet.directionY, base);
+            DoubleVector dZ = DoubleVector.fromArray(SPECIES, packet.directionZ, base);
+            DoubleVector ocX = DoubleVector.fromArray(SPECIES, packet.originX, base).sub(cX);
+            DoubleVector ocY = DoubleVector.fromArray(SPECIES, packet.originY, base).sub(cY);
+            DoubleVector ocZ = DoubleVector.fromArray(SPECIES, packet.originZ, base).sub(cZ);
+
+            DoubleVector a = dX.mul(dX).add(dY.mul(dY)).add(dZ.mul(dZ));
+            DoubleVector b = ocX.mul(dX).add(ocY.mul(dY)).add(ocZ.mul(dZ)).mul(2.0);
+            DoubleVector c = ocX.mul(ocX).add(ocY.mul(ocY)).add(ocZ.mul(ocZ)).sub(radiusSquared);
+
+            VectorMask<Double> valid = SPECIES.maskAll(true).andNot(c.compare(VectorOperators.GT, 0.0).and(b.compare(VectorOperators.GT, 0.0)));
+            DoubleVector delta = b.mul(b).sub(a.mul(4.0).mul(c));
+            valid = valid.andNot(delta.compare(VectorOperators.LT, 0.0));
+            if (!valid.anyTrue()) {
+                continue;
+            }
+
+            DoubleVector minT = DoubleVector.fromArray(SPECIES, packet.t, base);
+            DoubleVector sqrtDelta = delta.lanewise(VectorOperators.SQRT);
+            DoubleVector twoA = a.mul(2.0);
+            DoubleVector negB = b.neg();
+            DoubleVector t1 = negB.sub(sqrtDelta).div(twoA);
+            DoubleVector t2 = negB.add(sqrtDelta).div(twoA);
+
+            // t < Math.nextUp(minT) s'écrit t <= minT.
+            VectorMask<Double> in1 = t1.compare(VectorOperators.GT, tMin).and(t1.compare(VectorOperators.LE, minT));
+            VectorMask<Double> in2 = t2.compare(VectorOperators.GT, tMin).and(t2.compare(VectorOperators.LE, minT));
+            DoubleVector t = t2.blend(t1, in1);
+
+            update(packet, base, t, valid.and(in1.or(in2)), minT, ref);
+        }
+    }
+
+    /**
+     * Voir Plane.closestHit.
+     */
+    private void intersectPlane(Plane plane, int ref, RayPacket packet, int mask, double tMin) {
+        double nX = plane.getNormal().getX(), nY = plane.getNormal().getY(), nZ = plane.getNormal().getZ();
+        double pX = plane.getPoint().getX(), pY = plane.getPoint().getY(), pZ = plane.getPoint().getZ();
+
+        for (int base = 0; base < packet.size(); base += LANES) {
+
+            DoubleVector denom = DoubleVector.fromArray(SPECIES, packet.directionX, base).mul(nX)
+                    .add(DoubleVector.fromArray(SPECIES, packet.directionY, base).mul(nY))
+                    .add(DoubleVector.fromArray(SPECIES, packet.directionZ, base).mul(nZ));
+            VectorMask<Double> valid = SPECIES.maskAll(true).andNot(denom.abs().compare(VectorOperators.LT, Plane.EPSILON));
+            if (!valid.anyTrue()) {
+                continue;
+            }
+
+            DoubleVector numer = DoubleVector.broadcast(SPECIES, pX).sub(DoubleVector.fromArray(SPECIES, packet.originX, base)).mul(nX)
+                    .add(DoubleVector.broadcast(SPECIES, pY).sub(DoubleVector.fromArray(SPECIES, packet.originY, base)).mul(nY))
+                    .add(DoubleVector.broadcast(SPECIES, pZ).sub(DoubleVector.fromArray(SPECIES, packet.originZ, base)).mul(nZ));
+            DoubleVector t = numer.div(denom);
+
+            DoubleVector minT = DoubleVector.fromArray(SPECIES, packet.t, base);
+            valid = valid.andNot(t.compare(VectorOperators.LE, Plane.EPSILON)
+                    .or(t.compare(VectorOperators.LE, tMin))
+                    .or(t.compare(VectorOperators.GT, minT)));
+
+            update(packet, base, t, valid, minT, ref);
+        }
+    }
+
+    /**
+     * Voir Mesh.closestHit (Möller–Trumbore sur les arêtes précalculées).
+     */
+    @Override
+    public void intersect(Mesh mesh, int tri, int ref, RayPacket packet, int mask, double tMin) {
+        double[] data = packet.triangle;
+        mesh.getTriangleData(tri, data, 0);
+        double v0X = data[0], v0Y = data[1], v0Z = data[2];
+        double e1X = data[3], e1Y = data[4], e1Z = data[5];
+        double e2X = data[6], e2Y = data[7], e2Z = data[8];
+
+        for (int base = 0; base < packet.size(); base += LANES) {
+
+            DoubleVector dX = DoubleVector.fromArray(SPECIES, packet.directionX, base);
+            DoubleVector dY = DoubleVector.fromArray(SPECIES, packet.directionY, base);
+            DoubleVector dZ = DoubleVector.fromArray(SPECIES, packet.directionZ, base);
+
+            DoubleVector pX = dY.mul(e2Z).sub(dZ.mul(e2Y));
+            DoubleVector pY = dZ.mul(e2X).sub(dX.mul(e2Z));
+            DoubleVector pZ = dX.mul(e2Y).sub(dY.mul(e2X));
+
+            DoubleVector det = pX.mul(e1X).add(pY.mul(e1Y)).add(pZ.mul(e1Z));
+            VectorMask<Double> valid = SPECIES.maskAll(true).andNot(det.abs().compare(VectorOperators.LT, Mesh.EPSILON));
+            if (!valid.anyTrue()) {
+                continue;
+            }
+
+            DoubleVector invDet = DoubleVector.broadcast(SPECIES, 1.0).div(det);
+
+            DoubleVector tX = DoubleVector.fromArray(SPECIES, packet.originX, base).sub(v0X);
+            DoubleVector tY = DoubleVector.fromArray(SPECIES, packet.originY, base).sub(v0Y);
+            DoubleVector tZ = DoubleVector.fromArray(SPECIES, packet.originZ, base).sub(v0Z);
+            DoubleVector beta = tX.mul(pX).add(tY.mul(pY)).add(tZ.mul(pZ)).mul(invDet);
+            valid = valid.andNot(beta.compare(VectorOperators.LT, 0.0).or(beta.compare(VectorOperators.GT, 1.0)));
+            if (!valid.anyTrue()) {
+                continue;
+            }
+
+            DoubleVector qX = tY.mul(e1Z).sub(tZ.mul(e1Y));
+            DoubleVector qY = tZ.mul(e1X).sub(tX.mul(e1Z));
+            DoubleVector qZ = tX.mul(e1Y).sub(tY.mul(e1X));
+            DoubleVector gamma = dX.mul(qX).add(dY.mul(qY)).add(dZ.mul(qZ)).mul(invDet);
+            valid = valid.andNot(gamma.compare(VectorOperators.LT, 0.0).or(beta.add(gamma).compare(VectorOperators.GT, 1.0)));
+            if (!valid.anyTrue()) {
+                continue;
+            }
+
+            DoubleVector t = qX.mul(e2X).add(qY.mul(e2Y)).add(qZ.mul(e2Z)).mul(invDet);
+            DoubleVector minT = DoubleVector.fromArray(SPECIES, packet.t, base);
+            valid = valid.andNot(t.compare(VectorOperators.LT, Mesh.EPSILON)
+                    .or(t.compare(VectorOperators.LE, tMin))
+                    .or(t.compare(VectorOperators.GT, minT)));
+
+            update(packet, base, t, valid, minT, ref);
+        }
+    }
+
+    /**
+     * Retient t pour les voies candidates plus proches que leur résultat courant ; à distance égale,
+     * la primitive de plus petite référence (ordre de la scène) l'emporte, comme dans BVH.isCloser.
+     */
+    private static void update(RayPacket packet, int base, DoubleVector t, VectorMask<Double> candidates, DoubleVector minT, int ref) {
+        VectorMask<Double> closer = t.compare(VectorOperators.LT, minT).and(candidates);
+        VectorMask<Double> equal = t.compare(VectorOperators.EQ, minT).and(candidates);
+        if (!closer.or(equal).anyTrue()) {
+            return;
+        }
+        DoubleVector refs = DoubleVector.fromArray(SPECIES, packet.ref, base);
+        DoubleVector candidate = DoubleVector.broadcast(SPECIES, ref);
+        minT.blend(t, closer).intoArray(packet.t, base);
+        refs.blend(candidate, closer).blend(refs.min(candidate), equal).intoArray(packet.ref, base);
+    }
+}
@@ -0,0 +1,406 @@
+package raytracer.distributed;
+
+import raytracer.accel.RayPacket;
+import raytracer.png.PngStreamWriter;
+import raytracer.scene.Scene;
+import raytracer.trace.RenderStats;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coordinateur d'un rendu réparti : découpe l'image en tuiles comme ImageRenderer et les distribue aux workers
+ * (TileWorker) qui se connectent à son port, éventuellement depuis d'autres machines. Chaque worker reçoit
+ * le fichier de scène puis autant de tuiles qu'il en calcule en parallèle, et une nouvelle à chaque résultat.
+ * Les tuiles d'un worker déconnecté, ou muet plus longtemps que le délai de réponse, sont redonnées aux autres. Chaque pixel ne dépend que de ses coordonnées :
+ * l'image assemblée est identique à celle d'ImageRenderer.
+ */
+public final class RenderCoordinator implements Closeable {
+    public static final int DEFAULT_TILE_SIZE = 64;
+    public static final long DEFAULT_WORKER_TIMEOUT_MILLIS = 60_000;
+    public static final int DEFAULT_RESPONSE_TIMEOUT_MILLIS = 300_000;
+
+    /**
+     * Nombre d'envois d'une même tuile avant d'abandonner le rendu (un worker qui plante sur une tuile
+     * la ferait sinon tourner indéfiniment).
+     */
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final long POLL_MILLIS = 100;
+
+    private final ServerSocket server;
+    private final int tileSize;
+    private final int packetSize;
+    private long workerTimeoutMillis = DEFAULT_WORKER_TIMEOUT_MILLIS;
+    private int responseTimeoutMillis = DEFAULT_RESPONSE_TIMEOUT_MILLIS;
+    private int pngLevel = PngStreamWriter.DEFAULT_LEVEL;
+
+    /**
+     * Ouvre le port d'écoute des workers.
+     * @param port Port TCP, 0 pour un port libre choisi par le système (voir getPort).
+     * @param tileSize Côté des tuiles carrées, en pixels.
+     * @param packetSize Taille des paquets de rayons primaires utilisée par les workers (voir ImageRenderer).
+     */
+    public RenderCoordinator(int port, int tileSize, int packetSize) throws IOException {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("La taille des tuiles doit être au moins 1.");
+        }
+        if (packetSize < 1 || packetSize > RayPacket.MAX_SIZE) {
+            throw new IllegalArgumentException("La taille des paquets de rayons doit être comprise entre 1 et " + RayPacket.MAX_SIZE + ".");
+        }
+        this.tileSize = tileSize;
+        this.packetSize = packetSize;
+        this.server = new ServerSocket(port);
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Durée maximale pendant laquelle le rendu attend alors qu'aucun worker n'est connecté.
+     */
+    public void setWorkerTimeout(long millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("Le délai d'attente des workers doit être positif.");
+        }
+        this.workerTimeoutMillis = millis;
+    }
+
+    /**
+     * Durée maximale d'attente d'un message d'un worker (accueil, ou résultat quand il a des tuiles en cours).
+     * Au-delà, le worker est tenu pour perdu : sa connexion est fermée et ses tuiles sont redonnées aux autres.
+     * Le délai doit donc dépasser le temps de calcul d'une tuile.
+     */
+    public void setResponseTimeout(int millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("Le délai de réponse des workers doit être positif.");
+        }
+        this.responseTimeoutMillis = millis;
+    }
+
+    /**
+     * Niveau de compression de l'image PNG écrite par render, de 0 (aucune) à 9 (la plus forte, la plus lente).
+     */
+    public void setPngLevel(int level) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("Le niveau de compression PNG doit être compris entre 0 et 9.");
+        }
+        this.pngLevel = level;
+    }
+
+    /**
+     * Rend la scène avec les workers et écrit l'image dans scene.getOutput().
+     * @param sceneSource Contenu du fichier dont la scène a été lue, transmis tel quel aux workers.
+     */
+    public void render(Scene scene, byte[] sceneSource, RenderStats stats) throws IOException {
+        System.out.println("Rendu réparti de l'image " + scene.getWidth() + "x" + scene.getHeight()
+                + " (tuiles de " + tileSize + " px), en attente des workers sur le port " + getPort() + "...");
+        BufferedImage image = renderImage(scene, sceneSource, stats);
+
+        long start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(scene.getOutput()))) {
+            PngStreamWriter.write(image, out, pngLevel, Runtime.getRuntime().availableProcessors());
+        }
+        stats.recordPhase(RenderStats.ENCODE, System.nanoTime() - start);
+        System.out.println("Rendu terminé. Image sauvegardée sous : " + scene.getOutput());
+    }
+
+    /**
+     * Calcule l'image en mémoire avec les workers. Seules la durée du rendu et les informations générales
+     * sont enregistrées dans stats : les compteurs de rayons restent dans les workers.
+     * @throws IOException si aucun worker ne se connecte pendant le délai d'attente ou si une tuile échoue MAX_ATTEMPTS fois.
+     */
+    public BufferedImage renderImage(Scene scene, byte[] sceneSource, RenderStats stats) throws IOException {
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        stats.putInfo("width", width);
+        stats.putInfo("height", height);
+        stats.putInfo("tileSize", tileSize);
+        stats.putInfo("packetSize", packetSize);
+
+        long start = System.nanoTime();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Job job = new Job(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), width, height, sceneSource);
+
+        Thread acceptor = new Thread(() -> acceptWorkers(job), "coordinator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        try {
+            job.await();
+        } finally {
+            job.finish();
+            acceptor.interrupt();
+        }
+        stats.putInfo("workers", job.getWorkerCount());
+        stats.putInfo("retriedTiles", job.getRetriedTiles());
+        stats.recordPhase(RenderStats.RENDER, System.nanoTime() - start);
+        return image;
+    }
+
+    /**
+     * Accepte les workers tant que le rendu n'est pas terminé ; chacun est servi par son propre thread.
+     */
+    private void acceptWorkers(Job job) {
+        try {
+            server.setSoTimeout((int) POLL_MILLIS);
+        } catch (SocketException e) {
+            job.fail(e);
+            return;
+        }
+        while (!job.isFinished()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketTimeoutException e) {
+                continue;
+            } catch (IOException e) {
+                job.fail(e);
+                return;
+            }
+            Thread thread = new Thread(() -> serve(job, socket), "coordinator-" + socket.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Dialogue avec un worker : envoie la scène, puis des tuiles jusqu'à la fin du rendu.
+     */
+    private void serve(Job job, Socket socket) {
+        Set<Integer> inFlight = new HashSet<>();
+        String worker = String.valueOf(socket.getRemoteSocketAddress());
+        boolean connected = false;
+        try (socket) {
+            // Messages courts en aller-retour : sans TCP_NODELAY, Nagle et l'acquittement différé retardent chaque tuile.
+            socket.setTcpNoDelay(true);
+            // Un worker bloqué qui garde sa connexion ouverte ne doit pas retenir ses tuiles indéfiniment.
+            socket.setSoTimeout(responseTimeoutMillis);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            int capacity = TileProtocol.readHello(in);
+            job.workerConnected();
+            connected = true;
+            TileProtocol.writeJob(out, packetSize, job.sceneSource);
+            System.out.println("Worker connecté : " + worker + " (" + capacity + " tuile(s) en parallèle)");
+
+            while (!job.isFinished()) {
+                Integer tile;
+                while (inFlight.size() < capacity && (tile = job.pending.poll()) != null) {
+                    sendTile(out, job, tile);
+                    inFlight.add(tile);
+                }
+                out.flush();
+
+                if (inFlight.isEmpty()) {
+                    // Plus rien à donner pour l'instant : une tuile peut encore revenir d'un worker perdu.
+                    tile = job.pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (tile != null) {
+                        sendTile(out, job, tile);
+                        inFlight.add(tile);
+                        out.flush();
+                    }
+                    continue;
+                }
+
+                int index = in.readInt();
+                if (!inFlight.remove(index)) {
+                    throw new IOException("Résultat reçu pour une tuile non demandée : " + index);
+                }
+                job.store(index, TileProtocol.readPixels(in, job.tilePixelCount(index)));
+            }
+            TileProtocol.writeEnd(out);
+        } catch (SocketTimeoutException e) {
+            System.err.println("Worker muet depuis " + responseTimeoutMillis + " ms : " + worker + ", "
+                    + inFlight.size() + " tuile(s) redistribuée(s).");
+        } catch (IOException e) {
+            if (!inFlight.isEmpty()) {
+                System.err.println("Worker perdu : " + worker + " (" + (e.getMessage() != null ? e.getMessage() : "connexion fermée") + "), "
+                        + inFlight.size() + " tuile(s) redistribuée(s).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (int tile : inFlight) {
+                job.retry(tile);
+            }
+            if (connected) {
+                job.workerDisconnected();
+            }
+        }
+    }
+
+    private void sendTile(DataOutputStream out, Job job, int index) throws IOException {
+        int x0 = index % job.tilesX * tileSize;
+        int y0 = index / job.tilesX * tileSize;
+        TileProtocol.writeTile(out, index, x0, y0, Math.min(x0 + tileSize, job.width), Math.min(y0 + tileSize, job.height));
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    /**
+     * État partagé d'un rendu : tuiles à distribuer, image en cours d'assemblage et workers connectés.
+     */
+    private final class Job {
+        private final int[] pixels;
+        private final int width;
+        private final int height;
+        private final int tilesX;
+        private final byte[] sceneSource;
+
+        private final LinkedBlockingDeque<Integer> pending = new LinkedBlockingDeque<>();
+        private final int[] attempts;
+        private final boolean[] done;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private int remaining;
+        private int connectedWorkers;
+        private int workerCount;
+        private int retriedTiles;
+        private long idleSince = System.nanoTime();
+
+        private Job(int[] pixels, int width, int height, byte[] sceneSource) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.sceneSource = sceneSource;
+            this.tilesX = (width + tileSize - 1) / tileSize;
+            int tileCount = tilesX * ((height + tileSize - 1) / tileSize);
+            this.attempts = new int[tileCount];
+            this.done = new boolean[tileCount];
+            this.remaining = tileCount;
+            for (int tile = 0; tile < tileCount; tile++) {
+                pending.add(tile);
+            }
+            if (tileCount == 0) {
+                result.complete(null);
+            }
+        }
+
+        int tilePixelCount(int index) {
+            int x0 = index % tilesX * tileSize;
+            int y0 = index / tilesX * tileSize;
+            return (Math.min(x0 + tileSize, width) - x0) * (Math.min(y0 + tileSize, height) - y0);
+        }
+
+        /**
+         * Copie les pixels d'une tuile reçue dans l'image.
+         */
+        void store(int index, int[] tile) {
+            int x0 = index % tilesX * tileSize;
+            int y0 = index / tilesX * tileSize;
+            int tileWidth = Math.min(x0 + tileSize, width) - x0;
+            int rows = tile.length / tileWidth;
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(tile, row * tileWidth, pixels, (y0 + row) * width + x0, tileWidth);
+            }
+            synchronized (this) {
+                if (!done[index]) {
+                    done[index] = true;
+                    remaining--;
+                }
+                if (remaining == 0) {
+                    result.complete(null);
+                }
+            }
+        }
+
+        /**
+         * Remet en tête de file une tuile dont le worker a disparu.
+         */
+        synchronized void retry(int index) {
+            if (done[index] || result.isDone()) {
+                return;
+            }
+            attempts[index]++;
+            retriedTiles++;
+            if (attempts[index] >= MAX_ATTEMPTS) {
+                fail(new IOException("La tuile " + index + " a échoué sur " + attempts[index] + " workers."));
+                return;
+            }
+            pending.addFirst(index);
+        }
+
+        void fail(Exception e) {
+            result.completeExceptionally(e);
+        }
+
+        synchronized void workerConnected() {
+            connectedWorkers++;
+            workerCount++;
+        }
+
+        synchronized void workerDisconnected() {
+            connectedWorkers--;
+            if (connectedWorkers == 0) {
+                idleSince = System.nanoTime();
+            }
+        }
+
+        synchronized int getWorkerCount() {
+            return workerCount;
+        }
+
+        synchronized int getRetriedTiles() {
+            return retriedTiles;
+        }
+
+        boolean isFinished() {
+            return result.isDone();
+        }
+
+        void finish() {
+            result.cancel(false);
+        }
+
+        /**
+         * Attend la dernière tuile ; échoue si aucun worker n'est resté connecté pendant le délai d'attente.
+         */
+        void await() throws IOException {
+            while (true) {
+                try {
+                    result.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    synchronized (this) {
+                        if (connectedWorkers == 0 && System.nanoTime() - idleSince > TimeUnit.MILLISECONDS.toNanos(workerTimeoutMillis)) {
+                            throw new IOException("Aucun worker connecté depuis " + workerTimeoutMillis + " ms, "
+                                    + remaining + " tuile(s) non rendue(s).");
+                        }
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Rendu réparti interrompu.", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package raytracer.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Protocole binaire entre le coordinateur et les workers (entiers big-endian, flux TCP) :
+ * <pre>
+ * worker      -> coordinateur : HELLO  magic, version, nombre de tuiles traitées en parallèle
+ * coordinateur -> worker      : JOB    taille de paquet, longueur puis octets du fichier de scène
+ * coordinateur -> worker      : TILE   indice, x0, y0, x1, y1          (autant que de tuiles demandées)
+ * worker      -> coordinateur : RESULT indice, pixels RGB de la tuile ligne par ligne
+ * coordinateur -> worker      : END    fin du travail, le worker se déconnecte
+ * </pre>
+ * Le worker n'envoie de résultat que pour les tuiles reçues ; toute autre réponse est une erreur de protocole.
+ */
+final class TileProtocol {
+    static final int MAGIC = 0x52545457; // "RTTW"
+    static final int VERSION = 1;
+
+    static final int TILE = 1;
+    static final int END = 2;
+
+    // Au-delà, le fichier de scène ne tient plus dans un tableau d'octets.
+    private static final int MAX_SCENE_BYTES = Integer.MAX_VALUE - 8;
+
+    private TileProtocol() {
+    }
+
+    static void writeHello(DataOutputStream out, int capacity) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(capacity);
+        out.flush();
+    }
+
+    /**
+     * Lit le message d'accueil d'un worker.
+     * @return Nombre de tuiles que le worker calcule en parallèle.
+     * @throws IOException si le worker ne parle pas ce protocole.
+     */
+    static int readHello(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Le client n'est pas un worker de rendu.");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Version de protocole " + version + " non supportée (attendue : " + VERSION + ").");
+        }
+        int capacity = in.readInt();
+        if (capacity < 1) {
+            throw new IOException("Capacité de worker invalide : " + capacity);
+        }
+        return capacity;
+    }
+
+    static void writeJob(DataOutputStream out, int packetSize, byte[] sceneSource) throws IOException {
+        out.writeInt(packetSize);
+        out.writeInt(sceneSource.length);
+        out.write(sceneSource);
+        out.flush();
+    }
+
+    static int readPacketSize(DataInputStream in) throws IOException {
+        return in.readInt();
+    }
+
+    static byte[] readSceneSource(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_SCENE_BYTES) {
+            throw new IOException("Longueur de scène invalide : " + length);
+        }
+        byte[] source = new byte[length];
+        in.readFully(source);
+        return source;
+    }
+
+    static void writeTile(DataOutputStream out, int index, int x0, int y0, int x1, int y1) throws IOException {
+        out.writeInt(TILE);
+        out.writeInt(index);
+        out.writeInt(x0);
+        out.writeInt(y0);
+        out.writeInt(x1);
+        out.writeInt(y1);
+    }
+
+    static void writeEnd(DataOutputStream out) throws IOException {
+        out.writeInt(END);
+        out.flush();
+    }
+
+    /**
+     * Envoie les pixels d'une tuile, convertis en un seul bloc d'octets.
+     */
+    static void writeResult(DataOutputStream out, int index, int[] pixels) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(pixels.length * Integer.BYTES);
+        buffer.asIntBuffer().put(pixels);
+        out.writeInt(index);
+        out.write(buffer.array());
+        out.flush();
+    }
+
+    /**
+     * Lit les pixelCount pixels d'un résultat dont l'indice a déjà été lu.
+     */
+    static int[] readPixels(DataInputStream in, int pixelCount) throws IOException {
+        byte[] bytes = new byte[pixelCount * Integer.BYTES];
+        in.readFully(bytes);
+        int[] pixels = new int[pixelCount];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(pixels);
+        return pixels;
+    }
+}
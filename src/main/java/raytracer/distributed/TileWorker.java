@@ -0,0 +1,169 @@
+package raytracer.distributed;
+
+import raytracer.parsing.SceneFileParser;
+import raytracer.parsing.SceneParseException;
+import raytracer.scene.Scene;
+import raytracer.trace.ImageRenderer;
+import raytracer.trace.RayTracer;
+import raytracer.trace.RenderStats;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Worker d'un rendu réparti : se connecte au coordinateur (RenderCoordinator), reçoit le fichier de scène,
+ * puis calcule les tuiles demandées sur ses threads et renvoie leurs pixels au fur et à mesure.
+ * Le worker s'arrête quand le coordinateur annonce la fin du rendu.
+ */
+public final class TileWorker {
+    public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 30_000;
+
+    private static final long RECONNECT_DELAY_MILLIS = 200;
+
+    private final int threadCount;
+    private long connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+    /**
+     * @param threadCount Nombre de tuiles calculées en parallèle.
+     */
+    public TileWorker(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être au moins 1.");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Durée pendant laquelle la connexion est retentée si le coordinateur n'écoute pas encore.
+     */
+    public void setConnectTimeout(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Le délai de connexion ne peut pas être négatif.");
+        }
+        this.connectTimeoutMillis = millis;
+    }
+
+    /**
+     * Participe à un rendu jusqu'à sa fin.
+     * @return Nombre de tuiles calculées par ce worker.
+     * @throws IOException si le coordinateur est injoignable ou si la connexion est perdue.
+     * @throws SceneParseException si la scène reçue est invalide.
+     */
+    public int run(String host, int port) throws IOException, SceneParseException {
+        try (Socket socket = connect(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            TileProtocol.writeHello(out, threadCount);
+            int packetSize = TileProtocol.readPacketSize(in);
+            Scene scene = parseScene(TileProtocol.readSceneSource(in));
+
+            ImageRenderer renderer = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE, packetSize);
+            RayTracer rayTracer = new RayTracer(scene, new RenderStats());
+            System.out.println("Scène reçue (" + scene.getWidth() + "x" + scene.getHeight() + "), rendu des tuiles sur "
+                    + threadCount + " thread(s).");
+            return serveTiles(socket, in, out, renderer, rayTracer);
+        }
+    }
+
+    private Socket connect(String host, int port) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeoutMillis);
+        while (true) {
+            try {
+                return new Socket(host, port);
+            } catch (ConnectException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Connexion au coordinateur interrompue.", e);
+            }
+        }
+    }
+
+    /**
+     * Le parseur lit un fichier : la scène reçue passe par un fichier temporaire.
+     */
+    private static Scene parseScene(byte[] source) throws IOException, SceneParseException {
+        Path file = Files.createTempFile("raytracer-worker", ".scene");
+        try {
+            Files.write(file, source);
+            return new SceneFileParser().parse(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Lit les tuiles jusqu'au message de fin ; chacune est calculée par le pool, qui écrit son résultat dès qu'il est prêt.
+     */
+    private int serveTiles(Socket socket, DataInputStream in, DataOutputStream out,
+                           ImageRenderer renderer, RayTracer rayTracer) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        AtomicInteger rendered = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        try {
+            while (true) {
+                int message;
+                try {
+                    message = in.readInt();
+                } catch (IOException e) {
+                    // La connexion est fermée par un thread en échec : son erreur est plus parlante.
+                    Exception cause = failure.get();
+                    throw cause != null ? new IOException("Échec du rendu d'une tuile.", cause) : e;
+                }
+                if (message == TileProtocol.END) {
+                    break;
+                }
+                if (message != TileProtocol.TILE) {
+                    throw new IOException("Message inattendu du coordinateur : " + message);
+                }
+                int index = in.readInt();
+                int x0 = in.readInt();
+                int y0 = in.readInt();
+                int x1 = in.readInt();
+                int y1 = in.readInt();
+                pool.execute(() -> {
+                    try {
+                        int[] pixels = new int[(x1 - x0) * (y1 - y0)];
+                        renderer.renderRegion(rayTracer, pixels, 0, x1 - x0, x0, y0, x1, y1);
+                        synchronized (out) {
+                            TileProtocol.writeResult(out, index, pixels);
+                        }
+                        rendered.incrementAndGet();
+                    } catch (IOException | RuntimeException e) {
+                        // Fermer la connexion rend les tuiles en cours au coordinateur, qui les redistribue.
+                        failure.compareAndSet(null, e);
+                        closeQuietly(socket);
+                    }
+                });
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return rendered.get();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // La connexion est abandonnée de toute façon.
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package raytracer.geometry;
+
+import raytracer.accel.BoundingBox;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.trace.HitRecord;
+import java.util.Optional;
+
+/**
+ * Occurrence d'un maillage partagé (InstancedMesh) placée dans la scène : mise à l'échelle uniforme, rotation
+ * puis translation. L'instance ne stocke que sa transformation ; chaque rayon est ramené dans le repère local
+ * du maillage et tracé dans la hiérarchie de celui-ci. Toute l'instance porte le matériau courant à sa déclaration.
+ * <p>
+ * La direction locale reste unitaire (la rotation la conserve, l'échelle est reportée sur les distances) :
+ * une distance dans la scène vaut scale fois la distance locale.
+ */
+public final class Instance extends Shape {
+    private final InstancedMesh object;
+    private final Point position;
+    private final double scale;
+    // Rotation du repère local vers la scène, par lignes : world = position + scale * rotation * local.
+    private final double[] rotation;
+
+    /**
+     * @param rotationDegrees Angles de rotation autour des axes x, y puis z, en degrés.
+     * @param scale Facteur d'échelle uniforme, strictement positif.
+     * @throws IllegalArgumentException si l'échelle n'est pas strictement positive ou si le maillage n'est pas construit.
+     */
+    public Instance(InstancedMesh object, Point position, Vector rotationDegrees, double scale) {
+        this(object, position, rotationMatrix(rotationDegrees), scale);
+    }
+
+    private Instance(InstancedMesh object, Point position, double[] rotation, double scale) {
+        if (!(scale > 0.0)) {
+            throw new IllegalArgumentException("L'échelle d'une instance doit être strictement positive: " + scale);
+        }
+        if (!object.isBuilt()) {
+            throw new IllegalArgumentException("L'objet " + object.getName() + " n'est pas terminé (endobject manquant).");
+        }
+        this.object = object;
+        this.position = position;
+        this.rotation = rotation;
+        this.scale = scale;
+    }
+
+    /**
+     * Rz * Ry * Rx : rotation autour de x, puis de y, puis de z.
+     */
+    private static double[] rotationMatrix(Vector degrees) {
+        double ax = Math.toRadians(degrees.getX()), ay = Math.toRadians(degrees.getY()), az = Math.toRadians(degrees.getZ());
+        double cx = Math.cos(ax), sx = Math.sin(ax);
+        double cy = Math.cos(ay), sy = Math.sin(ay);
+        double cz = Math.cos(az), sz = Math.sin(az);
+        return new double[] {
+                cz * cy, cz * sy * sx - sz * cx, cz * sy * cx + sz * sx,
+                sz * cy, sz * sy * sx + cz * cx, sz * sy * cx - cz * sx,
+                -sy, cy * sx, cy * cx
+        };
+    }
+
+    public InstancedMesh getObject() {
+        return object;
+    }
+
+    public Point getPosition() {
+        return position;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    @Override
+    public Shape translate(Vector offset) {
+        return new Instance(object, position.add(offset), rotation, scale).withMaterialOf(this);
+    }
+
+    /**
+     * Intersection dans le repère local : origine o' = R^T (o - position) / scale, direction d' = R^T d,
+     * intervalle ]tMin, tMax[ divisé par scale.
+     */
+    @Override
+    public double closestHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        double px = ox - position.getX(), py = oy - position.getY(), pz = oz - position.getZ();
+        double[] r = rotation;
+        double t = object.closestHit(
+                (r[0] * px + r[3] * py + r[6] * pz) / scale,
+                (r[1] * px + r[4] * py + r[7] * pz) / scale,
+                (r[2] * px + r[5] * py + r[8] * pz) / scale,
+                r[0] * dx + r[3] * dy + r[6] * dz,
+                r[1] * dx + r[4] * dy + r[7] * dz,
+                r[2] * dx + r[5] * dy + r[8] * dz,
+                tMin / scale, tMax / scale);
+        if (t == NO_HIT) {
+            return NO_HIT;
+        }
+        // L'arrondi du produit peut ramener la distance sur une borne : l'intervalle reste exclusif.
+        double distance = t * scale;
+        return distance > tMin && distance < tMax ? distance : NO_HIT;
+    }
+
+    @Override
+    public boolean anyHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        double px = ox - position.getX(), py = oy - position.getY(), pz = oz - position.getZ();
+        double[] r = rotation;
+        return object.anyHit(
+                (r[0] * px + r[3] * py + r[6] * pz) / scale,
+                (r[1] * px + r[4] * py + r[7] * pz) / scale,
+                (r[2] * px + r[5] * py + r[8] * pz) / scale,
+                r[0] * dx + r[3] * dy + r[6] * dz,
+                r[1] * dx + r[4] * dy + r[7] * dz,
+                r[2] * dx + r[5] * dy + r[8] * dz,
+                tMin / scale, tMax / scale);
+    }
+
+    /**
+     * Normale de la face la plus proche du point p (distance au plan de la face, parmi les faces dont la boîte
+     * contient p). Parcourt toutes les faces : réservé aux requêtes ponctuelles, le rendu passe par computeNormal.
+     */
+    @Override
+    public Vector getNormal(Point p) {
+        double px = p.getX() - position.getX(), py = p.getY() - position.getY(), pz = p.getZ() - position.getZ();
+        double[] r = rotation;
+        double lx = (r[0] * px + r[3] * py + r[6] * pz) / scale;
+        double ly = (r[1] * px + r[4] * py + r[7] * pz) / scale;
+        double lz = (r[2] * px + r[5] * py + r[8] * pz) / scale;
+
+        Mesh mesh = object.getMesh();
+        double[] box = new double[6];
+        double[] data = new double[9];
+        double best = Double.POSITIVE_INFINITY;
+        Vector normal = new Vector(0, 0, 0);
+        for (int tri = 0; tri < mesh.getTriangleCount(); tri++) {
+            mesh.getBounds(tri, box, 0);
+            if (lx < box[0] - Mesh.EPSILON || ly < box[1] - Mesh.EPSILON || lz < box[2] - Mesh.EPSILON
+                    || lx > box[3] + Mesh.EPSILON || ly > box[4] + Mesh.EPSILON || lz > box[5] + Mesh.EPSILON) {
+                continue;
+            }
+            Vector n = mesh.getNormal(tri);
+            mesh.getTriangleData(tri, data, 0);
+            double distance = Math.abs(n.getX() * (lx - data[0]) + n.getY() * (ly - data[1]) + n.getZ() * (lz - data[2]));
+            if (distance < best) {
+                best = distance;
+                normal = n;
+            }
+        }
+        return toWorld(normal.getX(), normal.getY(), normal.getZ());
+    }
+
+    @Override
+    public void computeNormal(HitRecord hit) {
+        Vector normal = getNormal(new Point(hit.getPointX(), hit.getPointY(), hit.getPointZ()));
+        hit.setNormal(normal.getX(), normal.getY(), normal.getZ());
+    }
+
+    /**
+     * Retrouve la face touchée en retraçant le rayon dans le repère local sur un intervalle resserré
+     * autour de la distance de l'impact, puis tourne sa normale vers la scène.
+     */
+    @Override
+    public void computeNormal(HitRecord hit, double ox, double oy, double oz, double dx, double dy, double dz) {
+        double px = ox - position.getX(), py = oy - position.getY(), pz = oz - position.getZ();
+        double[] r = rotation;
+        double t = hit.getT() / scale;
+        int face = object.closestFace(
+                (r[0] * px + r[3] * py + r[6] * pz) / scale,
+                (r[1] * px + r[4] * py + r[7] * pz) / scale,
+                (r[2] * px + r[5] * py + r[8] * pz) / scale,
+                r[0] * dx + r[3] * dy + r[6] * dz,
+                r[1] * dx + r[4] * dy + r[7] * dz,
+                r[2] * dx + r[5] * dy + r[8] * dz,
+                t * (1.0 - 0x1p-30), t * (1.0 + 0x1p-30));
+        if (face < 0) {
+            computeNormal(hit);
+            return;
+        }
+        Vector n = object.getMesh().getNormal(face);
+        double nx = n.getX(), ny = n.getY(), nz = n.getZ();
+        hit.setNormal(r[0] * nx + r[1] * ny + r[2] * nz, r[3] * nx + r[4] * ny + r[5] * nz, r[6] * nx + r[7] * ny + r[8] * nz);
+    }
+
+    private Vector toWorld(double x, double y, double z) {
+        double[] r = rotation;
+        return new Vector(r[0] * x + r[1] * y + r[2] * z, r[3] * x + r[4] * y + r[5] * z, r[6] * x + r[7] * y + r[8] * z);
+    }
+
+    /**
+     * Boîte des huit coins de la boîte locale transformés.
+     */
+    @Override
+    public Optional<BoundingBox> getBoundingBox() {
+        BoundingBox local = object.getBounds();
+        Point min = local.getMin();
+        Point max = local.getMax();
+        Point[] corners = new Point[8];
+        for (int i = 0; i < 8; i++) {
+            Vector corner = toWorld((i & 1) == 0 ? min.getX() : max.getX(),
+                    (i & 2) == 0 ? min.getY() : max.getY(),
+                    (i & 4) == 0 ? min.getZ() : max.getZ());
+            corners[i] = position.add(corner.multiply(scale));
+        }
+        return Optional.of(BoundingBox.of(corners));
+    }
+}
@@ -0,0 +1,116 @@
+package raytracer.geometry;
+
+import raytracer.accel.BVH;
+import raytracer.accel.BoundingBox;
+import raytracer.math.Point;
+import raytracer.trace.HitRecord;
+import java.util.List;
+
+/**
+ * Maillage nommé (directive object ... endobject), défini une seule fois et partagé par toutes ses instances.
+ * Il porte sa propre hiérarchie, construite par build() dans son repère local : la hiérarchie de la scène
+ * ne contient que les instances, dont chacune renvoie ses rayons ici après les avoir ramenés dans ce repère.
+ * La mémoire des faces n'est donc payée qu'une fois, quel que soit le nombre d'instances.
+ */
+public final class InstancedMesh {
+    private final String name;
+    private final Mesh mesh = new Mesh();
+    private BVH bvh;
+    private BoundingBox bounds;
+
+    // Pile de parcours et enregistrement propres à chaque thread : les instances sont testées sans allocation.
+    private final ThreadLocal<Traversal> traversals = ThreadLocal.withInitial(() -> new Traversal(bvh.getStackSize()));
+
+    public InstancedMesh(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Maillage local, rempli par le parseur jusqu'à l'appel de build().
+     */
+    public Mesh getMesh() {
+        return mesh;
+    }
+
+    /**
+     * Prépare le maillage et construit sa hiérarchie. Le maillage ne doit plus être modifié ensuite.
+     * @throws IllegalStateException si un triangle référence un sommet non défini, ou si le maillage est vide.
+     */
+    public void build() {
+        if (mesh.getTriangleCount() == 0) {
+            throw new IllegalStateException("L'objet " + name + " ne contient aucun triangle.");
+        }
+        mesh.prepare();
+        mesh.trimToSize();
+
+        double[] box = new double[6];
+        double[] all = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int tri = 0; tri < mesh.getTriangleCount(); tri++) {
+            mesh.getBounds(tri, box, 0);
+            for (int axis = 0; axis < 3; axis++) {
+                all[axis] = Math.min(all[axis], box[axis]);
+                all[axis + 3] = Math.max(all[axis + 3], box[axis + 3]);
+            }
+        }
+        this.bounds = new BoundingBox(new Point(all[0], all[1], all[2]), new Point(all[3], all[4], all[5]));
+        this.bvh = new BVH(List.of(), mesh);
+    }
+
+    /**
+     * Estimation de la mémoire occupée par le maillage local et sa hiérarchie, partagés par toutes les instances.
+     */
+    public long getRetainedBytes() {
+        return mesh.getRetainedBytes() + (bvh != null ? bvh.getRetainedBytes() : 0);
+    }
+
+    /**
+     * @return true une fois build() appelé.
+     */
+    public boolean isBuilt() {
+        return bvh != null;
+    }
+
+    /**
+     * Boîte englobante du maillage dans son repère local.
+     */
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Distance de la plus proche face dans ]tMin, tMax[ pour un rayon exprimé dans le repère local, ou Shape.NO_HIT.
+     */
+    double closestHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        Traversal traversal = traversals.get();
+        if (bvh.closestPrimitive(ox, oy, oz, dx, dy, dz, tMin, tMax, traversal.stack, traversal.hit) < 0) {
+            return Shape.NO_HIT;
+        }
+        return traversal.hit.getT();
+    }
+
+    /**
+     * Indice de la plus proche face dans ]tMin, tMax[ pour un rayon exprimé dans le repère local, ou -1.
+     */
+    int closestFace(double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        Traversal traversal = traversals.get();
+        // Sans formes isolées, la référence d'une primitive est l'indice de la face.
+        return bvh.closestPrimitive(ox, oy, oz, dx, dy, dz, tMin, tMax, traversal.stack, traversal.hit);
+    }
+
+    boolean anyHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        return bvh.findOccluder(ox, oy, oz, dx, dy, dz, tMin, tMax, traversals.get().stack, null) >= 0;
+    }
+
+    private static final class Traversal {
+        private final int[] stack;
+        private final HitRecord hit = new HitRecord();
+
+        private Traversal(int stackSize) {
+            this.stack = new int[stackSize];
+        }
+    }
+}
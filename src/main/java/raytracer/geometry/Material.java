@@ -0,0 +1,31 @@
+package raytracer.geometry;
+
+import raytracer.math.Color;
+
+/**
+ * Propriétés de matériau d'une surface : couleurs diffuse et spéculaire, brillance.
+ * Immuable, donc partageable entre toutes les faces d'un maillage.
+ */
+public final class Material {
+    private final Color diffuse;
+    private final Color specular;
+    private final double shininess;
+
+    public Material(Color diffuse, Color specular, double shininess) {
+        this.diffuse = diffuse;
+        this.specular = specular;
+        this.shininess = shininess;
+    }
+
+    public Color getDiffuse() {
+        return diffuse;
+    }
+
+    public Color getSpecular() {
+        return specular;
+    }
+
+    public double getShininess() {
+        return shininess;
+    }
+}
@@ -0,0 +1,501 @@
+package raytracer.geometry;
+
+import raytracer.math.Point;
+import raytracer.math.Ray;
+import raytracer.math.Vector;
+import raytracer.trace.HitRecord;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maillage triangulaire stocké en tableaux primitifs (structure de tableaux).
+ * Les sommets sont rangés dans un double[] (x, y, z consécutifs), les triangles dans un int[] d'indices.
+ * Les arêtes et normales de chaque face sont précalculées par prepare(), ce qui évite tout objet
+ * intermédiaire lors de l'intersection, réalisée directement à partir de l'indice du triangle.
+ * <p>
+ * En simple précision (setSinglePrecision), les sommets sont gardés dans un float[] et le double[] des sommets,
+ * les arêtes et les normales sont libérés : rien n'est précalculé, chaque face est relue par ses indices.
+ * Sur un maillage de 1,96 million de faces, la scène passe de 192 Mo à 45 Mo (mesuré après prepare). Les sommets arrondis en float
+ * définissent alors la géométrie ; les calculs (arêtes, intersection, normale) restent en double à partir de
+ * ces valeurs. La différence entre deux floats étant exacte en double, deux faces qui partagent un sommet
+ * partagent exactement la même arête : le maillage reste étanche, et le point d'impact garde la précision
+ * du double, si bien que les décalages existants des rayons d'ombre et de réflexion suffisent (un décalage
+ * à l'échelle de l'ulp du float a été essayé : il dégradait l'image). Chaque coordonnée est déplacée d'au plus
+ * 2^-24 en valeur relative ; l'image obtenue diffère de celle en double d'un PSNR d'au moins 60 dB
+ * (ImageComparator.compare).
+ */
+public final class Mesh {
+    public static final double EPSILON = 1e-6;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double[] vertices = new double[0];
+    // Simple précision : sommets arrondis en float, à la place de vertices.
+    private float[] floatVertices = new float[0];
+    private int vertexCount;
+
+    private int[] indices = new int[0];
+    private int[] materialIds = new int[0];
+    private int triangleCount;
+
+    // Données précalculées : arêtes (b - a, c - a) et normale unitaire de chaque face.
+    private double[] edges = new double[0];
+    private double[] normals = new double[0];
+    private int preparedCount;
+
+    private boolean singlePrecision;
+
+    private final List<Material> materials = new ArrayList<>();
+
+    public Mesh() {
+    }
+
+    /**
+     * Maillage construit directement à partir de ses tableaux (relecture du cache binaire de scène).
+     * Les tableaux sont repris sans copie ; prepare() reste à appeler avant le rendu.
+     * @param vertices Coordonnées x, y, z consécutives des sommets.
+     * @param indices Trois indices de sommets par triangle.
+     * @param materialIds Indice dans materials du matériau de chaque triangle.
+     */
+    public Mesh(double[] vertices, int[] indices, int[] materialIds, List<Material> materials) {
+        if (vertices.length % 3 != 0 || indices.length % 3 != 0 || materialIds.length * 3 != indices.length) {
+            throw new IllegalArgumentException("Tableaux de maillage incohérents.");
+        }
+        for (int materialId : materialIds) {
+            if (materialId < 0 || materialId >= materials.size()) {
+                throw new IllegalArgumentException("Matériau de triangle inexistant: " + materialId);
+            }
+        }
+        this.vertices = vertices;
+        this.vertexCount = vertices.length / 3;
+        this.indices = indices;
+        this.materialIds = materialIds;
+        this.triangleCount = materialIds.length;
+        this.materials.addAll(materials);
+    }
+
+    /**
+     * Réserve la place pour au moins count sommets (directive maxverts).
+     */
+    public void ensureVertexCapacity(int count) {
+        if (singlePrecision) {
+            if (count * 3 > floatVertices.length) {
+                floatVertices = Arrays.copyOf(floatVertices, count * 3);
+            }
+        } else if (count * 3 > vertices.length) {
+            vertices = Arrays.copyOf(vertices, count * 3);
+        }
+    }
+
+    /**
+     * Ajoute un sommet et retourne son indice.
+     */
+    public int addVertex(double x, double y, double z) {
+        if (vertexCount * 3 == (singlePrecision ? floatVertices.length : vertices.length)) {
+            ensureVertexCapacity(Math.max(INITIAL_CAPACITY, vertexCount * 2));
+        }
+        int base = vertexCount * 3;
+        if (singlePrecision) {
+            floatVertices[base] = (float) x;
+            floatVertices[base + 1] = (float) y;
+            floatVertices[base + 2] = (float) z;
+        } else {
+            vertices[base] = x;
+            vertices[base + 1] = y;
+            vertices[base + 2] = z;
+        }
+        return vertexCount++;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Estimation de la mémoire occupée par les tableaux du maillage (sommets, indices, données préparées).
+     */
+    public long getRetainedBytes() {
+        long doubles = (long) vertices.length + edges.length + normals.length;
+        long ints = (long) indices.length + materialIds.length;
+        return doubles * Double.BYTES + ints * Integer.BYTES + (long) floatVertices.length * Float.BYTES;
+    }
+
+    public Point getVertex(int index) {
+        if (index < 0 || index >= vertexCount) {
+            throw new IndexOutOfBoundsException("Sommet inexistant: " + index);
+        }
+        return new Point(vertex(index * 3), vertex(index * 3 + 1), vertex(index * 3 + 2));
+    }
+
+    /**
+     * Coordonnée d'indice i du tableau des sommets, quel que soit leur stockage.
+     */
+    private double vertex(int i) {
+        return singlePrecision ? floatVertices[i] : vertices[i];
+    }
+
+    /**
+     * Enregistre un matériau et retourne son indice. Un matériau identique (même instance)
+     * au dernier enregistré est réutilisé, les triangles consécutifs partagent donc la même entrée.
+     */
+    public int addMaterial(Material material) {
+        int last = materials.size() - 1;
+        if (last >= 0 && materials.get(last) == material) {
+            return last;
+        }
+        materials.add(material);
+        return last + 1;
+    }
+
+    /**
+     * Ajoute un triangle défini par trois indices de sommets et retourne son indice.
+     * Les sommets peuvent être définis après le triangle : les données dérivées sont calculées par prepare().
+     */
+    public int addTriangle(int a, int b, int c, int materialId) {
+        if (triangleCount * 3 == indices.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, triangleCount * 2);
+            indices = Arrays.copyOf(indices, capacity * 3);
+            materialIds = Arrays.copyOf(materialIds, capacity);
+        }
+        indices[triangleCount * 3] = a;
+        indices[triangleCount * 3 + 1] = b;
+        indices[triangleCount * 3 + 2] = c;
+        materialIds[triangleCount] = materialId;
+        return triangleCount++;
+    }
+
+    public int getTriangleCount() {
+        return triangleCount;
+    }
+
+    /**
+     * Copie des coordonnées des sommets (x, y, z consécutifs).
+     */
+    public double[] getVertexData() {
+        if (singlePrecision) {
+            double[] data = new double[vertexCount * 3];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = floatVertices[i];
+            }
+            return data;
+        }
+        return Arrays.copyOf(vertices, vertexCount * 3);
+    }
+
+    /**
+     * Copie des indices de sommets des triangles (trois par triangle).
+     */
+    public int[] getIndexData() {
+        return Arrays.copyOf(indices, triangleCount * 3);
+    }
+
+    /**
+     * Copie des indices de matériau des triangles.
+     */
+    public int[] getMaterialIdData() {
+        return Arrays.copyOf(materialIds, triangleCount);
+    }
+
+    /**
+     * Écrit dans out, à partir de offset, length coordonnées de sommets à partir de la coordonnée start,
+     * sans copier tout le tableau.
+     */
+    public void getVertexData(int start, double[] out, int offset, int length) {
+        Objects.checkFromIndexSize(start, length, vertexCount * 3);
+        if (!singlePrecision) {
+            System.arraycopy(vertices, start, out, offset, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = floatVertices[start + i];
+        }
+    }
+
+    /**
+     * Écrit dans out, à partir de offset, length indices de sommets à partir de l'indice start.
+     */
+    public void getIndexData(int start, int[] out, int offset, int length) {
+        Objects.checkFromIndexSize(start, length, triangleCount * 3);
+        System.arraycopy(indices, start, out, offset, length);
+    }
+
+    /**
+     * Écrit dans out, à partir de offset, les indices de matériau de length triangles à partir du triangle start.
+     */
+    public void getMaterialIdData(int start, int[] out, int offset, int length) {
+        Objects.checkFromIndexSize(start, length, triangleCount);
+        System.arraycopy(materialIds, start, out, offset, length);
+    }
+
+    public List<Material> getMaterials() {
+        return Collections.unmodifiableList(materials);
+    }
+
+    /**
+     * Choisit le stockage des sommets : en float sans données précalculées (true) ou en double avec arêtes et
+     * normales précalculées (false, par défaut). Les tableaux de l'autre mode sont libérés. Le retour au double
+     * repart des sommets arrondis en float : la précision perdue ne revient pas.
+     * Comme prepare(), à appeler avant de construire la hiérarchie et de lancer le rendu.
+     * @throws IllegalStateException si un triangle référence un sommet qui n'a pas été défini.
+     */
+    public synchronized void setSinglePrecision(boolean singlePrecision) {
+        if (this.singlePrecision == singlePrecision) {
+            return;
+        }
+        if (singlePrecision) {
+            floatVertices = new float[vertexCount * 3];
+            for (int i = 0; i < floatVertices.length; i++) {
+                floatVertices[i] = (float) vertices[i];
+            }
+            vertices = new double[0];
+        } else {
+            vertices = new double[vertexCount * 3];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = floatVertices[i];
+            }
+            floatVertices = new float[0];
+        }
+        this.singlePrecision = singlePrecision;
+        this.edges = new double[0];
+        this.normals = new double[0];
+        this.preparedCount = 0;
+        prepare();
+    }
+
+    /**
+     * @return true si les faces sont stockées et intersectées à partir de sommets en float.
+     */
+    public boolean isSinglePrecision() {
+        return singlePrecision;
+    }
+
+    /**
+     * Précalcule les données des triangles ajoutés depuis le dernier appel : arêtes et normales.
+     * En simple précision, rien n'est précalculé : seuls les indices de sommets sont vérifiés.
+     * @throws IllegalStateException si un triangle référence un sommet qui n'a pas été défini.
+     */
+    public synchronized void prepare() {
+        if (preparedCount == triangleCount) {
+            return;
+        }
+        if (singlePrecision) {
+            for (int tri = preparedCount; tri < triangleCount; tri++) {
+                for (int corner = 0; corner < 3; corner++) {
+                    vertexOffset(tri, corner);
+                }
+            }
+            this.preparedCount = triangleCount;
+            return;
+        }
+
+        double[] newEdges = Arrays.copyOf(edges, triangleCount * 6);
+        double[] newNormals = Arrays.copyOf(normals, triangleCount * 3);
+
+        for (int tri = preparedCount; tri < triangleCount; tri++) {
+            int a = vertexOffset(tri, 0);
+            int b = vertexOffset(tri, 1);
+            int c = vertexOffset(tri, 2);
+
+            double e1X = vertices[b] - vertices[a], e1Y = vertices[b + 1] - vertices[a + 1], e1Z = vertices[b + 2] - vertices[a + 2];
+            double e2X = vertices[c] - vertices[a], e2Y = vertices[c + 1] - vertices[a + 1], e2Z = vertices[c + 2] - vertices[a + 2];
+
+            newEdges[tri * 6] = e1X;
+            newEdges[tri * 6 + 1] = e1Y;
+            newEdges[tri * 6 + 2] = e1Z;
+            newEdges[tri * 6 + 3] = e2X;
+            newEdges[tri * 6 + 4] = e2Y;
+            newEdges[tri * 6 + 5] = e2Z;
+
+            Vector normal = new Vector(e1X, e1Y, e1Z).cross(new Vector(e2X, e2Y, e2Z)).normalize();
+            newNormals[tri * 3] = normal.getX();
+            newNormals[tri * 3 + 1] = normal.getY();
+            newNormals[tri * 3 + 2] = normal.getZ();
+        }
+
+        this.edges = newEdges;
+        this.normals = newNormals;
+        this.preparedCount = triangleCount;
+    }
+
+    /**
+     * Libère la capacité inutilisée des tableaux une fois le maillage complet.
+     */
+    public void trimToSize() {
+        if (singlePrecision) {
+            floatVertices = Arrays.copyOf(floatVertices, vertexCount * 3);
+        } else {
+            vertices = Arrays.copyOf(vertices, vertexCount * 3);
+        }
+        indices = Arrays.copyOf(indices, triangleCount * 3);
+        materialIds = Arrays.copyOf(materialIds, triangleCount);
+    }
+
+    private int vertexOffset(int tri, int corner) {
+        int index = indices[tri * 3 + corner];
+        if (index < 0 || index >= vertexCount) {
+            throw new IllegalStateException("Le triangle " + tri + " utilise un sommet non défini (" + index + ").");
+        }
+        return index * 3;
+    }
+
+    /**
+     * Intersection Rayon-Triangle (Möller–Trumbore) sur le triangle d'indice tri, restreinte à ]tMin, tMax[.
+     * @return La distance t, ou Shape.NO_HIT.
+     */
+    public double closestHit(int tri, Ray ray, double tMin, double tMax) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return closestHit(tri, o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), tMin, tMax);
+    }
+
+    /**
+     * Variante sans allocation : le rayon est passé par composantes.
+     */
+    public double closestHit(int tri, double ox, double oy, double oz, double dX, double dY, double dZ, double tMin, double tMax) {
+        if (singlePrecision) {
+            float[] v = floatVertices;
+            int a = indices[tri * 3] * 3, b = indices[tri * 3 + 1] * 3, c = indices[tri * 3 + 2] * 3;
+            double aX = v[a], aY = v[a + 1], aZ = v[a + 2];
+            return intersect(aX, aY, aZ, v[b] - aX, v[b + 1] - aY, v[b + 2] - aZ,
+                    v[c] - aX, v[c + 1] - aY, v[c + 2] - aZ, ox, oy, oz, dX, dY, dZ, tMin, tMax);
+        }
+        int e = tri * 6;
+        int a = indices[tri * 3] * 3;
+        return intersect(vertices[a], vertices[a + 1], vertices[a + 2], edges[e], edges[e + 1], edges[e + 2],
+                edges[e + 3], edges[e + 4], edges[e + 5], ox, oy, oz, dX, dY, dZ, tMin, tMax);
+    }
+
+    /**
+     * Möller–Trumbore sur le triangle de sommet a et d'arêtes e1, e2.
+     */
+    private static double intersect(double aX, double aY, double aZ, double e1X, double e1Y, double e1Z,
+                                    double e2X, double e2Y, double e2Z, double ox, double oy, double oz,
+                                    double dX, double dY, double dZ, double tMin, double tMax) {
+
+        // p = d x edge2
+        double pX = dY * e2Z - dZ * e2Y;
+        double pY = dZ * e2X - dX * e2Z;
+        double pZ = dX * e2Y - dY * e2X;
+
+        double det = e1X * pX + e1Y * pY + e1Z * pZ;
+
+        if (Math.abs(det) < EPSILON) {
+            return Shape.NO_HIT;
+        }
+
+        double invDet = 1.0 / det;
+
+        double tX = ox - aX, tY = oy - aY, tZ = oz - aZ;
+        double beta = (tX * pX + tY * pY + tZ * pZ) * invDet;
+
+        if (beta < 0 || beta > 1) {
+            return Shape.NO_HIT;
+        }
+
+        // q = t x edge1
+        double qX = tY * e1Z - tZ * e1Y;
+        double qY = tZ * e1X - tX * e1Z;
+        double qZ = tX * e1Y - tY * e1X;
+        double gamma = (dX * qX + dY * qY + dZ * qZ) * invDet;
+
+        if (gamma < 0 || beta + gamma > 1) {
+            return Shape.NO_HIT;
+        }
+
+        double distanceT = (e2X * qX + e2Y * qY + e2Z * qZ) * invDet;
+
+        if (distanceT < EPSILON || distanceT <= tMin || distanceT >= tMax) {
+            return Shape.NO_HIT;
+        }
+
+        return distanceT;
+    }
+
+    public boolean anyHit(int tri, double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        return closestHit(tri, ox, oy, oz, dx, dy, dz, tMin, tMax) < tMax;
+    }
+
+    /**
+     * Normale unitaire de la face tri : précalculée, ou calculée en double à partir des sommets en float.
+     */
+    public Vector getNormal(int tri) {
+        if (singlePrecision) {
+            float[] v = floatVertices;
+            int a = indices[tri * 3] * 3, b = indices[tri * 3 + 1] * 3, c = indices[tri * 3 + 2] * 3;
+            Vector e1 = new Vector(v[b] - v[a], v[b + 1] - v[a + 1], v[b + 2] - v[a + 2]);
+            Vector e2 = new Vector(v[c] - v[a], v[c + 1] - v[a + 1], v[c + 2] - v[a + 2]);
+            return e1.cross(e2).normalize();
+        }
+        return new Vector(normals[tri * 3], normals[tri * 3 + 1], normals[tri * 3 + 2]);
+    }
+
+    public void computeNormal(int tri, HitRecord hit) {
+        if (singlePrecision) {
+            float[] v = floatVertices;
+            int a = indices[tri * 3] * 3, b = indices[tri * 3 + 1] * 3, c = indices[tri * 3 + 2] * 3;
+            double e1X = v[b] - v[a], e1Y = v[b + 1] - v[a + 1], e1Z = v[b + 2] - v[a + 2];
+            double e2X = v[c] - v[a], e2Y = v[c + 1] - v[a + 1], e2Z = v[c + 2] - v[a + 2];
+            double nX = e1Y * e2Z - e1Z * e2Y;
+            double nY = e1Z * e2X - e1X * e2Z;
+            double nZ = e1X * e2Y - e1Y * e2X;
+            double len = Math.sqrt(nX * nX + nY * nY + nZ * nZ);
+            if (len == 0.0) {
+                hit.setNormal(0, 0, 0);
+            } else {
+                hit.setNormal(nX / len, nY / len, nZ / len);
+            }
+            return;
+        }
+        hit.setNormal(normals[tri * 3], normals[tri * 3 + 1], normals[tri * 3 + 2]);
+    }
+
+    public Material getMaterial(int tri) {
+        return materials.get(materialIds[tri]);
+    }
+
+    /**
+     * Écrit la boîte englobante du triangle tri (min x, y, z puis max x, y, z) dans out à partir de offset.
+     */
+    public void getBounds(int tri, double[] out, int offset) {
+        // En simple précision, boîte des sommets arrondis : ce sont eux que l'intersection utilise.
+        int a = vertexOffset(tri, 0);
+        int b = vertexOffset(tri, 1);
+        int c = vertexOffset(tri, 2);
+        for (int axis = 0; axis < 3; axis++) {
+            double va = vertex(a + axis), vb = vertex(b + axis), vc = vertex(c + axis);
+            out[offset + axis] = Math.min(va, Math.min(vb, vc));
+            out[offset + 3 + axis] = Math.max(va, Math.max(vb, vc));
+        }
+    }
+
+    /**
+     * Écrit dans out, à partir de offset, le premier sommet puis les deux arêtes du triangle tri
+     * (9 valeurs) : les données nécessaires à l'intersection de plusieurs rayons avec ce triangle.
+     */
+    public void getTriangleData(int tri, double[] out, int offset) {
+        if (singlePrecision) {
+            int a = indices[tri * 3] * 3, b = indices[tri * 3 + 1] * 3, c = indices[tri * 3 + 2] * 3;
+            for (int axis = 0; axis < 3; axis++) {
+                double va = floatVertices[a + axis];
+                out[offset + axis] = va;
+                out[offset + 3 + axis] = floatVertices[b + axis] - va;
+                out[offset + 6 + axis] = floatVertices[c + axis] - va;
+            }
+            return;
+        }
+        int a = indices[tri * 3] * 3;
+        out[offset] = vertices[a];
+        out[offset + 1] = vertices[a + 1];
+        out[offset + 2] = vertices[a + 2];
+        System.arraycopy(edges, tri * 6, out, offset + 3, 6);
+    }
+
+    /**
+     * Vue Shape sur le triangle tri, portant son matériau. Utilisée pour l'ombrage d'un point d'impact.
+     */
+    public Triangle getTriangle(int tri) {
+        return new Triangle(this, tri);
+    }
+}
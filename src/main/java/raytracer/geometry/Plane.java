@@ -1,21 +1,33 @@
 package raytracer.geometry;
 
+import raytracer.accel.BoundingBox;
 import raytracer.math.Point;
 import raytracer.math.Vector;
-import raytracer.math.Ray;
-import raytracer.trace.Intersection;
+import raytracer.trace.HitRecord;
 import java.util.Optional;
 
 public final class Plane extends Shape {
-    private static final double EPSILON = 1e-6;
+    public static final double EPSILON = 1e-6;
 
     private final Point point;
     private final Vector normal;
 
     public Plane(Point point, Vector normal) {
+        this(point, normal, true);
+    }
+
+    private Plane(Point point, Vector normal, boolean normalize) {
         super();
         this.point = point;
-        this.normal = normal.normalize();
+        this.normal = normalize ? normal.normalize() : normal;
+    }
+
+    /**
+     * Plan dont la normale est déjà unitaire (relecture du cache de scène) : elle est reprise telle quelle,
+     * car normaliser une seconde fois peut modifier le dernier bit des composantes.
+     */
+    public static Plane withUnitNormal(Point point, Vector unitNormal) {
+        return new Plane(point, unitNormal, false);
     }
 
     public Point getPoint() {
@@ -27,28 +39,35 @@ public final class Plane extends Shape {
     }
 
     /**
-     * Implémentation de l'intersection Rayon-Plan.
+     * Le plan déplacé garde sa normale telle quelle, sans la normaliser de nouveau.
      */
     @Override
-    public Optional<Intersection> intersect(Ray ray) {
+    public Shape translate(Vector offset) {
+        return withUnitNormal(point.add(offset), normal).withMaterialOf(this);
+    }
 
-        double denom = ray.getDirection().dot(this.normal);
+    /**
+     * Implémentation de l'intersection Rayon-Plan, restreinte à ]tMin, tMax[.
+     */
+    @Override
+    public double closestHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        double nX = normal.getX(), nY = normal.getY(), nZ = normal.getZ();
+
+        double denom = dx * nX + dy * nY + dz * nZ;
 
         if (Math.abs(denom) < EPSILON) {
-            return Optional.empty();
+            return NO_HIT;
         }
 
-        Vector qMinusO = this.point.subtract(ray.getOrigin());
-        double numer = qMinusO.dot(this.normal);
+        double numer = (point.getX() - ox) * nX + (point.getY() - oy) * nY + (point.getZ() - oz) * nZ;
 
         double t = numer / denom;
 
-        if (t <= EPSILON) {
-            return Optional.empty();
+        if (t <= EPSILON || t <= tMin || t >= tMax) {
+            return NO_HIT;
         }
 
-        Point p = ray.pointAt(t);
-        return Optional.of(new Intersection(t, p, this));
+        return t;
     }
 
     /**
@@ -58,4 +77,17 @@ public final class Plane extends Shape {
     public Vector getNormal(Point p) {
         return this.normal;
     }
-}
\ No newline at end of file
+
+    /**
+     * Un plan est infini : il n'a pas de boîte englobante et est traité à part par la BVH.
+     */
+    @Override
+    public Optional<BoundingBox> getBoundingBox() {
+        return Optional.empty();
+    }
+
+    @Override
+    public void computeNormal(HitRecord hit) {
+        hit.setNormal(normal.getX(), normal.getY(), normal.getZ());
+    }
+}
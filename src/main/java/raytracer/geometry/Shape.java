@@ -1,9 +1,11 @@
 package raytracer.geometry;
 
+import raytracer.accel.BoundingBox;
 import raytracer.math.Color;
 import raytracer.math.Ray;
 import raytracer.math.Vector;
 import raytracer.math.Point;
+import raytracer.trace.HitRecord;
 import raytracer.trace.Intersection;
 import java.util.Optional;
 
@@ -43,7 +45,90 @@ public abstract class Shape {
         this.shininess = shininess;
     }
 
-    public abstract Optional<Intersection> intersect(Ray ray);
+    /**
+     * Copie de la forme déplacée de offset, avec le même matériau (images d'une animation).
+     * @throws UnsupportedOperationException si la forme ne peut pas être déplacée.
+     */
+    public Shape translate(Vector offset) {
+        throw new UnsupportedOperationException("La forme " + getClass().getSimpleName() + " ne peut pas être déplacée.");
+    }
+
+    /**
+     * Reprend le matériau de other et retourne cette forme.
+     */
+    protected Shape withMaterialOf(Shape other) {
+        this.diffuse = other.diffuse;
+        this.specular = other.specular;
+        this.shininess = other.shininess;
+        return this;
+    }
+
+    /**
+     * Valeur renvoyée par closestHit lorsque le rayon ne touche pas la forme dans l'intervalle demandé.
+     */
+    public static final double NO_HIT = Double.POSITIVE_INFINITY;
+
+    /**
+     * Requête "plus proche intersection" bornée : distance de la plus proche intersection dans ]tMin, tMax[.
+     * Le rayon est passé par composantes (origine o, direction unitaire d) : aucun objet n'est alloué,
+     * et les candidats au-delà de tMax sont rejetés avant tout calcul supplémentaire.
+     * @param tMin Distance minimale (exclue).
+     * @param tMax Distance maximale (exclue), typiquement la meilleure intersection trouvée jusque-là.
+     * @return La distance t, ou NO_HIT.
+     */
+    public abstract double closestHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax);
+
+    /**
+     * Requête d'occultation : indique si la forme coupe le rayon quelque part dans ]tMin, tMax[.
+     * Utilisée par les rayons d'ombre, qui n'ont besoin ni du point ni de la distance exacte.
+     */
+    public boolean anyHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        return closestHit(ox, oy, oz, dx, dy, dz, tMin, tMax) < tMax;
+    }
+
+    public double closestHit(Ray ray, double tMin, double tMax) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return closestHit(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), tMin, tMax);
+    }
+
+    public boolean anyHit(Ray ray, double tMin, double tMax) {
+        Point o = ray.getOrigin();
+        Vector d = ray.getDirection();
+        return anyHit(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), tMin, tMax);
+    }
+
+    /**
+     * Calcule l'intersection la plus proche devant l'origine du rayon.
+     * @return L'intersection, ou Optional.empty() si le rayon ne touche pas la forme.
+     */
+    public Optional<Intersection> intersect(Ray ray) {
+        double t = closestHit(ray, 0.0, NO_HIT);
+        if (t == NO_HIT) {
+            return Optional.empty();
+        }
+        return Optional.of(new Intersection(t, ray.pointAt(t), this));
+    }
 
     public abstract Vector getNormal(Point p);
+
+    /**
+     * Écrit dans l'enregistrement la normale unitaire au point d'impact qu'il contient.
+     * Équivalent sans allocation de getNormal(Point).
+     */
+    public abstract void computeNormal(HitRecord hit);
+
+    /**
+     * Variante de computeNormal qui reçoit aussi le rayon touché (origine o, direction unitaire d),
+     * dont les formes composées (Instance) ont besoin pour retrouver la face touchée. Par défaut, computeNormal(hit).
+     */
+    public void computeNormal(HitRecord hit, double ox, double oy, double oz, double dx, double dy, double dz) {
+        computeNormal(hit);
+    }
+
+    /**
+     * Boîte englobante de la forme, utilisée pour construire la hiérarchie de volumes englobants.
+     * @return La boîte, ou Optional.empty() si la forme est non bornée (plan infini).
+     */
+    public abstract Optional<BoundingBox> getBoundingBox();
 }
\ No newline at end of file
@@ -1,9 +1,9 @@
 package raytracer.geometry;
 
+import raytracer.accel.BoundingBox;
 import raytracer.math.Point;
-import raytracer.math.Ray;
 import raytracer.math.Vector;
-import raytracer.trace.Intersection;
+import raytracer.trace.HitRecord;
 import java.util.Optional;
 import java.lang.Math;
 
@@ -17,46 +17,56 @@ public final class Sphere extends Shape {
         this.radius = radius;
     }
 
-    @Override
-    public Optional<Intersection> intersect(Ray ray) {
-        Point o = ray.getOrigin();
-        Vector d = ray.getDirection();
-        Point c = this.center;
-        double r = this.radius;
+    public Point getCenter() {
+        return center;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
 
-        Vector oc = o.subtract(c);
+    @Override
+    public Shape translate(Vector offset) {
+        return new Sphere(center.add(offset), radius).withMaterialOf(this);
+    }
 
-        double a = d.dot(d);
-        double b = 2.0 * oc.dot(d);
-        double C = oc.dot(oc) - r * r;
+    /**
+     * Intersection Rayon-Sphère : résolution de a*t^2 + b*t + c = 0 avec les racines restreintes à ]tMin, tMax[.
+     */
+    @Override
+    public double closestHit(double ox, double oy, double oz, double dX, double dY, double dZ, double tMin, double tMax) {
+        double ocX = ox - center.getX();
+        double ocY = oy - center.getY();
+        double ocZ = oz - center.getZ();
+
+        double a = dX * dX + dY * dY + dZ * dZ;
+        double b = 2.0 * (ocX * dX + ocY * dY + ocZ * dZ);
+        double C = ocX * ocX + ocY * ocY + ocZ * ocZ - radius * radius;
+
+        // Origine hors de la sphère et rayon qui s'en éloigne : aucune racine positive, inutile de calculer la racine carrée.
+        if (C > 0 && b > 0) {
+            return NO_HIT;
+        }
 
         double delta = b * b - 4.0 * a * C;
 
         if (delta < 0) {
-            return Optional.empty();
+            return NO_HIT;
         }
 
         double sqrtDelta = Math.sqrt(delta);
 
         double t1 = (-b - sqrtDelta) / (2.0 * a);
-        double t2 = (-b + sqrtDelta) / (2.0 * a);
-
-        double tClosest = Double.MAX_VALUE;
-
-        if (t1 > 0) {
-            tClosest = t1;
-        }
-
-        if (t2 > 0 && t2 < tClosest) {
-            tClosest = t2;
+        if (t1 > tMin && t1 < tMax) {
+            return t1;
         }
 
-        if (tClosest == Double.MAX_VALUE) {
-            return Optional.empty();
+        double t2 = (-b + sqrtDelta) / (2.0 * a);
+        if (t2 > tMin && t2 < tMax) {
+            return t2;
         }
 
-        Point p = ray.pointAt(tClosest);
-        return Optional.of(new Intersection(tClosest, p, this));
+        return NO_HIT;
     }
 
     /**
@@ -68,4 +78,23 @@ public final class Sphere extends Shape {
         Vector normalUnnormalized = p.subtract(this.center);
         return normalUnnormalized.normalize();
     }
+
+    @Override
+    public void computeNormal(HitRecord hit) {
+        double x = hit.getPointX() - center.getX();
+        double y = hit.getPointY() - center.getY();
+        double z = hit.getPointZ() - center.getZ();
+        double len = Math.sqrt(x * x + y * y + z * z);
+        if (len == 0.0) {
+            hit.setNormal(0, 0, 0);
+        } else {
+            hit.setNormal(x / len, y / len, z / len);
+        }
+    }
+
+    @Override
+    public Optional<BoundingBox> getBoundingBox() {
+        Vector extent = new Vector(radius, radius, radius);
+        return Optional.of(new BoundingBox(center.add(extent.multiply(-1.0)), center.add(extent)));
+    }
 }
\ No newline at end of file
@@ -1,20 +1,21 @@
 package raytracer.geometry;
 
+import raytracer.accel.BoundingBox;
 import raytracer.math.Point;
 import raytracer.math.Vector;
-import raytracer.math.Ray;
 import raytracer.scene.Scene;
-import raytracer.trace.Intersection;
+import raytracer.trace.HitRecord;
 import java.util.Optional;
 
 /**
  * Représente un triangle, implémentant l'algorithme d'intersection Möller–Trumbore (Jalon 6 Bonus).
+ * Un triangle n'est qu'une vue sur une face d'un Mesh : sommets, arêtes et normale sont lus
+ * dans les tableaux du maillage à partir de l'indice de la face.
  */
 public final class Triangle extends Shape {
-    private static final double EPSILON = 1e-6;
-
     private final int indexA, indexB, indexC;
-    private Scene scene;
+    private Mesh mesh;
+    private int id = -1;
 
     public Triangle(int indexA, int indexB, int indexC) {
         super();
@@ -23,78 +24,75 @@ public final class Triangle extends Shape {
         this.indexC = indexC;
     }
 
-    public void setScene(Scene scene) {
-        this.scene = scene;
+    /**
+     * Vue sur la face id d'un maillage existant, avec le matériau de cette face.
+     */
+    Triangle(Mesh mesh, int id) {
+        this(-1, -1, -1);
+        this.mesh = mesh;
+        this.id = id;
+
+        Material material = mesh.getMaterial(id);
+        setDiffuse(material.getDiffuse());
+        setSpecular(material.getSpecular());
+        setShininess(material.getShininess());
     }
 
-    private Point getVertexA() {
-        return scene.getVertices().get(indexA);
+    /**
+     * Rattache le triangle au maillage de la scène, dont il référence les sommets : la face est ajoutée au maillage
+     * avec le matériau courant du triangle. Un second appel avec la même scène ne change rien (Scene.addShape
+     * rattache déjà les triangles). Les données de la face sont calculées par mesh.prepare(), appelé une fois la scène
+     * construite (la construction de la structure d'accélération le fait).
+     * @throws IllegalStateException si le triangle est déjà rattaché à un autre maillage.
+     */
+    public void setScene(Scene scene) {
+        Mesh target = scene.getMesh();
+        if (mesh == target) {
+            return;
+        }
+        if (mesh != null) {
+            throw new IllegalStateException("Le triangle est déjà rattaché à un autre maillage.");
+        }
+        this.mesh = target;
+        this.id = mesh.addTriangle(indexA, indexB, indexC, mesh.addMaterial(new Material(getDiffuse(), getSpecular(), getShininess())));
     }
 
-    private Point getVertexB() {
-        return scene.getVertices().get(indexB);
+    public Mesh getMesh() {
+        return mesh;
     }
 
-    private Point getVertexC() {
-        return scene.getVertices().get(indexC);
+    /**
+     * @return L'indice de la face dans son maillage.
+     */
+    public int getId() {
+        return id;
     }
 
     /**
-     * Implémentation de l'intersection Rayon-Triangle (Algorithme Möller–Trumbore)
+     * Implémentation de l'intersection Rayon-Triangle (Algorithme Möller–Trumbore), restreinte à ]tMin, tMax[.
      */
     @Override
-    public Optional<Intersection> intersect(Ray ray) {
-        Point a = getVertexA();
-        Point b = getVertexB();
-        Point c = getVertexC();
-
-        Vector edge1 = b.subtract(a);
-        Vector edge2 = c.subtract(a);
-        Vector p = ray.getDirection().cross(edge2);
-
-        double det = edge1.dot(p);
-
-        if (Math.abs(det) < EPSILON) {
-            return Optional.empty();
-        }
-
-        double invDet = 1.0 / det;
-
-        Vector t = ray.getOrigin().subtract(a);
-        double beta = t.dot(p) * invDet;
-
-        if (beta < 0 || beta > 1) {
-            return Optional.empty();
-        }
-
-        Vector q = t.cross(edge1);
-        double gamma = ray.getDirection().dot(q) * invDet;
-
-        if (gamma < 0 || beta + gamma > 1) {
-            return Optional.empty();
-        }
-
-        double distanceT = edge2.dot(q) * invDet;
-
-        if (distanceT < EPSILON) {
-            return Optional.empty();
-        }
-
-        Point hitPoint = ray.pointAt(distanceT);
-
-        return Optional.of(new Intersection(distanceT, hitPoint, this));
+    public double closestHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMin, double tMax) {
+        return mesh.closestHit(id, ox, oy, oz, dx, dy, dz, tMin, tMax);
     }
 
     /**
-     * Calcule la normale unitaire du triangle (produit vectoriel des deux arêtes).
+     * Normale unitaire du triangle (produit vectoriel des deux arêtes), précalculée par le maillage.
      */
     @Override
     public Vector getNormal(Point p) {
-        Vector edge1 = getVertexB().subtract(getVertexA());
-        Vector edge2 = getVertexC().subtract(getVertexA());
+        return mesh.getNormal(id);
+    }
 
-        Vector normal = edge1.cross(edge2);
+    @Override
+    public void computeNormal(HitRecord hit) {
+        mesh.computeNormal(id, hit);
+    }
 
-        return normal.normalize();
+    @Override
+    public Optional<BoundingBox> getBoundingBox() {
+        double[] bounds = new double[6];
+        mesh.getBounds(id, bounds, 0);
+        return Optional.of(new BoundingBox(new Point(bounds[0], bounds[1], bounds[2]), new Point(bounds[3], bounds[4], bounds[5])));
     }
-}
\ No newline at end of file
+}
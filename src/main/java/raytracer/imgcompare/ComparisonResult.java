@@ -0,0 +1,64 @@
+package raytracer.imgcompare;
+
+/**
+ * Statistiques d'une comparaison d'images (voir ImageComparator.compare), obtenues en un seul passage.
+ * Les erreurs sont mesurées sur les composantes R, G et B, de 0 à 255.
+ */
+public final class ComparisonResult {
+    private final long pixelCount;
+    private final long differentPixels;
+    private final int maxChannelError;
+    private final long squaredError;
+    private final boolean complete;
+
+    ComparisonResult(long pixelCount, long differentPixels, int maxChannelError, long squaredError, boolean complete) {
+        this.pixelCount = pixelCount;
+        this.differentPixels = differentPixels;
+        this.maxChannelError = maxChannelError;
+        this.squaredError = squaredError;
+        this.complete = complete;
+    }
+
+    public long getPixelCount() {
+        return pixelCount;
+    }
+
+    /**
+     * Nombre de pixels dont la valeur ARGB diffère ; un minorant si la comparaison a été interrompue.
+     */
+    public long getDifferentPixels() {
+        return differentPixels;
+    }
+
+    /**
+     * Plus grand écart absolu d'une composante R, G ou B.
+     */
+    public int getMaxChannelError() {
+        return maxChannelError;
+    }
+
+    /**
+     * Erreur quadratique moyenne par composante.
+     */
+    public double getMeanSquaredError() {
+        return (double) squaredError / (3.0 * pixelCount);
+    }
+
+    /**
+     * Rapport signal sur bruit de crête, en décibels ; infini pour deux images aux couleurs identiques.
+     */
+    public double getPsnr() {
+        if (squaredError == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return 10.0 * Math.log10(255.0 * 255.0 / getMeanSquaredError());
+    }
+
+    /**
+     * @return false si la comparaison s'est arrêtée dès le budget de pixels différents dépassé : les autres
+     *         statistiques ne portent alors que sur les lignes parcourues.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+}
@@ -0,0 +1,38 @@
+package raytracer.imgcompare;
+
+/**
+ * Noyaux de comparaison d'une ligne de pixels 0xAARRGGBB. Chaque pixel est lu « or fill » : fill vaut 0xFF000000
+ * pour une image sans canal alpha (dont l'octet de poids fort n'a pas de sens), 0 sinon.
+ */
+interface DiffKernel {
+
+    /**
+     * Noyaux vectoriels si le module jdk.incubator.vector est présent (java --add-modules jdk.incubator.vector),
+     * noyaux scalaires sinon. La classe vectorielle n'est chargée que dans le premier cas.
+     */
+    DiffKernel DEFAULT = create();
+
+    static DiffKernel create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (DiffKernel) Class.forName("raytracer.imgcompare.VectorDiffKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarDiffKernel();
+            }
+        }
+        return new ScalarDiffKernel();
+    }
+
+    boolean isVectorized();
+
+    /**
+     * Ajoute à stats les écarts des length pixels de a (à partir de offsetA) et de b (à partir de offsetB).
+     */
+    void compareRow(int[] a, int offsetA, int fillA, int[] b, int offsetB, int fillB, int length, DiffStats stats);
+
+    /**
+     * Écrit dans out l'écart absolu de chaque composante, au format 0xRRGGBB (noir pour deux pixels égaux).
+     */
+    void diffRow(int[] a, int offsetA, int[] b, int offsetB, int[] out, int offsetOut, int length);
+}
@@ -0,0 +1,17 @@
+package raytracer.imgcompare;
+
+/**
+ * Écarts accumulés sur une partie de l'image par un thread. Les sommes sont entières :
+ * le résultat ne dépend pas du découpage entre threads.
+ */
+final class DiffStats {
+    long differentPixels;
+    int maxChannelError;
+    long squaredError;
+
+    void add(DiffStats other) {
+        differentPixels += other.differentPixels;
+        maxChannelError = Math.max(maxChannelError, other.maxChannelError);
+        squaredError += other.squaredError;
+    }
+}
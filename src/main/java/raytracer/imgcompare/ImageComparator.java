@@ -1,16 +1,62 @@
 package raytracer.imgcompare;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Classe utilitaire pour comparer deux images BufferedImage.
  * Elle permet de compter le nombre de pixels différents et de générer
  * une image représentant les différences.
+ * Les images aux pixels entiers (TYPE_INT_RGB, TYPE_INT_ARGB) sont lues directement dans leur raster ; les autres
+ * sont converties par bandes de lignes. Les lignes sont réparties entre threads et comparées par des noyaux
+ * vectoriels lorsque l'API Vector est disponible (voir DiffKernel).
  */
 public class ImageComparator {
 
     private static final int THRESHOLD_DIFF = 1000;
 
+    /**
+     * Nombre de lignes traitées d'un seul tenant par un thread.
+     */
+    private static final int BAND_HEIGHT = 16;
+
+    private final int threadCount;
+    private final DiffKernel kernel;
+
+    /**
+     * Comparaison sur tous les cœurs disponibles.
+     */
+    public ImageComparator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threadCount Nombre de threads de comparaison (1 pour une comparaison séquentielle).
+     */
+    public ImageComparator(int threadCount) {
+        this(threadCount, DiffKernel.DEFAULT);
+    }
+
+    ImageComparator(int threadCount, DiffKernel kernel) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être au moins 1.");
+        }
+        this.threadCount = threadCount;
+        this.kernel = kernel;
+    }
+
+    /**
+     * @return true si les lignes sont comparées avec l'API Vector.
+     */
+    public boolean isVectorized() {
+        return kernel.isVectorized();
+    }
+
     /**
      * Compare deux images BufferedImage pixel par pixel et retourne le nombre
      * de pixels différents. Les images doivent avoir la même taille[cite: 127].
@@ -21,25 +67,52 @@ public class ImageComparator {
      * @throws IllegalArgumentException si les images n'ont pas la même taille.
      */
     public int countDifferentPixels(BufferedImage img1, BufferedImage img2) {
-        if (img1.getWidth() != img2.getWidth() || img1.getHeight() != img2.getHeight()) {
-            throw new IllegalArgumentException("Les images n'ont pas la même taille.");
-        }
+        return (int) compare(img1, img2).getDifferentPixels();
+    }
+
+    /**
+     * Compare les deux images en un seul passage : pixels différents, écart maximal d'une composante, PSNR.
+     * @throws IllegalArgumentException si les images n'ont pas la même taille.
+     */
+    public ComparisonResult compare(BufferedImage img1, BufferedImage img2) {
+        return compare(img1, img2, Long.MAX_VALUE);
+    }
 
-        int diffCount = 0;
+    /**
+     * Compare les deux images et s'arrête dès que plus de maxDifferentPixels pixels diffèrent
+     * (ComparisonResult.isComplete() vaut alors false).
+     * @throws IllegalArgumentException si les images n'ont pas la même taille.
+     */
+    public ComparisonResult compare(BufferedImage img1, BufferedImage img2, long maxDifferentPixels) {
+        checkSameSize(img1, img2);
         int width = img1.getWidth();
         int height = img1.getHeight();
+        Rows rows1 = new Rows(img1);
+        Rows rows2 = new Rows(img2);
+        AtomicLong differentPixels = new AtomicLong();
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb1 = img1.getRGB(x, y);
-                int rgb2 = img2.getRGB(x, y);
-
-                if (rgb1 != rgb2) {
-                    diffCount++;
+        RowAction<DiffStats> compareBand = (y0, y1) -> {
+            DiffStats stats = new DiffStats();
+            int[] buffer1 = rows1.buffer(y1 - y0);
+            int[] buffer2 = rows2.buffer(y1 - y0);
+            int[] pixels1 = rows1.read(y0, y1, buffer1);
+            int[] pixels2 = rows2.read(y0, y1, buffer2);
+            for (int y = y0; y < y1; y++) {
+                // Le budget est partagé : chaque thread s'arrête dès qu'il est dépassé.
+                if (differentPixels.get() > maxDifferentPixels) {
+                    return stats;
                 }
+                long before = stats.differentPixels;
+                kernel.compareRow(pixels1, rows1.offset(y0, y, buffer1), rows1.fill,
+                        pixels2, rows2.offset(y0, y, buffer2), rows2.fill, width, stats);
+                differentPixels.addAndGet(stats.differentPixels - before);
             }
-        }
-        return diffCount;
+            return stats;
+        };
+
+        DiffStats total = forEachBand(height, compareBand);
+        return new ComparisonResult((long) width * height, total.differentPixels, total.maxChannelError,
+                total.squaredError, total.differentPixels <= maxDifferentPixels);
     }
 
     /**
@@ -52,6 +125,15 @@ public class ImageComparator {
         return diffCount < THRESHOLD_DIFF;
     }
 
+    /**
+     * Détermine si deux images sont considérées comme identiques, sans compter les pixels différents
+     * au-delà du seuil : la comparaison s'arrête dès qu'il est atteint.
+     * @throws IllegalArgumentException si les images n'ont pas la même taille.
+     */
+    public boolean areIdentical(BufferedImage img1, BufferedImage img2) {
+        return compare(img1, img2, THRESHOLD_DIFF - 1).isComplete();
+    }
+
     /**
      * Génère une image différentielle représentant les différences entre les deux images[cite: 77, 78].
      *
@@ -61,51 +143,148 @@ public class ImageComparator {
      * @throws IllegalArgumentException si les images n'ont pas la même taille.
      */
     public BufferedImage generateDifferentialImage(BufferedImage img1, BufferedImage img2) {
+        checkSameSize(img1, img2);
+        int width = img1.getWidth();
+        int height = img1.getHeight();
+        BufferedImage diffImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] diffPixels = ((DataBufferInt) diffImage.getRaster().getDataBuffer()).getData();
+        Rows rows1 = new Rows(img1);
+        Rows rows2 = new Rows(img2);
+
+        // Noir pour deux pixels égaux, sinon la différence absolue des composantes R, G, B.
+        forEachBand(height, (y0, y1) -> {
+            int[] buffer1 = rows1.buffer(y1 - y0);
+            int[] buffer2 = rows2.buffer(y1 - y0);
+            int[] pixels1 = rows1.read(y0, y1, buffer1);
+            int[] pixels2 = rows2.read(y0, y1, buffer2);
+            for (int y = y0; y < y1; y++) {
+                kernel.diffRow(pixels1, rows1.offset(y0, y, buffer1), pixels2, rows2.offset(y0, y, buffer2),
+                        diffPixels, y * width, width);
+            }
+            return new DiffStats();
+        });
+        return diffImage;
+    }
+
+    private static void checkSameSize(BufferedImage img1, BufferedImage img2) {
         if (img1.getWidth() != img2.getWidth() || img1.getHeight() != img2.getHeight()) {
             throw new IllegalArgumentException("Les images n'ont pas la même taille.");
         }
+    }
 
-        int width = img1.getWidth();
-        int height = img1.getHeight();
-        BufferedImage diffImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    /**
+     * Applique action aux bandes de BAND_HEIGHT lignes, en parallèle si plusieurs threads sont demandés,
+     * et cumule leurs statistiques.
+     */
+    private DiffStats forEachBand(int height, RowAction<DiffStats> action) {
+        int bandCount = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+        if (threadCount == 1 || bandCount == 1) {
+            DiffStats total = new DiffStats();
+            for (int band = 0; band < bandCount; band++) {
+                total.add(action.apply(band * BAND_HEIGHT, Math.min((band + 1) * BAND_HEIGHT, height)));
+            }
+            return total;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try {
+            return pool.invoke(new BandRangeTask(action, height, 0, bandCount));
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb1 = img1.getRGB(x, y);
-                int rgb2 = img2.getRGB(x, y);
+    private interface RowAction<T> {
+        T apply(int y0, int y1);
+    }
 
-                if (rgb1 == rgb2) {
-                    diffImage.setRGB(x, y, 0x000000); // Noir
-                } else {
-                    int diffRGB = calculateColorDifference(rgb1, rgb2);
-                    diffImage.setRGB(x, y, diffRGB);
-                }
+    /**
+     * Tâche fork/join sur une plage de bandes, coupée en deux tant qu'elle en contient plusieurs.
+     */
+    private static final class BandRangeTask extends RecursiveTask<DiffStats> {
+        private final RowAction<DiffStats> action;
+        private final int height;
+        private final int start;
+        private final int end;
+
+        private BandRangeTask(RowAction<DiffStats> action, int height, int start, int end) {
+            this.action = action;
+            this.height = height;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected DiffStats compute() {
+            if (end - start == 1) {
+                return action.apply(start * BAND_HEIGHT, Math.min(end * BAND_HEIGHT, height));
             }
+            int mid = (start + end) >>> 1;
+            BandRangeTask left = new BandRangeTask(action, height, start, mid);
+            left.fork();
+            DiffStats stats = new BandRangeTask(action, height, mid, end).compute();
+            stats.add(left.join());
+            return stats;
         }
-        return diffImage;
     }
 
     /**
-     * Calcule la différence de couleur entre deux pixels.
-     * Utilise la différence absolue des composantes R, G, B.
-     *
-     * @param rgb1 La valeur RGB du premier pixel.
-     * @param rgb2 La valeur RGB du deuxième pixel.
-     * @return La valeur RGB représentant la différence de couleur.
+     * Accès aux lignes d'une image au format 0xAARRGGBB de getRGB : directement dans le raster pour les images
+     * à pixels entiers contigus, sinon par conversion d'une bande dans un tampon.
      */
-    private int calculateColorDifference(int rgb1, int rgb2) {
-        int r1 = (rgb1 >> 16) & 0xFF;
-        int g1 = (rgb1 >> 8) & 0xFF;
-        int b1 = (rgb1) & 0xFF;
+    private static final class Rows {
+        private final BufferedImage image;
+        private final int width;
+        private final int[] data;
+        private final int dataOffset;
+        private final int scanline;
+        // Alpha opaque ajouté aux images sans canal alpha, comme le fait getRGB.
+        private final int fill;
 
-        int r2 = (rgb2 >> 16) & 0xFF;
-        int g2 = (rgb2 >> 8) & 0xFF;
-        int b2 = (rgb2) & 0xFF;
+        private Rows(BufferedImage image) {
+            this.image = image;
+            this.width = image.getWidth();
+            Raster raster = image.getRaster();
+            int type = image.getType();
+            boolean direct = (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                    && raster.getDataBuffer() instanceof DataBufferInt
+                    && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+                    && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0;
+            if (direct) {
+                DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+                this.data = buffer.getData();
+                this.dataOffset = buffer.getOffset();
+                this.scanline = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+                this.fill = type == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+            } else {
+                this.data = null;
+                this.dataOffset = 0;
+                this.scanline = width;
+                this.fill = 0;
+            }
+        }
 
-        int rDiff = Math.abs(r1 - r2);
-        int gDiff = Math.abs(g1 - g2);
-        int bDiff = Math.abs(b1 - b2);
+        /**
+         * Tampon de conversion d'une bande, null si l'image est lue directement.
+         */
+        int[] buffer(int rows) {
+            return data == null ? new int[rows * width] : null;
+        }
 
-        return (0xFF << 24) | (rDiff << 16) | (gDiff << 8) | bDiff;
+        /**
+         * Tableau contenant les lignes [y0, y1[ : le raster, ou buffer rempli par getRGB.
+         */
+        int[] read(int y0, int y1, int[] buffer) {
+            if (data != null) {
+                return data;
+            }
+            return image.getRGB(0, y0, width, y1 - y0, buffer, 0, width);
+        }
+
+        /**
+         * Indice du premier pixel de la ligne y dans le tableau retourné par read(y0, ...).
+         */
+        int offset(int y0, int y, int[] buffer) {
+            return buffer == null ? dataOffset + y * scanline : (y - y0) * width;
+        }
     }
-}
\ No newline at end of file
+}
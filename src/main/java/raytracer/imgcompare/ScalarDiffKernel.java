@@ -0,0 +1,58 @@
+package raytracer.imgcompare;
+
+/**
+ * Noyaux de repli, pixel par pixel, utilisés lorsque l'API Vector n'est pas disponible et pour la fin des lignes.
+ */
+final class ScalarDiffKernel implements DiffKernel {
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public void compareRow(int[] a, int offsetA, int fillA, int[] b, int offsetB, int fillB, int length, DiffStats stats) {
+        compare(a, offsetA, fillA, b, offsetB, fillB, 0, length, stats);
+    }
+
+    /**
+     * Compare les pixels [from, to[ de la ligne.
+     */
+    static void compare(int[] a, int offsetA, int fillA, int[] b, int offsetB, int fillB, int from, int to, DiffStats stats) {
+        long different = 0;
+        int max = stats.maxChannelError;
+        long squared = 0;
+        for (int i = from; i < to; i++) {
+            int rgb1 = a[offsetA + i] | fillA;
+            int rgb2 = b[offsetB + i] | fillB;
+            if (rgb1 == rgb2) {
+                continue;
+            }
+            different++;
+            int dr = Math.abs((rgb1 >> 16 & 0xFF) - (rgb2 >> 16 & 0xFF));
+            int dg = Math.abs((rgb1 >> 8 & 0xFF) - (rgb2 >> 8 & 0xFF));
+            int db = Math.abs((rgb1 & 0xFF) - (rgb2 & 0xFF));
+            max = Math.max(max, Math.max(dr, Math.max(dg, db)));
+            squared += dr * dr + dg * dg + db * db;
+        }
+        stats.differentPixels += different;
+        stats.maxChannelError = max;
+        stats.squaredError += squared;
+    }
+
+    @Override
+    public void diffRow(int[] a, int offsetA, int[] b, int offsetB, int[] out, int offsetOut, int length) {
+        diff(a, offsetA, b, offsetB, out, offsetOut, 0, length);
+    }
+
+    static void diff(int[] a, int offsetA, int[] b, int offsetB, int[] out, int offsetOut, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int rgb1 = a[offsetA + i];
+            int rgb2 = b[offsetB + i];
+            int dr = Math.abs((rgb1 >> 16 & 0xFF) - (rgb2 >> 16 & 0xFF));
+            int dg = Math.abs((rgb1 >> 8 & 0xFF) - (rgb2 >> 8 & 0xFF));
+            int db = Math.abs((rgb1 & 0xFF) - (rgb2 & 0xFF));
+            out[offsetOut + i] = dr << 16 | dg << 8 | db;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package raytracer.imgcompare;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Noyaux vectoriels (jdk.incubator.vector) : les pixels sont traités par blocs de la largeur SIMD préférée,
+ * chaque composante étant extraite par décalage et masque dans toutes les voies à la fois.
+ * La fin de ligne qui ne remplit pas un bloc passe par les noyaux scalaires.
+ * Cette classe n'est chargée que si le module est présent, voir DiffKernel.create().
+ */
+final class VectorDiffKernel implements DiffKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    /**
+     * Blocs additionnés dans les voies avant de reporter la somme des carrés dans un long :
+     * chaque voie reste sous 4096 * 3 * 255² < 2^31.
+     */
+    private static final int BLOCKS_PER_FLUSH = 4096;
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public void compareRow(int[] a, int offsetA, int fillA, int[] b, int offsetB, int fillB, int length, DiffStats stats) {
+        int vectorEnd = length - length % LANES;
+        IntVector max = IntVector.zero(SPECIES);
+        long different = 0;
+        long squared = 0;
+
+        int i = 0;
+        while (i < vectorEnd) {
+            int flushEnd = Math.min(vectorEnd, i + BLOCKS_PER_FLUSH * LANES);
+            IntVector sum = IntVector.zero(SPECIES);
+            for (; i < flushEnd; i += LANES) {
+                IntVector va = IntVector.fromArray(SPECIES, a, offsetA + i).or(fillA);
+                IntVector vb = IntVector.fromArray(SPECIES, b, offsetB + i).or(fillB);
+                different += va.compare(VectorOperators.NE, vb).trueCount();
+
+                IntVector dr = channel(va, 16).sub(channel(vb, 16)).abs();
+                IntVector dg = channel(va, 8).sub(channel(vb, 8)).abs();
+                IntVector db = channel(va, 0).sub(channel(vb, 0)).abs();
+                max = max.max(dr).max(dg).max(db);
+                sum = sum.add(dr.mul(dr)).add(dg.mul(dg)).add(db.mul(db));
+            }
+            squared += sum.reduceLanesToLong(VectorOperators.ADD);
+        }
+
+        stats.differentPixels += different;
+        stats.maxChannelError = Math.max(stats.maxChannelError, max.reduceLanes(VectorOperators.MAX));
+        stats.squaredError += squared;
+        ScalarDiffKernel.compare(a, offsetA, fillA, b, offsetB, fillB, vectorEnd, length, stats);
+    }
+
+    @Override
+    public void diffRow(int[] a, int offsetA, int[] b, int offsetB, int[] out, int offsetOut, int length) {
+        int vectorEnd = length - length % LANES;
+        for (int i = 0; i < vectorEnd; i += LANES) {
+            IntVector va = IntVector.fromArray(SPECIES, a, offsetA + i);
+            IntVector vb = IntVector.fromArray(SPECIES, b, offsetB + i);
+            IntVector dr = channel(va, 16).sub(channel(vb, 16)).abs();
+            IntVector dg = channel(va, 8).sub(channel(vb, 8)).abs();
+            IntVector db = channel(va, 0).sub(channel(vb, 0)).abs();
+            dr.lanewise(VectorOperators.LSHL, 16).or(dg.lanewise(VectorOperators.LSHL, 8)).or(db).intoArray(out, offsetOut + i);
+        }
+        ScalarDiffKernel.diff(a, offsetA, b, offsetB, out, offsetOut, vectorEnd, length);
+    }
+
+    private static IntVector channel(IntVector pixels, int shift) {
+        return pixels.lanewise(VectorOperators.LSHR, shift).and(0xFF);
+    }
+}
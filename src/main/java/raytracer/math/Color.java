@@ -68,6 +68,13 @@ public final class Color {
     }
 
     public int toRGB() {
+        return toRGB(r, g, b);
+    }
+
+    /**
+     * Conversion en entier ARGB à partir de composantes, sans créer d'objet Color.
+     */
+    public static int toRGB(double r, double g, double b) {
         int red = (int) Math.round(Math.max(0, Math.min(1, r)) * 255.0);
         int green = (int) Math.round(Math.max(0, Math.min(1, g)) * 255.0);
         int blue = (int) Math.round(Math.max(0, Math.min(1, b)) * 255.0);
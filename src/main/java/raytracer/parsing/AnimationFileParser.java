@@ -0,0 +1,109 @@
+package raytracer.parsing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.scene.Animation;
+import raytracer.scene.Camera;
+
+/**
+ * Lit le fichier d'animation qui accompagne une scène (même syntaxe que le fichier de scène) :
+ * <pre>
+ * frames 48                                   nombre d'images (obligatoire)
+ * output vol%03d.png                          modèle du nom des images (facultatif)
+ * camera 0  0 1 6  0 0 0  0 1 0  50           caméra clé de l'image 0
+ * translate 24  0  0 1.5 0                    déplacement clé de la forme 0 à l'image 24
+ * </pre>
+ * Les formes sont désignées par leur rang parmi les sphères et plans de la scène, à partir de 0.
+ */
+public class AnimationFileParser {
+    private static final String[] COMMANDS = {"frames", "output", "camera", "translate"};
+
+    public Animation parse(String filePath) throws IOException, SceneParseException {
+        Animation animation = new Animation();
+
+        try (SceneTokenizer tokenizer = new SceneTokenizer(Path.of(filePath), COMMANDS)) {
+            while (tokenizer.nextLine()) {
+                processLine(tokenizer, animation);
+            }
+        }
+
+        if (animation.getFrameCount() < 1) {
+            throw new SceneParseException("CONTRAINTE D'ANIMATION: la commande 'frames' doit donner au moins une image.");
+        }
+        return animation;
+    }
+
+    private void processLine(SceneTokenizer tokens, Animation animation) throws SceneParseException {
+        String command = tokens.command();
+
+        try {
+            switch (command) {
+                case "frames":
+                    animation.setFrameCount(tokens.nextInt());
+                    break;
+                case "output":
+                    String pattern = tokens.nextString();
+                    try {
+                        String.format(Locale.ROOT, pattern, 0);
+                    } catch (IllegalFormatException e) {
+                        throw new SceneParseException("Modèle de nom d'image invalide (" + e.getMessage() + "). Ligne: " + tokens.line());
+                    }
+                    animation.setOutputPattern(pattern);
+                    break;
+                case "camera":
+                    int cameraFrame = parseFrame(tokens, animation);
+                    Point lookFrom = parsePoint(tokens);
+                    Point lookAt = parsePoint(tokens);
+                    Vector up = parseVector(tokens);
+                    double fov = tokens.nextDouble();
+                    animation.addCameraKey(cameraFrame, new Camera(lookFrom, lookAt, up, fov));
+                    break;
+                case "translate":
+                    int frame = parseFrame(tokens, animation);
+                    int shape = tokens.nextInt();
+                    if (shape < 0) {
+                        throw new SceneParseException("CONTRAINTE D'ANIMATION: indice de forme négatif. Ligne: " + tokens.line());
+                    }
+                    animation.addTranslationKey(shape, frame, parseVector(tokens));
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            throw new SceneParseException("Erreur de format de nombre: La ligne contient un argument non valide. Ligne: " + tokens.line());
+        } catch (NoSuchElementException e) {
+            throw new SceneParseException("Erreur de format de ligne: Nombre d'arguments insuffisant pour la commande '" + command + "'. Ligne: " + tokens.line());
+        }
+    }
+
+    /**
+     * Numéro d'image d'une clé, qui doit suivre la commande 'frames'.
+     */
+    private int parseFrame(SceneTokenizer tokens, Animation animation) throws SceneParseException {
+        int frame = tokens.nextInt();
+        if (frame < 0 || frame >= animation.getFrameCount()) {
+            throw new SceneParseException("CONTRAINTE D'ANIMATION: image " + frame + " hors de [0, " + animation.getFrameCount()
+                    + "[ (la commande 'frames' doit précéder les clés). Ligne: " + tokens.line());
+        }
+        return frame;
+    }
+
+    private Point parsePoint(SceneTokenizer tokens) {
+        double x = tokens.nextDouble();
+        double y = tokens.nextDouble();
+        double z = tokens.nextDouble();
+        return new Point(x, y, z);
+    }
+
+    private Vector parseVector(SceneTokenizer tokens) {
+        double x = tokens.nextDouble();
+        double y = tokens.nextDouble();
+        double z = tokens.nextDouble();
+        return new Vector(x, y, z);
+    }
+}
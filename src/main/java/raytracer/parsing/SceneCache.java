@@ -0,0 +1,416 @@
+package raytracer.parsing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import raytracer.accel.AcceleratorType;
+import raytracer.geometry.Material;
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Shape;
+import raytracer.geometry.Sphere;
+import raytracer.light.AbstractLight;
+import raytracer.light.DirectionalLight;
+import raytracer.light.PointLight;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.scene.Camera;
+import raytracer.scene.Scene;
+
+/**
+ * Cache binaire des scènes parsées, écrit à côté du fichier source (final.scene -> final.scene.bin).
+ * L'en-tête contient la taille et le CRC32C du fichier source : le cache n'est relu que si le texte n'a pas changé.
+ * Les sommets et triangles sont stockés en tableaux contigus, relus en bloc depuis le fichier projeté en mémoire.
+ */
+public final class SceneCache {
+    private static final int MAGIC = 0x52545342; // "RTSB"
+    private static final int VERSION = 2;
+    private static final String EXTENSION = ".bin";
+    private static final long HASH_WINDOW = 1L << 30;
+    // Tampon d'écriture des tableaux du maillage : le maillage n'est pas recopié en entier sur le tas.
+    private static final int CHUNK_BYTES = 1 << 16;
+
+    private static final byte DIRECTIONAL_LIGHT = 0;
+    private static final byte POINT_LIGHT = 1;
+    private static final byte SPHERE = 0;
+    private static final byte PLANE = 1;
+
+    /**
+     * Charge la scène depuis son cache s'il correspond au contenu actuel du fichier source,
+     * sinon parse le fichier texte et (ré)écrit le cache.
+     */
+    public Scene load(String filePath) throws IOException, SceneParseException {
+        Path source = Path.of(filePath);
+        Path cache = cacheFile(source);
+        long sourceSize = Files.size(source);
+        int sourceHash = hash(source);
+
+        Optional<Scene> cached = read(cache, sourceSize, sourceHash);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        Scene scene = new SceneFileParser().parse(filePath);
+        try {
+            write(scene, cache, sourceSize, sourceHash);
+        } catch (IOException | IllegalArgumentException e) {
+            // Le cache n'est qu'une accélération : un dossier en lecture seule ne doit pas empêcher le rendu.
+            System.err.println("Cache de scène non écrit (" + cache + "): " + e.getMessage());
+        }
+        return scene;
+    }
+
+    /**
+     * Chemin du cache associé à un fichier de scène.
+     */
+    public static Path cacheFile(Path source) {
+        return source.resolveSibling(source.getFileName() + EXTENSION);
+    }
+
+    /**
+     * CRC32C du contenu du fichier, lu par fenêtres projetées en mémoire.
+     */
+    static int hash(Path source) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASH_WINDOW) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(HASH_WINDOW, size - position)));
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Relit une scène depuis son cache.
+     * @return Optional.empty() si le cache est absent, périmé (taille ou CRC différents) ou illisible.
+     */
+    Optional<Scene> read(Path cache, long sourceSize, int sourceHash) throws IOException {
+        if (!Files.isRegularFile(cache)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != sourceSize || buffer.getInt() != sourceHash) {
+                return Optional.empty();
+            }
+            Scene scene = readScene(buffer);
+            if (buffer.hasRemaining()) {
+                return Optional.empty();
+            }
+            return Optional.of(scene);
+        } catch (BufferUnderflowException | IllegalArgumentException | IllegalStateException e) {
+            // Cache tronqué ou incohérent : il sera réécrit après le parsing du texte.
+            return Optional.empty();
+        }
+    }
+
+    private Scene readScene(ByteBuffer buffer) {
+        Scene scene = new Scene();
+        scene.setWidth(buffer.getInt());
+        scene.setHeight(buffer.getInt());
+        scene.setMaxDepth(buffer.getInt());
+        scene.setMaxVerts(buffer.getInt());
+        int accelerator = buffer.get();
+        if (accelerator < 0 || accelerator >= AcceleratorType.values().length) {
+            throw new IllegalArgumentException("Structure d'accélération invalide: " + accelerator);
+        }
+        scene.setAcceleratorType(AcceleratorType.values()[accelerator]);
+
+        byte[] output = new byte[readLength(buffer, 1)];
+        buffer.get(output);
+        scene.setOutput(new String(output, StandardCharsets.UTF_8));
+
+        if (buffer.get() != 0) {
+            Point lookFrom = readPoint(buffer);
+            Point lookAt = readPoint(buffer);
+            Vector up = readVector(buffer);
+            scene.setCamera(new Camera(lookFrom, lookAt, up, buffer.getDouble()));
+        }
+        scene.setAmbient(readColor(buffer));
+
+        int lightCount = buffer.getInt();
+        for (int i = 0; i < lightCount; i++) {
+            byte type = buffer.get();
+            if (type == DIRECTIONAL_LIGHT) {
+                Vector direction = readVector(buffer);
+                scene.addLight(new DirectionalLight(direction, readColor(buffer)));
+            } else if (type == POINT_LIGHT) {
+                Point position = readPoint(buffer);
+                scene.addLight(new PointLight(position, readColor(buffer)));
+            } else {
+                throw new IllegalArgumentException("Type de lumière inconnu: " + type);
+            }
+        }
+
+        int shapeCount = buffer.getInt();
+        for (int i = 0; i < shapeCount; i++) {
+            byte type = buffer.get();
+            Shape shape;
+            if (type == SPHERE) {
+                Point center = readPoint(buffer);
+                shape = new Sphere(center, buffer.getDouble());
+            } else if (type == PLANE) {
+                Point point = readPoint(buffer);
+                shape = Plane.withUnitNormal(point, readVector(buffer));
+            } else {
+                throw new IllegalArgumentException("Type de forme inconnu: " + type);
+            }
+            Material material = readMaterial(buffer);
+            shape.setDiffuse(material.getDiffuse());
+            shape.setSpecular(material.getSpecular());
+            shape.setShininess(material.getShininess());
+            scene.addShape(shape);
+        }
+
+        int materialCount = readLength(buffer, 7 * Double.BYTES);
+        List<Material> materials = new ArrayList<>(materialCount);
+        for (int i = 0; i < materialCount; i++) {
+            materials.add(readMaterial(buffer));
+        }
+
+        double[] vertices = new double[readLength(buffer, Double.BYTES)];
+        buffer.asDoubleBuffer().get(vertices);
+        buffer.position(buffer.position() + vertices.length * Double.BYTES);
+
+        int[] indices = new int[readLength(buffer, Integer.BYTES)];
+        buffer.asIntBuffer().get(indices);
+        buffer.position(buffer.position() + indices.length * Integer.BYTES);
+
+        int[] materialIds = new int[readLength(buffer, Integer.BYTES)];
+        buffer.asIntBuffer().get(materialIds);
+        buffer.position(buffer.position() + materialIds.length * Integer.BYTES);
+
+        Mesh mesh = new Mesh(vertices, indices, materialIds, materials);
+        mesh.prepare();
+        scene.setMesh(mesh);
+        return scene;
+    }
+
+    /**
+     * Longueur d'un tableau, vérifiée par rapport aux octets restants pour ne pas allouer sur un cache corrompu.
+     */
+    private static int readLength(ByteBuffer buffer, int elementBytes) {
+        int length = buffer.getInt();
+        if (length < 0 || (long) length * elementBytes > buffer.remaining()) {
+            throw new IllegalArgumentException("Longueur de tableau invalide: " + length);
+        }
+        return length;
+    }
+
+    private static Point readPoint(ByteBuffer buffer) {
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
+        double z = buffer.getDouble();
+        return new Point(x, y, z);
+    }
+
+    private static Vector readVector(ByteBuffer buffer) {
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
+        double z = buffer.getDouble();
+        return new Vector(x, y, z);
+    }
+
+    private static Color readColor(ByteBuffer buffer) {
+        double r = buffer.getDouble();
+        double g = buffer.getDouble();
+        double b = buffer.getDouble();
+        return new Color(r, g, b);
+    }
+
+    private static Material readMaterial(ByteBuffer buffer) {
+        Color diffuse = readColor(buffer);
+        Color specular = readColor(buffer);
+        return new Material(diffuse, specular, buffer.getDouble());
+    }
+
+    /**
+     * Écrit le cache de la scène. Le fichier est d'abord écrit à côté puis renommé, un lecteur concurrent
+     * ne voit donc jamais un cache partiel. Les tableaux du maillage sont écrits par blocs de CHUNK_BYTES.
+     * @throws IllegalArgumentException si la scène contient une forme ou une lumière que le format ne connaît pas,
+     *         ou si le cache dépasserait la taille que read() sait projeter (2 Go).
+     */
+    void write(Scene scene, Path cache, long sourceSize, int sourceHash) throws IOException {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeLong(sourceSize);
+        header.writeInt(sourceHash);
+        writeDescription(scene, header);
+        header.flush();
+
+        Mesh mesh = scene.getMesh();
+        int vertexLength = mesh.getVertexCount() * 3;
+        int indexLength = mesh.getTriangleCount() * 3;
+        int materialIdLength = mesh.getTriangleCount();
+        long size = headerBytes.size() + 3L * Integer.BYTES + (long) vertexLength * Double.BYTES
+                + ((long) indexLength + materialIdLength) * Integer.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Scène trop grosse pour le cache (" + size + " octets)");
+        }
+
+        Path directory = cache.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, cache.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, ByteBuffer.wrap(headerBytes.toByteArray()));
+                ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+                double[] doubles = new double[CHUNK_BYTES / Double.BYTES];
+                int[] ints = new int[CHUNK_BYTES / Integer.BYTES];
+                writeLength(channel, chunk, vertexLength);
+                for (int start = 0; start < vertexLength; start += doubles.length) {
+                    int length = Math.min(doubles.length, vertexLength - start);
+                    mesh.getVertexData(start, doubles, 0, length);
+                    writeDoubles(channel, chunk, doubles, length);
+                }
+                writeLength(channel, chunk, indexLength);
+                for (int start = 0; start < indexLength; start += ints.length) {
+                    int length = Math.min(ints.length, indexLength - start);
+                    mesh.getIndexData(start, ints, 0, length);
+                    writeInts(channel, chunk, ints, length);
+                }
+                writeLength(channel, chunk, materialIdLength);
+                for (int start = 0; start < materialIdLength; start += ints.length) {
+                    int length = Math.min(ints.length, materialIdLength - start);
+                    mesh.getMaterialIdData(start, ints, 0, length);
+                    writeInts(channel, chunk, ints, length);
+                }
+            }
+            try {
+                Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeLength(FileChannel channel, ByteBuffer chunk, int length) throws IOException {
+        chunk.clear();
+        chunk.putInt(length);
+        chunk.flip();
+        writeFully(channel, chunk);
+    }
+
+    private static void writeDoubles(FileChannel channel, ByteBuffer chunk, double[] values, int length) throws IOException {
+        chunk.clear();
+        chunk.asDoubleBuffer().put(values, 0, length);
+        chunk.limit(length * Double.BYTES);
+        writeFully(channel, chunk);
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer chunk, int[] values, int length) throws IOException {
+        chunk.clear();
+        chunk.asIntBuffer().put(values, 0, length);
+        chunk.limit(length * Integer.BYTES);
+        writeFully(channel, chunk);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeDescription(Scene scene, DataOutputStream out) throws IOException {
+        out.writeInt(scene.getWidth());
+        out.writeInt(scene.getHeight());
+        out.writeInt(scene.getMaxDepth());
+        out.writeInt(scene.getMaxVerts());
+        out.writeByte(scene.getAcceleratorType().ordinal());
+
+        byte[] output = scene.getOutput().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(output.length);
+        out.write(output);
+
+        Camera camera = scene.getCamera();
+        out.writeByte(camera != null ? 1 : 0);
+        if (camera != null) {
+            writeTriple(out, camera.getLookFrom().getX(), camera.getLookFrom().getY(), camera.getLookFrom().getZ());
+            writeTriple(out, camera.getLookAt().getX(), camera.getLookAt().getY(), camera.getLookAt().getZ());
+            writeTriple(out, camera.getUp().getX(), camera.getUp().getY(), camera.getUp().getZ());
+            out.writeDouble(camera.getFov());
+        }
+        writeColor(out, scene.getAmbient());
+
+        out.writeInt(scene.getLights().size());
+        for (AbstractLight light : scene.getLights()) {
+            if (light instanceof DirectionalLight) {
+                Vector direction = ((DirectionalLight) light).getDirection();
+                out.writeByte(DIRECTIONAL_LIGHT);
+                writeTriple(out, direction.getX(), direction.getY(), direction.getZ());
+            } else if (light instanceof PointLight) {
+                Point position = ((PointLight) light).getPosition();
+                out.writeByte(POINT_LIGHT);
+                writeTriple(out, position.getX(), position.getY(), position.getZ());
+            } else {
+                throw new IllegalArgumentException("Lumière non prise en charge par le cache: " + light.getClass().getSimpleName());
+            }
+            writeColor(out, light.getColor());
+        }
+
+        out.writeInt(scene.getShapes().size());
+        for (Shape shape : scene.getShapes()) {
+            if (shape instanceof Sphere) {
+                Sphere sphere = (Sphere) shape;
+                out.writeByte(SPHERE);
+                writeTriple(out, sphere.getCenter().getX(), sphere.getCenter().getY(), sphere.getCenter().getZ());
+                out.writeDouble(sphere.getRadius());
+            } else if (shape instanceof Plane) {
+                Plane plane = (Plane) shape;
+                out.writeByte(PLANE);
+                writeTriple(out, plane.getPoint().getX(), plane.getPoint().getY(), plane.getPoint().getZ());
+                writeTriple(out, plane.getNormal().getX(), plane.getNormal().getY(), plane.getNormal().getZ());
+            } else {
+                throw new IllegalArgumentException("Forme non prise en charge par le cache: " + shape.getClass().getSimpleName());
+            }
+            writeMaterial(out, new Material(shape.getDiffuse(), shape.getSpecular(), shape.getShininess()));
+        }
+
+        List<Material> materials = scene.getMesh().getMaterials();
+        out.writeInt(materials.size());
+        for (Material material : materials) {
+            writeMaterial(out, material);
+        }
+    }
+
+    private static void writeTriple(DataOutputStream out, double x, double y, double z) throws IOException {
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(z);
+    }
+
+    private static void writeColor(DataOutputStream out, Color color) throws IOException {
+        writeTriple(out, color.getR(), color.getG(), color.getB());
+    }
+
+    private static void writeMaterial(DataOutputStream out, Material material) throws IOException {
+        writeColor(out, material.getDiffuse());
+        writeColor(out, material.getSpecular());
+        out.writeDouble(material.getShininess());
+    }
+}
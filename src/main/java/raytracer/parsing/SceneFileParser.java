@@ -1,15 +1,21 @@
 package raytracer.parsing;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import raytracer.accel.AcceleratorType;
 import raytracer.math.Point;
 import raytracer.math.Vector;
 import raytracer.math.Color;
+import raytracer.geometry.Instance;
+import raytracer.geometry.InstancedMesh;
+import raytracer.geometry.Material;
+import raytracer.geometry.Mesh;
 import raytracer.geometry.Shape;
 import raytracer.geometry.Sphere;
 import raytracer.geometry.Plane;
-import raytracer.geometry.Triangle;
 import raytracer.scene.Scene;
 import raytracer.scene.Camera;
 import raytracer.light.AbstractLight;
@@ -25,152 +31,241 @@ public class SceneFileParser {
     private Color lastDiffuse = new Color(0.9, 0.9, 0.9);
     private Color lastSpecular = new Color();
     private double lastShininess = 10.0;
+    private Material lastMaterial;
 
     private int maxDepth = 1;
 
+    // Maillages nommés (object ... endobject) et celui en cours de définition, qui reçoit les vertex et tri.
+    private final Map<String, InstancedMesh> objects = new HashMap<>();
+    private InstancedMesh currentObject;
+
+    private static final String[] COMMANDS = {
+            "vertex", "tri", "size", "output", "camera", "ambient", "diffuse", "specular", "shininess",
+            "maxdepth", "directional", "point", "maxverts", "sphere", "plane", "object", "endobject", "instance",
+            "accel"
+    };
+
     /**
      * Lit le fichier et retourne un objet Scene peuplé.
+     * Le fichier est projeté en mémoire et lu par SceneTokenizer : les sommets et triangles sont
+     * écrits directement dans le maillage de la scène, sans objet intermédiaire par ligne.
      */
     public Scene parse(String filePath) throws IOException, SceneParseException {
         Scene scene = new Scene();
-        Path path = Path.of(filePath);
 
-        try {
-            Files.lines(path)
-                    .forEach(line -> {
-                        try {
-                            processLine(line, scene);
-                        } catch (SceneParseException e) {
-                            throw new RuntimeException("Erreur de Parsing: " + e.getMessage(), e);
-                        }
-                    });
-        } catch (RuntimeException e) {
-            if (e.getCause() instanceof SceneParseException) {
-                throw (SceneParseException) e.getCause();
+        try (SceneTokenizer tokenizer = new SceneTokenizer(Path.of(filePath), COMMANDS)) {
+            while (tokenizer.nextLine()) {
+                processLine(tokenizer, scene);
             }
-            throw e;
+        }
+        if (currentObject != null) {
+            throw new SceneParseException("CONTRAINTE D'OBJET: l'objet '" + currentObject.getName() + "' n'est pas terminé par 'endobject'.");
         }
 
         checkLightSumConstraint(scene);
         scene.setMaxDepth(this.maxDepth);
 
+        try {
+            scene.getMesh().prepare();
+        } catch (IllegalStateException e) {
+            throw new SceneParseException("CONTRAINTE DE VERTEX: " + e.getMessage());
+        }
+        scene.getMesh().trimToSize();
+
         return scene;
     }
 
-    private void processLine(String line, Scene scene) throws SceneParseException {
-        line = line.trim();
-
-        if (line.isEmpty() || line.startsWith("#")) {
-            return;
-        }
-
-        String[] tokens = line.split("\\s+");
-        String command = tokens[0];
+    private void processLine(SceneTokenizer tokens, Scene scene) throws SceneParseException {
+        String command = tokens.command();
 
         try {
             switch (command) {
                 case "size":
-                    scene.setWidth(Integer.parseInt(tokens[1]));
-                    scene.setHeight(Integer.parseInt(tokens[2]));
+                    scene.setWidth(tokens.nextInt());
+                    scene.setHeight(tokens.nextInt());
                     break;
                 case "output":
-                    scene.setOutput(tokens[1]);
+                    scene.setOutput(tokens.nextString());
                     break;
                 case "camera":
-                    Point lookFrom = parsePoint(tokens, 1);
-                    Point lookAt = parsePoint(tokens, 4);
-                    Vector up = parseVector(tokens, 7);
-                    double fov = Double.parseDouble(tokens[10]);
+                    Point lookFrom = parsePoint(tokens);
+                    Point lookAt = parsePoint(tokens);
+                    Vector up = parseVector(tokens);
+                    double fov = tokens.nextDouble();
                     scene.setCamera(new Camera(lookFrom, lookAt, up, fov));
                     break;
                 case "ambient":
-                    Color ambient = parseColor(tokens, 1);
+                    Color ambient = parseColor(tokens);
                     if (ambient.checkSumExceedsOne(lastDiffuse)) {
-                        throw new SceneParseException("CONTRAINTE DE COULEUR: ambient + diffuse dépasse 1.0. Ligne: " + line);
+                        throw new SceneParseException("CONTRAINTE DE COULEUR: ambient + diffuse dépasse 1.0. Ligne: " + tokens.line());
                     }
                     scene.setAmbient(ambient);
                     break;
                 case "diffuse":
-                    Color newDiffuse = parseColor(tokens, 1);
+                    Color newDiffuse = parseColor(tokens);
 
                     if (scene.getAmbient().checkSumExceedsOne(newDiffuse)) {
-                        throw new SceneParseException("CONTRAINTE DE COULEUR: ambient + diffuse dépasse 1.0. Ligne: " + line);
+                        throw new SceneParseException("CONTRAINTE DE COULEUR: ambient + diffuse dépasse 1.0. Ligne: " + tokens.line());
                     }
                     lastDiffuse = newDiffuse;
+                    lastMaterial = null;
                     break;
                 case "specular":
-                    lastSpecular = parseColor(tokens, 1);
+                    lastSpecular = parseColor(tokens);
+                    lastMaterial = null;
                     break;
                 case "shininess":
-                    lastShininess = Double.parseDouble(tokens[1]);
+                    lastShininess = tokens.nextDouble();
+                    lastMaterial = null;
                     break;
                 case "maxdepth":
-                    this.maxDepth = Integer.parseInt(tokens[1]);
+                    this.maxDepth = tokens.nextInt();
                     break;
                 case "directional":
-                    Vector direction = parseVector(tokens, 1);
-                    Color dirColor = parseColor(tokens, 4);
+                    Vector direction = parseVector(tokens);
+                    Color dirColor = parseColor(tokens);
                     scene.addLight(new DirectionalLight(direction, dirColor));
                     break;
                 case "point":
-                    Point pos = parsePoint(tokens, 1);
-                    Color pColor = parseColor(tokens, 4);
+                    Point pos = parsePoint(tokens);
+                    Color pColor = parseColor(tokens);
                     scene.addLight(new PointLight(pos, pColor));
                     break;
                 case "maxverts":
-                    scene.setMaxVerts(Integer.parseInt(tokens[1]));
+                    int maxVerts = tokens.nextInt();
+                    if (currentObject != null) {
+                        currentObject.getMesh().ensureVertexCapacity(maxVerts);
+                        break;
+                    }
+                    scene.setMaxVerts(maxVerts);
+                    scene.getMesh().ensureVertexCapacity(maxVerts);
                     break;
                 case "vertex":
-                    scene.addVertex(parsePoint(tokens, 1));
+                    double x = tokens.nextDouble();
+                    double y = tokens.nextDouble();
+                    double z = tokens.nextDouble();
+                    (currentObject != null ? currentObject.getMesh() : scene.getMesh()).addVertex(x, y, z);
                     break;
                 case "sphere":
-                    Point center = parsePoint(tokens, 1);
-                    double radius = Double.parseDouble(tokens[4]);
+                    Point center = parsePoint(tokens);
+                    double radius = tokens.nextDouble();
                     Sphere sphere = new Sphere(center, radius);
                     applyLastColors(sphere);
                     scene.addShape(sphere);
                     break;
                 case "plane":
-                    Point p = parsePoint(tokens, 1);
-                    Vector n = parseVector(tokens, 4);
+                    Point p = parsePoint(tokens);
+                    Vector n = parseVector(tokens);
                     Plane plane = new Plane(p, n);
                     applyLastColors(plane);
                     scene.addShape(plane);
                     break;
                 case "tri":
-                    int a = Integer.parseInt(tokens[1]);
-                    int b = Integer.parseInt(tokens[2]);
-                    int c = Integer.parseInt(tokens[3]);
+                    int a = tokens.nextInt();
+                    int b = tokens.nextInt();
+                    int c = tokens.nextInt();
 
+                    if (currentObject != null) {
+                        // Indices locaux à l'objet, vérifiés par endobject une fois tous ses sommets lus.
+                        if (a < 0 || b < 0 || c < 0) {
+                            throw new SceneParseException("CONTRAINTE DE VERTEX: Indices négatifs dans l'objet '" + currentObject.getName() + "'. Ligne: " + tokens.line());
+                        }
+                        Mesh objectMesh = currentObject.getMesh();
+                        objectMesh.addTriangle(a, b, c, objectMesh.addMaterial(currentMaterial()));
+                        break;
+                    }
                     if (a < 0 || b < 0 || c < 0 || a >= scene.getMaxVerts() || b >= scene.getMaxVerts() || c >= scene.getMaxVerts()) {
-                        throw new SceneParseException("CONTRAINTE DE VERTEX: Indices invalides par rapport à maxverts (" + scene.getMaxVerts() + "). Ligne: " + line);
+                        throw new SceneParseException("CONTRAINTE DE VERTEX: Indices invalides par rapport à maxverts (" + scene.getMaxVerts() + "). Ligne: " + tokens.line());
                     }
 
-                    Triangle tri = new Triangle(a, b, c);
-                    applyLastColors(tri);
-                    scene.addShape(tri);
-                    tri.setScene(scene);
+                    scene.addTriangle(a, b, c, currentMaterial());
+                    break;
+                case "object":
+                    String name = tokens.nextString();
+                    if (currentObject != null) {
+                        throw new SceneParseException("CONTRAINTE D'OBJET: les objets ne peuvent pas être imbriqués. Ligne: " + tokens.line());
+                    }
+                    if (objects.containsKey(name)) {
+                        throw new SceneParseException("CONTRAINTE D'OBJET: l'objet '" + name + "' est déjà défini. Ligne: " + tokens.line());
+                    }
+                    currentObject = new InstancedMesh(name);
+                    break;
+                case "endobject":
+                    if (currentObject == null) {
+                        throw new SceneParseException("CONTRAINTE D'OBJET: 'endobject' sans 'object'. Ligne: " + tokens.line());
+                    }
+                    try {
+                        currentObject.build();
+                    } catch (IllegalStateException e) {
+                        throw new SceneParseException("CONTRAINTE DE VERTEX: " + e.getMessage() + " Ligne: " + tokens.line());
+                    }
+                    objects.put(currentObject.getName(), currentObject);
+                    currentObject = null;
+                    break;
+                case "instance":
+                    String objectName = tokens.nextString();
+                    InstancedMesh object = objects.get(objectName);
+                    if (object == null) {
+                        throw new SceneParseException("CONTRAINTE D'OBJET: objet '" + objectName + "' inconnu (il doit être défini avant ses instances). Ligne: " + tokens.line());
+                    }
+                    if (currentObject != null) {
+                        throw new SceneParseException("CONTRAINTE D'OBJET: une instance ne peut pas être placée dans un objet. Ligne: " + tokens.line());
+                    }
+                    Point position = parsePoint(tokens);
+                    Vector rotation = parseVector(tokens);
+                    double scale = tokens.nextDouble();
+                    if (!(scale > 0.0)) {
+                        throw new SceneParseException("CONTRAINTE D'OBJET: l'échelle d'une instance doit être strictement positive. Ligne: " + tokens.line());
+                    }
+                    Instance instance = new Instance(object, position, rotation, scale);
+                    applyLastColors(instance);
+                    scene.addShape(instance);
+                    break;
+                case "accel":
+                    String acceleratorName = tokens.nextString();
+                    AcceleratorType type = AcceleratorType.forName(acceleratorName).orElseThrow(() -> new SceneParseException(
+                            "CONTRAINTE D'ACCÉLÉRATION: structure '" + acceleratorName + "' inconnue (bvh, grid, brute ou auto). Ligne: " + tokens.line()));
+                    scene.setAcceleratorType(type);
                     break;
                 default:
                     break;
             }
         } catch (NumberFormatException e) {
-            throw new SceneParseException("Erreur de format de nombre: La ligne contient un argument non valide. Ligne: " + line);
-        } catch (ArrayIndexOutOfBoundsException e) {
-            throw new SceneParseException("Erreur de format de ligne: Nombre d'arguments insuffisant pour la commande '" + command + "'. Ligne: " + line);
+            throw new SceneParseException("Erreur de format de nombre: La ligne contient un argument non valide. Ligne: " + tokens.line());
+        } catch (NoSuchElementException e) {
+            throw new SceneParseException("Erreur de format de ligne: Nombre d'arguments insuffisant pour la commande '" + command + "'. Ligne: " + tokens.line());
         }
     }
 
-    private Point parsePoint(String[] tokens, int offset) {
-        return new Point(Double.parseDouble(tokens[offset]), Double.parseDouble(tokens[offset + 1]), Double.parseDouble(tokens[offset + 2]));
+    private Point parsePoint(SceneTokenizer tokens) {
+        double x = tokens.nextDouble();
+        double y = tokens.nextDouble();
+        double z = tokens.nextDouble();
+        return new Point(x, y, z);
+    }
+
+    private Vector parseVector(SceneTokenizer tokens) {
+        double x = tokens.nextDouble();
+        double y = tokens.nextDouble();
+        double z = tokens.nextDouble();
+        return new Vector(x, y, z);
     }
 
-    private Vector parseVector(String[] tokens, int offset) {
-        return new Vector(Double.parseDouble(tokens[offset]), Double.parseDouble(tokens[offset + 1]), Double.parseDouble(tokens[offset + 2]));
+    private Color parseColor(SceneTokenizer tokens) {
+        double r = tokens.nextDouble();
+        double g = tokens.nextDouble();
+        double b = tokens.nextDouble();
+        return new Color(r, g, b);
     }
 
-    private Color parseColor(String[] tokens, int offset) {
-        return new Color(Double.parseDouble(tokens[offset]), Double.parseDouble(tokens[offset + 1]), Double.parseDouble(tokens[offset + 2]));
+    /**
+     * Matériau courant, partagé par tous les triangles déclarés tant que les couleurs ne changent pas.
+     */
+    private Material currentMaterial() {
+        if (lastMaterial == null) {
+            lastMaterial = new Material(lastDiffuse, lastSpecular, lastShininess);
+        }
+        return lastMaterial;
     }
 
     private void applyLastColors(Shape shape) {
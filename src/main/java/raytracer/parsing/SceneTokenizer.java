@@ -0,0 +1,292 @@
+package raytracer.parsing;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Découpe un fichier de scène en lignes et en jetons directement dans le fichier projeté en mémoire.
+ * Les nombres sont lus sur place, octet par octet : aucun String n'est créé pour les lignes courantes.
+ * Seuls les arguments textuels, les commandes inconnues et les lignes citées dans un message d'erreur sont décodés.
+ * Les fichiers plus grands que la fenêtre de projection sont parcourus par fenêtres successives.
+ */
+final class SceneTokenizer implements AutoCloseable {
+    private static final long WINDOW_SIZE = 1L << 30;
+    private static final int MAX_LINE_LENGTH = 1 << 16;
+
+    // Puissances de 10 représentables exactement en double.
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final String[] keywords;
+    private final byte[][] keywordBytes;
+
+    private MappedByteBuffer buffer;
+    private long windowStart;
+    private int limit;
+    private int next;
+
+    private int lineStart;
+    private int lineEnd;
+    private int cursor;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * @param keywords Commandes connues, renvoyées par command() sans allocation.
+     */
+    SceneTokenizer(Path path, String... keywords) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.keywords = keywords;
+        this.keywordBytes = new byte[keywords.length][];
+        for (int k = 0; k < keywords.length; k++) {
+            keywordBytes[k] = keywords[k].getBytes(StandardCharsets.US_ASCII);
+        }
+        map(0);
+    }
+
+    private void map(long position) throws IOException {
+        long size = Math.min(WINDOW_SIZE, fileSize - position);
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        this.windowStart = position;
+        this.limit = (int) size;
+        this.next = 0;
+    }
+
+    private boolean isLastWindow() {
+        return windowStart + limit >= fileSize;
+    }
+
+    private static boolean isBlank(byte c) {
+        return c >= 0 && c <= ' ';
+    }
+
+    /**
+     * Avance jusqu'à la prochaine ligne non vide qui n'est pas un commentaire.
+     * Les lignes se terminent par \n, \r ou \r\n, et sont débarrassées des blancs en début et fin.
+     * @return false à la fin du fichier.
+     */
+    boolean nextLine() throws IOException {
+        while (true) {
+            if (!isLastWindow() && limit - next < MAX_LINE_LENGTH) {
+                map(windowStart + next);
+            }
+            if (next >= limit) {
+                return false;
+            }
+
+            int end = next;
+            while (end < limit) {
+                byte c = buffer.get(end);
+                if (c == '\n' || c == '\r') {
+                    break;
+                }
+                end++;
+            }
+            if (end == limit && !isLastWindow()) {
+                throw new IOException("Ligne de plus de " + MAX_LINE_LENGTH + " octets à la position " + (windowStart + next) + ".");
+            }
+
+            int start = next;
+            next = end + 1;
+
+            while (start < end && isBlank(buffer.get(start))) {
+                start++;
+            }
+            while (end > start && isBlank(buffer.get(end - 1))) {
+                end--;
+            }
+            if (start == end || buffer.get(start) == '#') {
+                continue;
+            }
+
+            lineStart = start;
+            lineEnd = end;
+            cursor = start;
+            return true;
+        }
+    }
+
+    private void nextToken() {
+        while (cursor < lineEnd && isBlank(buffer.get(cursor))) {
+            cursor++;
+        }
+        if (cursor == lineEnd) {
+            throw new NoSuchElementException();
+        }
+        tokenStart = cursor;
+        while (cursor < lineEnd && !isBlank(buffer.get(cursor))) {
+            cursor++;
+        }
+        tokenEnd = cursor;
+    }
+
+    /**
+     * Premier jeton de la ligne. Une commande connue est renvoyée sous la forme de l'instance passée au constructeur.
+     */
+    String command() {
+        nextToken();
+        int length = tokenEnd - tokenStart;
+        for (int k = 0; k < keywordBytes.length; k++) {
+            byte[] keyword = keywordBytes[k];
+            if (keyword.length == length && matches(keyword)) {
+                return keywords[k];
+            }
+        }
+        return decode(tokenStart, tokenEnd);
+    }
+
+    private boolean matches(byte[] keyword) {
+        for (int i = 0; i < keyword.length; i++) {
+            if (buffer.get(tokenStart + i) != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String nextString() {
+        nextToken();
+        return decode(tokenStart, tokenEnd);
+    }
+
+    /**
+     * Entier au format de Integer.parseInt.
+     * @throws NumberFormatException si le jeton n'est pas un entier valide.
+     */
+    int nextInt() {
+        nextToken();
+        int i = tokenStart;
+        boolean negative = false;
+        byte c = buffer.get(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        // Au-delà de 9 chiffres ou hors ASCII, le cas (rare) est délégué à Integer.parseInt, qui gère le dépassement.
+        if (i == tokenEnd || tokenEnd - i > 9) {
+            return Integer.parseInt(decode(tokenStart, tokenEnd));
+        }
+        int value = 0;
+        for (; i < tokenEnd; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(decode(tokenStart, tokenEnd));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Réel au format de Double.parseDouble, avec le même arrondi.
+     * Les décimaux d'au plus 15 chiffres significatifs et d'exposant décimal dans [-22, 22] sont convertis
+     * sur place par une seule multiplication ou division exacte, donc correctement arrondie.
+     * Les autres formes (notation hexadécimale, NaN, suffixes, mantisses longues) passent par Double.parseDouble.
+     * @throws NumberFormatException si le jeton n'est pas un réel valide.
+     */
+    double nextDouble() {
+        nextToken();
+        int i = tokenStart;
+        boolean negative = false;
+        byte c = buffer.get(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+
+        for (; i < tokenEnd; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            anyDigit = true;
+            if (digits <= MAX_EXACT_DIGITS) {
+                mantissa = mantissa * 10 + digit;
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+            }
+        }
+        if (i < tokenEnd && buffer.get(i) == '.') {
+            for (i++; i < tokenEnd; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                anyDigit = true;
+                if (digits <= MAX_EXACT_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    exponent--;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                }
+            }
+        }
+        if (anyDigit && i < tokenEnd && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < tokenEnd && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int value = 0;
+            for (; i < tokenEnd && i - exponentStart < 4; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+            }
+            if (i == exponentStart) {
+                anyDigit = false;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (!anyDigit || i != tokenEnd || digits > MAX_EXACT_DIGITS
+                || exponent < -POWERS_OF_TEN.length + 1 || exponent >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(decode(tokenStart, tokenEnd));
+        }
+
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Texte de la ligne courante (sans les blancs de début et de fin), pour les messages d'erreur.
+     */
+    String line() {
+        return decode(lineStart, lineEnd);
+    }
+
+    private String decode(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
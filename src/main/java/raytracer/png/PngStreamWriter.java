@@ -0,0 +1,439 @@
+package raytracer.png;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodeur PNG (RVB 8 bits, non entrelacé) qui reçoit l'image par groupes de lignes, de haut en bas.
+ * Les lignes sont regroupées en morceaux d'environ CHUNK_BYTES octets, filtrés et compressés indépendamment,
+ * en parallèle sur plusieurs threads si demandé. Chaque morceau est un flux deflate brut terminé par un vidage
+ * synchronisé (SYNC_FLUSH, qui aligne la sortie sur un octet sans clore le flux), le dernier par le bloc final :
+ * leur concaténation, précédée de l'en-tête zlib et suivie de la somme Adler-32 combinée des morceaux,
+ * forme un flux zlib standard, écrit en blocs IDAT de taille fixe.
+ * La mémoire utilisée ne dépend que de la largeur de l'image et du nombre de threads, pas de sa hauteur.
+ * Le filtre de chaque ligne est choisi parmi les cinq filtres PNG comme celui qui minimise la somme
+ * des valeurs absolues des octets filtrés (heuristique habituelle des encodeurs PNG).
+ */
+public final class PngStreamWriter implements Closeable {
+    /**
+     * Niveau de compression par défaut : plus rapide qu'ImageIO, et des fichiers plus petits grâce au choix du filtre.
+     */
+    public static final int DEFAULT_LEVEL = 4;
+
+    /**
+     * Taille visée des données filtrées d'un morceau compressé d'un seul tenant.
+     */
+    static final int CHUNK_BYTES = 1 << 18;
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IDAT_SIZE = 1 << 16;
+    private static final int FILTER_COUNT = 5;
+    private static final int ADLER_BASE = 65521;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final int level;
+    private final ExecutorService pool;
+
+    // Lignes reçues en attente de compression : chunksPerBatch morceaux de rowsPerChunk lignes.
+    private final int rowsPerChunk;
+    private final int[] batch;
+    private int batchRows;
+    // Dernière ligne déjà compressée, référence des filtres de la ligne suivante (nulle avant la première).
+    private final int[] carry;
+
+    private final byte[] chunk = new byte[IDAT_SIZE];
+    private int chunkLength;
+    private long adler = 1;
+    private int rowsWritten;
+    private boolean closed;
+
+    /**
+     * Écrit la signature et l'en-tête de l'image.
+     * @param out Flux de destination, vidé par close() mais pas fermé : il appartient à l'appelant.
+     * @param level Niveau de compression de Deflater, de 0 à 9.
+     * @param threadCount Nombre de morceaux compressés en parallèle (1 : compression sur le thread appelant).
+     */
+    public PngStreamWriter(OutputStream out, int width, int height, int level, int threadCount) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Les dimensions de l'image doivent être positives.");
+        }
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("Le niveau de compression PNG doit être compris entre 0 et 9.");
+        }
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être au moins 1.");
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.level = level;
+        this.rowsPerChunk = Math.max(1, CHUNK_BYTES / (width * 3 + 1));
+        this.batch = new int[Math.min(rowsPerChunk * threadCount, height) * width];
+        this.carry = new int[width];
+        this.pool = threadCount > 1 ? Executors.newFixedThreadPool(threadCount, task -> {
+            Thread thread = new Thread(task, "png-deflate");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+
+        this.out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8; // Profondeur : 8 bits par canal.
+        header[9] = 2; // Type de couleur : RVB.
+        writeChunk("IHDR", header, header.length);
+
+        // En-tête zlib : deflate, fenêtre de 32 Kio, niveau indicatif comme zlib l'écrit.
+        int cmf = 0x78;
+        int flevel = level < 2 ? 0 : level < 6 ? 1 : level == 6 ? 2 : 3;
+        int flg = flevel << 6;
+        flg += 31 - (cmf * 256 + flg) % 31;
+        appendCompressed(new byte[] {(byte) cmf, (byte) flg}, 2);
+    }
+
+    public PngStreamWriter(OutputStream out, int width, int height) throws IOException {
+        this(out, width, height, DEFAULT_LEVEL, 1);
+    }
+
+    /**
+     * Encode une image entière dans out, qui est vidé mais pas fermé.
+     * @param threadCount Nombre de threads de compression.
+     */
+    public static void write(BufferedImage image, OutputStream out, int level, int threadCount) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getType() == BufferedImage.TYPE_INT_RGB
+                ? ((DataBufferInt) image.getRaster().getDataBuffer()).getData()
+                : image.getRGB(0, 0, width, height, null, 0, width);
+        try (PngStreamWriter writer = new PngStreamWriter(out, width, height, level, threadCount)) {
+            writer.writeRows(pixels, 0, height);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return Nombre de lignes déjà reçues.
+     */
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Encode rowCount lignes consécutives. Les pixels sont au format 0xRRGGBB (l'octet de poids fort est ignoré),
+     * la ligne r commençant en pixels[offset + r * width]. Les lignes sont copiées : le tableau peut être réutilisé
+     * dès le retour.
+     * @throws IllegalStateException si l'image compte déjà height lignes ou si l'encodeur est fermé.
+     */
+    public void writeRows(int[] pixels, int offset, int rowCount) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("L'encodeur PNG est fermé.");
+        }
+        if (rowCount > height - rowsWritten) {
+            throw new IllegalStateException("L'image ne compte que " + height + " lignes.");
+        }
+        int batchCapacity = batch.length / width;
+        int copied = 0;
+        while (copied < rowCount) {
+            int rows = Math.min(rowCount - copied, batchCapacity - batchRows);
+            System.arraycopy(pixels, offset + copied * width, batch, batchRows * width, rows * width);
+            batchRows += rows;
+            copied += rows;
+            rowsWritten += rows;
+            // La dernière ligne de l'image est compressée à la fermeture, avec le bloc final.
+            if (batchRows == batchCapacity && rowsWritten < height) {
+                flushBatch(false);
+            }
+        }
+    }
+
+    /**
+     * Termine le flux compressé et l'image, puis vide le flux de destination sans le fermer.
+     * @throws IOException si toutes les lignes n'ont pas été reçues.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (rowsWritten != height) {
+                throw new IOException("Image incomplète : " + rowsWritten + " ligne(s) reçue(s) sur " + height + ".");
+            }
+            flushBatch(true);
+            byte[] checksum = new byte[4];
+            writeInt(checksum, 0, (int) adler);
+            appendCompressed(checksum, 4);
+            flushChunk();
+            writeChunk("IEND", new byte[0], 0);
+            out.flush();
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Compresse les lignes en attente, morceau par morceau, et écrit les résultats dans l'ordre.
+     * @param last true pour le dernier lot, dont le dernier morceau porte le bloc final du flux deflate.
+     */
+    private void flushBatch(boolean last) throws IOException {
+        List<Future<Compressed>> results = new ArrayList<>();
+        int start = 0;
+        do {
+            int first = start;
+            int rows = Math.min(rowsPerChunk, batchRows - start);
+            boolean finish = last && start + rows == batchRows;
+            if (pool == null) {
+                append(compress(first, rows, finish));
+            } else {
+                results.add(pool.submit(() -> compress(first, rows, finish)));
+            }
+            start += rows;
+        } while (start < batchRows);
+        for (Future<Compressed> result : results) {
+            append(await(result));
+        }
+
+        System.arraycopy(batch, (batchRows - 1) * width, carry, 0, width);
+        batchRows = 0;
+    }
+
+    private void append(Compressed compressed) throws IOException {
+        appendCompressed(compressed.data, compressed.length);
+        adler = combineAdler(adler, compressed.adler, compressed.inputLength);
+    }
+
+    private static Compressed await(Future<Compressed> result) throws IOException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec de la compression d'un morceau de l'image.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Encodage PNG interrompu.", e);
+        }
+    }
+
+    /**
+     * Filtre et compresse rows lignes du lot à partir de la ligne first. Appelé en parallèle :
+     * ne lit que le lot et la ligne de référence, qui ne changent pas pendant la compression.
+     */
+    private Compressed compress(int first, int rows, boolean finish) {
+        int stride = width * 3 + 1;
+        byte[] filtered = new byte[rows * stride];
+        byte[] previous = new byte[width * 3];
+        byte[] current = new byte[width * 3];
+        byte[][] candidates = new byte[FILTER_COUNT - 1][width * 3];
+        toBytes(first == 0 ? carry : batch, first == 0 ? 0 : (first - 1) * width, previous);
+        for (int r = 0; r < rows; r++) {
+            toBytes(batch, (first + r) * width, current);
+            filterRow(current, previous, candidates, filtered, r * stride);
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        Adler32 checksum = new Adler32();
+        checksum.update(filtered);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(filtered);
+            if (finish) {
+                deflater.finish();
+            }
+            byte[] output = new byte[Math.max(64, filtered.length / 2)];
+            int length = 0;
+            while (true) {
+                length += deflater.deflate(output, length, output.length - length, finish ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                // Une sortie qui remplit le tampon peut être incomplète.
+                if (finish ? deflater.finished() : length < output.length) {
+                    break;
+                }
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+            }
+            return new Compressed(output, length, checksum.getValue(), filtered.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void toBytes(int[] pixels, int offset, byte[] row) {
+        for (int x = 0; x < width; x++) {
+            int rgb = pixels[offset + x];
+            row[x * 3] = (byte) (rgb >>> 16);
+            row[x * 3 + 1] = (byte) (rgb >>> 8);
+            row[x * 3 + 2] = (byte) rgb;
+        }
+    }
+
+    /**
+     * Écrit dans dst, à partir de offset, l'octet de type puis la ligne current filtrée par le filtre le plus compressible.
+     * @param candidates Quatre lignes de travail, une par filtre Sub, Up, Average et Paeth.
+     */
+    private static void filterRow(byte[] current, byte[] previous, byte[][] candidates, byte[] dst, int offset) {
+        int length = current.length;
+        byte[] sub = candidates[0];
+        byte[] up = candidates[1];
+        byte[] average = candidates[2];
+        byte[] paeth = candidates[3];
+        long costNone = 0;
+        long costSub = 0;
+        long costUp = 0;
+        long costAverage = 0;
+        long costPaeth = 0;
+        // Un seul passage calcule les quatre filtres ; le premier pixel n'a pas de voisin gauche (a = c = 0).
+        for (int i = 0; i < length; i++) {
+            int x = current[i] & 0xFF;
+            int b = previous[i] & 0xFF;
+            int a = i >= 3 ? current[i - 3] & 0xFF : 0;
+            int c = i >= 3 ? previous[i - 3] & 0xFF : 0;
+            int vSub = (byte) (x - a);
+            int vUp = (byte) (x - b);
+            int vAverage = (byte) (x - ((a + b) >>> 1));
+            // Prédicteur de Paeth : le voisin (a, b ou c) le plus proche de a + b - c.
+            int pa = Math.abs(b - c);
+            int pb = Math.abs(a - c);
+            int pc = Math.abs(a + b - 2 * c);
+            int vPaeth = (byte) (x - (pa <= pb && pa <= pc ? a : pb <= pc ? b : c));
+            sub[i] = (byte) vSub;
+            up[i] = (byte) vUp;
+            average[i] = (byte) vAverage;
+            paeth[i] = (byte) vPaeth;
+            // Les octets filtrés sont vus comme signés : les petits écarts, positifs ou négatifs, coûtent peu.
+            costNone += Math.abs((byte) x);
+            costSub += Math.abs(vSub);
+            costUp += Math.abs(vUp);
+            costAverage += Math.abs(vAverage);
+            costPaeth += Math.abs(vPaeth);
+        }
+
+        int best = 0;
+        long bestCost = costNone;
+        long[] costs = {costSub, costUp, costAverage, costPaeth};
+        for (int filter = 1; filter < FILTER_COUNT; filter++) {
+            if (costs[filter - 1] < bestCost) {
+                best = filter;
+                bestCost = costs[filter - 1];
+            }
+        }
+        dst[offset] = (byte) best;
+        System.arraycopy(best == 0 ? current : candidates[best - 1], 0, dst, offset + 1, length);
+    }
+
+    /**
+     * Somme Adler-32 de la concaténation de deux suites, d'après leurs sommes et la longueur de la seconde
+     * (adler32_combine de zlib).
+     */
+    static long combineAdler(long adler1, long adler2, long length2) {
+        long rem = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = rem * sum1 % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= 2L * ADLER_BASE) {
+            sum2 -= 2L * ADLER_BASE;
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    /**
+     * Ajoute des octets du flux zlib au bloc IDAT courant, écrit dès qu'il est plein.
+     */
+    private void appendCompressed(byte[] data, int length) throws IOException {
+        int written = 0;
+        while (written < length) {
+            int count = Math.min(length - written, chunk.length - chunkLength);
+            System.arraycopy(data, written, chunk, chunkLength, count);
+            chunkLength += count;
+            written += count;
+            if (chunkLength == chunk.length) {
+                flushChunk();
+            }
+        }
+    }
+
+    private void flushChunk() throws IOException {
+        if (chunkLength > 0) {
+            writeChunk("IDAT", chunk, chunkLength);
+            chunkLength = 0;
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Morceau compressé : flux deflate brut, somme Adler-32 et longueur des données filtrées.
+     */
+    private static final class Compressed {
+        private final byte[] data;
+        private final int length;
+        private final long adler;
+        private final int inputLength;
+
+        private Compressed(byte[] data, int length, long adler, int inputLength) {
+            this.data = data;
+            this.length = length;
+            this.adler = adler;
+            this.inputLength = inputLength;
+        }
+    }
+}
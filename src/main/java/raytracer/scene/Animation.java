@@ -0,0 +1,128 @@
+package raytracer.scene;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+
+/**
+ * Description d'une séquence d'images lue depuis un fichier d'animation : nombre d'images, positions clés
+ * de la caméra et déplacements clés des formes. Entre deux clés, les valeurs sont interpolées linéairement ;
+ * avant la première et après la dernière, elles restent constantes.
+ */
+public class Animation {
+    private int frameCount;
+    private String outputPattern;
+
+    private final TreeMap<Integer, Camera> cameraKeys = new TreeMap<>();
+    // Déplacements clés par indice de forme (ordre de la scène), chacun indexé par numéro d'image.
+    private final Map<Integer, TreeMap<Integer, Vector>> translationKeys = new HashMap<>();
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public void setFrameCount(int frameCount) {
+        this.frameCount = frameCount;
+    }
+
+    /**
+     * Modèle du nom des images au format de String.format, recevant le numéro d'image (par exemple "vol%03d.png").
+     */
+    public Optional<String> getOutputPattern() {
+        return Optional.ofNullable(outputPattern);
+    }
+
+    public void setOutputPattern(String outputPattern) {
+        this.outputPattern = outputPattern;
+    }
+
+    /**
+     * Nom du fichier de l'image frame : d'après le modèle s'il est défini, sinon le nom de sortie de la scène
+     * suivi du numéro d'image sur quatre chiffres (final.png -> final_0007.png).
+     */
+    public String outputFor(int frame, String sceneOutput) {
+        if (outputPattern != null) {
+            return String.format(Locale.ROOT, outputPattern, frame);
+        }
+        int dot = sceneOutput.lastIndexOf('.');
+        int separator = Math.max(sceneOutput.lastIndexOf('/'), sceneOutput.lastIndexOf('\\'));
+        if (dot <= separator) {
+            return String.format(Locale.ROOT, "%s_%04d", sceneOutput, frame);
+        }
+        return String.format(Locale.ROOT, "%s_%04d%s", sceneOutput.substring(0, dot), frame, sceneOutput.substring(dot));
+    }
+
+    public void addCameraKey(int frame, Camera camera) {
+        cameraKeys.put(frame, camera);
+    }
+
+    public void addTranslationKey(int shape, int frame, Vector offset) {
+        translationKeys.computeIfAbsent(shape, k -> new TreeMap<>()).put(frame, offset);
+    }
+
+    /**
+     * @return true si au moins une forme se déplace au cours de la séquence.
+     */
+    public boolean hasTransforms() {
+        return !translationKeys.isEmpty();
+    }
+
+    /**
+     * Indices (ordre de la scène) des formes qui ont des déplacements clés.
+     */
+    public Set<Integer> getMovingShapes() {
+        return Collections.unmodifiableSet(translationKeys.keySet());
+    }
+
+    /**
+     * Caméra de l'image frame. Sur une image clé, la caméra de la clé est retournée telle quelle.
+     * @param fallback Caméra utilisée s'il n'y a aucune clé (celle de la scène).
+     */
+    public Camera cameraAt(int frame, Camera fallback) {
+        Map.Entry<Integer, Camera> before = cameraKeys.floorEntry(frame);
+        Map.Entry<Integer, Camera> after = cameraKeys.ceilingEntry(frame);
+        if (before == null && after == null) {
+            return fallback;
+        }
+        if (before == null || after == null || before.getKey().equals(after.getKey())) {
+            return before != null ? before.getValue() : after.getValue();
+        }
+
+        double t = (double) (frame - before.getKey()) / (after.getKey() - before.getKey());
+        Camera a = before.getValue();
+        Camera b = after.getValue();
+        return new Camera(lerp(a.getLookFrom(), b.getLookFrom(), t), lerp(a.getLookAt(), b.getLookAt(), t),
+                lerp(a.getUp(), b.getUp(), t), a.getFov() + (b.getFov() - a.getFov()) * t);
+    }
+
+    /**
+     * Déplacement de la forme shape à l'image frame (vecteur nul si la forme ne se déplace pas).
+     */
+    public Vector translationAt(int shape, int frame) {
+        TreeMap<Integer, Vector> keys = translationKeys.get(shape);
+        if (keys == null) {
+            return new Vector(0, 0, 0);
+        }
+        Map.Entry<Integer, Vector> before = keys.floorEntry(frame);
+        Map.Entry<Integer, Vector> after = keys.ceilingEntry(frame);
+        if (before == null || after == null || before.getKey().equals(after.getKey())) {
+            return before != null ? before.getValue() : after.getValue();
+        }
+        double t = (double) (frame - before.getKey()) / (after.getKey() - before.getKey());
+        return lerp(before.getValue(), after.getValue(), t);
+    }
+
+    private static Point lerp(Point a, Point b, double t) {
+        return new Point(a.getX() + (b.getX() - a.getX()) * t, a.getY() + (b.getY() - a.getY()) * t, a.getZ() + (b.getZ() - a.getZ()) * t);
+    }
+
+    private static Vector lerp(Vector a, Vector b, double t) {
+        return new Vector(a.getX() + (b.getX() - a.getX()) * t, a.getY() + (b.getY() - a.getY()) * t, a.getZ() + (b.getZ() - a.getZ()) * t);
+    }
+}
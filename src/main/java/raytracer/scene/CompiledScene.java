@@ -0,0 +1,308 @@
+package raytracer.scene;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import raytracer.accel.AcceleratorType;
+import raytracer.geometry.Material;
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Shape;
+import raytracer.light.AbstractLight;
+import raytracer.light.DirectionalLight;
+import raytracer.light.PointLight;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+
+/**
+ * Forme figée d'une scène, prête pour le rendu : caméra précalculée, lumières et matériaux en tableaux primitifs,
+ * liste de formes en lecture seule. Le moteur ne lit plus la scène mutable pendant le tracé.
+ * Le maillage n'est pas copié (il peut compter des millions de faces) : il ne doit plus être modifié après compile.
+ */
+public final class CompiledScene {
+    public static final int DIRECTIONAL = 0;
+    public static final int POINT = 1;
+
+    /**
+     * Nombre de valeurs par matériau dans la table : diffuse (r, g, b), spéculaire (r, g, b), brillance.
+     */
+    public static final int MATERIAL_STRIDE = 7;
+
+    private final int width;
+    private final int height;
+    private final int maxDepth;
+    private final AcceleratorType acceleratorType;
+    private final Color ambient;
+
+    private final Point lookFrom;
+    private final Vector u;
+    private final Vector v;
+    private final Vector w;
+    private final double pixelWidth;
+    private final double pixelHeight;
+
+    private final int[] lightKinds;
+    private final double[] lightData;
+    private final double[] lightColors;
+
+    private final double[] materials;
+    private final int[] shapeMaterials;
+    private final int[] triangleMaterials;
+    private final int meshMaterialOffset;
+
+    private final List<Shape> shapes;
+    private final Mesh mesh;
+
+    private CompiledScene(Scene scene) {
+        Camera camera = scene.getCamera();
+        if (camera == null) {
+            throw new IllegalArgumentException("La scène n'a pas de caméra");
+        }
+
+        this.width = scene.getWidth();
+        this.height = scene.getHeight();
+        this.maxDepth = scene.getMaxDepth();
+        this.acceleratorType = scene.getAcceleratorType();
+        this.ambient = scene.getAmbient();
+
+        Orthonormal basis = new Orthonormal(camera);
+        this.lookFrom = camera.getLookFrom();
+        this.u = basis.getU();
+        this.v = basis.getV();
+        this.w = basis.getW();
+        double fovr = Math.toRadians(camera.getFov());
+        this.pixelHeight = Math.tan(fovr / 2.0);
+        this.pixelWidth = this.pixelHeight * ((double) width / height);
+
+        // Les lumières gardent l'ordre de la scène : leurs contributions sont additionnées dans cet ordre.
+        List<AbstractLight> sceneLights = scene.getLights();
+        int[] kinds = new int[sceneLights.size()];
+        double[] data = new double[sceneLights.size() * 3];
+        double[] colors = new double[sceneLights.size() * 3];
+        int count = 0;
+        for (AbstractLight light : sceneLights) {
+            if (light instanceof DirectionalLight) {
+                // Direction unitaire vers la lumière, calculée comme le faisait l'éclairage à chaque point.
+                Vector direction = ((DirectionalLight) light).getDirection();
+                double lx = direction.getX() * -1.0;
+                double ly = direction.getY() * -1.0;
+                double lz = direction.getZ() * -1.0;
+                double len = Math.sqrt(lx * lx + ly * ly + lz * lz);
+                if (len != 0.0) {
+                    lx /= len;
+                    ly /= len;
+                    lz /= len;
+                }
+                kinds[count] = DIRECTIONAL;
+                data[count * 3] = lx;
+                data[count * 3 + 1] = ly;
+                data[count * 3 + 2] = lz;
+            } else if (light instanceof PointLight) {
+                Point position = ((PointLight) light).getPosition();
+                kinds[count] = POINT;
+                data[count * 3] = position.getX();
+                data[count * 3 + 1] = position.getY();
+                data[count * 3 + 2] = position.getZ();
+            } else {
+                continue;
+            }
+            Color color = light.getColor();
+            colors[count * 3] = color.getR();
+            colors[count * 3 + 1] = color.getG();
+            colors[count * 3 + 2] = color.getB();
+            count++;
+        }
+        this.lightKinds = Arrays.copyOf(kinds, count);
+        this.lightData = Arrays.copyOf(data, count * 3);
+        this.lightColors = Arrays.copyOf(colors, count * 3);
+
+        Shape[] frozen = scene.getShapes().toArray(new Shape[0]);
+        this.shapes = Collections.unmodifiableList(Arrays.asList(frozen));
+        this.mesh = scene.getMesh();
+
+        List<Material> meshMaterials = mesh.getMaterials();
+        this.materials = new double[(frozen.length + meshMaterials.size()) * MATERIAL_STRIDE];
+        this.shapeMaterials = new int[frozen.length];
+        for (int i = 0; i < frozen.length; i++) {
+            Shape shape = frozen[i];
+            shapeMaterials[i] = i;
+            writeMaterial(i, shape.getDiffuse(), shape.getSpecular(), shape.getShininess());
+        }
+        this.meshMaterialOffset = frozen.length;
+        for (int i = 0; i < meshMaterials.size(); i++) {
+            Material material = meshMaterials.get(i);
+            writeMaterial(meshMaterialOffset + i, material.getDiffuse(), material.getSpecular(), material.getShininess());
+        }
+        this.triangleMaterials = mesh.getMaterialIdData();
+    }
+
+    /**
+     * Image d'une animation : même scène vue par camera, avec les formes shapes (mêmes lumières et maillage).
+     */
+    private CompiledScene(CompiledScene base, Camera camera, Shape[] frozen) {
+        this.width = base.width;
+        this.height = base.height;
+        this.maxDepth = base.maxDepth;
+        this.acceleratorType = base.acceleratorType;
+        this.ambient = base.ambient;
+
+        Orthonormal basis = new Orthonormal(camera);
+        this.lookFrom = camera.getLookFrom();
+        this.u = basis.getU();
+        this.v = basis.getV();
+        this.w = basis.getW();
+        double fovr = Math.toRadians(camera.getFov());
+        this.pixelHeight = Math.tan(fovr / 2.0);
+        this.pixelWidth = this.pixelHeight * ((double) width / height);
+
+        this.lightKinds = base.lightKinds;
+        this.lightData = base.lightData;
+        this.lightColors = base.lightColors;
+
+        this.shapes = Collections.unmodifiableList(Arrays.asList(frozen));
+        this.mesh = base.mesh;
+        this.materials = base.materials.clone();
+        this.shapeMaterials = base.shapeMaterials;
+        this.meshMaterialOffset = base.meshMaterialOffset;
+        this.triangleMaterials = base.triangleMaterials;
+        for (int i = 0; i < frozen.length; i++) {
+            writeMaterial(shapeMaterials[i], frozen[i].getDiffuse(), frozen[i].getSpecular(), frozen[i].getShininess());
+        }
+    }
+
+    /**
+     * Fige la scène pour le rendu. Les modifications ultérieures des formes ou des lumières de la scène
+     * ne sont pas visibles dans le résultat.
+     * @throws IllegalArgumentException si la scène n'a pas de caméra.
+     */
+    public static CompiledScene compile(Scene scene) {
+        return new CompiledScene(scene);
+    }
+
+    /**
+     * Variante de cette scène pour une image d'animation : autre caméra et formes déplacées.
+     * Les lumières, la table des matériaux du maillage et le maillage sont partagés.
+     * @param shapes Formes de l'image, une par forme de cette scène et dans le même ordre.
+     * @throws IllegalArgumentException si le nombre de formes diffère.
+     */
+    public CompiledScene withFrame(Camera camera, List<Shape> shapes) {
+        if (shapes.size() != shapeMaterials.length) {
+            throw new IllegalArgumentException("L'image attend " + shapeMaterials.length + " formes, " + shapes.size() + " reçues.");
+        }
+        return new CompiledScene(this, camera, shapes.toArray(new Shape[0]));
+    }
+
+    private void writeMaterial(int index, Color diffuse, Color specular, double shininess) {
+        int base = index * MATERIAL_STRIDE;
+        materials[base] = diffuse.getR();
+        materials[base + 1] = diffuse.getG();
+        materials[base + 2] = diffuse.getB();
+        materials[base + 3] = specular.getR();
+        materials[base + 4] = specular.getG();
+        materials[base + 5] = specular.getB();
+        materials[base + 6] = shininess;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public AcceleratorType getAcceleratorType() {
+        return acceleratorType;
+    }
+
+    public Color getAmbient() {
+        return ambient;
+    }
+
+    public Point getLookFrom() {
+        return lookFrom;
+    }
+
+    public Vector getU() {
+        return u;
+    }
+
+    public Vector getV() {
+        return v;
+    }
+
+    public Vector getW() {
+        return w;
+    }
+
+    /**
+     * Demi-largeur du plan image à distance 1 de la caméra, rapport d'aspect compris.
+     */
+    public double getPixelWidth() {
+        return pixelWidth;
+    }
+
+    /**
+     * Demi-hauteur du plan image à distance 1 de la caméra : tan(fov / 2).
+     */
+    public double getPixelHeight() {
+        return pixelHeight;
+    }
+
+    public int getLightCount() {
+        return lightKinds.length;
+    }
+
+    /**
+     * Copie des types de lumière (DIRECTIONAL ou POINT), dans l'ordre de la scène.
+     */
+    public int[] getLightKinds() {
+        return lightKinds.clone();
+    }
+
+    /**
+     * Copie des données des lumières (x, y, z consécutifs) : direction unitaire vers la lumière
+     * pour une lumière directionnelle, position pour une lumière ponctuelle.
+     */
+    public double[] getLightData() {
+        return lightData.clone();
+    }
+
+    /**
+     * Copie des couleurs des lumières (r, g, b consécutifs).
+     */
+    public double[] getLightColors() {
+        return lightColors.clone();
+    }
+
+    /**
+     * Copie de la table des matériaux, MATERIAL_STRIDE valeurs par matériau.
+     */
+    public double[] getMaterialTable() {
+        return materials.clone();
+    }
+
+    /**
+     * Matériau de la primitive ref, référencée comme dans la BVH : indice de forme,
+     * ou nombre de formes + indice de face du maillage.
+     * @return Indice du matériau dans la table.
+     */
+    public int materialOf(int ref) {
+        return ref < shapeMaterials.length ? shapeMaterials[ref] : meshMaterialOffset + triangleMaterials[ref - shapeMaterials.length];
+    }
+
+    /**
+     * Formes de la scène au moment de la compilation, en lecture seule.
+     */
+    public List<Shape> getShapes() {
+        return shapes;
+    }
+
+    public Mesh getMesh() {
+        return mesh;
+    }
+}
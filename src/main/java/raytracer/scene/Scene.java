@@ -3,9 +3,13 @@ package raytracer.scene;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import raytracer.accel.AcceleratorType;
 import raytracer.math.Color;
 import raytracer.math.Point;
+import raytracer.geometry.Material;
+import raytracer.geometry.Mesh;
 import raytracer.geometry.Shape;
+import raytracer.geometry.Triangle;
 import raytracer.light.AbstractLight;
 
 /**
@@ -19,10 +23,11 @@ public class Scene {
     private Color ambient = new Color();
 
     private int maxDepth = 1;
+    private AcceleratorType acceleratorType = AcceleratorType.BVH;
 
     private final List<AbstractLight> lights = new ArrayList<>();
     private final List<Shape> shapes = new ArrayList<>();
-    private final List<Point> vertices = new ArrayList<>();
+    private Mesh mesh = new Mesh();
 
     private int maxVerts = 0;
 
@@ -47,16 +52,54 @@ public class Scene {
         return Collections.unmodifiableList(shapes);
     }
 
+    /**
+     * Ajoute une forme à la scène. Un Triangle n'est pas gardé dans getShapes() : sa face est ajoutée au maillage
+     * (voir Triangle.setScene).
+     */
     public void addShape(Shape shape) {
+        if (shape instanceof Triangle) {
+            ((Triangle) shape).setScene(this);
+            return;
+        }
         this.shapes.add(shape);
     }
 
+    /**
+     * Maillage contenant tous les sommets et triangles de la scène.
+     * Les triangles ne figurent pas dans getShapes() : ils sont stockés uniquement dans le maillage.
+     */
+    public Mesh getMesh() {
+        return mesh;
+    }
+
+    /**
+     * Remplace le maillage de la scène (scène relue depuis le cache binaire).
+     */
+    public void setMesh(Mesh mesh) {
+        this.mesh = mesh;
+    }
+
+    /**
+     * Copie des sommets sous forme de points (hors du chemin critique du rendu).
+     */
     public List<Point> getVertices() {
+        List<Point> vertices = new ArrayList<>(mesh.getVertexCount());
+        for (int i = 0; i < mesh.getVertexCount(); i++) {
+            vertices.add(mesh.getVertex(i));
+        }
         return Collections.unmodifiableList(vertices);
     }
 
     public void addVertex(Point vertex) {
-        this.vertices.add(vertex);
+        this.mesh.addVertex(vertex.getX(), vertex.getY(), vertex.getZ());
+    }
+
+    /**
+     * Ajoute un triangle au maillage de la scène.
+     * @return L'indice du triangle dans le maillage.
+     */
+    public int addTriangle(int a, int b, int c, Material material) {
+        return mesh.addTriangle(a, b, c, mesh.addMaterial(material));
     }
 
     public int getMaxVerts() {
@@ -114,4 +157,15 @@ public class Scene {
     public void setMaxDepth(int maxDepth) {
         this.maxDepth = maxDepth;
     }
-}
\ No newline at end of file
+
+    public AcceleratorType getAcceleratorType() {
+        return acceleratorType;
+    }
+
+    /**
+     * Choisit la structure d'accélération du rendu (directive accel ou option --accel) ; BVH par défaut.
+     */
+    public void setAcceleratorType(AcceleratorType acceleratorType) {
+        this.acceleratorType = acceleratorType;
+    }
+}
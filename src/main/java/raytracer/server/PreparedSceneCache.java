@@ -0,0 +1,118 @@
+package raytracer.server;
+
+import raytracer.accel.Accelerator;
+import raytracer.geometry.Instance;
+import raytracer.geometry.InstancedMesh;
+import raytracer.geometry.Shape;
+import raytracer.scene.CompiledScene;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cache LRU des scènes prêtes au rendu (scène compilée et sa structure d'accélération), indexées par l'empreinte du texte de la scène.
+ * Il est borné par la mémoire estimée de ses entrées (voir Entry.getRetainedBytes) : les scènes les moins récemment
+ * utilisées sont évincées jusqu'à repasser sous le budget. Une scène plus grosse que le budget à elle seule n'est pas gardée.
+ */
+final class PreparedSceneCache {
+
+    /**
+     * Scène compilée et structure d'accélération construite une fois, partagées par tous les rendus de cette scène.
+     */
+    static final class Entry {
+        // Estimation par forme isolée : objet, matériau et champs.
+        private static final long SHAPE_BYTES = 128;
+
+        private final CompiledScene scene;
+        private final Accelerator accelerator;
+        private final long retainedBytes;
+
+        Entry(CompiledScene scene, Accelerator accelerator) {
+            this(scene, accelerator, estimateBytes(scene, accelerator));
+        }
+
+        Entry(CompiledScene scene, Accelerator accelerator, long retainedBytes) {
+            this.scene = scene;
+            this.accelerator = accelerator;
+            this.retainedBytes = retainedBytes;
+        }
+
+        CompiledScene getScene() {
+            return scene;
+        }
+
+        Accelerator getAccelerator() {
+            return accelerator;
+        }
+
+        /**
+         * Mémoire estimée de l'entrée : maillage, objets instanciés (comptés une fois), formes et structure d'accélération.
+         */
+        long getRetainedBytes() {
+            return retainedBytes;
+        }
+
+        private static long estimateBytes(CompiledScene scene, Accelerator accelerator) {
+            long bytes = scene.getMesh().getRetainedBytes() + accelerator.getRetainedBytes();
+            Set<InstancedMesh> objects = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Shape shape : scene.getShapes()) {
+                bytes += SHAPE_BYTES;
+                if (shape instanceof Instance && objects.add(((Instance) shape).getObject())) {
+                    bytes += ((Instance) shape).getObject().getRetainedBytes();
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private final long maxBytes;
+    // Ordre d'accès : chaque lecture remet l'entrée en fin de liste.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long retainedBytes;
+
+    /**
+     * @param maxBytes Mémoire estimée maximale des scènes gardées, en octets.
+     */
+    PreparedSceneCache(long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Le budget mémoire du cache doit être positif.");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized Optional<Entry> get(String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    synchronized void put(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            retainedBytes -= previous.getRetainedBytes();
+        }
+        retainedBytes += entry.getRetainedBytes();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (retainedBytes > maxBytes && eldest.hasNext()) {
+            retainedBytes -= eldest.next().getRetainedBytes();
+            eldest.remove();
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Mémoire estimée des scènes actuellement gardées, en octets.
+     */
+    synchronized long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,227 @@
+package raytracer.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import raytracer.accel.Accelerator;
+import raytracer.parsing.SceneFileParser;
+import raytracer.parsing.SceneParseException;
+import raytracer.scene.CompiledScene;
+import raytracer.scene.Scene;
+import raytracer.trace.ImageRenderer;
+import raytracer.trace.RayTracer;
+import raytracer.trace.RenderStats;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serveur de rendu HTTP local : le processus reste chargé entre deux rendus (JIT chaud, aucune relecture
+ * d'une scène déjà vue). Une seule route, /render :
+ * <ul>
+ *   <li>GET /render?scene=CHEMIN rend le fichier de scène CHEMIN (relu à chaque requête) ;</li>
+ *   <li>POST /render rend la scène dont le texte est le corps de la requête.</li>
+ * </ul>
+ * La réponse est l'image PNG, encodée directement dans le flux. Les scènes compilées et leurs structures
+ * d'accélération sont gardées dans un cache LRU indexé par l'empreinte SHA-256 du texte et borné par leur mémoire estimée :
+ * une scène modifiée est reparsée, une scène revue est rendue sans lecture ni construction. L'en-tête X-Cache vaut hit ou miss.
+ * Si l'encodage échoue alors que le statut 200 est parti, la connexion est coupée sans terminer la réponse.
+ * Les requêtes sont traitées une à une, chaque rendu utilisant tous les threads de l'ImageRenderer.
+ */
+public final class RenderServer implements Closeable {
+    public static final int DEFAULT_CACHE_MEGABYTES = 512;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ImageRenderer renderer;
+    private final PreparedSceneCache cache;
+
+    /**
+     * Ouvre le port sur l'interface locale (127.0.0.1) et commence à répondre.
+     * @param port Port TCP, 0 pour un port libre choisi par le système (voir getPort).
+     * @param cacheBytes Mémoire estimée maximale des scènes préparées gardées en cache, en octets.
+     * @param renderer Rendu des images ; il n'est utilisé que par un thread à la fois.
+     */
+    public RenderServer(int port, long cacheBytes, ImageRenderer renderer) throws IOException {
+        this.cache = new PreparedSceneCache(cacheBytes);
+        this.renderer = renderer;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "render-server"));
+        server.setExecutor(executor);
+        server.createContext("/render", this::handleRender);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Nombre de scènes actuellement dans le cache.
+     */
+    public int getCachedSceneCount() {
+        return cache.size();
+    }
+
+    /**
+     * Mémoire estimée des scènes actuellement dans le cache, en octets.
+     */
+    public long getCachedBytes() {
+        return cache.getRetainedBytes();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleRender(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String label;
+        boolean aborted = false;
+        try {
+            byte[] source;
+            String method = exchange.getRequestMethod();
+            if ("GET".equals(method)) {
+                Optional<String> path = queryParameter(exchange, "scene");
+                if (path.isEmpty()) {
+                    sendError(exchange, 400, "Paramètre 'scene' manquant (GET /render?scene=CHEMIN).");
+                    return;
+                }
+                label = path.get();
+                try {
+                    source = Files.readAllBytes(Path.of(path.get()));
+                } catch (NoSuchFileException e) {
+                    sendError(exchange, 404, "Fichier de scène introuvable : " + path.get());
+                    return;
+                } catch (AccessDeniedException e) {
+                    sendError(exchange, 403, "Fichier de scène illisible : " + path.get());
+                    return;
+                } catch (IOException e) {
+                    // Dossier, fichier spécial… : le chemin ne désigne pas un fichier de scène lisible.
+                    sendError(exchange, 400, "Lecture du fichier de scène impossible : " + path.get() + " (" + e.getMessage() + ")");
+                    return;
+                }
+            } else if ("POST".equals(method)) {
+                try (InputStream body = exchange.getRequestBody()) {
+                    source = body.readAllBytes();
+                }
+                label = "(" + source.length + " octets)";
+            } else {
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                sendError(exchange, 405, "Méthode non prise en charge : " + method);
+                return;
+            }
+
+            String key = fingerprint(source);
+            Optional<PreparedSceneCache.Entry> cached = cache.get(key);
+            PreparedSceneCache.Entry entry;
+            if (cached.isPresent()) {
+                entry = cached.get();
+            } else {
+                try {
+                    entry = prepare(source);
+                } catch (IOException e) {
+                    sendError(exchange, 500, "Préparation de la scène impossible : " + e.getMessage());
+                    return;
+                }
+                cache.put(key, entry);
+            }
+
+            RenderStats stats = new RenderStats();
+            BufferedImage image = renderer.renderImage(new RayTracer(entry.getScene(), entry.getAccelerator(), stats), stats);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("X-Cache", cached.isPresent() ? "hit" : "miss");
+            exchange.getResponseHeaders().set("X-Render-Millis", Long.toString(millis));
+            // Longueur 0 : réponse découpée, le PNG est envoyé au fil de l'encodage.
+            exchange.sendResponseHeaders(200, 0);
+            try {
+                renderer.writePng(image, exchange.getResponseBody());
+            } catch (IOException | RuntimeException e) {
+                // Le statut 200 est parti : aucune erreur ne peut plus être renvoyée. La réponse n'est pas terminée,
+                // le serveur HTTP ferme la connexion et le client ne prend pas un PNG tronqué pour une image complète.
+                aborted = true;
+                System.err.println("Envoi de l'image interrompu (" + label + ") : " + e);
+                throw new IOException("Envoi de l'image interrompu.", e);
+            }
+            System.out.println(method + " /render " + label + " : " + millis + " ms" + (cached.isPresent() ? " (cache)" : ""));
+        } catch (SceneParseException | IllegalArgumentException e) {
+            sendError(exchange, 400, "Scène invalide : " + e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "Erreur inattendue durant le rendu : " + e.getMessage());
+        } finally {
+            if (!aborted) {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Lit, compile la scène et construit sa structure d'accélération (directive accel, BVH par défaut). Le parseur lit un fichier : le texte passe par un fichier temporaire.
+     */
+    private static PreparedSceneCache.Entry prepare(byte[] source) throws IOException, SceneParseException {
+        Path file = Files.createTempFile("raytracer-server", ".scene");
+        Scene scene;
+        try {
+            Files.write(file, source);
+            scene = new SceneFileParser().parse(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+        if (scene.getCamera() == null) {
+            throw new SceneParseException("La caméra n'est pas définie dans le fichier de scène.");
+        }
+        CompiledScene compiled = CompiledScene.compile(scene);
+        return new PreparedSceneCache.Entry(compiled, Accelerator.create(compiled.getAcceleratorType(), compiled.getShapes(), compiled.getMesh()));
+    }
+
+    private static String fingerprint(byte[] source) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(source));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static Optional<String> queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return Optional.empty();
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return Optional.of(URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        System.err.println("Requête refusée (" + status + ") : " + message);
+    }
+}
@@ -0,0 +1,133 @@
+package raytracer.trace;
+
+import raytracer.math.Color;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Anticrénelage adaptatif : seuls les pixels dont la couleur (un rayon au centre) s'écarte de celle d'un
+ * voisin de plus de threshold sur une composante sont suréchantillonnés.
+ * Un pixel retenu reçoit d'abord 4 échantillons en grille tournée (une case par ligne et par colonne d'une
+ * grille 4 x 4) ; si ces échantillons et le centre s'écartent encore de plus de threshold, la grille 4 x 4 est
+ * complétée (16 échantillons). La couleur du pixel est la moyenne des échantillons de la grille.
+ * Les contrastes sont mesurés sur l'image de base, jamais sur des pixels déjà affinés : le résultat ne dépend
+ * pas de l'ordre de traitement des tuiles.
+ */
+final class AdaptiveSampler {
+    private static final int GRID = 4;
+    // Cases de la grille tournée (colonne, ligne), rangées par colonne, complétées si besoin par les 12 autres.
+    private static final int[][] ROTATED_GRID = {{0, 1}, {1, 3}, {2, 0}, {3, 2}};
+
+    private final RayTracer rayTracer;
+    private final int[] base;
+    private final int width;
+    private final int height;
+    private final double threshold;
+
+    private final LongAdder refinedPixels = new LongAdder();
+    private final LongAdder extraSamples = new LongAdder();
+
+    /**
+     * @param base Image à un rayon par pixel (lignes de haut en bas, comme le raster), qui ne doit plus changer.
+     * @param threshold Écart de couleur, entre 0 et 1, au-delà duquel un pixel est affiné.
+     */
+    AdaptiveSampler(RayTracer rayTracer, int[] base, int width, int height, double threshold) {
+        this.rayTracer = rayTracer;
+        this.base = base;
+        this.width = width;
+        this.height = height;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Affine les pixels contrastés du rectangle [x0, x1) x [y0, y1) et écrit leur couleur dans pixels.
+     */
+    void refine(int[] pixels, int x0, int y0, int x1, int y1) {
+        double[] sample = new double[3];
+        double[] sum = new double[3];
+        double[] min = new double[3];
+        double[] max = new double[3];
+
+        for (int y = y0; y < y1; y++) {
+            // L'axe vertical de l'image est inversé par rapport à celui de la caméra.
+            int j = height - 1 - y;
+            for (int x = x0; x < x1; x++) {
+                int center = base[y * width + x];
+                if (!isContrasted(center, x, y)) {
+                    continue;
+                }
+
+                for (int c = 0; c < 3; c++) {
+                    double value = channel(center, c);
+                    sum[c] = 0.0;
+                    min[c] = value;
+                    max[c] = value;
+                }
+
+                for (int[] cell : ROTATED_GRID) {
+                    addSample(x, j, cell[0], cell[1], sample, sum, min, max);
+                }
+                int samples = ROTATED_GRID.length;
+
+                if (max[0] - min[0] > threshold || max[1] - min[1] > threshold || max[2] - min[2] > threshold) {
+                    for (int cy = 0; cy < GRID; cy++) {
+                        for (int cx = 0; cx < GRID; cx++) {
+                            // La case de la colonne cx déjà échantillonnée est ROTATED_GRID[cx].
+                            if (ROTATED_GRID[cx][1] != cy) {
+                                addSample(x, j, cx, cy, sample, sum, min, max);
+                            }
+                        }
+                    }
+                    samples = GRID * GRID;
+                }
+
+                // Le raster TYPE_INT_RGB ne stocke pas le canal alpha.
+                pixels[y * width + x] = Color.toRGB(sum[0] / samples, sum[1] / samples, sum[2] / samples) & 0xFFFFFF;
+                refinedPixels.increment();
+                extraSamples.add(samples);
+            }
+        }
+    }
+
+    long getRefinedPixels() {
+        return refinedPixels.sum();
+    }
+
+    /**
+     * @return Nombre de rayons primaires tracés en plus du rayon central de chaque pixel.
+     */
+    long getExtraSamples() {
+        return extraSamples.sum();
+    }
+
+    private void addSample(int i, int j, int cellX, int cellY, double[] sample, double[] sum, double[] min, double[] max) {
+        rayTracer.getSampleColor(i, j, (cellX + 0.5) / GRID, (cellY + 0.5) / GRID, sample);
+        for (int c = 0; c < 3; c++) {
+            sum[c] += sample[c];
+            min[c] = Math.min(min[c], sample[c]);
+            max[c] = Math.max(max[c], sample[c]);
+        }
+    }
+
+    private boolean isContrasted(int center, int x, int y) {
+        return (x > 0 && differs(center, base[y * width + x - 1]))
+                || (x < width - 1 && differs(center, base[y * width + x + 1]))
+                || (y > 0 && differs(center, base[(y - 1) * width + x]))
+                || (y < height - 1 && differs(center, base[(y + 1) * width + x]));
+    }
+
+    private boolean differs(int rgb, int other) {
+        for (int c = 0; c < 3; c++) {
+            if (Math.abs(channel(rgb, c) - channel(other, c)) > threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Composante c (0 rouge, 1 vert, 2 bleu) d'une couleur RGB, entre 0 et 1.
+     */
+    private static double channel(int rgb, int c) {
+        return ((rgb >> (16 - 8 * c)) & 0xFF) / 255.0;
+    }
+}
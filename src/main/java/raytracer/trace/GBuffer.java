@@ -0,0 +1,379 @@
+package raytracer.trace;
+
+import raytracer.accel.BoundingBox;
+import raytracer.geometry.Instance;
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Shape;
+import raytracer.geometry.Sphere;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.scene.CompiledScene;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+/**
+ * G-buffer des impacts primaires : pour chaque pixel, la primitive touchée (-1 si aucune), la distance t,
+ * la normale, la direction du rayon de vue et, pour chaque lumière, si le point est à l'ombre.
+ * Le point d'impact se recalcule exactement (origine de la caméra + t * direction, comme lors du tracé).
+ * Ces données ne dépendent que de la géométrie, de la caméra et de la position des lumières : tant qu'elles
+ * ne changent pas, la couleur ambiante, les matériaux, la couleur des lumières et la profondeur de réflexion
+ * peuvent être modifiés et l'image recalculée sans retracer les rayons primaires ni les rayons d'ombre
+ * (voir RayTracer.relight). L'empreinte de la scène de capture protège contre un G-buffer périmé.
+ * Les pixels sont rangés ligne par ligne depuis le haut de l'image, comme dans le raster.
+ */
+public final class GBuffer {
+    private static final int MAGIC = 0x52544742; // "RTGB"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 36;
+    // Tampon de lecture et d'écriture des tableaux : les fichiers de plus de 2 Go ne sont ni projetés ni copiés en entier.
+    private static final int CHUNK_BYTES = 1 << 16;
+    private static final long NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? 1 : 0;
+
+    private final int width;
+    private final int height;
+    private final int lightCount;
+    private final long fingerprint;
+
+    final int[] primitive;
+    final double[] t;
+    final double[] normalX;
+    final double[] normalY;
+    final double[] normalZ;
+    final double[] directionX;
+    final double[] directionY;
+    final double[] directionZ;
+    // Ombre portée par pixel puis par lumière (indice pixel * lightCount + lumière).
+    final boolean[] shadowed;
+
+    /**
+     * G-buffer vide aux dimensions de la scène, pour sa capture.
+     */
+    GBuffer(CompiledScene scene) {
+        this(scene.getWidth(), scene.getHeight(), scene.getLightCount(), fingerprint(scene));
+    }
+
+    private GBuffer(int width, int height, int lightCount, long fingerprint) {
+        if ((long) width * height * Math.max(1, lightCount) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("G-buffer trop grand : " + width + "x" + height + " pixels et "
+                    + lightCount + " lumière(s) dépassent la taille maximale d'un tableau.");
+        }
+        this.width = width;
+        this.height = height;
+        this.lightCount = lightCount;
+        this.fingerprint = fingerprint;
+        int pixels = width * height;
+        this.primitive = new int[pixels];
+        this.t = new double[pixels];
+        this.normalX = new double[pixels];
+        this.normalY = new double[pixels];
+        this.normalZ = new double[pixels];
+        this.directionX = new double[pixels];
+        this.directionY = new double[pixels];
+        this.directionZ = new double[pixels];
+        this.shadowed = new boolean[pixels * lightCount];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLightCount() {
+        return lightCount;
+    }
+
+    /**
+     * Vérifie que scene a la géométrie, la caméra, la taille d'image et les lumières (nombre, types, positions)
+     * de la scène capturée.
+     * @throws IllegalArgumentException sinon : l'image doit être retracée.
+     */
+    public void checkCompatible(CompiledScene scene) {
+        if (scene.getWidth() != width || scene.getHeight() != height) {
+            throw new IllegalArgumentException("Le G-buffer a été capturé en " + width + "x" + height
+                    + ", la scène est en " + scene.getWidth() + "x" + scene.getHeight() + ".");
+        }
+        if (scene.getLightCount() != lightCount) {
+            throw new IllegalArgumentException("Le G-buffer a été capturé avec " + lightCount + " lumière(s), la scène en compte "
+                    + scene.getLightCount() + ".");
+        }
+        if (fingerprint(scene) != fingerprint) {
+            throw new IllegalArgumentException("La géométrie, la caméra ou la position des lumières a changé depuis la capture du G-buffer.");
+        }
+    }
+
+    /**
+     * Indique si l'éclairage de scene demande de tracer des rayons réfléchis (profondeur supérieure à 1 et
+     * un pixel sur une surface réfléchissante) : il faut alors la structure d'accélération de la scène.
+     */
+    public boolean needsTracing(CompiledScene scene) {
+        if (scene.getMaxDepth() <= 1) {
+            return false;
+        }
+        double[] materials = scene.getMaterialTable();
+        for (int ref : primitive) {
+            if (ref >= 0 && RayTracer.reflects(materials, scene.materialOf(ref) * CompiledScene.MATERIAL_STRIDE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void setMiss(int pixel) {
+        primitive[pixel] = -1;
+    }
+
+    void setHit(int pixel, HitRecord hit, double dx, double dy, double dz) {
+        primitive[pixel] = hit.getPrimitive();
+        t[pixel] = hit.getT();
+        normalX[pixel] = hit.getNormalX();
+        normalY[pixel] = hit.getNormalY();
+        normalZ[pixel] = hit.getNormalZ();
+        directionX[pixel] = dx;
+        directionY[pixel] = dy;
+        directionZ[pixel] = dz;
+    }
+
+    /**
+     * Écrit le G-buffer dans file : en-tête puis un tableau par composante, en ordre natif des octets,
+     * par blocs de CHUNK_BYTES.
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.nativeOrder());
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(lightCount)
+                    .putLong(fingerprint).putLong(NATIVE_ORDER);
+            writeFully(channel, buffer);
+
+            int intsPerChunk = CHUNK_BYTES / Integer.BYTES;
+            for (int start = 0; start < primitive.length; start += intsPerChunk) {
+                int length = Math.min(intsPerChunk, primitive.length - start);
+                buffer.asIntBuffer().put(primitive, start, length);
+                buffer.position(length * Integer.BYTES);
+                writeFully(channel, buffer);
+            }
+            int doublesPerChunk = CHUNK_BYTES / Double.BYTES;
+            for (double[] array : doubleArrays()) {
+                for (int start = 0; start < array.length; start += doublesPerChunk) {
+                    int length = Math.min(doublesPerChunk, array.length - start);
+                    buffer.asDoubleBuffer().put(array, start, length);
+                    buffer.position(length * Double.BYTES);
+                    writeFully(channel, buffer);
+                }
+            }
+            for (int start = 0; start < shadowed.length; start += CHUNK_BYTES) {
+                int end = Math.min(shadowed.length, start + CHUNK_BYTES);
+                for (int i = start; i < end; i++) {
+                    buffer.put((byte) (shadowed[i] ? 1 : 0));
+                }
+                writeFully(channel, buffer);
+            }
+        }
+    }
+
+    /**
+     * Relit un G-buffer écrit par write, par blocs de CHUNK_BYTES.
+     * @return Le G-buffer, ou rien si le fichier n'en est pas un, vient d'une autre version ou d'une machine
+     *         d'un autre ordre des octets, ou est tronqué.
+     */
+    public static Optional<GBuffer> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.nativeOrder());
+            buffer.limit(HEADER_BYTES);
+            if (!readFully(channel, buffer) || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Optional.empty();
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int lightCount = buffer.getInt();
+            long fingerprint = buffer.getLong();
+            if (buffer.getLong() != NATIVE_ORDER) {
+                return Optional.empty();
+            }
+            long pixels = (long) width * height;
+            if (width < 0 || height < 0 || lightCount < 0 || pixels * Math.max(1, lightCount) > Integer.MAX_VALUE - 8
+                    || channel.size() != HEADER_BYTES + pixels * (Integer.BYTES + 7L * Double.BYTES) + pixels * lightCount) {
+                return Optional.empty();
+            }
+
+            GBuffer gbuffer = new GBuffer(width, height, lightCount, fingerprint);
+            int intsPerChunk = CHUNK_BYTES / Integer.BYTES;
+            for (int start = 0; start < gbuffer.primitive.length; start += intsPerChunk) {
+                int length = Math.min(intsPerChunk, gbuffer.primitive.length - start);
+                buffer.clear().limit(length * Integer.BYTES);
+                if (!readFully(channel, buffer)) {
+                    return Optional.empty();
+                }
+                buffer.asIntBuffer().get(gbuffer.primitive, start, length);
+            }
+            int doublesPerChunk = CHUNK_BYTES / Double.BYTES;
+            for (double[] array : gbuffer.doubleArrays()) {
+                for (int start = 0; start < array.length; start += doublesPerChunk) {
+                    int length = Math.min(doublesPerChunk, array.length - start);
+                    buffer.clear().limit(length * Double.BYTES);
+                    if (!readFully(channel, buffer)) {
+                        return Optional.empty();
+                    }
+                    buffer.asDoubleBuffer().get(array, start, length);
+                }
+            }
+            for (int start = 0; start < gbuffer.shadowed.length; start += CHUNK_BYTES) {
+                int end = Math.min(gbuffer.shadowed.length, start + CHUNK_BYTES);
+                buffer.clear().limit(end - start);
+                if (!readFully(channel, buffer)) {
+                    return Optional.empty();
+                }
+                for (int i = start; i < end; i++) {
+                    gbuffer.shadowed[i] = buffer.get() != 0;
+                }
+            }
+            return Optional.of(gbuffer);
+        }
+    }
+
+    private double[][] doubleArrays() {
+        return new double[][] {t, normalX, normalY, normalZ, directionX, directionY, directionZ};
+    }
+
+    /**
+     * Écrit le contenu du tampon (de 0 à sa position) puis le vide.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Remplit le tampon jusqu'à sa limite puis le prépare à la lecture.
+     * @return false si le fichier se termine avant.
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /**
+     * Empreinte SHA-256 (tronquée à 64 bits) de ce dont dépend le G-buffer : taille d'image, caméra,
+     * types et positions des lumières, formes et maillage. Les couleurs et les matériaux n'y entrent pas.
+     */
+    static long fingerprint(CompiledScene scene) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        buffer.putInt(scene.getWidth()).putInt(scene.getHeight());
+        putPoint(buffer, scene.getLookFrom());
+        putVector(buffer, scene.getU());
+        putVector(buffer, scene.getV());
+        putVector(buffer, scene.getW());
+        buffer.putDouble(scene.getPixelWidth()).putDouble(scene.getPixelHeight());
+        for (int kind : scene.getLightKinds()) {
+            buffer = flushIfFull(digest, buffer);
+            buffer.putInt(kind);
+        }
+        for (double value : scene.getLightData()) {
+            buffer = flushIfFull(digest, buffer);
+            buffer.putDouble(value);
+        }
+
+        for (Shape shape : scene.getShapes()) {
+            buffer = putString(digest, buffer, shape.getClass().getSimpleName());
+            if (shape instanceof Sphere) {
+                putPoint(buffer, ((Sphere) shape).getCenter());
+                buffer.putDouble(((Sphere) shape).getRadius());
+            } else if (shape instanceof Plane) {
+                putPoint(buffer, ((Plane) shape).getPoint());
+                putVector(buffer, ((Plane) shape).getNormal());
+            } else if (shape instanceof Instance) {
+                Instance instance = (Instance) shape;
+                buffer = putString(digest, buffer, instance.getObject().getName());
+                putPoint(buffer, instance.getPosition());
+                buffer.putDouble(instance.getScale());
+                buffer = putMesh(digest, buffer, instance.getObject().getMesh());
+            }
+            Optional<BoundingBox> box = shape.getBoundingBox();
+            if (box.isPresent()) {
+                putPoint(buffer, box.get().getMin());
+                putPoint(buffer, box.get().getMax());
+            }
+        }
+
+        buffer = putMesh(digest, buffer, scene.getMesh());
+        buffer.flip();
+        digest.update(buffer);
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private static ByteBuffer putMesh(MessageDigest digest, ByteBuffer buffer, Mesh mesh) {
+        buffer.putInt(mesh.getVertexCount()).putInt(mesh.getTriangleCount());
+        double[] vertices = mesh.getVertexData();
+        for (double value : vertices) {
+            buffer = flushIfFull(digest, buffer);
+            buffer.putDouble(value);
+        }
+        int[] indices = mesh.getIndexData();
+        for (int index : indices) {
+            buffer = flushIfFull(digest, buffer);
+            buffer.putInt(index);
+        }
+        return buffer;
+    }
+
+    /**
+     * Passe le contenu du tampon au condensé quand il reste moins de place qu'une forme n'en occupe.
+     */
+    private static ByteBuffer flushIfFull(MessageDigest digest, ByteBuffer buffer) {
+        if (buffer.remaining() < 1024) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    /**
+     * Ajoute une chaîne de longueur quelconque : le tampon est vidé dans le condensé, la chaîne y passe directement,
+     * précédée de sa longueur.
+     */
+    private static ByteBuffer putString(MessageDigest digest, ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+        digest.update(bytes);
+        return buffer;
+    }
+
+    private static void putPoint(ByteBuffer buffer, Point point) {
+        buffer.putDouble(point.getX()).putDouble(point.getY()).putDouble(point.getZ());
+    }
+
+    private static void putVector(ByteBuffer buffer, Vector vector) {
+        buffer.putDouble(vector.getX()).putDouble(vector.getY()).putDouble(vector.getZ());
+    }
+}
@@ -0,0 +1,68 @@
+package raytracer.trace;
+
+/**
+ * Enregistrement d'impact mutable, réutilisé d'un rayon à l'autre par un même thread.
+ * Il remplace Optional&lt;Intersection&gt; sur le chemin critique : distance, point et normale
+ * y sont écrits sous forme de composantes primitives, sans allocation, avec la référence de la primitive touchée.
+ */
+public final class HitRecord {
+    private double t;
+    private double pointX, pointY, pointZ;
+    private double normalX, normalY, normalZ;
+    private int primitive;
+
+    public double getT() {
+        return t;
+    }
+
+    public void setT(double t) {
+        this.t = t;
+    }
+
+    public double getPointX() {
+        return pointX;
+    }
+
+    public double getPointY() {
+        return pointY;
+    }
+
+    public double getPointZ() {
+        return pointZ;
+    }
+
+    public void setPoint(double x, double y, double z) {
+        this.pointX = x;
+        this.pointY = y;
+        this.pointZ = z;
+    }
+
+    public double getNormalX() {
+        return normalX;
+    }
+
+    public double getNormalY() {
+        return normalY;
+    }
+
+    public double getNormalZ() {
+        return normalZ;
+    }
+
+    public void setNormal(double x, double y, double z) {
+        this.normalX = x;
+        this.normalY = y;
+        this.normalZ = z;
+    }
+
+    /**
+     * Référence BVH de la primitive touchée : indice de forme, ou nombre de formes + indice de face du maillage.
+     */
+    public int getPrimitive() {
+        return primitive;
+    }
+
+    public void setPrimitive(int primitive) {
+        this.primitive = primitive;
+    }
+}
@@ -1,42 +1,611 @@
 package raytracer.trace;
 
+import raytracer.accel.Accelerator;
+import raytracer.accel.AcceleratorType;
+import raytracer.accel.RayPacket;
+import raytracer.geometry.Mesh;
+import raytracer.png.PngStreamWriter;
+import raytracer.scene.CompiledScene;
 import raytracer.scene.Scene;
-import raytracer.math.Color;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import javax.imageio.ImageIO;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * Gère le processus de rendu : boucle sur les pixels et écriture du fichier PNG.
+ * Gère le processus de rendu : découpe l'image en tuiles, les calcule en parallèle et écrit le fichier PNG.
+ * Chaque pixel ne dépend que de ses coordonnées (RayTracer.getPixelColor est pur), l'image obtenue
+ * est donc identique quel que soit le nombre de threads ou la taille des tuiles.
+ * Avec l'anticrénelage adaptatif, une seconde série de tuiles suréchantillonne les pixels contrastés
+ * de cette première image (voir AdaptiveSampler).
+ * Pour les très grandes images, renderStreamed calcule l'image par bandes de lignes et les encode en PNG
+ * au fil du rendu, sans jamais allouer l'image entière.
+ * renderWithGBuffer garde en plus le G-buffer des impacts primaires ; relight recalcule ensuite l'image
+ * d'une scène aux matériaux ou aux couleurs de lumière modifiés à partir de ce seul G-buffer.
  */
 public class ImageRenderer {
 
+    public static final int DEFAULT_TILE_SIZE = 32;
+    public static final int DEFAULT_PACKET_SIZE = 1;
+    public static final double DEFAULT_ANTIALIASING_THRESHOLD = 0.1;
+
+    private final int threadCount;
+    private final int tileSize;
+    private final int packetSize;
+    private double antialiasingThreshold;
+    private boolean wavefront;
+    private int pngLevel = PngStreamWriter.DEFAULT_LEVEL;
+
+    private long refinedPixels;
+    private long extraSamples;
+
+    /**
+     * Rendu sur tous les cœurs disponibles avec la taille de tuile par défaut.
+     */
+    public ImageRenderer() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * @param threadCount Nombre de threads de rendu (1 pour un rendu séquentiel).
+     * @param tileSize Côté des tuiles carrées, en pixels.
+     */
+    public ImageRenderer(int threadCount, int tileSize) {
+        this(threadCount, tileSize, DEFAULT_PACKET_SIZE);
+    }
+
+    /**
+     * @param packetSize Nombre de pixels voisins d'une ligne dont les rayons primaires sont tracés ensemble
+     *                   (1 pour un tracé pixel par pixel, au plus RayPacket.MAX_SIZE).
+     */
+    public ImageRenderer(int threadCount, int tileSize, int packetSize) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être au moins 1.");
+        }
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("La taille des tuiles doit être au moins 1.");
+        }
+        if (packetSize < 1 || packetSize > RayPacket.MAX_SIZE) {
+            throw new IllegalArgumentException("La taille des paquets de rayons doit être comprise entre 1 et " + RayPacket.MAX_SIZE + ".");
+        }
+        this.threadCount = threadCount;
+        this.tileSize = tileSize;
+        this.packetSize = packetSize;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getPacketSize() {
+        return packetSize;
+    }
+
+    /**
+     * Active l'anticrénelage adaptatif.
+     * @param threshold Écart de couleur avec un voisin, entre 0 et 1 sur chaque composante, au-delà duquel
+     *                  un pixel est suréchantillonné ; 0 désactive l'anticrénelage.
+     */
+    public void setAntialiasingThreshold(double threshold) {
+        if (!(threshold >= 0.0 && threshold <= 1.0)) {
+            throw new IllegalArgumentException("Le seuil d'anticrénelage doit être compris entre 0 et 1.");
+        }
+        this.antialiasingThreshold = threshold;
+    }
+
+    public double getAntialiasingThreshold() {
+        return antialiasingThreshold;
+    }
+
+    public boolean isAntialiasingEnabled() {
+        return antialiasingThreshold > 0.0;
+    }
+
+    /**
+     * Active le rendu en front d'onde (voir RayTracer.traceWavefront) : chaque tuile est tracée rebond par rebond,
+     * par étapes sur tous ses rayons. L'image est la même ; l'affinage de l'anticrénelage reste pixel par pixel.
+     */
+    public void setWavefront(boolean wavefront) {
+        this.wavefront = wavefront;
+    }
+
+    public boolean isWavefront() {
+        return wavefront;
+    }
+
+    /**
+     * Niveau de compression des images PNG écrites, de 0 (aucune) à 9 (la plus forte, la plus lente).
+     */
+    public void setPngLevel(int level) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("Le niveau de compression PNG doit être compris entre 0 et 9.");
+        }
+        this.pngLevel = level;
+    }
+
+    public int getPngLevel() {
+        return pngLevel;
+    }
+
+    /**
+     * Encode l'image en PNG dans out, la compression étant répartie sur les threads de ce rendu.
+     * Le flux est vidé mais pas fermé : il reste à l'appelant.
+     */
+    public void writePng(BufferedImage image, OutputStream out) throws IOException {
+        PngStreamWriter.write(image, out, pngLevel, threadCount);
+    }
+
+    /**
+     * @return Nombre de pixels suréchantillonnés lors du dernier rendu.
+     */
+    public long getRefinedPixels() {
+        return refinedPixels;
+    }
+
+    /**
+     * @return Nombre de rayons primaires tracés lors du dernier rendu en plus d'un rayon par pixel.
+     */
+    public long getExtraSamples() {
+        return extraSamples;
+    }
+
     public void render(Scene scene) throws IOException {
-        int width = scene.getWidth();
-        int height = scene.getHeight();
+        render(scene, new RenderStats());
+    }
+
+    /**
+     * Rend la scène et écrit l'image, en enregistrant les durées des phases et les compteurs dans stats.
+     */
+    public void render(Scene scene, RenderStats stats) throws IOException {
+        String outputFileName = scene.getOutput();
+
+        System.out.println("Début du rendu de l'image " + scene.getWidth() + "x" + scene.getHeight()
+                + " (" + threadCount + " thread(s), tuiles de " + tileSize + " px"
+                + (packetSize > 1 ? ", paquets de " + packetSize + " rayons" + (new RayPacket().isVectorized() ? " vectorisés" : "") : "")
+                + (wavefront ? ", front d'onde" : "")
+                + (isAntialiasingEnabled() ? ", anticrénelage adaptatif au seuil " + antialiasingThreshold : "")
+                + ")...");
+
+        BufferedImage image = renderImage(scene, stats);
+
+        if (isAntialiasingEnabled()) {
+            long pixelCount = (long) scene.getWidth() * scene.getHeight();
+            System.out.printf("Anticrénelage : %d pixels affinés (%.1f %%), %d échantillons supplémentaires (%.2f par pixel).%n",
+                    refinedPixels, 100.0 * refinedPixels / pixelCount, extraSamples, (double) extraSamples / pixelCount);
+        }
+
+        long start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFileName))) {
+            writePng(image, out);
+        }
+        stats.recordPhase(RenderStats.ENCODE, System.nanoTime() - start);
+
+        System.out.println("Rendu terminé. Image sauvegardée sous : " + outputFileName);
+    }
+
+    /**
+     * Rend la scène par bandes de bandHeight lignes et écrit l'image PNG au fil du rendu (voir renderStreamed).
+     */
+    public void renderStreamed(Scene scene, int bandHeight, RenderStats stats) throws IOException {
+        String outputFileName = scene.getOutput();
+
+        System.out.println("Début du rendu de l'image " + scene.getWidth() + "x" + scene.getHeight()
+                + " par bandes de " + bandHeight + " lignes (" + threadCount + " thread(s), tuiles de " + tileSize + " px"
+                + (packetSize > 1 ? ", paquets de " + packetSize + " rayons" : "") + (wavefront ? ", front d'onde" : "") + ")...");
+
+        long start = System.nanoTime();
+        RayTracer rayTracer = new RayTracer(scene, stats);
+        stats.recordPhase(RenderStats.BUILD, System.nanoTime() - start);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFileName))) {
+            renderStreamed(rayTracer, out, bandHeight, stats);
+        }
+
+        System.out.println("Rendu terminé. Image sauvegardée sous : " + outputFileName);
+    }
+
+    /**
+     * Calcule l'image par bandes de bandHeight lignes, de haut en bas, et encode chaque bande en PNG dans out
+     * pendant le calcul de la suivante. Seules deux bandes sont en mémoire : width * bandHeight * 8 octets,
+     * quelle que soit la hauteur de l'image. Les pixels sont ceux de renderImage.
+     * L'anticrénelage adaptatif compare chaque pixel à ses voisins de toute l'image : il n'est pas disponible ici.
+     * @throws IllegalStateException si l'anticrénelage est activé.
+     */
+    public void renderStreamed(RayTracer rayTracer, OutputStream out, int bandHeight, RenderStats stats) throws IOException {
+        if (bandHeight < 1) {
+            throw new IllegalArgumentException("La hauteur des bandes doit être au moins 1.");
+        }
+        if (isAntialiasingEnabled()) {
+            throw new IllegalStateException("L'anticrénelage adaptatif n'est pas disponible pour le rendu par bandes.");
+        }
+        int width = rayTracer.getScene().getWidth();
+        int height = rayTracer.getScene().getHeight();
+        stats.putInfo("width", width);
+        stats.putInfo("height", height);
+        stats.putInfo("renderThreads", threadCount);
+        stats.putInfo("tileSize", tileSize);
+        stats.putInfo("packetSize", packetSize);
+        stats.putInfo("wavefront", wavefront);
+        stats.putInfo("bandHeight", bandHeight);
+        stats.putInfo("pngLevel", pngLevel);
+
+        long start = System.nanoTime();
+        int rowsPerBand = Math.min(bandHeight, height);
+        int[][] bands = {new int[width * rowsPerBand], new int[width * rowsPerBand]};
+        int tilesX = (width + tileSize - 1) / tileSize;
+
+        ForkJoinPool pool = threadCount > 1 ? new ForkJoinPool(threadCount) : null;
+        ExecutorService encoder = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "png-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        PngStreamWriter writer = new PngStreamWriter(out, width, height, pngLevel, threadCount);
+        try {
+            Future<?> pending = null;
+            for (int band = 0; band * rowsPerBand < height; band++) {
+                int[] pixels = bands[band % 2];
+                int bandY0 = band * rowsPerBand;
+                int bandY1 = Math.min(bandY0 + rowsPerBand, height);
+                int tilesY = (bandY1 - bandY0 + tileSize - 1) / tileSize;
+                forEachTile(tilesX * tilesY > 1 ? pool : null, tilesX, tilesX * tilesY, (tileX, tileY) -> {
+                    int x0 = tileX * tileSize;
+                    int y0 = bandY0 + tileY * tileSize;
+                    renderRegion(rayTracer, pixels, (y0 - bandY0) * width + x0, width,
+                            x0, y0, Math.min(x0 + tileSize, width), Math.min(y0 + tileSize, bandY1));
+                });
+
+                // L'encodage de la bande précédente (l'autre tampon) doit être fini avant de confier celle-ci.
+                awaitEncoding(pending);
+                pending = encoder.submit(() -> {
+                    long encodeStart = System.nanoTime();
+                    writer.writeRows(pixels, 0, bandY1 - bandY0);
+                    stats.recordPhase(RenderStats.ENCODE, System.nanoTime() - encodeStart);
+                    return null;
+                });
+            }
+            awaitEncoding(pending);
+            long encodeStart = System.nanoTime();
+            writer.close();
+            stats.recordPhase(RenderStats.ENCODE, System.nanoTime() - encodeStart);
+        } finally {
+            encoder.shutdownNow();
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        // Le rendu englobe l'encodage des bandes, fait en parallèle.
+        stats.recordPhase(RenderStats.RENDER, System.nanoTime() - start);
+    }
+
+    private static void awaitEncoding(Future<?> pending) throws IOException {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IllegalStateException("Échec de l'encodage d'une bande.", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Rendu par bandes interrompu.", e);
+        }
+    }
+
+    /**
+     * Rend la scène en gardant son G-buffer (voir GBuffer), écrit dans gbufferFile, puis ombre l'image à partir
+     * de celui-ci et l'écrit. L'image est la même que celle de render sans anticrénelage.
+     */
+    public void renderWithGBuffer(Scene scene, Path gbufferFile, RenderStats stats) throws IOException {
         String outputFileName = scene.getOutput();
+        System.out.println("Début du rendu de l'image " + scene.getWidth() + "x" + scene.getHeight()
+                + " avec capture du G-buffer (" + threadCount + " thread(s), tuiles de " + tileSize + " px)...");
+
+        long start = System.nanoTime();
+        RayTracer rayTracer = new RayTracer(scene, stats);
+        stats.recordPhase(RenderStats.BUILD, System.nanoTime() - start);
+        GBuffer gbuffer = captureGBuffer(rayTracer, stats);
+
+        start = System.nanoTime();
+        gbuffer.write(gbufferFile);
+        stats.recordPhase(RenderStats.GBUFFER, System.nanoTime() - start);
+        stats.putInfo("gbuffer", gbufferFile.toString());
+        System.out.println("G-buffer sauvegardé sous : " + gbufferFile);
 
-        RayTracer rayTracer = new RayTracer(scene);
+        BufferedImage image = relightImage(rayTracer, gbuffer, stats);
+        start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFileName))) {
+            writePng(image, out);
+        }
+        stats.recordPhase(RenderStats.ENCODE, System.nanoTime() - start);
+        System.out.println("Rendu terminé. Image sauvegardée sous : " + outputFileName);
+    }
+
+    /**
+     * Recalcule l'image de la scène à partir du G-buffer gbufferFile, capturé par renderWithGBuffer sur une scène
+     * de même géométrie, caméra et position des lumières, et l'écrit. Sans surface réfléchissante à ombrer,
+     * aucun rayon n'est tracé et aucune structure d'accélération n'est construite.
+     * @throws IOException si le fichier est illisible ou n'est pas un G-buffer.
+     * @throws IllegalArgumentException si le G-buffer ne correspond pas à la scène (voir GBuffer.checkCompatible).
+     */
+    public void relight(Scene scene, Path gbufferFile, RenderStats stats) throws IOException {
+        String outputFileName = scene.getOutput();
+        System.out.println("Ré-éclairage de l'image " + scene.getWidth() + "x" + scene.getHeight()
+                + " depuis le G-buffer " + gbufferFile + " (" + threadCount + " thread(s))...");
+
+        long start = System.nanoTime();
+        GBuffer gbuffer = GBuffer.read(gbufferFile).orElseThrow(
+                () -> new IOException("Le fichier " + gbufferFile + " n'est pas un G-buffer valide."));
+        CompiledScene compiled = CompiledScene.compile(scene);
+        gbuffer.checkCompatible(compiled);
+        stats.recordPhase(RenderStats.GBUFFER, System.nanoTime() - start);
+        stats.putInfo("gbuffer", gbufferFile.toString());
+
+        start = System.nanoTime();
+        boolean tracing = gbuffer.needsTracing(compiled);
+        Accelerator accelerator = tracing
+                ? Accelerator.create(compiled.getAcceleratorType(), compiled.getShapes(), compiled.getMesh())
+                : Accelerator.create(AcceleratorType.BRUTE_FORCE, List.of(), new Mesh());
+        RayTracer rayTracer = new RayTracer(compiled, accelerator, stats);
+        stats.recordPhase(RenderStats.BUILD, System.nanoTime() - start);
+        stats.putInfo("relightTracing", tracing);
+
+        BufferedImage image = relightImage(rayTracer, gbuffer, stats);
+        start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFileName))) {
+            writePng(image, out);
+        }
+        stats.recordPhase(RenderStats.ENCODE, System.nanoTime() - start);
+        System.out.printf("Ré-éclairage terminé en %.1f ms. Image sauvegardée sous : %s%n",
+                stats.getPhaseNanos(RenderStats.RELIGHT) / 1e6, outputFileName);
+    }
+
+    /**
+     * Trace, tuile par tuile, les rayons primaires et les rayons d'ombre de la scène du moteur et retourne
+     * son G-buffer ; la capture est enregistrée comme phase de rendu dans stats, qui doit être celui du moteur.
+     */
+    public GBuffer captureGBuffer(RayTracer rayTracer, RenderStats stats) {
+        int width = rayTracer.getScene().getWidth();
+        int height = rayTracer.getScene().getHeight();
+        stats.putInfo("width", width);
+        stats.putInfo("height", height);
+        stats.putInfo("renderThreads", threadCount);
+        stats.putInfo("tileSize", tileSize);
+
+        long start = System.nanoTime();
+        GBuffer gbuffer = new GBuffer(rayTracer.getScene());
+        forEachTileOf(width, height, (x0, y0, x1, y1) -> {
+            rayTracer.captureGBuffer(gbuffer, x0, y0, x1, y1);
+            rayTracer.sampleAllocatedBytes();
+        });
+        stats.recordPhase(RenderStats.RENDER, System.nanoTime() - start);
+        return gbuffer;
+    }
+
+    /**
+     * Ombre, tuile par tuile, l'image de la scène du moteur à partir de gbuffer (voir RayTracer.relight) ;
+     * la durée est enregistrée comme phase de ré-éclairage dans stats.
+     */
+    public BufferedImage relightImage(RayTracer rayTracer, GBuffer gbuffer, RenderStats stats) {
+        int width = rayTracer.getScene().getWidth();
+        int height = rayTracer.getScene().getHeight();
+
+        long start = System.nanoTime();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        forEachTileOf(width, height, (x0, y0, x1, y1) -> {
+            rayTracer.relight(gbuffer, x0, y0, x1, y1, pixels, y0 * width + x0, width);
+            for (int j = y0; j < y1; j++) {
+                for (int i = x0; i < x1; i++) {
+                    pixels[j * width + i] &= 0xFFFFFF;
+                }
+            }
+        });
+        stats.recordPhase(RenderStats.RELIGHT, System.nanoTime() - start);
+        return image;
+    }
+
+    /**
+     * Applique action au rectangle de chaque tuile d'une image width x height, en parallèle si ce rendu
+     * a plusieurs threads.
+     */
+    private void forEachTileOf(int width, int height, RegionAction action) {
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (height + tileSize - 1) / tileSize;
+        int tileCount = tilesX * tilesY;
+        ForkJoinPool pool = threadCount > 1 && tileCount > 1 ? new ForkJoinPool(threadCount) : null;
+        try {
+            forEachTile(pool, tilesX, tileCount, (tileX, tileY) -> {
+                int x0 = tileX * tileSize;
+                int y0 = tileY * tileSize;
+                action.apply(x0, y0, Math.min(x0 + tileSize, width), Math.min(y0 + tileSize, height));
+            });
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Calcule l'image en mémoire sans l'écrire sur disque.
+     * Les pixels sont écrits directement dans le tableau d'entiers du raster.
+     */
+    public BufferedImage renderImage(Scene scene) {
+        return renderImage(scene, new RenderStats());
+    }
+
+    /**
+     * Calcule l'image en mémoire ; la construction de la BVH, le rendu et les compteurs sont enregistrés dans stats.
+     */
+    public BufferedImage renderImage(Scene scene, RenderStats stats) {
+        long start = System.nanoTime();
+        RayTracer rayTracer = new RayTracer(scene, stats);
+        stats.recordPhase(RenderStats.BUILD, System.nanoTime() - start);
+        return renderImage(rayTracer, stats);
+    }
+
+    /**
+     * Calcule l'image avec un moteur déjà construit (par exemple sur une hiérarchie réajustée d'une image à l'autre) ;
+     * le rendu est enregistré dans stats, qui doit être celui du moteur.
+     */
+    public BufferedImage renderImage(RayTracer rayTracer, RenderStats stats) {
+        int width = rayTracer.getScene().getWidth();
+        int height = rayTracer.getScene().getHeight();
+        stats.putInfo("width", width);
+        stats.putInfo("height", height);
+        stats.putInfo("renderThreads", threadCount);
+        stats.putInfo("tileSize", tileSize);
+        stats.putInfo("packetSize", packetSize);
+        stats.putInfo("wavefront", wavefront);
+        stats.putInfo("antialiasingThreshold", antialiasingThreshold);
+
+        long start = System.nanoTime();
 
         // Crée une image en mémoire pour stocker les pixels
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 
-        System.out.println("Début du rendu de l'image " + width + "x" + height + "...");
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (height + tileSize - 1) / tileSize;
+        int tileCount = tilesX * tilesY;
 
-        for (int j = 0; j < height; j++) {
-            for (int i = 0; i < width; i++) {
-                int correctedJ = height - 1 - j;
+        refinedPixels = 0;
+        extraSamples = 0;
 
-                Color color = rayTracer.getPixelColor(i, correctedJ);
+        ForkJoinPool pool = threadCount > 1 && tileCount > 1 ? new ForkJoinPool(threadCount) : null;
+        try {
+            forEachTile(pool, tilesX, tileCount, (tileX, tileY) -> renderTile(rayTracer, pixels, width, height, tileX, tileY));
 
-                image.setRGB(i, j, color.toRGB());
+            if (isAntialiasingEnabled()) {
+                AdaptiveSampler sampler = new AdaptiveSampler(rayTracer, pixels.clone(), width, height, antialiasingThreshold);
+                forEachTile(pool, tilesX, tileCount, (tileX, tileY) -> {
+                    sampler.refine(pixels, tileX * tileSize, tileY * tileSize,
+                            Math.min((tileX + 1) * tileSize, width), Math.min((tileY + 1) * tileSize, height));
+                    rayTracer.sampleAllocatedBytes();
+                });
+                refinedPixels = sampler.getRefinedPixels();
+                extraSamples = sampler.getExtraSamples();
             }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        stats.recordPhase(RenderStats.RENDER, System.nanoTime() - start);
+        return image;
+    }
+
+    /**
+     * Applique action à chaque tuile, dans l'ordre sans pool, sinon en parallèle.
+     */
+    private static void forEachTile(ForkJoinPool pool, int tilesX, int tileCount, TileAction action) {
+        if (pool == null) {
+            for (int tile = 0; tile < tileCount; tile++) {
+                action.apply(tile % tilesX, tile / tilesX);
+            }
+            return;
         }
+        pool.invoke(new TileRangeTask(action, tilesX, 0, tileCount));
+    }
 
-        File outputFile = new File(outputFileName);
-        ImageIO.write(image, "png", outputFile);
+    /**
+     * Calcule les pixels d'une tuile.
+     */
+    private void renderTile(RayTracer rayTracer, int[] pixels, int width, int height, int tileX, int tileY) {
+        int x0 = tileX * tileSize;
+        int y0 = tileY * tileSize;
+        renderRegion(rayTracer, pixels, y0 * width + x0, width, x0, y0, Math.min(x0 + tileSize, width), Math.min(y0 + tileSize, height));
+    }
 
-        System.out.println("Rendu terminé. Image sauvegardée sous : " + outputFileName);
+    /**
+     * Calcule les pixels du rectangle [x0, x1[ x [y0, y1[ de l'image, lignes comptées depuis le haut, avec la taille
+     * de paquet de ce rendu, en front d'onde s'il est activé. Le pixel (x0, y0) est écrit en pixels[offset] et deux
+     * lignes sont espacées de scanline. L'axe vertical de l'image est inversé par rapport à celui de la caméra.
+     */
+    public void renderRegion(RayTracer rayTracer, int[] pixels, int offset, int scanline, int x0, int y0, int x1, int y1) {
+        if (wavefront) {
+            rayTracer.traceWavefront(x0, y0, x1, y1, pixels, offset, scanline, packetSize);
+            for (int j = y0; j < y1; j++) {
+                int row = offset + (j - y0) * scanline - x0;
+                for (int i = x0; i < x1; i++) {
+                    pixels[row + i] &= 0xFFFFFF;
+                }
+            }
+            rayTracer.sampleAllocatedBytes();
+            return;
+        }
+        int height = rayTracer.getScene().getHeight();
+        for (int j = y0; j < y1; j++) {
+            int correctedJ = height - 1 - j;
+            int row = offset + (j - y0) * scanline - x0;
+            if (packetSize > 1) {
+                for (int i = x0; i < x1; i += packetSize) {
+                    rayTracer.getPixelRGBs(i, correctedJ, Math.min(packetSize, x1 - i), pixels, row + i);
+                }
+                for (int i = x0; i < x1; i++) {
+                    pixels[row + i] &= 0xFFFFFF;
+                }
+                continue;
+            }
+            for (int i = x0; i < x1; i++) {
+                // Le raster TYPE_INT_RGB ne stocke pas le canal alpha.
+                pixels[row + i] = rayTracer.getPixelRGB(i, correctedJ) & 0xFFFFFF;
+            }
+        }
+        rayTracer.sampleAllocatedBytes();
+    }
+
+    private interface TileAction {
+        void apply(int tileX, int tileY);
+    }
+
+    private interface RegionAction {
+        void apply(int x0, int y0, int x1, int y1);
+    }
+
+    /**
+     * Tâche fork/join sur une plage de tuiles : elle se coupe en deux tant que la plage
+     * contient plusieurs tuiles, les threads inactifs volent les moitiés restantes.
+     */
+    private static final class TileRangeTask extends RecursiveAction {
+        private final TileAction action;
+        private final int tilesX;
+        private final int start;
+        private final int end;
+
+        private TileRangeTask(TileAction action, int tilesX, int start, int end) {
+            this.action = action;
+            this.tilesX = tilesX;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                action.apply(start % tilesX, start / tilesX);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new TileRangeTask(action, tilesX, start, mid), new TileRangeTask(action, tilesX, mid, end));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,257 @@
+package raytracer.trace;
+
+import raytracer.scene.Scene;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.imageio.ImageIO;
+
+/**
+ * Rendu progressif : l'image est calculée en passes de plus en plus fines et un aperçu est écrit
+ * régulièrement dans le fichier de sortie, pour juger le cadrage ou l'éclairage avant la fin du rendu.
+ * La première passe calcule un pixel sur COARSEST_STEP dans chaque direction, chaque passe suivante
+ * divise ce pas par deux. Un pixel calculé à la passe de pas s remplit son bloc s x s jusqu'à ce que les
+ * passes suivantes le précisent. Chaque pixel n'est calculé qu'une fois, au pas le plus grossier qui le
+ * contient : l'image finale est identique à celle d'ImageRenderer.
+ */
+public class ProgressiveRenderer {
+
+    public static final int COARSEST_STEP = 16;
+
+    private final int threadCount;
+    private final long previewIntervalMillis;
+
+    /**
+     * @param threadCount Nombre de threads de rendu (1 pour un rendu séquentiel).
+     * @param previewIntervalMillis Délai entre deux écritures de l'aperçu, en millisecondes.
+     */
+    public ProgressiveRenderer(int threadCount, long previewIntervalMillis) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être au moins 1.");
+        }
+        if (previewIntervalMillis < 1) {
+            throw new IllegalArgumentException("L'intervalle entre deux aperçus doit être positif.");
+        }
+        this.threadCount = threadCount;
+        this.previewIntervalMillis = previewIntervalMillis;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public long getPreviewIntervalMillis() {
+        return previewIntervalMillis;
+    }
+
+    public void render(Scene scene) throws IOException {
+        render(scene, new RenderStats());
+    }
+
+    /**
+     * Rend la scène en écrivant les aperçus puis l'image finale ; durées et compteurs sont enregistrés dans stats
+     * (l'encodage mesuré est celui de l'image finale).
+     */
+    public void render(Scene scene, RenderStats stats) throws IOException {
+        String outputFileName = scene.getOutput();
+        Path output = new File(outputFileName).toPath();
+
+        System.out.println("Début du rendu progressif de l'image " + scene.getWidth() + "x" + scene.getHeight()
+                + " (" + threadCount + " thread(s), aperçu toutes les " + previewIntervalMillis + " ms)...");
+
+        BufferedImage image = new BufferedImage(scene.getWidth(), scene.getHeight(), BufferedImage.TYPE_INT_RGB);
+
+        ScheduledExecutorService previews = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "preview-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        previews.scheduleWithFixedDelay(() -> {
+            try {
+                writeAtomically(copy(image), output);
+            } catch (IOException e) {
+                System.err.println("Impossible d'écrire l'aperçu (" + outputFileName + "): " + e.getMessage());
+            }
+        }, previewIntervalMillis, previewIntervalMillis, TimeUnit.MILLISECONDS);
+
+        try {
+            renderImage(scene, image, stats, step -> System.out.println("Passe terminée (pas de " + step + " px)."));
+        } finally {
+            previews.shutdownNow();
+        }
+        try {
+            // Un aperçu en cours d'écriture ne doit pas remplacer l'image finale.
+            previews.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long start = System.nanoTime();
+        writeAtomically(image, output);
+        stats.recordPhase(RenderStats.ENCODE, System.nanoTime() - start);
+        System.out.println("Rendu terminé. Image sauvegardée sous : " + outputFileName);
+    }
+
+    /**
+     * Calcule l'image en mémoire sans l'écrire sur disque.
+     */
+    public BufferedImage renderImage(Scene scene) {
+        BufferedImage image = new BufferedImage(scene.getWidth(), scene.getHeight(), BufferedImage.TYPE_INT_RGB);
+        renderImage(scene, image, new RenderStats(), step -> { });
+        return image;
+    }
+
+    /**
+     * Calcule l'image dans image, passe par passe.
+     * @param stats Reçoit la durée de construction de la BVH, celle du rendu et les compteurs.
+     * @param onPass Appelé à la fin de chaque passe avec son pas (1 pour la dernière).
+     */
+    public void renderImage(Scene scene, BufferedImage image, RenderStats stats, Consumer<Integer> onPass) {
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        if (image.getWidth() != width || image.getHeight() != height || image.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("L'image doit être au format TYPE_INT_RGB et aux dimensions de la scène.");
+        }
+
+        stats.putInfo("width", width);
+        stats.putInfo("height", height);
+        stats.putInfo("renderThreads", threadCount);
+        stats.putInfo("progressive", true);
+
+        long start = System.nanoTime();
+        RayTracer rayTracer = new RayTracer(scene, stats);
+        stats.recordPhase(RenderStats.BUILD, System.nanoTime() - start);
+        start = System.nanoTime();
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        ForkJoinPool pool = threadCount > 1 ? new ForkJoinPool(threadCount) : null;
+        try {
+            for (int step = COARSEST_STEP; step >= 1; step /= 2) {
+                Pass pass = new Pass(rayTracer, pixels, width, height, step);
+                int rows = (height + step - 1) / step;
+                if (pool == null) {
+                    pass.renderRows(0, rows);
+                } else {
+                    pool.invoke(new RowRangeTask(pass, 0, rows));
+                }
+                onPass.accept(step);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        stats.recordPhase(RenderStats.RENDER, System.nanoTime() - start);
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage snapshot = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        int[] source = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] target = ((DataBufferInt) snapshot.getRaster().getDataBuffer()).getData();
+        System.arraycopy(source, 0, target, 0, source.length);
+        return snapshot;
+    }
+
+    /**
+     * Écrit l'image dans un fichier temporaire puis le renomme : un lecteur du fichier de sortie
+     * ne voit jamais de PNG à moitié écrit.
+     */
+    private static void writeAtomically(BufferedImage image, Path output) throws IOException {
+        Path absolute = output.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            if (!ImageIO.write(image, "png", temp.toFile())) {
+                throw new IOException("Aucun encodeur PNG disponible.");
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Une passe de pas step : calcule les pixels dont les coordonnées sont multiples de step mais pas
+     * toutes deux multiples de 2 * step (déjà calculés), et remplit leur bloc step x step.
+     * Un bloc ne contient aucun pixel déjà calculé, les passes précédentes restent donc intactes.
+     */
+    private static final class Pass {
+        private final RayTracer rayTracer;
+        private final int[] pixels;
+        private final int width;
+        private final int height;
+        private final int step;
+
+        private Pass(RayTracer rayTracer, int[] pixels, int width, int height, int step) {
+            this.rayTracer = rayTracer;
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.step = step;
+        }
+
+        /**
+         * Calcule les lignes de rang [start, end) de la passe (la ligne de rang r est la ligne r * step de l'image).
+         */
+        private void renderRows(int start, int end) {
+            int coarser = step * 2;
+            for (int r = start; r < end; r++) {
+                int j = r * step;
+                // L'axe vertical de l'image est inversé par rapport à celui de la caméra.
+                int correctedJ = height - 1 - j;
+                boolean rowDone = step < COARSEST_STEP && j % coarser == 0;
+                // Sur une ligne déjà visitée, seuls les pixels de rang impair sont nouveaux.
+                int first = rowDone ? step : 0;
+                int stride = rowDone ? coarser : step;
+                int blockHeight = Math.min(step, height - j);
+
+                for (int i = first; i < width; i += stride) {
+                    // Le raster TYPE_INT_RGB ne stocke pas le canal alpha.
+                    int rgb = rayTracer.getPixelRGB(i, correctedJ) & 0xFFFFFF;
+                    int blockWidth = Math.min(step, width - i);
+                    for (int y = j; y < j + blockHeight; y++) {
+                        int row = y * width;
+                        for (int x = i; x < i + blockWidth; x++) {
+                            pixels[row + x] = rgb;
+                        }
+                    }
+                }
+            }
+            rayTracer.sampleAllocatedBytes();
+        }
+    }
+
+    /**
+     * Tâche fork/join sur une plage de lignes d'une passe, coupée en deux tant qu'elle en contient plusieurs.
+     */
+    private static final class RowRangeTask extends RecursiveAction {
+        private final Pass pass;
+        private final int start;
+        private final int end;
+
+        private RowRangeTask(Pass pass, int start, int end) {
+            this.pass = pass;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= 1) {
+                pass.renderRows(start, end);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new RowRangeTask(pass, start, mid), new RowRangeTask(pass, mid, end));
+        }
+    }
+}
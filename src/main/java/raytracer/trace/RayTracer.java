@@ -1,202 +1,731 @@
 package raytracer.trace;
 
 import raytracer.math.Color;
-import raytracer.math.Ray;
-import raytracer.math.Vector;
 import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.scene.CompiledScene;
 import raytracer.scene.Scene;
-import raytracer.scene.Orthonormal;
-import raytracer.geometry.Shape;
-import raytracer.light.AbstractLight;
-import raytracer.light.DirectionalLight;
-import raytracer.light.PointLight;
-import java.util.Optional;
+import raytracer.accel.Accelerator;
+import raytracer.accel.RayPacket;
 import java.lang.Math;
 
 /**
  * Moteur de lancer de rayons: calcule le rayon, trouve l'intersection et détermine la couleur.
+ * Il ne lit que la forme compilée de la scène (CompiledScene), figée à sa construction.
+ * Le chemin critique (computeColor, éclairage, ombres, réflexion) travaille sur des composantes primitives
+ * et sur un TraceContext propre à chaque thread : aucun objet n'est alloué par rayon.
  */
 public class RayTracer {
 
-    private final Scene scene;
-    private final Orthonormal basis;
+    private final CompiledScene scene;
+    private final int maxDepth;
     private final double pixelHeight;
     private final double pixelWidth;
-    private final Point lookFrom;
+    private final double halfWidth;
+    private final double halfHeight;
+    private final Accelerator accelerator;
+
+    private final double lookFromX, lookFromY, lookFromZ;
+    private final double uX, uY, uZ;
+    private final double vX, vY, vZ;
+    private final double wX, wY, wZ;
+
+    private final double ambientR, ambientG, ambientB;
+    private final int[] lightKinds;
+    private final double[] lightData;
+    private final double[] lightColors;
+    private final double[] materials;
+
+    private final RenderStats stats;
+    private final ThreadLocal<TraceContext> contexts;
 
     private static final double SHADOW_EPSILON = 1e-4;
+    private static final double RAY_BIAS = 1e-4;
+    // Nombre d'impacts au plus dans le journal d'un lot de chemins du front d'onde (48 octets chacun).
+    private static final long WAVEFRONT_LOG_LIMIT = 1L << 20;
 
     public RayTracer(Scene scene) {
+        this(scene, new RenderStats());
+    }
+
+    /**
+     * Compile la scène (voir CompiledScene.compile) puis construit le moteur sur ce résultat.
+     * @param stats Reçoit les compteurs de chaque thread qui trace des rayons avec ce moteur.
+     */
+    public RayTracer(Scene scene, RenderStats stats) {
+        this(CompiledScene.compile(scene), stats);
+    }
+
+    /**
+     * Moteur sur la structure d'accélération choisie par la scène (voir CompiledScene.getAcceleratorType).
+     * @param stats Reçoit les compteurs de chaque thread qui trace des rayons avec ce moteur.
+     */
+    public RayTracer(CompiledScene scene, RenderStats stats) {
+        this(scene, Accelerator.create(scene.getAcceleratorType(), scene.getShapes(), scene.getMesh()), stats);
+    }
+
+    /**
+     * Moteur sur une structure déjà construite pour les formes et le maillage de la scène
+     * (par exemple une BVH réajustée par BVH.refit d'une image d'animation à la suivante).
+     * @param stats Reçoit les compteurs de chaque thread qui trace des rayons avec ce moteur.
+     */
+    public RayTracer(CompiledScene scene, Accelerator accelerator, RenderStats stats) {
         this.scene = scene;
-        this.basis = new Orthonormal(scene.getCamera());
-        this.lookFrom = scene.getCamera().getLookFrom();
+        this.stats = stats;
+        this.maxDepth = scene.getMaxDepth();
+        this.accelerator = accelerator;
+        stats.putInfo("accelerator", accelerator.getName());
+
+        this.pixelHeight = scene.getPixelHeight();
+        this.pixelWidth = scene.getPixelWidth();
+        this.halfWidth = scene.getWidth() / 2.0;
+        this.halfHeight = scene.getHeight() / 2.0;
+
+        Point lookFrom = scene.getLookFrom();
+        this.lookFromX = lookFrom.getX();
+        this.lookFromY = lookFrom.getY();
+        this.lookFromZ = lookFrom.getZ();
+        Vector u = scene.getU();
+        Vector v = scene.getV();
+        Vector w = scene.getW();
+        this.uX = u.getX();
+        this.uY = u.getY();
+        this.uZ = u.getZ();
+        this.vX = v.getX();
+        this.vY = v.getY();
+        this.vZ = v.getZ();
+        this.wX = w.getX();
+        this.wY = w.getY();
+        this.wZ = w.getZ();
+
+        Color ambient = scene.getAmbient();
+        this.ambientR = ambient.getR();
+        this.ambientG = ambient.getG();
+        this.ambientB = ambient.getB();
+        this.lightKinds = scene.getLightKinds();
+        this.lightData = scene.getLightData();
+        this.lightColors = scene.getLightColors();
+        this.materials = scene.getMaterialTable();
+
+        int stackSize = accelerator.getStackSize();
+        int lightCount = lightKinds.length;
+        this.contexts = ThreadLocal.withInitial(() -> new TraceContext(stackSize, lightCount, stats.newThreadCounters()));
+    }
+
+    /**
+     * Scène compilée sur laquelle travaille le moteur.
+     */
+    public CompiledScene getScene() {
+        return scene;
+    }
 
-        double fov = scene.getCamera().getFov();
+    public RenderStats getStats() {
+        return stats;
+    }
 
-        double fovr = Math.toRadians(fov);
-        this.pixelHeight = Math.tan(fovr / 2.0);
-        this.pixelWidth = this.pixelHeight * ((double) scene.getWidth() / scene.getHeight());
+    /**
+     * Relève la mémoire allouée par le thread courant pour les statistiques (à appeler entre deux tuiles).
+     */
+    void sampleAllocatedBytes() {
+        contexts.get().getCounters().sampleAllocatedBytes();
     }
 
     public Color getPixelColor(int i, int j) {
-        Ray ray = calculateRay(i, j);
-        return computeColor(ray, scene.getMaxDepth());
+        TraceContext ctx = tracePixel(i, j);
+        return new Color(ctx.getRed(), ctx.getGreen(), ctx.getBlue());
     }
 
-
     /**
-     * JALON 6 BONUS: Calcule la couleur d'un point, incluant la lumière directe et indirecte (réflexion).
-     * @param ray Le rayon à tracer.
-     * @param depth La profondeur de récursion restante.
-     * @return La couleur finale.
+     * Couleur du pixel (i, j) au format ARGB, sans allocation.
      */
-    private Color computeColor(Ray ray, int depth) {
-        Optional<Intersection> closestIntersection = findClosestIntersection(ray);
+    public int getPixelRGB(int i, int j) {
+        TraceContext ctx = tracePixel(i, j);
+        return Color.toRGB(ctx.getRed(), ctx.getGreen(), ctx.getBlue());
+    }
 
-        if (closestIntersection.isEmpty()) {
-            return new Color(0, 0, 0);
+    /**
+     * Couleurs ARGB des count pixels (i, j) à (i + count - 1, j), dont les rayons primaires sont tracés en paquet.
+     * Seule la recherche de l'intersection primaire est faite en commun ; l'ombrage et les rebonds restent
+     * individuels. Le résultat est identique, pixel par pixel, à getPixelRGB.
+     * @param count Nombre de pixels, entre 1 et RayPacket.MAX_SIZE.
+     */
+    public void getPixelRGBs(int i, int j, int count, int[] rgb, int offset) {
+        TraceContext ctx = contexts.get();
+        RayPacket packet = ctx.getPacket();
+        double[] direction = ctx.getDirection();
+
+        packet.reset(count);
+        for (int lane = 0; lane < count; lane++) {
+            primaryDirection(i + lane, j, direction);
+            packet.setRay(lane, lookFromX, lookFromY, lookFromZ, direction[0], direction[1], direction[2]);
         }
 
-        Intersection intersection = closestIntersection.get();
-        Shape hitShape = intersection.getShape();
+        RenderCounters counters = ctx.getCounters();
+        accelerator.closestHit(packet, SHADOW_EPSILON, ctx.getStack(), counters.getIntersections());
+
+        for (int lane = 0; lane < count; lane++) {
+            counters.countPrimaryRay();
+            counters.recordDepth(1);
+            if (accelerator.recordHit(packet, lane, ctx.getHit())) {
+                counters.countHit();
+                shade(ctx, packet.getDirectionX(lane), packet.getDirectionY(lane), packet.getDirectionZ(lane), maxDepth);
+            } else {
+                ctx.setColor(0, 0, 0);
+            }
+            rgb[offset + lane] = Color.toRGB(ctx.getRed(), ctx.getGreen(), ctx.getBlue());
+        }
+    }
 
-        Color finalColor = calculateDirectLighting(intersection, ray);
+    /**
+     * Couleur d'un échantillon du pixel (i, j), pris au point (offsetX, offsetY) du pixel ((0.5, 0.5) pour son centre).
+     * Les composantes, entre 0 et 1, sont écrites dans rgb[0..2] ; au centre, elles donnent exactement getPixelRGB.
+     */
+    public void getSampleColor(int i, int j, double offsetX, double offsetY, double[] rgb) {
+        TraceContext ctx = contexts.get();
+        double[] direction = ctx.getDirection();
+        primaryDirection(i, j, offsetX, offsetY, direction);
+        ctx.getCounters().countPrimaryRay();
+        computeColor(ctx, lookFromX, lookFromY, lookFromZ, direction[0], direction[1], direction[2], maxDepth);
+        rgb[0] = ctx.getRed();
+        rgb[1] = ctx.getGreen();
+        rgb[2] = ctx.getBlue();
+    }
 
-        if (depth > 1 && hitShape.getSpecular().getR() > SHADOW_EPSILON) {
+    /**
+     * Couleurs ARGB des pixels du rectangle [x0, x1[ x [y0, y1[ de l'image (lignes comptées depuis le haut),
+     * calculées en front d'onde : tous les rayons primaires de la région sont générés, puis chaque rebond passe
+     * par des étapes successives sur l'ensemble des rayons encore vivants (intersection, rayons d'ombre,
+     * ombrage et génération des rayons réfléchis), au lieu de suivre chaque rayon jusqu'au bout.
+     * Sans récursion, la profondeur n'est pas limitée par la pile du thread ; pour une grande profondeur, les pixels
+     * sont tracés par lots afin de borner la mémoire des tampons. Le résultat est identique,
+     * pixel par pixel, à getPixelRGB. Le pixel (x0, y0) est écrit en rgb[offset], deux lignes espacées de scanline.
+     * @param packetSize Nombre de rayons d'un rebond dont l'intersection est cherchée en paquet (1 : un par un).
+     */
+    public void traceWavefront(int x0, int y0, int x1, int y1, int[] rgb, int offset, int scanline, int packetSize) {
+        TraceContext ctx = contexts.get();
+        Wavefront wavefront = ctx.getWavefront();
+        RenderCounters counters = ctx.getCounters();
+        double[] direction = ctx.getDirection();
+        int regionWidth = x1 - x0;
+        int pixelCount = regionWidth * (y1 - y0);
+        int height = scene.getHeight();
+        // Le journal compte au plus un impact par chemin et par rebond : les chemins sont tracés par lots
+        // pour que sa taille reste bornée quelle que soit la profondeur.
+        int batchSize = (int) Math.max(1, Math.min(pixelCount, WAVEFRONT_LOG_LIMIT / Math.max(1, maxDepth)));
+
+        for (int first = 0; first < pixelCount; first += batchSize) {
+            int count = Math.min(batchSize, pixelCount - first);
+            wavefront.begin(count);
+            Wavefront.RayQueue primary = wavefront.rays();
+            for (int path = 0; path < count; path++) {
+                int i = x0 + (first + path) % regionWidth;
+                int j = y0 + (first + path) / regionWidth;
+                primaryDirection(i, height - 1 - j, direction);
+                primary.add(lookFromX, lookFromY, lookFromZ, direction[0], direction[1], direction[2], path);
+                counters.countPrimaryRay();
+            }
 
-            Ray reflectedRay = intersection.generateReflectedRay(ray);
+            for (int bounce = 1; wavefront.rays().size > 0; bounce++) {
+                intersectStage(ctx, wavefront, bounce, packetSize);
+                shadowStage(ctx, wavefront);
+                shadeStage(ctx, wavefront, bounce < maxDepth);
+                wavefront.nextBounce();
+            }
 
-            Color cPrime = computeColor(reflectedRay, depth - 1);
+            resolveWavefront(wavefront);
+            for (int path = 0; path < count; path++) {
+                int i = (first + path) % regionWidth;
+                int j = (first + path) / regionWidth;
+                rgb[offset + j * scanline + i] = Color.toRGB(wavefront.pathRed[path], wavefront.pathGreen[path], wavefront.pathBlue[path]);
+            }
+        }
+    }
 
-            Color reflectedContribution = hitShape.getSpecular().schurProduct(cPrime);
-            finalColor = finalColor.add(reflectedContribution);
+    /**
+     * Étape d'intersection : plus proche impact de chaque rayon de la file, par paquets de packetSize rayons.
+     * Les impacts sont rangés à la suite (les rayons perdus disparaissent) avec le matériau touché.
+     */
+    private void intersectStage(TraceContext ctx, Wavefront wavefront, int bounce, int packetSize) {
+        Wavefront.RayQueue rays = wavefront.rays();
+        RenderCounters counters = ctx.getCounters();
+        HitRecord hit = ctx.getHit();
+
+        if (packetSize == 1) {
+            for (int k = 0; k < rays.size; k++) {
+                counters.recordDepth(bounce);
+                if (accelerator.closestHit(rays.originX[k], rays.originY[k], rays.originZ[k], rays.directionX[k], rays.directionY[k], rays.directionZ[k],
+                        SHADOW_EPSILON, ctx.getStack(), hit, counters.getIntersections())) {
+                    counters.countHit();
+                    addHit(wavefront, hit, rays.directionX[k], rays.directionY[k], rays.directionZ[k], rays.path[k]);
+                }
+            }
+            return;
         }
 
-        return finalColor.clamp();
+        RayPacket packet = ctx.getPacket();
+        for (int first = 0; first < rays.size; first += packetSize) {
+            int count = Math.min(packetSize, rays.size - first);
+            packet.reset(count);
+            for (int lane = 0; lane < count; lane++) {
+                int k = first + lane;
+                packet.setRay(lane, rays.originX[k], rays.originY[k], rays.originZ[k], rays.directionX[k], rays.directionY[k], rays.directionZ[k]);
+            }
+            accelerator.closestHit(packet, SHADOW_EPSILON, ctx.getStack(), counters.getIntersections());
+            for (int lane = 0; lane < count; lane++) {
+                int k = first + lane;
+                counters.recordDepth(bounce);
+                if (accelerator.recordHit(packet, lane, hit)) {
+                    counters.countHit();
+                    addHit(wavefront, hit, rays.directionX[k], rays.directionY[k], rays.directionZ[k], rays.path[k]);
+                }
+            }
+        }
     }
 
+    private void addHit(Wavefront wavefront, HitRecord hit, double dx, double dy, double dz, int path) {
+        wavefront.addHit(hit.getPointX(), hit.getPointY(), hit.getPointZ(), hit.getNormalX(), hit.getNormalY(), hit.getNormalZ(),
+                dx, dy, dz, scene.materialOf(hit.getPrimitive()) * CompiledScene.MATERIAL_STRIDE, path);
+    }
 
     /**
-     * Calcule la couleur directe (Ambiante + Diffuse + Spéculaire)
+     * Étape des ombres : génère les rayons d'ombre de chaque impact vers chaque lumière, puis les trace tous.
      */
-    private Color calculateDirectLighting(Intersection intersection, Ray incidentRay) {
-        Shape hitShape = intersection.getShape();
-        Point p = intersection.getPoint();
-        Vector N = intersection.getNormal();
-
-        Color finalColor = scene.getAmbient().schurProduct(hitShape.getDiffuse());
+    private void shadowStage(TraceContext ctx, Wavefront wavefront) {
+        double[] ray = ctx.getRay();
+        for (int h = 0; h < wavefront.hitCount; h++) {
+            for (int light = 0; light < lightKinds.length; light++) {
+                double maxT = shadowRay(light, wavefront.hitPointX[h], wavefront.hitPointY[h], wavefront.hitPointZ[h], ray);
+                wavefront.addShadowRay(ray[0], ray[1], ray[2], ray[3], ray[4], ray[5], maxT, light);
+            }
+        }
 
-        Vector V = incidentRay.getDirection().multiply(-1.0).normalize();
+        Wavefront.RayQueue shadows = wavefront.shadowRays;
+        for (int k = 0; k < shadows.size; k++) {
+            wavefront.shadowed[k] = isInShadow(ctx, shadows.path[k], shadows.originX[k], shadows.originY[k], shadows.originZ[k],
+                    shadows.directionX[k], shadows.directionY[k], shadows.directionZ[k], wavefront.shadowMaxT[k]);
+        }
+    }
 
-        for (AbstractLight light : scene.getLights()) {
+    /**
+     * Étape d'ombrage : couleur directe de chaque impact, inscrite au journal, et rayons réfléchis du rebond suivant
+     * (seulement si canReflect, c'est-à-dire si la profondeur maximale n'est pas atteinte).
+     */
+    private void shadeStage(TraceContext ctx, Wavefront wavefront, boolean canReflect) {
+        double[] ray = ctx.getRay();
+        Wavefront.RayQueue reflected = wavefront.reflected();
+        for (int h = 0; h < wavefront.hitCount; h++) {
+            double px = wavefront.hitPointX[h], py = wavefront.hitPointY[h], pz = wavefront.hitPointZ[h];
+            double nx = wavefront.hitNormalX[h], ny = wavefront.hitNormalY[h], nz = wavefront.hitNormalZ[h];
+            double dx = wavefront.hitDirectionX[h], dy = wavefront.hitDirectionY[h], dz = wavefront.hitDirectionZ[h];
+            int material = wavefront.hitMaterial[h];
+
+            calculateDirectLighting(ctx, px, py, pz, nx, ny, nz, dx, dy, dz, material, wavefront.shadowed, h * lightKinds.length);
+            boolean reflects = canReflect && reflects(material);
+            wavefront.log(wavefront.hitPath[h], ctx.getRed(), ctx.getGreen(), ctx.getBlue(), material, reflects);
+
+            if (reflects) {
+                reflectionRay(px, py, pz, nx, ny, nz, dx, dy, dz, ray);
+                ctx.getCounters().countReflectionRay();
+                reflected.add(ray[0], ray[1], ray[2], ray[3], ray[4], ray[5], wavefront.hitPath[h]);
+            }
+        }
+    }
 
-            if (isInShadow(p, light)) {
-                continue;
+    /**
+     * Recompose la couleur de chaque chemin en parcourant le journal à rebours : la couleur d'un impact est
+     * sa couleur directe plus, s'il a émis un rayon réfléchi, la couleur (déjà recomposée) de ce rayon pondérée
+     * par la couleur spéculaire, bornée à [0, 1] comme dans shade.
+     */
+    private void resolveWavefront(Wavefront wavefront) {
+        for (int k = wavefront.logSize - 1; k >= 0; k--) {
+            int path = wavefront.logPath[k];
+            double r = wavefront.logRed[k];
+            double g = wavefront.logGreen[k];
+            double b = wavefront.logBlue[k];
+            if (wavefront.logReflects[k]) {
+                int material = wavefront.logMaterial[k];
+                r = r + materials[material + 3] * wavefront.pathRed[path];
+                g = g + materials[material + 4] * wavefront.pathGreen[path];
+                b = b + materials[material + 5] * wavefront.pathBlue[path];
             }
+            wavefront.pathRed[path] = clamp(r);
+            wavefront.pathGreen[path] = clamp(g);
+            wavefront.pathBlue[path] = clamp(b);
+        }
+    }
 
-            Vector L;
-            if (light instanceof DirectionalLight) {
-                L = ((DirectionalLight) light).getDirection().multiply(-1).normalize();
-            } else if (light instanceof PointLight) {
-                Point lightPos = ((PointLight) light).getPosition();
-                L = lightPos.subtract(p).normalize();
-            } else {
-                continue;
+    /**
+     * Trace les rayons primaires des pixels du rectangle [x0, x1[ x [y0, y1[ (lignes comptées depuis le haut)
+     * et leurs rayons d'ombre, et range dans gbuffer l'impact de chacun et l'ombre portée de chaque lumière.
+     * Aucun ombrage n'est calculé : voir relight.
+     */
+    public void captureGBuffer(GBuffer gbuffer, int x0, int y0, int x1, int y1) {
+        TraceContext ctx = contexts.get();
+        RenderCounters counters = ctx.getCounters();
+        HitRecord hit = ctx.getHit();
+        double[] direction = ctx.getDirection();
+        double[] ray = ctx.getRay();
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        int lightCount = lightKinds.length;
+
+        for (int j = y0; j < y1; j++) {
+            for (int i = x0; i < x1; i++) {
+                int pixel = j * width + i;
+                primaryDirection(i, height - 1 - j, direction);
+                counters.countPrimaryRay();
+                counters.recordDepth(1);
+                if (!accelerator.closestHit(lookFromX, lookFromY, lookFromZ, direction[0], direction[1], direction[2],
+                        SHADOW_EPSILON, ctx.getStack(), hit, counters.getIntersections())) {
+                    gbuffer.setMiss(pixel);
+                    continue;
+                }
+                counters.countHit();
+                gbuffer.setHit(pixel, hit, direction[0], direction[1], direction[2]);
+
+                double px = hit.getPointX(), py = hit.getPointY(), pz = hit.getPointZ();
+                for (int light = 0; light < lightCount; light++) {
+                    double maxT = shadowRay(light, px, py, pz, ray);
+                    gbuffer.shadowed[pixel * lightCount + light] = isInShadow(ctx, light, ray[0], ray[1], ray[2], ray[3], ray[4], ray[5], maxT);
+                }
             }
+        }
+    }
 
-            double nDotL = N.dot(L);
-            double lambertFactor = Math.max(nDotL, 0.0);
+    /**
+     * Couleurs ARGB des pixels du rectangle [x0, x1[ x [y0, y1[ recalculées depuis gbuffer, capturé sur une scène
+     * de même géométrie, caméra et position des lumières (voir GBuffer.checkCompatible) : seuls l'ombrage de
+     * Blinn-Phong et, pour les surfaces réfléchissantes, les rebonds suivants sont évalués, avec les matériaux,
+     * l'ambiance et les couleurs de lumière de la scène de ce moteur. Sans modification, le résultat est
+     * identique, pixel par pixel, à getPixelRGB. Le pixel (x0, y0) est écrit en rgb[offset], deux lignes espacées
+     * de scanline.
+     */
+    public void relight(GBuffer gbuffer, int x0, int y0, int x1, int y1, int[] rgb, int offset, int scanline) {
+        TraceContext ctx = contexts.get();
+        int width = scene.getWidth();
+        int lightCount = lightKinds.length;
+
+        for (int j = y0; j < y1; j++) {
+            for (int i = x0; i < x1; i++) {
+                int pixel = j * width + i;
+                int ref = gbuffer.primitive[pixel];
+                if (ref < 0) {
+                    ctx.setColor(0, 0, 0);
+                } else {
+                    // Point d'impact recalculé comme lors du tracé (origine + t * direction).
+                    double t = gbuffer.t[pixel];
+                    double dx = gbuffer.directionX[pixel], dy = gbuffer.directionY[pixel], dz = gbuffer.directionZ[pixel];
+                    shade(ctx, lookFromX + dx * t, lookFromY + dy * t, lookFromZ + dz * t,
+                            gbuffer.normalX[pixel], gbuffer.normalY[pixel], gbuffer.normalZ[pixel], dx, dy, dz,
+                            scene.materialOf(ref) * CompiledScene.MATERIAL_STRIDE, gbuffer.shadowed, pixel * lightCount, maxDepth);
+                }
+                rgb[offset + (j - y0) * scanline + (i - x0)] = Color.toRGB(ctx.getRed(), ctx.getGreen(), ctx.getBlue());
+            }
+        }
+    }
 
-            Color diffuseLightComponent = light.getColor()
-                    .multiply(lambertFactor)
-                    .schurProduct(hitShape.getDiffuse());
+    /**
+     * Calcule le rayon primaire passant par le centre du pixel (i, j) et trace sa couleur dans le contexte du thread.
+     */
+    private TraceContext tracePixel(int i, int j) {
+        TraceContext ctx = contexts.get();
+        double[] direction = ctx.getDirection();
+        primaryDirection(i, j, direction);
+        ctx.getCounters().countPrimaryRay();
+        computeColor(ctx, lookFromX, lookFromY, lookFromZ, direction[0], direction[1], direction[2], maxDepth);
+        return ctx;
+    }
 
-            finalColor = finalColor.add(diffuseLightComponent);
+    /**
+     * Direction unitaire du rayon primaire passant par le centre du pixel (i, j), écrite dans out.
+     */
+    private void primaryDirection(int i, int j, double[] out) {
+        primaryDirection(i, j, 0.5, 0.5, out);
+    }
 
-            if (lambertFactor > 0.0) {
+    /**
+     * Direction unitaire du rayon primaire passant par le point (offsetX, offsetY) du pixel (i, j), écrite dans out.
+     */
+    private void primaryDirection(int i, int j, double offsetX, double offsetY, double[] out) {
+        double a = pixelWidth * (i - halfWidth + offsetX) / halfWidth;
+        double b = pixelHeight * (j - halfHeight + offsetY) / halfHeight;
+
+        double dx = uX * a + vX * b - wX;
+        double dy = uY * a + vY * b - wY;
+        double dz = uZ * a + vZ * b - wZ;
+        double len = length(dx, dy, dz);
+        if (len != 0.0) {
+            dx /= len;
+            dy /= len;
+            dz /= len;
+        }
 
-                Vector H = L.add(V).normalize();
+        out[0] = dx;
+        out[1] = dy;
+        out[2] = dz;
+    }
 
-                double nDotH = N.dot(H);
-                double specularFactor = Math.max(nDotH, 0.0);
 
-                double shininess = hitShape.getShininess();
-                double phongPower = Math.pow(specularFactor, shininess);
+    /**
+     * JALON 6 BONUS: Calcule la couleur d'un point, incluant la lumière directe et indirecte (réflexion).
+     * Le rayon est donné par son origine o et sa direction unitaire d ; le résultat est écrit dans ctx.
+     * @param depth La profondeur de récursion restante.
+     */
+    private void computeColor(TraceContext ctx, double ox, double oy, double oz, double dx, double dy, double dz, int depth) {
+        RenderCounters counters = ctx.getCounters();
+        counters.recordDepth(maxDepth - depth + 1);
+        if (!accelerator.closestHit(ox, oy, oz, dx, dy, dz, SHADOW_EPSILON, ctx.getStack(), ctx.getHit(), counters.getIntersections())) {
+            ctx.setColor(0, 0, 0);
+            return;
+        }
+        counters.countHit();
+        shade(ctx, dx, dy, dz, depth);
+    }
 
-                Color specularLightComponent = light.getColor()
-                        .multiply(phongPower)
-                        .schurProduct(hitShape.getSpecular());
+    /**
+     * Couleur au point d'impact enregistré dans ctx.getHit() pour un rayon de direction d.
+     */
+    private void shade(TraceContext ctx, double dx, double dy, double dz, int depth) {
+        HitRecord hit = ctx.getHit();
+
+        // Les données de l'impact sont copiées : l'enregistrement est réutilisé par la récursion.
+        double px = hit.getPointX(), py = hit.getPointY(), pz = hit.getPointZ();
+        double nx = hit.getNormalX(), ny = hit.getNormalY(), nz = hit.getNormalZ();
+        int material = scene.materialOf(hit.getPrimitive()) * CompiledScene.MATERIAL_STRIDE;
+
+        boolean[] shadowed = ctx.getShadowed();
+        double[] ray = ctx.getRay();
+        for (int light = 0; light < lightKinds.length; light++) {
+            double maxT = shadowRay(light, px, py, pz, ray);
+            shadowed[light] = isInShadow(ctx, light, ray[0], ray[1], ray[2], ray[3], ray[4], ray[5], maxT);
+        }
+        shade(ctx, px, py, pz, nx, ny, nz, dx, dy, dz, material, shadowed, 0, depth);
+    }
 
-                finalColor = finalColor.add(specularLightComponent);
-            }
+    /**
+     * Couleur au point p de normale n pour un rayon de direction d, l'ombre portée de chaque lumière étant connue :
+     * lumière directe, puis réflexion tant que la profondeur le permet.
+     * @param material Position du matériau de la surface dans la table des matériaux.
+     * @param shadowed Ombre portée par lumière, à partir de shadowedOffset (une entrée par lumière).
+     */
+    private void shade(TraceContext ctx, double px, double py, double pz, double nx, double ny, double nz,
+                       double dx, double dy, double dz, int material, boolean[] shadowed, int shadowedOffset, int depth) {
+        calculateDirectLighting(ctx, px, py, pz, nx, ny, nz, dx, dy, dz, material, shadowed, shadowedOffset);
+        double r = ctx.getRed();
+        double g = ctx.getGreen();
+        double b = ctx.getBlue();
+
+        if (depth > 1 && reflects(material)) {
+            double[] ray = ctx.getRay();
+            reflectionRay(px, py, pz, nx, ny, nz, dx, dy, dz, ray);
+            ctx.getCounters().countReflectionRay();
+            computeColor(ctx, ray[0], ray[1], ray[2], ray[3], ray[4], ray[5], depth - 1);
+
+            r = r + materials[material + 3] * ctx.getRed();
+            g = g + materials[material + 4] * ctx.getGreen();
+            b = b + materials[material + 5] * ctx.getBlue();
         }
 
-        return finalColor;
+        ctx.setColor(clamp(r), clamp(g), clamp(b));
     }
 
-    private Ray calculateRay(int i, int j) {
-        double halfWidth = scene.getWidth() / 2.0;
-        double halfHeight = scene.getHeight() / 2.0;
+    /**
+     * Indique si la surface du matériau (position dans la table) émet un rayon réfléchi.
+     */
+    private boolean reflects(int material) {
+        return reflects(materials, material);
+    }
 
-        double a = pixelWidth * (i - halfWidth + 0.5) / halfWidth;
-        double b = pixelHeight * (j - halfHeight + 0.5) / halfHeight;
+    /**
+     * Indique si la surface du matériau (position dans la table materials) émet un rayon réfléchi.
+     */
+    static boolean reflects(double[] materials, int material) {
+        return materials[material + 3] > SHADOW_EPSILON;
+    }
 
-        Vector u = basis.getU();
-        Vector v = basis.getV();
-        Vector w = basis.getW();
+    /**
+     * Rayon réfléchi en p pour un rayon incident de direction d : R = D + 2 * (N . (-D)) * N, origine décalée
+     * le long de R. L'origine puis la direction unitaire sont écrites dans ray.
+     */
+    private static void reflectionRay(double px, double py, double pz, double nx, double ny, double nz,
+                                      double dx, double dy, double dz, double[] ray) {
+        double dotProduct = nx * -dx + ny * -dy + nz * -dz;
+        double scale = 2.0 * dotProduct;
+        double rx = dx + nx * scale;
+        double ry = dy + ny * scale;
+        double rz = dz + nz * scale;
+        double len = length(rx, ry, rz);
+        if (len != 0.0) {
+            rx /= len;
+            ry /= len;
+            rz /= len;
+        }
 
-        Vector directionUnnormalized = u.multiply(a).add(v.multiply(b)).subtract(w);
+        ray[0] = px + rx * RAY_BIAS;
+        ray[1] = py + ry * RAY_BIAS;
+        ray[2] = pz + rz * RAY_BIAS;
 
-        return new Ray(lookFrom, directionUnnormalized);
+        len = length(rx, ry, rz);
+        if (len != 0.0) {
+            rx /= len;
+            ry /= len;
+            rz /= len;
+        }
+        ray[3] = rx;
+        ray[4] = ry;
+        ray[5] = rz;
     }
 
-    private Optional<Intersection> findClosestIntersection(Ray ray) {
-        Optional<Intersection> closest = Optional.empty();
-        double minT = Double.MAX_VALUE;
+    /**
+     * Calcule la couleur directe (Ambiante + Diffuse + Spéculaire) et l'écrit dans ctx.
+     * @param material Position du matériau de la surface dans la table des matériaux.
+     * @param shadowed Ombre portée par lumière, à partir de shadowedOffset (une entrée par lumière).
+     */
+    private void calculateDirectLighting(TraceContext ctx, double px, double py, double pz,
+                                         double nx, double ny, double nz, double dx, double dy, double dz,
+                                         int material, boolean[] shadowed, int shadowedOffset) {
+        double diffuseR = materials[material], diffuseG = materials[material + 1], diffuseB = materials[material + 2];
+        double specularR = materials[material + 3], specularG = materials[material + 4], specularB = materials[material + 5];
+        double shininess = materials[material + 6];
+
+        double r = ambientR * diffuseR;
+        double g = ambientG * diffuseG;
+        double b = ambientB * diffuseB;
+
+        double viewX = dx * -1.0, viewY = dy * -1.0, viewZ = dz * -1.0;
+        double viewLen = length(viewX, viewY, viewZ);
+        if (viewLen != 0.0) {
+            viewX /= viewLen;
+            viewY /= viewLen;
+            viewZ /= viewLen;
+        }
 
-        for (Shape shape : scene.getShapes()) {
-            Optional<Intersection> current = shape.intersect(ray);
+        for (int index = 0; index < lightKinds.length; index++) {
+            if (shadowed[shadowedOffset + index]) {
+                continue;
+            }
 
-            if (current.isPresent()) {
-                Intersection intersection = current.get();
-                if (intersection.getT() > SHADOW_EPSILON && intersection.getT() < minT) {
-                    minT = intersection.getT();
-                    closest = current;
+            double lx, ly, lz;
+            if (lightKinds[index] == CompiledScene.DIRECTIONAL) {
+                // Direction déjà inversée et normalisée à la compilation.
+                lx = lightData[index * 3];
+                ly = lightData[index * 3 + 1];
+                lz = lightData[index * 3 + 2];
+            } else {
+                lx = lightData[index * 3] - px;
+                ly = lightData[index * 3 + 1] - py;
+                lz = lightData[index * 3 + 2] - pz;
+                double len = length(lx, ly, lz);
+                if (len != 0.0) {
+                    lx /= len;
+                    ly /= len;
+                    lz /= len;
                 }
             }
+
+            double nDotL = nx * lx + ny * ly + nz * lz;
+            double lambertFactor = Math.max(nDotL, 0.0);
+
+            double lightR = lightColors[index * 3], lightG = lightColors[index * 3 + 1], lightB = lightColors[index * 3 + 2];
+            r = r + lightR * lambertFactor * diffuseR;
+            g = g + lightG * lambertFactor * diffuseG;
+            b = b + lightB * lambertFactor * diffuseB;
+
+            if (lambertFactor > 0.0) {
+
+                double hx = lx + viewX, hy = ly + viewY, hz = lz + viewZ;
+                double hLen = length(hx, hy, hz);
+                if (hLen != 0.0) {
+                    hx /= hLen;
+                    hy /= hLen;
+                    hz /= hLen;
+                }
+
+                double nDotH = nx * hx + ny * hy + nz * hz;
+                double specularFactor = Math.max(nDotH, 0.0);
+
+                double phongPower = Math.pow(specularFactor, shininess);
+
+                r = r + lightR * phongPower * specularR;
+                g = g + lightG * phongPower * specularG;
+                b = b + lightB * phongPower * specularB;
+            }
         }
-        return closest;
+
+        ctx.setColor(r, g, b);
     }
 
-    private boolean isInShadow(Point p, AbstractLight light) {
-        Vector L;
+    /**
+     * Rayon d'ombre depuis p vers la lumière de rang light : origine décalée de SHADOW_EPSILON puis direction
+     * unitaire, écrites dans ray.
+     * @return La distance de la lumière (Double.MAX_VALUE pour une lumière directionnelle).
+     */
+    private double shadowRay(int light, double px, double py, double pz, double[] ray) {
+        double lx, ly, lz;
         double maxT;
-
-        if (light instanceof DirectionalLight) {
-            L = ((DirectionalLight) light).getDirection().multiply(-1).normalize();
+        if (lightKinds[light] == CompiledScene.DIRECTIONAL) {
+            lx = lightData[light * 3];
+            ly = lightData[light * 3 + 1];
+            lz = lightData[light * 3 + 2];
             maxT = Double.MAX_VALUE;
-        } else if (light instanceof PointLight) {
-            Point lightPos = ((PointLight) light).getPosition();
-            Vector shadowVec = lightPos.subtract(p);
-            maxT = shadowVec.length();
-            L = shadowVec.normalize();
         } else {
-            return false;
+            lx = lightData[light * 3] - px;
+            ly = lightData[light * 3 + 1] - py;
+            lz = lightData[light * 3 + 2] - pz;
+            maxT = length(lx, ly, lz);
+            if (maxT != 0.0) {
+                lx /= maxT;
+                ly /= maxT;
+                lz /= maxT;
+            }
         }
 
-        Ray shadowRay = new Ray(p.add(L.scale(SHADOW_EPSILON)), L);
+        ray[0] = px + lx * SHADOW_EPSILON;
+        ray[1] = py + ly * SHADOW_EPSILON;
+        ray[2] = pz + lz * SHADOW_EPSILON;
 
-        for (Shape shape : scene.getShapes()) {
-            Optional<Intersection> current = shape.intersect(shadowRay);
+        double len = length(lx, ly, lz);
+        if (len != 0.0) {
+            lx /= len;
+            ly /= len;
+            lz /= len;
+        }
+        ray[3] = lx;
+        ray[4] = ly;
+        ray[5] = lz;
+        return maxT;
+    }
 
-            if (current.isPresent()) {
-                double t = current.get().getT();
+    /**
+     * Trace le rayon d'ombre (voir shadowRay) de la lumière de rang light jusqu'à maxT.
+     * Le dernier obstacle trouvé pour cette lumière par le thread est testé avant la structure d'accélération ; la réponse est la même.
+     */
+    private boolean isInShadow(TraceContext ctx, int light, double originX, double originY, double originZ,
+                               double dx, double dy, double dz, double maxT) {
+        RenderCounters counters = ctx.getCounters();
+        counters.countShadowRay();
+
+        int[] occluders = ctx.getOccluders();
+        int cached = occluders[light];
+        if (cached >= 0 && accelerator.occludes(cached, originX, originY, originZ, dx, dy, dz, 0.0, maxT, counters.getIntersections())) {
+            counters.countOccluderCacheHit();
+            return true;
+        }
 
-                if (t > 0 && t < maxT) {
-                    return true;
-                }
-            }
+        int occluder = accelerator.findOccluder(originX, originY, originZ, dx, dy, dz, 0.0, maxT, ctx.getStack(), counters.getIntersections());
+        if (occluder < 0) {
+            // Point éclairé : l'obstacle précédent reste le meilleur candidat pour les pixels suivants.
+            return false;
         }
-        return false;
+        occluders[light] = occluder;
+        return true;
+    }
+
+    private static double length(double x, double y, double z) {
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0.0, Math.min(1.0, value));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+package raytracer.trace;
+
+import raytracer.accel.IntersectionCounters;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Compteurs d'un thread de rendu : rayons tracés par catégorie, impacts, profondeur de récursion atteinte,
+ * tests d'intersection et mémoire allouée. Ils ne sont écrits que par leur thread, sans synchronisation ;
+ * RenderStats les lit une fois le rendu terminé.
+ */
+final class RenderCounters {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String threadName;
+    private final IntersectionCounters intersections = new IntersectionCounters();
+    private final long allocationBaseline;
+
+    private long primaryRays;
+    private long shadowRays;
+    private long reflectionRays;
+    private long hits;
+    private long occluderCacheHits;
+    private int maxDepth;
+    private long allocatedBytes;
+
+    /**
+     * Compteurs du thread courant, dont la mémoire allouée est mesurée à partir de maintenant.
+     */
+    RenderCounters() {
+        this.threadName = Thread.currentThread().getName();
+        this.allocationBaseline = currentThreadAllocatedBytes();
+    }
+
+    /**
+     * Octets alloués par le thread courant depuis son démarrage, -1 si la JVM ne les mesure pas.
+     */
+    private static long currentThreadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    void countPrimaryRay() {
+        primaryRays++;
+    }
+
+    void countShadowRay() {
+        shadowRays++;
+    }
+
+    void countReflectionRay() {
+        reflectionRays++;
+    }
+
+    void countHit() {
+        hits++;
+    }
+
+    void countOccluderCacheHit() {
+        occluderCacheHits++;
+    }
+
+    /**
+     * Enregistre un rayon tracé au niveau depth de la récursion (1 pour un rayon primaire).
+     */
+    void recordDepth(int depth) {
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    /**
+     * Relève la mémoire allouée par le thread depuis la création des compteurs. Doit être appelé par ce thread.
+     */
+    void sampleAllocatedBytes() {
+        if (allocationBaseline >= 0) {
+            allocatedBytes = currentThreadAllocatedBytes() - allocationBaseline;
+        }
+    }
+
+    /**
+     * Ajoute les compteurs other, relevés par un autre thread, à ceux-ci. Les deux threads doivent avoir terminé.
+     */
+    void add(RenderCounters other) {
+        intersections.add(other.intersections);
+        primaryRays += other.primaryRays;
+        shadowRays += other.shadowRays;
+        reflectionRays += other.reflectionRays;
+        hits += other.hits;
+        occluderCacheHits += other.occluderCacheHits;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        allocatedBytes += other.allocatedBytes;
+    }
+
+    IntersectionCounters getIntersections() {
+        return intersections;
+    }
+
+    String getThreadName() {
+        return threadName;
+    }
+
+    long getPrimaryRays() {
+        return primaryRays;
+    }
+
+    long getShadowRays() {
+        return shadowRays;
+    }
+
+    long getReflectionRays() {
+        return reflectionRays;
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getOccluderCacheHits() {
+        return occluderCacheHits;
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
@@ -0,0 +1,239 @@
+package raytracer.trace;
+
+import raytracer.accel.IntersectionCounters;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Statistiques d'un rendu : durée des phases (lecture, construction ou réajustement de la BVH, rendu, encodage,
+ * lecture ou écriture du G-buffer et ré-éclairage),
+ * informations générales et compteurs de chaque thread de rendu, totalisés à la demande.
+ * Le rapport JSON (toJson) est écrit à côté de l'image pour suivre le débit d'une scène dans le temps.
+ */
+public final class RenderStats {
+    public static final String PARSE = "parse";
+    public static final String BUILD = "build";
+    public static final String REFIT = "refit";
+    public static final String RENDER = "render";
+    public static final String ENCODE = "encode";
+    public static final String GBUFFER = "gbuffer";
+    public static final String RELIGHT = "relight";
+
+    private final Map<String, Object> info = new LinkedHashMap<>();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final List<RenderCounters> threads = new ArrayList<>();
+
+    /**
+     * Ajoute une information générale au rapport (chaîne ou nombre), remplaçant la valeur précédente.
+     */
+    public synchronized void putInfo(String key, Object value) {
+        info.put(key, value);
+    }
+
+    /**
+     * Ajoute nanos à la durée de la phase name.
+     */
+    public synchronized void recordPhase(String name, long nanos) {
+        phaseNanos.merge(name, nanos, Long::sum);
+    }
+
+    /**
+     * @return Durée cumulée de la phase name en nanosecondes, 0 si elle n'a pas été mesurée.
+     */
+    public synchronized long getPhaseNanos(String name) {
+        return phaseNanos.getOrDefault(name, 0L);
+    }
+
+    /**
+     * Crée les compteurs du thread courant.
+     */
+    synchronized RenderCounters newThreadCounters() {
+        RenderCounters counters = new RenderCounters();
+        threads.add(counters);
+        return counters;
+    }
+
+    /**
+     * Cumule les compteurs de frame, rendu terminé, dans ceux de ce rendu : le i-ème thread de frame est ajouté au
+     * i-ème thread déjà connu. Une séquence rendue par un nouveau pool à chaque image garde ainsi une entrée par
+     * thread de rendu, et non une par thread et par image.
+     */
+    synchronized void mergeThreads(RenderStats frame) {
+        List<RenderCounters> frameThreads = frame.threads();
+        for (int i = 0; i < frameThreads.size(); i++) {
+            if (i < threads.size()) {
+                threads.get(i).add(frameThreads.get(i));
+            } else {
+                threads.add(frameThreads.get(i));
+            }
+        }
+    }
+
+    private synchronized List<RenderCounters> threads() {
+        return new ArrayList<>(threads);
+    }
+
+    public int getThreadCount() {
+        return threads().size();
+    }
+
+    public long getPrimaryRays() {
+        return threads().stream().mapToLong(RenderCounters::getPrimaryRays).sum();
+    }
+
+    public long getShadowRays() {
+        return threads().stream().mapToLong(RenderCounters::getShadowRays).sum();
+    }
+
+    public long getReflectionRays() {
+        return threads().stream().mapToLong(RenderCounters::getReflectionRays).sum();
+    }
+
+    public long getTotalRays() {
+        return getPrimaryRays() + getShadowRays() + getReflectionRays();
+    }
+
+    /**
+     * @return Nombre de rayons primaires ou réfléchis ayant touché une forme.
+     */
+    public long getHits() {
+        return threads().stream().mapToLong(RenderCounters::getHits).sum();
+    }
+
+    /**
+     * @return Nombre de rayons d'ombre arrêtés par le dernier obstacle de leur lumière, sans parcours de la BVH.
+     */
+    public long getOccluderCacheHits() {
+        return threads().stream().mapToLong(RenderCounters::getOccluderCacheHits).sum();
+    }
+
+    /**
+     * @return Part des rayons d'ombre résolus par le cache d'obstacles, entre 0 et 1.
+     */
+    public double getOccluderCacheHitRate() {
+        long shadowRays = getShadowRays();
+        return shadowRays == 0 ? 0.0 : (double) getOccluderCacheHits() / shadowRays;
+    }
+
+    /**
+     * @return Profondeur de récursion maximale atteinte (1 si aucun rayon réfléchi n'a été tracé).
+     */
+    public int getMaxDepth() {
+        return threads().stream().mapToInt(RenderCounters::getMaxDepth).max().orElse(0);
+    }
+
+    public long getAllocatedBytes() {
+        return threads().stream().mapToLong(RenderCounters::getAllocatedBytes).sum();
+    }
+
+    /**
+     * @return Les tests d'intersection de tous les threads.
+     */
+    public IntersectionCounters getIntersections() {
+        IntersectionCounters total = new IntersectionCounters();
+        for (RenderCounters counters : threads()) {
+            total.add(counters.getIntersections());
+        }
+        return total;
+    }
+
+    /**
+     * Fichier du rapport associé à une image : même nom, extension .stats.json.
+     */
+    public static Path reportFile(String output) {
+        int dot = output.lastIndexOf('.');
+        int separator = Math.max(output.lastIndexOf('/'), output.lastIndexOf('\\'));
+        String base = dot > separator ? output.substring(0, dot) : output;
+        return Paths.get(base + ".stats.json");
+    }
+
+    public void writeJson(Path file) throws IOException {
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String toJson() {
+        List<RenderCounters> counters = threads();
+        IntersectionCounters intersections = getIntersections();
+        long renderNanos = getPhaseNanos(RENDER);
+
+        StringBuilder json = new StringBuilder("{\n");
+        synchronized (this) {
+            for (Map.Entry<String, Object> entry : info.entrySet()) {
+                json.append("  ").append(quote(entry.getKey())).append(": ").append(value(entry.getValue())).append(",\n");
+            }
+            json.append("  \"phasesMs\": {");
+            String separator = "";
+            for (Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+                json.append(separator).append(quote(entry.getKey())).append(": ").append(millis(entry.getValue()));
+                separator = ", ";
+            }
+            json.append("},\n");
+        }
+
+        json.append("  \"rays\": {\"primary\": ").append(getPrimaryRays())
+                .append(", \"shadow\": ").append(getShadowRays())
+                .append(", \"reflection\": ").append(getReflectionRays())
+                .append(", \"total\": ").append(getTotalRays()).append("},\n");
+        json.append("  \"raysPerSecond\": ").append(renderNanos > 0 ? Math.round(getTotalRays() * 1e9 / renderNanos) : 0).append(",\n");
+        json.append("  \"hits\": ").append(getHits()).append(",\n");
+        json.append("  \"occluderCache\": {\"hits\": ").append(getOccluderCacheHits())
+                .append(", \"hitRate\": ").append(String.format(Locale.ROOT, "%.4f", getOccluderCacheHitRate())).append("},\n");
+        json.append("  \"maxDepth\": ").append(getMaxDepth()).append(",\n");
+        json.append("  \"intersectionTests\": {");
+        for (int kind = 0; kind < IntersectionCounters.KIND_COUNT; kind++) {
+            json.append(quote(IntersectionCounters.getKindName(kind))).append(": ").append(intersections.getTests(kind)).append(", ");
+        }
+        json.append("\"total\": ").append(intersections.getTotalTests()).append("},\n");
+        json.append("  \"nodeVisits\": ").append(intersections.getNodeVisits()).append(",\n");
+        json.append("  \"allocatedBytes\": ").append(getAllocatedBytes()).append(",\n");
+
+        json.append("  \"threads\": [");
+        for (int i = 0; i < counters.size(); i++) {
+            RenderCounters thread = counters.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"name\": ").append(quote(thread.getThreadName()))
+                    .append(", \"primaryRays\": ").append(thread.getPrimaryRays())
+                    .append(", \"shadowRays\": ").append(thread.getShadowRays())
+                    .append(", \"reflectionRays\": ").append(thread.getReflectionRays())
+                    .append(", \"occluderCacheHits\": ").append(thread.getOccluderCacheHits())
+                    .append(", \"intersectionTests\": ").append(thread.getIntersections().getTotalTests())
+                    .append(", \"allocatedBytes\": ").append(thread.getAllocatedBytes()).append('}');
+        }
+        json.append(counters.isEmpty() ? "]\n" : "\n  ]\n");
+        return json.append("}\n").toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String value(Object value) {
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return quote(String.valueOf(value));
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
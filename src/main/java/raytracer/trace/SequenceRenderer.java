@@ -0,0 +1,140 @@
+package raytracer.trace;
+
+import raytracer.accel.BVH;
+import raytracer.geometry.Shape;
+import raytracer.scene.Animation;
+import raytracer.scene.Camera;
+import raytracer.scene.CompiledScene;
+import raytracer.scene.Scene;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Rendu d'une séquence d'images dans un seul processus : la scène est lue, compilée et sa hiérarchie construite
+ * une seule fois. Pour chaque image, la caméra est interpolée et, si des formes se déplacent, la hiérarchie
+ * est réajustée (BVH.refit) plutôt que reconstruite. La structure est donc toujours une BVH, seule réajustable :
+ * la directive accel de la scène est ignorée. L'encodage d'une image se fait sur un thread dédié
+ * pendant le calcul de la suivante.
+ */
+public class SequenceRenderer {
+
+    /**
+     * Reçoit chaque image calculée, sur le thread d'encodage, dans l'ordre de la séquence.
+     */
+    public interface FrameWriter {
+        void write(int frame, BufferedImage image) throws IOException;
+    }
+
+    private final ImageRenderer renderer;
+
+    /**
+     * @param renderer Rendu de chaque image (threads, tuiles, paquets, anticrénelage).
+     */
+    public SequenceRenderer(ImageRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Rend toutes les images et les écrit aux noms donnés par animation.outputFor.
+     */
+    public void render(Scene scene, Animation animation, RenderStats stats) throws IOException {
+        System.out.println("Rendu de " + animation.getFrameCount() + " image(s) " + scene.getWidth() + "x" + scene.getHeight()
+                + (animation.hasTransforms() ? ", " + animation.getMovingShapes().size() + " forme(s) animée(s)" : "") + "...");
+        render(scene, animation, stats, (frame, image) -> {
+            String output = animation.outputFor(frame, scene.getOutput());
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output))) {
+                renderer.writePng(image, out);
+            }
+            System.out.println("Image " + frame + " sauvegardée sous : " + output);
+        });
+    }
+
+    /**
+     * Rend toutes les images et les confie à writer. Au plus une image attend son écriture pendant
+     * le calcul de la suivante : la mémoire reste bornée à deux images.
+     * @throws IllegalArgumentException si l'animation déplace une forme absente de la scène ou qui ne peut pas être déplacée.
+     * @throws IOException si l'écriture d'une image échoue.
+     */
+    public void render(Scene scene, Animation animation, RenderStats stats, FrameWriter writer) throws IOException {
+        long start = System.nanoTime();
+        CompiledScene base = CompiledScene.compile(scene);
+        List<Shape> baseShapes = base.getShapes();
+        for (int shape : animation.getMovingShapes()) {
+            if (shape >= baseShapes.size()) {
+                throw new IllegalArgumentException("L'animation déplace la forme " + shape + ", la scène n'en compte que " + baseShapes.size() + ".");
+            }
+        }
+        BVH baseBvh = new BVH(baseShapes, base.getMesh());
+        stats.recordPhase(RenderStats.BUILD, System.nanoTime() - start);
+        stats.putInfo("frames", animation.getFrameCount());
+
+        ExecutorService encoder = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "sequence-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?> pending = null;
+            for (int frame = 0; frame < animation.getFrameCount(); frame++) {
+                Camera camera = animation.cameraAt(frame, scene.getCamera());
+                List<Shape> shapes = baseShapes;
+                BVH bvh = baseBvh;
+                if (animation.hasTransforms()) {
+                    start = System.nanoTime();
+                    // Les déplacements sont relatifs à la position de la scène, pas à l'image précédente.
+                    shapes = new ArrayList<>(baseShapes);
+                    for (int shape : animation.getMovingShapes()) {
+                        shapes.set(shape, baseShapes.get(shape).translate(animation.translationAt(shape, frame)));
+                    }
+                    bvh = baseBvh.refit(shapes);
+                    stats.recordPhase(RenderStats.REFIT, System.nanoTime() - start);
+                }
+
+                // Chaque image a ses propres threads : leurs compteurs sont cumulés par thread dans stats.
+                RenderStats frameStats = new RenderStats();
+                RayTracer rayTracer = new RayTracer(base.withFrame(camera, shapes), bvh, frameStats);
+                BufferedImage image = renderer.renderImage(rayTracer, stats);
+                stats.mergeThreads(frameStats);
+
+                await(pending);
+                int number = frame;
+                pending = encoder.submit(() -> {
+                    long encodeStart = System.nanoTime();
+                    writer.write(number, image);
+                    stats.recordPhase(RenderStats.ENCODE, System.nanoTime() - encodeStart);
+                    return null;
+                });
+            }
+            await(pending);
+        } finally {
+            encoder.shutdownNow();
+        }
+    }
+
+    private static void await(Future<?> pending) throws IOException {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IllegalStateException("Échec de l'écriture d'une image.", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Rendu de la séquence interrompu.", e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package raytracer.trace;
+
+import raytracer.accel.RayPacket;
+import java.util.Arrays;
+
+/**
+ * État de tracé propre à un thread de rendu : enregistrement d'impact, pile de parcours de la BVH,
+ * paquet de rayons primaires, accumulateur de couleur et compteurs, alloués une seule fois puis réutilisés
+ * pour chaque rayon. Les tampons du rendu en front d'onde ne sont alloués qu'à leur première utilisation.
+ */
+final class TraceContext {
+    private final HitRecord hit = new HitRecord();
+    private final int[] stack;
+    private final double[] direction = new double[3];
+    private final double[] ray = new double[6];
+    private final RayPacket packet = new RayPacket();
+    private final RenderCounters counters;
+    // Dernier obstacle trouvé pour chaque lumière (référence BVH, -1 si aucun) : les rayons d'ombre
+    // de pixels voisins sont en général arrêtés par la même primitive.
+    private final int[] occluders;
+    private final boolean[] shadowed;
+    private Wavefront wavefront;
+
+    private double red;
+    private double green;
+    private double blue;
+
+    TraceContext(int stackSize, int lightCount, RenderCounters counters) {
+        this.stack = new int[stackSize];
+        this.counters = counters;
+        this.occluders = new int[lightCount];
+        Arrays.fill(occluders, -1);
+        this.shadowed = new boolean[lightCount];
+    }
+
+    HitRecord getHit() {
+        return hit;
+    }
+
+    int[] getStack() {
+        return stack;
+    }
+
+    /**
+     * Direction du dernier rayon primaire calculé.
+     */
+    double[] getDirection() {
+        return direction;
+    }
+
+    /**
+     * Rayon de travail (origine puis direction) : rayon d'ombre ou réfléchi en cours de construction.
+     */
+    double[] getRay() {
+        return ray;
+    }
+
+    RayPacket getPacket() {
+        return packet;
+    }
+
+    RenderCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Cache des derniers obstacles, indexé par le rang de la lumière dans la scène.
+     */
+    int[] getOccluders() {
+        return occluders;
+    }
+
+    /**
+     * Ombre portée sur le point en cours d'ombrage, par rang de lumière.
+     */
+    boolean[] getShadowed() {
+        return shadowed;
+    }
+
+    Wavefront getWavefront() {
+        if (wavefront == null) {
+            wavefront = new Wavefront();
+        }
+        return wavefront;
+    }
+
+    /**
+     * Couleur résultat du dernier appel à computeColor.
+     */
+    void setColor(double red, double green, double blue) {
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+    }
+
+    double getRed() {
+        return red;
+    }
+
+    double getGreen() {
+        return green;
+    }
+
+    double getBlue() {
+        return blue;
+    }
+}
@@ -0,0 +1,200 @@
+package raytracer.trace;
+
+import java.util.Arrays;
+
+/**
+ * Tampons d'un rendu en front d'onde (voir RayTracer.traceWavefront), propres à un thread et réutilisés d'une
+ * région à l'autre. Chaque étape lit et écrit des tableaux par composante (structure de tableaux) :
+ * file des rayons du rebond courant, impacts trouvés, rayons d'ombre de ces impacts, file des rayons réfléchis.
+ * Seuls les rayons encore vivants passent d'un rebond au suivant.
+ * Le journal garde, pour chaque impact de chaque rebond, la couleur directe et le matériau : la couleur d'un
+ * pixel se recompose ensuite du dernier rebond au premier, dans l'ordre des calculs du tracé récursif.
+ * Les tableaux grandissent à la demande : la profondeur des rebonds n'est bornée que par la mémoire.
+ */
+final class Wavefront {
+
+    /**
+     * File de rayons d'un rebond : origine, direction unitaire et pixel (chemin) d'origine.
+     */
+    static final class RayQueue {
+        double[] originX = new double[0];
+        double[] originY = new double[0];
+        double[] originZ = new double[0];
+        double[] directionX = new double[0];
+        double[] directionY = new double[0];
+        double[] directionZ = new double[0];
+        int[] path = new int[0];
+        int size;
+
+        void add(double ox, double oy, double oz, double dx, double dy, double dz, int pathIndex) {
+            if (size == path.length) {
+                int capacity = grow(size);
+                originX = Arrays.copyOf(originX, capacity);
+                originY = Arrays.copyOf(originY, capacity);
+                originZ = Arrays.copyOf(originZ, capacity);
+                directionX = Arrays.copyOf(directionX, capacity);
+                directionY = Arrays.copyOf(directionY, capacity);
+                directionZ = Arrays.copyOf(directionZ, capacity);
+                path = Arrays.copyOf(path, capacity);
+            }
+            originX[size] = ox;
+            originY[size] = oy;
+            originZ[size] = oz;
+            directionX[size] = dx;
+            directionY[size] = dy;
+            directionZ[size] = dz;
+            path[size] = pathIndex;
+            size++;
+        }
+    }
+
+    private RayQueue rays = new RayQueue();
+    private RayQueue reflected = new RayQueue();
+
+    // Impacts du rebond courant : point, normale, direction du rayon, matériau (position dans la table) et chemin.
+    double[] hitPointX = new double[0];
+    double[] hitPointY = new double[0];
+    double[] hitPointZ = new double[0];
+    double[] hitNormalX = new double[0];
+    double[] hitNormalY = new double[0];
+    double[] hitNormalZ = new double[0];
+    double[] hitDirectionX = new double[0];
+    double[] hitDirectionY = new double[0];
+    double[] hitDirectionZ = new double[0];
+    int[] hitMaterial = new int[0];
+    int[] hitPath = new int[0];
+    int hitCount;
+
+    // Rayons d'ombre du rebond courant, lumière par lumière pour chaque impact (indice impact * lumières + lumière) ;
+    // le chemin d'un rayon d'ombre est le rang de sa lumière.
+    final RayQueue shadowRays = new RayQueue();
+    double[] shadowMaxT = new double[0];
+    boolean[] shadowed = new boolean[0];
+
+    // Journal des impacts de tous les rebonds, dans l'ordre des calculs.
+    int[] logPath = new int[0];
+    int[] logMaterial = new int[0];
+    boolean[] logReflects = new boolean[0];
+    double[] logRed = new double[0];
+    double[] logGreen = new double[0];
+    double[] logBlue = new double[0];
+    int logSize;
+
+    // Couleur recomposée de chaque chemin.
+    double[] pathRed = new double[0];
+    double[] pathGreen = new double[0];
+    double[] pathBlue = new double[0];
+
+    /**
+     * Vide les files et le journal pour une région de pathCount pixels, de couleur noire.
+     */
+    void begin(int pathCount) {
+        rays.size = 0;
+        reflected.size = 0;
+        hitCount = 0;
+        shadowRays.size = 0;
+        logSize = 0;
+        if (pathRed.length < pathCount) {
+            pathRed = new double[pathCount];
+            pathGreen = new double[pathCount];
+            pathBlue = new double[pathCount];
+        } else {
+            Arrays.fill(pathRed, 0, pathCount, 0.0);
+            Arrays.fill(pathGreen, 0, pathCount, 0.0);
+            Arrays.fill(pathBlue, 0, pathCount, 0.0);
+        }
+    }
+
+    /**
+     * Rayons du rebond courant.
+     */
+    RayQueue rays() {
+        return rays;
+    }
+
+    /**
+     * Rayons réfléchis, tracés au rebond suivant.
+     */
+    RayQueue reflected() {
+        return reflected;
+    }
+
+    /**
+     * Passe au rebond suivant : les rayons réfléchis deviennent la file courante, les impacts sont oubliés.
+     */
+    void nextBounce() {
+        RayQueue traced = rays;
+        rays = reflected;
+        reflected = traced;
+        reflected.size = 0;
+        hitCount = 0;
+        shadowRays.size = 0;
+    }
+
+    void addHit(double px, double py, double pz, double nx, double ny, double nz,
+                double dx, double dy, double dz, int material, int path) {
+        if (hitCount == hitPath.length) {
+            int capacity = grow(hitCount);
+            hitPointX = Arrays.copyOf(hitPointX, capacity);
+            hitPointY = Arrays.copyOf(hitPointY, capacity);
+            hitPointZ = Arrays.copyOf(hitPointZ, capacity);
+            hitNormalX = Arrays.copyOf(hitNormalX, capacity);
+            hitNormalY = Arrays.copyOf(hitNormalY, capacity);
+            hitNormalZ = Arrays.copyOf(hitNormalZ, capacity);
+            hitDirectionX = Arrays.copyOf(hitDirectionX, capacity);
+            hitDirectionY = Arrays.copyOf(hitDirectionY, capacity);
+            hitDirectionZ = Arrays.copyOf(hitDirectionZ, capacity);
+            hitMaterial = Arrays.copyOf(hitMaterial, capacity);
+            hitPath = Arrays.copyOf(hitPath, capacity);
+        }
+        hitPointX[hitCount] = px;
+        hitPointY[hitCount] = py;
+        hitPointZ[hitCount] = pz;
+        hitNormalX[hitCount] = nx;
+        hitNormalY[hitCount] = ny;
+        hitNormalZ[hitCount] = nz;
+        hitDirectionX[hitCount] = dx;
+        hitDirectionY[hitCount] = dy;
+        hitDirectionZ[hitCount] = dz;
+        hitMaterial[hitCount] = material;
+        hitPath[hitCount] = path;
+        hitCount++;
+    }
+
+    void addShadowRay(double ox, double oy, double oz, double dx, double dy, double dz, double maxT, int light) {
+        int index = shadowRays.size;
+        shadowRays.add(ox, oy, oz, dx, dy, dz, light);
+        if (shadowMaxT.length < shadowRays.path.length) {
+            shadowMaxT = Arrays.copyOf(shadowMaxT, shadowRays.path.length);
+            shadowed = Arrays.copyOf(shadowed, shadowRays.path.length);
+        }
+        shadowMaxT[index] = maxT;
+    }
+
+    /**
+     * Inscrit au journal la couleur directe d'un impact du chemin path ; reflects indique qu'un rayon réfléchi
+     * a été émis, dont la couleur s'ajoutera pondérée par la couleur spéculaire du matériau.
+     */
+    void log(int path, double red, double green, double blue, int material, boolean reflects) {
+        if (logSize == logPath.length) {
+            int capacity = grow(logSize);
+            logPath = Arrays.copyOf(logPath, capacity);
+            logMaterial = Arrays.copyOf(logMaterial, capacity);
+            logReflects = Arrays.copyOf(logReflects, capacity);
+            logRed = Arrays.copyOf(logRed, capacity);
+            logGreen = Arrays.copyOf(logGreen, capacity);
+            logBlue = Arrays.copyOf(logBlue, capacity);
+        }
+        logPath[logSize] = path;
+        logMaterial[logSize] = material;
+        logReflects[logSize] = reflects;
+        logRed[logSize] = red;
+        logGreen[logSize] = green;
+        logBlue[logSize] = blue;
+        logSize++;
+    }
+
+    private static int grow(int size) {
+        return Math.max(64, size * 2);
+    }
+}
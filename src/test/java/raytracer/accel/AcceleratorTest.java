@@ -0,0 +1,148 @@
+package raytracer.accel;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.geometry.Material;
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Shape;
+import raytracer.geometry.Sphere;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.trace.HitRecord;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class AcceleratorTest {
+
+    private static Point randomPoint(Random random) {
+        return new Point(random.nextDouble() * 30 - 15, random.nextDouble() * 30 - 15, random.nextDouble() * 30 - 15);
+    }
+
+    /**
+     * Plan, sphères de tailles variées et triangles, dont deux faces jointives : les égalités de distance
+     * sur l'arête commune doivent être départagées comme dans la BVH.
+     */
+    private static Mesh randomMesh(Random random, int triangleCount) {
+        Mesh mesh = new Mesh();
+        int material = mesh.addMaterial(new Material(new Color(0.5, 0.5, 0.5), new Color(), 10.0));
+        for (int i = 0; i < triangleCount; i++) {
+            Point a = randomPoint(random);
+            mesh.addVertex(a.getX(), a.getY(), a.getZ());
+            mesh.addVertex(a.getX() + random.nextDouble() * 4, a.getY(), a.getZ());
+            mesh.addVertex(a.getX(), a.getY() + random.nextDouble() * 4, a.getZ());
+            mesh.addTriangle(3 * i, 3 * i + 1, 3 * i + 2, material);
+        }
+        int base = 3 * triangleCount;
+        mesh.addVertex(-5, -5, 0);
+        mesh.addVertex(5, -5, 0);
+        mesh.addVertex(5, 5, 0);
+        mesh.addVertex(-5, 5, 0);
+        mesh.addTriangle(base, base + 1, base + 2, material);
+        mesh.addTriangle(base, base + 2, base + 3, material);
+        return mesh;
+    }
+
+    private static List<Shape> randomShapes(Random random, int sphereCount) {
+        List<Shape> shapes = new ArrayList<>();
+        shapes.add(new Plane(new Point(0, -20, 0), new Vector(0, 1, 0)));
+        for (int i = 0; i < sphereCount; i++) {
+            shapes.add(new Sphere(randomPoint(random), 0.1 + random.nextDouble() * 2));
+        }
+        return shapes;
+    }
+
+    @Test
+    void testAllStructures_MatchBVH() {
+        Random random = new Random(11);
+        List<Shape> shapes = randomShapes(random, 200);
+        Mesh mesh = randomMesh(random, 500);
+        BVH bvh = new BVH(shapes, mesh);
+        Accelerator[] others = {
+                Accelerator.create(AcceleratorType.GRID, shapes, mesh),
+                Accelerator.create(AcceleratorType.BRUTE_FORCE, shapes, mesh)
+        };
+        int[] stack = new int[bvh.getStackSize()];
+        HitRecord expected = new HitRecord();
+        HitRecord actual = new HitRecord();
+
+        for (int k = 0; k < 3000; k++) {
+            Point origin = k % 3 == 0 ? new Point(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 20) : randomPoint(random);
+            Vector direction = k % 3 == 0 ? new Vector(0, 0, -1) : randomPoint(random).subtract(origin).normalize();
+            double ox = origin.getX(), oy = origin.getY(), oz = origin.getZ();
+            double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+            boolean hit = bvh.closestHit(ox, oy, oz, dx, dy, dz, 1e-4, stack, expected, null);
+            boolean occluded = bvh.findOccluder(ox, oy, oz, dx, dy, dz, 1e-4, 10.0, stack, null) >= 0;
+
+            for (Accelerator other : others) {
+                String name = other.getName();
+                assertEquals(hit, other.closestHit(ox, oy, oz, dx, dy, dz, 1e-4, new int[other.getStackSize()], actual, null), name);
+                if (hit) {
+                    assertEquals(expected.getPrimitive(), actual.getPrimitive(), "Même primitive (" + name + ", rayon " + k + ").");
+                    assertEquals(expected.getT(), actual.getT(), 0.0, name);
+                    assertEquals(expected.getNormalZ(), actual.getNormalZ(), 0.0, name);
+                }
+                assertEquals(occluded, other.findOccluder(ox, oy, oz, dx, dy, dz, 1e-4, 10.0, stack, null) >= 0,
+                        "Même occultation (" + name + ", rayon " + k + ").");
+            }
+        }
+    }
+
+    @Test
+    void testPacket_MatchesSingleRays() {
+        Random random = new Random(5);
+        List<Shape> shapes = randomShapes(random, 100);
+        Mesh mesh = randomMesh(random, 100);
+        Accelerator grid = Accelerator.create(AcceleratorType.GRID, shapes, mesh);
+        int[] stack = new int[grid.getStackSize()];
+        RayPacket packet = new RayPacket();
+        HitRecord single = new HitRecord();
+        HitRecord lane = new HitRecord();
+
+        packet.reset(RayPacket.MAX_SIZE);
+        for (int i = 0; i < RayPacket.MAX_SIZE; i++) {
+            Vector direction = randomPoint(random).subtract(new Point(0, 0, 30)).normalize();
+            packet.setRay(i, 0, 0, 30, direction.getX(), direction.getY(), direction.getZ());
+        }
+        grid.closestHit(packet, 1e-4, stack, null);
+
+        for (int i = 0; i < RayPacket.MAX_SIZE; i++) {
+            boolean hit = grid.closestHit(0, 0, 30, packet.getDirectionX(i), packet.getDirectionY(i), packet.getDirectionZ(i),
+                    1e-4, stack, single, null);
+            assertEquals(hit, grid.recordHit(packet, i, lane));
+            if (hit) {
+                assertEquals(single.getPrimitive(), lane.getPrimitive());
+                assertEquals(single.getT(), lane.getT(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    void testAuto_ChoosesFromPrimitives() {
+        Random random = new Random(3);
+        List<Shape> few = randomShapes(random, 5);
+        assertEquals("brute", Accelerator.create(AcceleratorType.AUTO, few, new Mesh()).getName(),
+                "Une poignée de formes : force brute.");
+
+        List<Shape> uniform = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            uniform.add(new Sphere(randomPoint(random), 1.0));
+        }
+        assertEquals("grid", Accelerator.create(AcceleratorType.AUTO, uniform, new Mesh()).getName(),
+                "Des sphères de même taille : grille.");
+
+        uniform.add(new Sphere(new Point(0, 0, -10000), 10000));
+        assertEquals("bvh", Accelerator.create(AcceleratorType.AUTO, uniform, new Mesh()).getName(),
+                "Une sphère géante parmi les petites : BVH.");
+        assertEquals("brute", Accelerator.create(AcceleratorType.AUTO, List.of(), new Mesh()).getName());
+    }
+
+    @Test
+    void testForName() {
+        assertEquals(AcceleratorType.GRID, AcceleratorType.forName("Grid").orElseThrow());
+        assertEquals(AcceleratorType.BRUTE_FORCE, AcceleratorType.forName("brute").orElseThrow());
+        assertTrue(AcceleratorType.forName("kdtree").isEmpty());
+    }
+}
@@ -0,0 +1,228 @@
+package raytracer.accel;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.geometry.Material;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Shape;
+import raytracer.geometry.Sphere;
+import raytracer.geometry.Triangle;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Ray;
+import raytracer.math.Vector;
+import raytracer.scene.Scene;
+import raytracer.trace.HitRecord;
+import raytracer.trace.Intersection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+class BVHTest {
+    private static final double EPSILON = 1e-6;
+
+    private Scene randomScene(long seed, int sphereCount, int triangleCount) {
+        Random random = new Random(seed);
+        Scene scene = new Scene();
+        scene.addShape(new Plane(new Point(0, -20, 0), new Vector(0, 1, 0)));
+
+        for (int i = 0; i < sphereCount; i++) {
+            scene.addShape(new Sphere(randomPoint(random), 0.1 + random.nextDouble()));
+        }
+
+        for (int i = 0; i < triangleCount * 3; i++) {
+            scene.addVertex(randomPoint(random));
+        }
+        for (int i = 0; i < triangleCount; i++) {
+            scene.addTriangle(3 * i, 3 * i + 1, 3 * i + 2, new Material(new Color(0.5, 0.5, 0.5), new Color(), 10.0));
+        }
+        return scene;
+    }
+
+    private Point randomPoint(Random random) {
+        return new Point(random.nextDouble() * 30 - 15, random.nextDouble() * 30 - 15, random.nextDouble() * 30 - 15);
+    }
+
+    private Optional<Intersection> bruteForce(Scene scene, Ray ray) {
+        List<Shape> shapes = new ArrayList<>(scene.getShapes());
+        for (int i = 0; i < scene.getMesh().getTriangleCount(); i++) {
+            shapes.add(scene.getMesh().getTriangle(i));
+        }
+
+        Optional<Intersection> closest = Optional.empty();
+        double minT = Double.MAX_VALUE;
+        for (Shape shape : shapes) {
+            Optional<Intersection> current = shape.intersect(ray);
+            if (current.isPresent() && current.get().getT() > EPSILON && current.get().getT() < minT) {
+                minT = current.get().getT();
+                closest = current;
+            }
+        }
+        return closest;
+    }
+
+    private void assertSameShape(Shape expected, Shape actual) {
+        if (expected instanceof Triangle) {
+            assertTrue(actual instanceof Triangle);
+            assertEquals(((Triangle) expected).getId(), ((Triangle) actual).getId());
+        } else {
+            assertSame(expected, actual);
+        }
+    }
+
+    @Test
+    void testClosestIntersection_MatchesBruteForce() {
+        Scene scene = randomScene(42, 300, 2000);
+        BVH bvh = new BVH(scene.getShapes(), scene.getMesh());
+        Random random = new Random(7);
+
+        for (int k = 0; k < 2000; k++) {
+            Ray ray = new Ray(randomPoint(random), new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+
+            Optional<Intersection> expected = bruteForce(scene, ray);
+            Optional<Intersection> actual = bvh.findClosestIntersection(ray, EPSILON);
+
+            assertEquals(expected.isPresent(), actual.isPresent());
+            if (expected.isPresent()) {
+                assertSameShape(expected.get().getShape(), actual.get().getShape());
+                assertEquals(expected.get().getT(), actual.get().getT(), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    void testIsOccluded_RespectsMaxDistance() {
+        Scene scene = new Scene();
+        scene.addShape(new Sphere(new Point(0, 0, -5), 1.0));
+        BVH bvh = new BVH(scene.getShapes());
+
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        assertTrue(bvh.isOccluded(ray, 0.0, 10.0));
+        assertFalse(bvh.isOccluded(ray, 0.0, 3.0), "La sphère se trouve au-delà de la distance maximale.");
+    }
+
+    @Test
+    void testFindOccluder_ReturnsTestableReference() {
+        Scene scene = new Scene();
+        scene.addShape(new Plane(new Point(0, -10, 0), new Vector(0, 1, 0)));
+        scene.addShape(new Sphere(new Point(0, 0, -5), 1.0));
+        scene.addShape(new Sphere(new Point(0, 0, 5), 1.0));
+        BVH bvh = new BVH(scene.getShapes());
+        int[] stack = new int[bvh.getStackSize()];
+
+        int occluder = bvh.findOccluder(0, 0, 0, 0, 0, -1, 0.0, 10.0, stack, null);
+        assertEquals(1, occluder, "Seule la première sphère est sur le chemin");
+        assertTrue(bvh.occludes(occluder, 0.1, 0, 0, 0, 0, -1, 0.0, 10.0, null), "Un rayon voisin est arrêté par le même obstacle");
+        assertFalse(bvh.occludes(occluder, 0, 0, 0, 0, 0, -1, 0.0, 3.0, null));
+        assertFalse(bvh.occludes(occluder, 0, 0, 0, 0, 0, 1, 0.0, 10.0, null));
+        assertEquals(-1, bvh.findOccluder(0, 0, 0, 1, 0, 0, 0.0, 10.0, stack, null));
+    }
+
+    @Test
+    void testRefit_MatchesRebuiltHierarchy() {
+        Scene scene = randomScene(11, 200, 500);
+        BVH bvh = new BVH(scene.getShapes(), scene.getMesh());
+        Random random = new Random(5);
+
+        List<Shape> moved = new ArrayList<>();
+        for (Shape shape : scene.getShapes()) {
+            moved.add(shape.translate(new Vector(random.nextGaussian() * 4, random.nextGaussian() * 4, random.nextGaussian() * 4)));
+        }
+        BVH refitted = bvh.refit(moved);
+        BVH rebuilt = new BVH(moved, scene.getMesh());
+        assertEquals(bvh.getNodeCount(), refitted.getNodeCount(), "Le réajustement garde la topologie");
+
+        int[] stack = new int[Math.max(refitted.getStackSize(), rebuilt.getStackSize())];
+        HitRecord expected = new HitRecord();
+        HitRecord actual = new HitRecord();
+        for (int k = 0; k < 2000; k++) {
+            Point o = randomPoint(random);
+            Vector d = new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).normalize();
+            boolean hit = rebuilt.closestHit(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), EPSILON, stack, expected);
+
+            assertEquals(hit, refitted.closestHit(o.getX(), o.getY(), o.getZ(), d.getX(), d.getY(), d.getZ(), EPSILON, stack, actual));
+            if (hit) {
+                assertEquals(expected.getT(), actual.getT(), 0.0);
+                assertEquals(expected.getPrimitive(), actual.getPrimitive());
+            }
+        }
+    }
+
+    @Test
+    void testRefit_RejectsDifferentShapes() {
+        Scene scene = randomScene(3, 4, 10);
+        BVH bvh = new BVH(scene.getShapes(), scene.getMesh());
+        List<Shape> shapes = new ArrayList<>(scene.getShapes());
+
+        assertThrows(IllegalArgumentException.class, () -> bvh.refit(shapes.subList(1, shapes.size())));
+        shapes.set(1, new Plane(new Point(0, 0, 0), new Vector(0, 1, 0)));
+        assertThrows(IllegalArgumentException.class, () -> bvh.refit(shapes));
+    }
+
+    @Test
+    void testUnboundedPlaneOnly() {
+        Scene scene = new Scene();
+        scene.addShape(new Plane(new Point(0, -1, 0), new Vector(0, 1, 0)));
+        BVH bvh = new BVH(scene.getShapes());
+
+        assertEquals(0, bvh.getNodeCount());
+
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, -1, 0));
+        Intersection intersection = bvh.findClosestIntersection(ray, EPSILON).orElse(null);
+
+        assertNotNull(intersection);
+        assertEquals(1.0, intersection.getT(), EPSILON);
+    }
+
+    private void assertPacketMatchesSingleRays(RayPacket packet) {
+        Scene scene = randomScene(11, 200, 3000);
+        // Deux sphères confondues : l'égalité doit être départagée par l'ordre de la scène, comme en scalaire.
+        scene.addShape(new Sphere(new Point(0, 0, -40), 3));
+        scene.addShape(new Sphere(new Point(0, 0, -40), 3));
+        BVH bvh = new BVH(scene.getShapes(), scene.getMesh());
+        int[] stack = new int[bvh.getStackSize()];
+        HitRecord expected = new HitRecord();
+        HitRecord actual = new HitRecord();
+        Random random = new Random(3);
+
+        for (int k = 0; k < 400; k++) {
+            int size = 1 + random.nextInt(RayPacket.MAX_SIZE);
+            double spread = k % 2 == 0 ? 0.05 : 2.0;
+            double ox = random.nextGaussian() * 10, oy = random.nextGaussian() * 10, oz = 30;
+            packet.reset(size);
+            for (int lane = 0; lane < size; lane++) {
+                Vector d = new Vector(random.nextGaussian() * spread, random.nextGaussian() * spread, -1).normalize();
+                packet.setRay(lane, ox, oy, oz, d.getX(), d.getY(), d.getZ());
+            }
+
+            bvh.closestHit(packet, 1e-4, stack);
+
+            for (int lane = 0; lane < size; lane++) {
+                boolean hit = bvh.closestHit(ox, oy, oz, packet.getDirectionX(lane), packet.getDirectionY(lane), packet.getDirectionZ(lane),
+                        1e-4, stack, expected);
+                assertEquals(hit, packet.isHit(lane), "Voie " + lane + " du paquet " + k);
+                assertEquals(hit, bvh.recordHit(packet, lane, actual));
+                if (hit) {
+                    assertEquals(expected.getT(), packet.getT(lane), 0.0, "Distance différente du tracé individuel");
+                    assertEquals(expected.getNormalX(), actual.getNormalX(), 0.0);
+                    assertEquals(expected.getNormalY(), actual.getNormalY(), 0.0);
+                    assertEquals(expected.getNormalZ(), actual.getNormalZ(), 0.0);
+                    assertEquals(expected.getPrimitive(), actual.getPrimitive());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRayPacket_ScalarKernels_MatchSingleRays() {
+        assertPacketMatchesSingleRays(new RayPacket(new ScalarPacketIntersector()));
+    }
+
+    @Test
+    void testRayPacket_DefaultKernels_MatchSingleRays() {
+        // Noyaux vectoriels lorsque les tests sont lancés avec --add-modules jdk.incubator.vector (configuration Maven).
+        assertPacketMatchesSingleRays(new RayPacket());
+    }
+}
@@ -0,0 +1,205 @@
+package raytracer.distributed;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.parsing.SceneFileParser;
+import raytracer.scene.Scene;
+import raytracer.trace.ImageRenderer;
+import raytracer.trace.RenderStats;
+import raytracer.trace.TestScenes;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+class RenderCoordinatorTest {
+    private static final String SCENE =
+            "size 70 45\n" +
+            "output distributed.png\n" +
+            "camera 0 1 6 0 0 0 0 1 0 50\n" +
+            "ambient 0.1 0.1 0.1\n" +
+            "maxdepth 2\n" +
+            "specular 0.4 0.4 0.4\n" +
+            "sphere 0 0 0 1\n" +
+            "specular 0 0 0\n" +
+            "diffuse 0.3 0.6 0.3\n" +
+            "plane 0 -1 0 0 1 0\n" +
+            "point 3 5 4 0.7 0.7 0.7\n";
+
+    private Scene parse(Path dir) throws Exception {
+        Path file = dir.resolve("distributed.scene");
+        Files.writeString(file, SCENE);
+        return new SceneFileParser().parse(file.toString());
+    }
+
+    private Process startWorkerProcess(int port) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "--add-modules", "jdk.incubator.vector",
+                "-cp", System.getProperty("java.class.path"), "raytracer.Main",
+                "--worker=127.0.0.1:" + port, "--threads=2")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    @Test
+    void testWorkerProcesses_AssembleSameImage(@TempDir Path dir) throws Exception {
+        Scene scene = parse(dir);
+        BufferedImage expected = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+        RenderStats stats = new RenderStats();
+
+        try (RenderCoordinator coordinator = new RenderCoordinator(0, 16, 4)) {
+            List<Process> workers = new ArrayList<>();
+            workers.add(startWorkerProcess(coordinator.getPort()));
+            workers.add(startWorkerProcess(coordinator.getPort()));
+
+            BufferedImage image = coordinator.renderImage(scene, SCENE.getBytes(StandardCharsets.UTF_8), stats);
+
+            TestScenes.assertSameImage(expected, image);
+            for (Process worker : workers) {
+                assertTrue(worker.waitFor(30, TimeUnit.SECONDS), "Le worker doit s'arrêter à la fin du rendu");
+                assertEquals(0, worker.exitValue());
+            }
+        }
+        assertTrue(stats.getPhaseNanos(RenderStats.RENDER) > 0);
+    }
+
+    @Test
+    void testLostWorker_TilesRedistributed(@TempDir Path dir) throws Exception {
+        Scene scene = parse(dir);
+        scene.setOutput(dir.resolve("distributed.png").toString());
+        BufferedImage expected = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+        RenderStats stats = new RenderStats();
+
+        try (RenderCoordinator coordinator = new RenderCoordinator(0, 16, 1)) {
+            int port = coordinator.getPort();
+            CountDownLatch lost = new CountDownLatch(1);
+
+            // Worker défaillant : accepte deux tuiles puis coupe la connexion sans répondre.
+            Thread failing = new Thread(() -> {
+                try (Socket socket = new Socket("127.0.0.1", port)) {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    TileProtocol.writeHello(new DataOutputStream(socket.getOutputStream()), 2);
+                    TileProtocol.readPacketSize(in);
+                    TileProtocol.readSceneSource(in);
+                    for (int i = 0; i < 2 * 6; i++) {
+                        in.readInt();
+                    }
+                } catch (IOException e) {
+                    fail(e);
+                } finally {
+                    lost.countDown();
+                }
+            });
+            Thread healthy = new Thread(() -> {
+                try {
+                    lost.await();
+                    new TileWorker(2).run("127.0.0.1", port);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            failing.start();
+            healthy.start();
+
+            coordinator.render(scene, SCENE.getBytes(StandardCharsets.UTF_8), stats);
+            healthy.join(30_000);
+        }
+
+        TestScenes.assertSameImage(expected, ImageIO.read(new File(scene.getOutput())));
+        String json = stats.toJson();
+        assertTrue(json.contains("\"workers\": 2"), json);
+        assertTrue(json.contains("\"retriedTiles\": 2"), "Les deux tuiles du worker perdu sont redonnées");
+    }
+
+    @Test
+    void testSilentWorker_TilesRedistributed(@TempDir Path dir) throws Exception {
+        Scene scene = parse(dir);
+        BufferedImage expected = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+        RenderStats stats = new RenderStats();
+        CountDownLatch rendered = new CountDownLatch(1);
+
+        try (RenderCoordinator coordinator = new RenderCoordinator(0, 16, 1)) {
+            coordinator.setResponseTimeout(300);
+            int port = coordinator.getPort();
+            CountDownLatch silent = new CountDownLatch(1);
+
+            // Client qui n'est pas un worker : il ne doit pas être compté.
+            try (Socket intruder = new Socket("127.0.0.1", port)) {
+                new DataOutputStream(intruder.getOutputStream()).writeInt(42);
+            }
+            // Worker bloqué : reçoit ses tuiles puis se tait sans fermer la connexion jusqu'à la fin du rendu.
+            Thread blocked = new Thread(() -> {
+                try (Socket socket = new Socket("127.0.0.1", port)) {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    TileProtocol.writeHello(new DataOutputStream(socket.getOutputStream()), 2);
+                    TileProtocol.readPacketSize(in);
+                    TileProtocol.readSceneSource(in);
+                    for (int i = 0; i < 2 * 6; i++) {
+                        in.readInt();
+                    }
+                    silent.countDown();
+                    rendered.await();
+                } catch (IOException | InterruptedException e) {
+                    silent.countDown();
+                }
+            });
+            Thread healthy = new Thread(() -> {
+                try {
+                    silent.await();
+                    new TileWorker(2).run("127.0.0.1", port);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            blocked.start();
+            healthy.start();
+
+            BufferedImage image = coordinator.renderImage(scene, SCENE.getBytes(StandardCharsets.UTF_8), stats);
+            rendered.countDown();
+            healthy.join(30_000);
+            TestScenes.assertSameImage(expected, image);
+        } finally {
+            rendered.countDown();
+        }
+
+        String json = stats.toJson();
+        assertTrue(json.contains("\"workers\": 2"), json);
+        assertTrue(json.contains("\"retriedTiles\": 2"), "Les deux tuiles du worker muet sont redonnées");
+    }
+
+    @Test
+    void testNoWorker_TimesOut(@TempDir Path dir) throws Exception {
+        Scene scene = parse(dir);
+        try (RenderCoordinator coordinator = new RenderCoordinator(0, 16, 1)) {
+            coordinator.setWorkerTimeout(200);
+            IOException e = assertThrows(IOException.class,
+                    () -> coordinator.renderImage(scene, SCENE.getBytes(StandardCharsets.UTF_8), new RenderStats()));
+            assertTrue(e.getMessage().contains("Aucun worker"));
+        }
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new RenderCoordinator(0, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RenderCoordinator(0, 16, 0));
+        assertThrows(IllegalArgumentException.class, () -> {
+            try (RenderCoordinator coordinator = new RenderCoordinator(0, 16, 1)) {
+                coordinator.setPngLevel(10);
+            }
+        });
+        assertThrows(IllegalArgumentException.class, () -> new TileWorker(0));
+    }
+}
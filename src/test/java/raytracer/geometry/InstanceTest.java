@@ -0,0 +1,76 @@
+package raytracer.geometry;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.accel.BVH;
+import raytracer.accel.BoundingBox;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.trace.HitRecord;
+import java.util.List;
+
+class InstanceTest {
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Carré [-1, 1] x [-1, 1] du plan z = 0, en deux triangles.
+     */
+    private InstancedMesh quad() {
+        InstancedMesh object = new InstancedMesh("quad");
+        Mesh mesh = object.getMesh();
+        mesh.addVertex(-1, -1, 0);
+        mesh.addVertex(1, -1, 0);
+        mesh.addVertex(1, 1, 0);
+        mesh.addVertex(-1, 1, 0);
+        Material material = new Material(new Color(0.5, 0.5, 0.5), new Color(), 10);
+        mesh.addTriangle(0, 1, 2, mesh.addMaterial(material));
+        mesh.addTriangle(0, 2, 3, mesh.addMaterial(material));
+        object.build();
+        return object;
+    }
+
+    @Test
+    void testClosestHit_TransformedIntoObjectSpace() {
+        // Tourné de 90° autour de y, agrandi deux fois : le carré occupe le plan x = 2, y et z - (-5) dans [-2, 2].
+        Instance instance = new Instance(quad(), new Point(2, 0, -5), new Vector(0, 90, 0), 2.0);
+
+        assertEquals(2.0, instance.closestHit(0, 1.5, -5, 1, 0, 0, 0.0, Shape.NO_HIT), EPSILON);
+        assertEquals(Shape.NO_HIT, instance.closestHit(0, 2.5, -5, 1, 0, 0, 0.0, Shape.NO_HIT),
+                "Le rayon passe au-dessus du carré agrandi.");
+        assertEquals(Shape.NO_HIT, instance.closestHit(0, 1.5, -5, 1, 0, 0, 0.0, 2.0), "La borne tMax est exclue.");
+        assertTrue(instance.anyHit(0, 0, -6.5, 1, 0, 0, 1.0, 3.0));
+        assertFalse(instance.anyHit(0, 0, -7.5, 1, 0, 0, 0.0, Shape.NO_HIT));
+    }
+
+    @Test
+    void testNormalAndBounds_InSceneSpace() {
+        Instance instance = new Instance(quad(), new Point(2, 0, -5), new Vector(0, 90, 0), 2.0);
+        BVH bvh = new BVH(List.of(instance));
+        HitRecord hit = new HitRecord();
+
+        assertTrue(bvh.closestHit(0, 1.5, -5, 1, 0, 0, 0.0, new int[bvh.getStackSize()], hit));
+        assertEquals(2.0, hit.getPointX(), EPSILON);
+        assertEquals(1.0, Math.abs(hit.getNormalX()), EPSILON);
+        assertEquals(1.0, Math.abs(instance.getNormal(new Point(2, 1.5, -5)).getX()), EPSILON);
+
+        BoundingBox box = instance.getBoundingBox().orElseThrow();
+        assertEquals(2.0, box.getMin().getX(), EPSILON);
+        assertEquals(-7.0, box.getMin().getZ(), EPSILON);
+        assertEquals(2.0, box.getMax().getY(), EPSILON);
+        assertEquals(-3.0, box.getMax().getZ(), EPSILON);
+    }
+
+    @Test
+    void testTranslate_SharesObject() {
+        Instance instance = new Instance(quad(), new Point(0, 0, -5), new Vector(0, 0, 0), 1.0);
+        instance.setShininess(42);
+
+        Instance moved = (Instance) instance.translate(new Vector(0, 0, -1));
+
+        assertSame(instance.getObject(), moved.getObject());
+        assertEquals(42, moved.getShininess(), EPSILON);
+        assertEquals(6.0, moved.closestHit(0, 0, 0, 0, 0, -1, 0.0, Shape.NO_HIT), EPSILON);
+        assertThrows(IllegalArgumentException.class, () -> new Instance(new InstancedMesh("vide"), new Point(0, 0, 0), new Vector(0, 0, 0), 1.0));
+    }
+}
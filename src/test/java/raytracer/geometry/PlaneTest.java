@@ -48,4 +48,14 @@ class PlaneTest {
         assertEquals(normalDirection.getY(), normal.getY(), EPSILON);
         assertEquals(normalDirection.getZ(), normal.getZ(), EPSILON);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testClosestHit_RespectsInterval() {
+        Plane plane = new Plane(new Point(0, 0, -5), new Vector(0, 0, 1));
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        assertEquals(5.0, plane.closestHit(ray, 0.0, Shape.NO_HIT), EPSILON);
+        assertEquals(Shape.NO_HIT, plane.closestHit(ray, 0.0, 5.0));
+        assertFalse(plane.anyHit(ray, 6.0, 10.0));
+    }
+}
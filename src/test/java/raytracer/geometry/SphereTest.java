@@ -41,4 +41,25 @@ class SphereTest {
         assertEquals(expectedNormal.getY(), normal.getY(), EPSILON);
         assertEquals(expectedNormal.getZ(), normal.getZ(), EPSILON);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testClosestHit_RespectsInterval() {
+        Sphere sphere = new Sphere(new Point(0, 0, -5), 1.0);
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        assertEquals(4.0, sphere.closestHit(ray, 0.0, Shape.NO_HIT), EPSILON);
+        assertEquals(6.0, sphere.closestHit(ray, 5.0, Shape.NO_HIT), EPSILON, "La racine lointaine doit être retenue au-delà de tMin.");
+        assertEquals(Shape.NO_HIT, sphere.closestHit(ray, 0.0, 3.5), "Aucune racine avant tMax.");
+    }
+
+    @Test
+    void testAnyHit() {
+        Sphere sphere = new Sphere(new Point(0, 0, -5), 1.0);
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+        Ray away = new Ray(new Point(0, 0, 0), new Vector(0, 0, 1));
+
+        assertTrue(sphere.anyHit(ray, 0.0, 10.0));
+        assertFalse(sphere.anyHit(ray, 0.0, 4.0));
+        assertFalse(sphere.anyHit(away, 0.0, 100.0));
+    }
+}
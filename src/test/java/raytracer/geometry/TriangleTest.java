@@ -20,11 +20,17 @@ class TriangleTest {
         return scene;
     }
 
+    private Triangle bind(Scene scene) {
+        Triangle triangle = new Triangle(0, 1, 2);
+        triangle.setScene(scene);
+        scene.getMesh().prepare();
+        return triangle;
+    }
+
     @Test
     void testIntersect_CenterHit() {
         Scene scene = setupScene();
-        Triangle triangle = new Triangle(0, 1, 2);
-        triangle.setScene(scene);
+        Triangle triangle = bind(scene);
 
         Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
 
@@ -44,8 +50,7 @@ class TriangleTest {
     @Test
     void testIntersect_MissOutside() {
         Scene scene = setupScene();
-        Triangle triangle = new Triangle(0, 1, 2);
-        triangle.setScene(scene);
+        Triangle triangle = bind(scene);
 
         Ray ray = new Ray(new Point(2, 2, 0), new Vector(0, 0, -1));
 
@@ -55,8 +60,7 @@ class TriangleTest {
     @Test
     void testGetNormal() {
         Scene scene = setupScene();
-        Triangle triangle = new Triangle(0, 1, 2);
-        triangle.setScene(scene);
+        Triangle triangle = bind(scene);
 
         Point hitPoint = new Point(0, 0, -2); // Point sur le triangle
 
@@ -74,4 +78,57 @@ class TriangleTest {
 
         assertTrue(matchesNormal1 || matchesNormal2, "La normale doit être unitaire et perpendiculaire au plan du triangle.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testClosestHit_RespectsInterval() {
+        Scene scene = setupScene();
+        Triangle triangle = bind(scene);
+
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        assertEquals(2.0, triangle.closestHit(ray, 0.0, Shape.NO_HIT), EPSILON);
+        assertEquals(Shape.NO_HIT, triangle.closestHit(ray, 0.0, 1.5));
+        assertTrue(triangle.anyHit(ray, 1.0, 3.0));
+        assertFalse(triangle.anyHit(ray, 2.5, 3.0));
+    }
+
+    @Test
+    void testSinglePrecision_SameResultForExactVertices() {
+        Scene scene = setupScene();
+        Triangle triangle = bind(scene);
+        Mesh mesh = triangle.getMesh();
+        double[] expected = new double[9];
+        mesh.getTriangleData(0, expected, 0);
+
+        mesh.setSinglePrecision(true);
+        assertTrue(mesh.isSinglePrecision());
+
+        // Sommets représentables en float : la géométrie et l'intersection sont inchangées.
+        double[] data = new double[9];
+        mesh.getTriangleData(0, data, 0);
+        assertArrayEquals(expected, data);
+        Ray ray = new Ray(new Point(0.2, -0.3, 0), new Vector(0, 0, -1));
+        assertEquals(2.0, triangle.closestHit(ray, 0.0, Shape.NO_HIT), EPSILON);
+        assertEquals(1.0, Math.abs(triangle.getNormal(null).getZ()), EPSILON);
+        double[] bounds = new double[6];
+        mesh.getBounds(0, bounds, 0);
+        assertArrayEquals(new double[] {-1, -1, -2, 1, 1, -2}, bounds);
+
+        mesh.setSinglePrecision(false);
+        assertEquals(2.0, triangle.closestHit(ray, 0.0, Shape.NO_HIT), EPSILON);
+    }
+
+    @Test
+    void testSetScene_AddsFaceOnce() {
+        Scene scene = setupScene();
+        Triangle triangle = new Triangle(0, 1, 2);
+        scene.addShape(triangle);
+        triangle.setScene(scene);
+        triangle.setScene(scene);
+
+        assertEquals(1, scene.getMesh().getTriangleCount(), "Le triangle ne doit être ajouté qu'une fois au maillage");
+        assertTrue(scene.getShapes().isEmpty(), "Un triangle est stocké dans le maillage, pas dans getShapes()");
+        assertEquals(0, triangle.getId());
+        assertThrows(IllegalStateException.class, () -> triangle.setScene(setupScene()));
+    }
+}
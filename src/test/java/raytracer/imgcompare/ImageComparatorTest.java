@@ -0,0 +1,139 @@
+package raytracer.imgcompare;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+class ImageComparatorTest {
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Image de référence et copie dont environ un pixel sur cinq est altéré.
+     * La largeur n'est pas un multiple de la largeur SIMD : la fin des lignes passe par le noyau scalaire.
+     */
+    private BufferedImage[] setupImages(int type) {
+        int width = 67;
+        int height = 45;
+        Random random = new Random(9);
+        BufferedImage reference = new BufferedImage(width, height, type);
+        BufferedImage altered = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = random.nextInt(1 << 24);
+                reference.setRGB(x, y, 0xFF000000 | rgb);
+                if (random.nextInt(5) == 0) {
+                    rgb ^= random.nextInt(1 << 24);
+                }
+                altered.setRGB(x, y, 0xFF000000 | rgb);
+            }
+        }
+        return new BufferedImage[] {reference, altered};
+    }
+
+    @Test
+    void testCompare_MatchesPixelByPixelReference() {
+        BufferedImage[] images = setupImages(BufferedImage.TYPE_INT_RGB);
+        long different = 0;
+        int max = 0;
+        long squared = 0;
+        for (int y = 0; y < images[0].getHeight(); y++) {
+            for (int x = 0; x < images[0].getWidth(); x++) {
+                int rgb1 = images[0].getRGB(x, y);
+                int rgb2 = images[1].getRGB(x, y);
+                if (rgb1 != rgb2) {
+                    different++;
+                }
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    int d = Math.abs((rgb1 >> shift & 0xFF) - (rgb2 >> shift & 0xFF));
+                    max = Math.max(max, d);
+                    squared += d * d;
+                }
+            }
+        }
+        long pixelCount = (long) images[0].getWidth() * images[0].getHeight();
+        double mse = (double) squared / (3 * pixelCount);
+
+        for (ImageComparator comparator : new ImageComparator[] {
+                new ImageComparator(1, new ScalarDiffKernel()), new ImageComparator(3, new ScalarDiffKernel()),
+                new ImageComparator(1), new ImageComparator(4)}) {
+            ComparisonResult result = comparator.compare(images[0], images[1]);
+            assertTrue(result.isComplete());
+            assertEquals(different, result.getDifferentPixels());
+            assertEquals(max, result.getMaxChannelError());
+            assertEquals(mse, result.getMeanSquaredError(), EPSILON);
+            assertEquals(10.0 * Math.log10(255.0 * 255.0 / mse), result.getPsnr(), EPSILON);
+            assertEquals((int) different, comparator.countDifferentPixels(images[0], images[1]));
+        }
+    }
+
+    @Test
+    void testCompare_SameResultWhateverTheImageType() {
+        BufferedImage[] packed = setupImages(BufferedImage.TYPE_INT_RGB);
+        BufferedImage[] bytes = setupImages(BufferedImage.TYPE_3BYTE_BGR);
+        BufferedImage[] argb = setupImages(BufferedImage.TYPE_INT_ARGB);
+        ImageComparator comparator = new ImageComparator(2);
+
+        ComparisonResult expected = comparator.compare(packed[0], packed[1]);
+        for (BufferedImage other : new BufferedImage[] {bytes[1], argb[1]}) {
+            ComparisonResult result = comparator.compare(packed[0], other);
+            assertEquals(expected.getDifferentPixels(), result.getDifferentPixels());
+            assertEquals(expected.getMaxChannelError(), result.getMaxChannelError());
+            assertEquals(expected.getMeanSquaredError(), result.getMeanSquaredError(), EPSILON);
+        }
+        assertEquals(0, comparator.countDifferentPixels(packed[0], argb[0]), "Un pixel RGB est opaque");
+        assertEquals(Double.POSITIVE_INFINITY, comparator.compare(packed[0], bytes[0]).getPsnr());
+    }
+
+    @Test
+    void testCompare_StopsOnceBudgetExceeded() {
+        BufferedImage black = new BufferedImage(100, 200, BufferedImage.TYPE_INT_RGB);
+        BufferedImage gray = new BufferedImage(100, 200, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 100; x++) {
+                gray.setRGB(x, y, 0x0A0A0A);
+            }
+        }
+        ImageComparator comparator = new ImageComparator(1);
+
+        ComparisonResult partial = comparator.compare(black, gray, 250);
+        assertFalse(partial.isComplete());
+        assertEquals(300, partial.getDifferentPixels(), "La comparaison s'arrête à la fin de la ligne qui dépasse le budget");
+        assertFalse(comparator.areIdentical(black, gray));
+
+        ComparisonResult full = comparator.compare(black, gray);
+        assertEquals(20_000, full.getDifferentPixels());
+        assertEquals(10, full.getMaxChannelError());
+        assertEquals(100.0, full.getMeanSquaredError(), EPSILON);
+
+        gray.setRGB(0, 0, 0);
+        BufferedImage almost = new BufferedImage(100, 200, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 99; x++) {
+            almost.setRGB(x, 7, 0xFFFFFF);
+        }
+        assertTrue(comparator.areIdentical(black, almost), "Moins de 1000 pixels différents");
+    }
+
+    @Test
+    void testGenerateDifferentialImage() {
+        BufferedImage[] images = setupImages(BufferedImage.TYPE_3BYTE_BGR);
+        BufferedImage packed = setupImages(BufferedImage.TYPE_INT_RGB)[1];
+
+        for (ImageComparator comparator : new ImageComparator[] {new ImageComparator(1, new ScalarDiffKernel()), new ImageComparator(3)}) {
+            BufferedImage diff = comparator.generateDifferentialImage(images[0], packed);
+            for (int y = 0; y < diff.getHeight(); y++) {
+                for (int x = 0; x < diff.getWidth(); x++) {
+                    int rgb1 = images[0].getRGB(x, y);
+                    int rgb2 = images[1].getRGB(x, y);
+                    int expected = 0;
+                    for (int shift = 0; shift <= 16; shift += 8) {
+                        expected |= Math.abs((rgb1 >> shift & 0xFF) - (rgb2 >> shift & 0xFF)) << shift;
+                    }
+                    assertEquals(0xFF000000 | expected, diff.getRGB(x, y), "Pixel différent en (" + x + ", " + y + ")");
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new ImageComparator().compare(images[0], new BufferedImage(3, 3, BufferedImage.TYPE_INT_RGB)));
+    }
+}
@@ -0,0 +1,71 @@
+package raytracer.parsing;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.scene.Animation;
+import raytracer.scene.Camera;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class AnimationFileParserTest {
+    private static final double EPSILON = 1e-9;
+
+    private Animation parseTempAnimation(String content) throws IOException, SceneParseException {
+        Path tempFile = Files.createTempFile("testanimation", ".anim");
+        Files.writeString(tempFile, content);
+
+        try {
+            return new AnimationFileParser().parse(tempFile.toString());
+        } finally {
+            Files.delete(tempFile);
+        }
+    }
+
+    @Test
+    void testParse_InterpolatesKeys() throws Exception {
+        Animation animation = parseTempAnimation(
+                "frames 5\n" +
+                "output vol%03d.png\n" +
+                "camera 0  0 0 10  0 0 0  0 1 0  60\n" +
+                "camera 4  8 0 10  0 0 0  0 1 0  40\n" +
+                "# la sphère monte puis reste en place\n" +
+                "translate 0  1  0 0 0\n" +
+                "translate 2  1  0 3 0\n");
+
+        assertEquals(5, animation.getFrameCount());
+        assertEquals("vol002.png", animation.outputFor(2, "final.png"));
+
+        Camera middle = animation.cameraAt(1, null);
+        assertEquals(2.0, middle.getLookFrom().getX(), EPSILON);
+        assertEquals(55.0, middle.getFov(), EPSILON);
+        assertSame(animation.cameraAt(4, null), animation.cameraAt(4, null), "Une image clé reprend la caméra de la clé");
+
+        assertEquals(1.5, animation.translationAt(1, 1).getY(), EPSILON);
+        assertEquals(3.0, animation.translationAt(1, 4).getY(), EPSILON, "Après la dernière clé, le déplacement reste constant");
+        assertEquals(0.0, animation.translationAt(0, 3).getY(), EPSILON);
+        assertTrue(animation.getMovingShapes().contains(1));
+    }
+
+    @Test
+    void testDefaultOutput_NumbersSceneOutput() throws Exception {
+        Animation animation = parseTempAnimation("frames 2\n");
+
+        assertFalse(animation.hasTransforms());
+        assertEquals("out/final_0001.png", animation.outputFor(1, "out/final.png"));
+        assertEquals("image_0000", animation.outputFor(0, "image"));
+        Camera fallback = new Camera(new Point(0, 0, 1), new Point(0, 0, 0), new Vector(0, 1, 0), 45);
+        assertSame(fallback, animation.cameraAt(1, fallback));
+    }
+
+    @Test
+    void testParse_Errors() {
+        assertThrows(SceneParseException.class, () -> parseTempAnimation("output a%d.png\n"), "'frames' est obligatoire");
+        assertThrows(SceneParseException.class, () -> parseTempAnimation("translate 0 0 1 0 0\nframes 3\n"));
+        assertThrows(SceneParseException.class, () -> parseTempAnimation("frames 3\ncamera 3 0 0 1 0 0 0 0 1 0 45\n"));
+        assertThrows(SceneParseException.class, () -> parseTempAnimation("frames 3\ntranslate 1 0 1 0\n"));
+        assertThrows(SceneParseException.class, () -> parseTempAnimation("frames 3\noutput a%q.png\n"));
+    }
+}
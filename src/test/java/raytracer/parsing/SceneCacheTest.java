@@ -0,0 +1,134 @@
+package raytracer.parsing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Sphere;
+import raytracer.light.PointLight;
+import raytracer.scene.Scene;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+class SceneCacheTest {
+
+    private static final String SCENE =
+            "size 64 48\n" +
+                    "output rendu.png\n" +
+                    "camera 0 1 6 0 0 0 0 1 0 45\n" +
+                    "ambient 0.1 0.1 0.1\n" +
+                    "maxdepth 3\n" +
+                    "point 3 5 4 0.4 0.4 0.4\n" +
+                    "directional -1 -1 -1 0.3 0.3 0.3\n" +
+                    "diffuse 0.5 0.2 0.2\n" +
+                    "specular 0.3 0.3 0.3\n" +
+                    "sphere 0 0 0 1\n" +
+                    "plane 0 -1 0 0.1 0.7 0.3\n" +
+                    "maxverts 4\n" +
+                    "vertex 1 -1 -1\n" +
+                    "vertex 3 -1 -1\n" +
+                    "vertex 2 1 -1\n" +
+                    "vertex 2 1 -3\n" +
+                    "tri 0 1 2\n" +
+                    "shininess 30\n" +
+                    "tri 1 2 3\n";
+
+    @TempDir
+    Path directory;
+
+    private Path writeScene(String content) throws Exception {
+        Path source = directory.resolve("test.scene");
+        Files.writeString(source, content);
+        return source;
+    }
+
+    @Test
+    void testLoad_WritesThenReadsIdenticalScene() throws Exception {
+        Path source = writeScene(SCENE);
+        Scene parsed = new SceneFileParser().parse(source.toString());
+
+        new SceneCache().load(source.toString());
+        Path cache = SceneCache.cacheFile(source);
+        assertTrue(Files.isRegularFile(cache), "Le cache doit être écrit à côté de la scène");
+
+        Optional<Scene> cached = new SceneCache().read(cache, Files.size(source), SceneCache.hash(source));
+        assertTrue(cached.isPresent(), "Le cache doit être relu tant que la scène n'a pas changé");
+        Scene scene = cached.get();
+
+        assertEquals(parsed.getWidth(), scene.getWidth());
+        assertEquals(parsed.getHeight(), scene.getHeight());
+        assertEquals(parsed.getOutput(), scene.getOutput());
+        assertEquals(parsed.getMaxDepth(), scene.getMaxDepth());
+        assertEquals(parsed.getMaxVerts(), scene.getMaxVerts());
+        assertEquals(parsed.getCamera().getFov(), scene.getCamera().getFov());
+        assertEquals(parsed.getCamera().getLookFrom().getZ(), scene.getCamera().getLookFrom().getZ());
+        assertEquals(parsed.getAmbient().getR(), scene.getAmbient().getR());
+
+        assertEquals(2, scene.getLights().size());
+        assertTrue(scene.getLights().get(0) instanceof PointLight);
+        assertEquals(parsed.getLights().get(1).getColor().getB(), scene.getLights().get(1).getColor().getB());
+
+        assertEquals(2, scene.getShapes().size());
+        Sphere sphere = (Sphere) scene.getShapes().get(0);
+        assertEquals(1.0, sphere.getRadius());
+        assertEquals(0.3, sphere.getSpecular().getG());
+        Plane plane = (Plane) scene.getShapes().get(1);
+        Plane parsedPlane = (Plane) parsed.getShapes().get(1);
+        assertEquals(parsedPlane.getNormal().getX(), plane.getNormal().getX(), "La normale du plan doit être relue sans être renormalisée");
+        assertEquals(parsedPlane.getNormal().getY(), plane.getNormal().getY());
+        assertEquals(parsedPlane.getNormal().getZ(), plane.getNormal().getZ());
+
+        Mesh mesh = scene.getMesh();
+        assertArrayEquals(parsed.getMesh().getVertexData(), mesh.getVertexData());
+        assertArrayEquals(parsed.getMesh().getIndexData(), mesh.getIndexData());
+        assertEquals(2, mesh.getMaterials().size());
+        assertEquals(30.0, mesh.getMaterial(1).getShininess());
+        assertEquals(parsed.getMesh().getNormal(1).getZ(), mesh.getNormal(1).getZ());
+    }
+
+    @Test
+    void testRead_StaleOrCorruptCache_IsIgnored() throws Exception {
+        Path source = writeScene(SCENE);
+        new SceneCache().load(source.toString());
+        Path cache = SceneCache.cacheFile(source);
+
+        Files.writeString(source, SCENE.replace("size 64 48", "size 32 24"));
+        assertFalse(new SceneCache().read(cache, Files.size(source), SceneCache.hash(source)).isPresent(),
+                "Un cache dont le CRC ne correspond plus à la scène doit être ignoré");
+        assertEquals(32, new SceneCache().load(source.toString()).getWidth());
+
+        byte[] bytes = Files.readAllBytes(cache);
+        Files.write(cache, java.util.Arrays.copyOf(bytes, bytes.length - 7));
+        assertFalse(new SceneCache().read(cache, Files.size(source), SceneCache.hash(source)).isPresent(),
+                "Un cache tronqué doit être ignoré");
+        assertEquals(32, new SceneCache().load(source.toString()).getWidth());
+        assertTrue(new SceneCache().read(cache, Files.size(source), SceneCache.hash(source)).isPresent(),
+                "Le cache doit être réécrit après un nouveau parsing");
+    }
+
+    @Test
+    void testLoad_MeshLargerThanWriteChunk_RoundTrips() throws Exception {
+        // Plus de sommets et de triangles que n'en contient un bloc d'écriture.
+        StringBuilder content = new StringBuilder("size 8 8\nmaxverts 12000\n");
+        for (int i = 0; i < 12000; i++) {
+            content.append("vertex ").append(i * 0.25).append(' ').append(i % 7).append(" -").append(i % 13 + 1).append('\n');
+        }
+        for (int i = 0; i < 11998; i++) {
+            if (i == 6000) {
+                content.append("shininess 12\n");
+            }
+            content.append("tri ").append(i).append(' ').append(i + 1).append(' ').append(i + 2).append('\n');
+        }
+        Path source = writeScene(content.toString());
+        Scene parsed = new SceneFileParser().parse(source.toString());
+
+        new SceneCache().load(source.toString());
+        Scene scene = new SceneCache().read(SceneCache.cacheFile(source), Files.size(source), SceneCache.hash(source)).orElseThrow();
+
+        assertArrayEquals(parsed.getMesh().getVertexData(), scene.getMesh().getVertexData());
+        assertArrayEquals(parsed.getMesh().getIndexData(), scene.getMesh().getIndexData());
+        assertArrayEquals(parsed.getMesh().getMaterialIdData(), scene.getMesh().getMaterialIdData());
+    }
+}
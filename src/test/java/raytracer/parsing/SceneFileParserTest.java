@@ -2,6 +2,8 @@ package raytracer.parsing;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import raytracer.accel.AcceleratorType;
+import raytracer.geometry.Instance;
 import raytracer.scene.Scene;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -70,4 +72,109 @@ public class SceneFileParserTest {
 
         assertTrue(exception.getMessage().contains("CONTRAINTE DE COULEUR"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testParse_MeshAndComments() throws Exception {
+        String sceneContent =
+                "# maillage\r\n" +
+                        "size 10 10\r\n" +
+                        "maxverts 3\r\n" +
+                        "  vertex -1 0.5 2e-1\r\n" +
+                        "vertex 1 0 0\r\n" +
+                        "\r\n" +
+                        "vertex\t0 1 0   \r\n" +
+                        "tri 0 1 2\r\n";
+
+        Scene scene = parseTempScene(sceneContent);
+
+        assertEquals(3, scene.getMesh().getVertexCount());
+        assertEquals(1, scene.getMesh().getTriangleCount());
+        assertEquals(-1.0, scene.getVertices().get(0).getX(), EPSILON);
+        assertEquals(0.5, scene.getVertices().get(0).getY(), EPSILON);
+        assertEquals(0.2, scene.getVertices().get(0).getZ(), EPSILON);
+    }
+
+    @Test
+    void testParse_InvalidNumber_Fail() {
+        SceneParseException exception = assertThrows(SceneParseException.class, () -> {
+            parseTempScene("size 10 10\nsphere 0 0 abc 1\n");
+        });
+
+        assertTrue(exception.getMessage().contains("Erreur de format de nombre"));
+        assertTrue(exception.getMessage().endsWith("Ligne: sphere 0 0 abc 1"));
+    }
+
+    @Test
+    void testParse_MissingArguments_Fail() {
+        SceneParseException exception = assertThrows(SceneParseException.class, () -> {
+            parseTempScene("size 10 10\n  camera 0 0 0 0 0 -1  \n");
+        });
+
+        assertTrue(exception.getMessage().contains("Nombre d'arguments insuffisant pour la commande 'camera'"));
+        assertTrue(exception.getMessage().endsWith("Ligne: camera 0 0 0 0 0 -1"));
+    }
+
+    @Test
+    void testParse_TriangleIndexConstraint_Fail() {
+        SceneParseException exception = assertThrows(SceneParseException.class, () -> {
+            parseTempScene("maxverts 2\nvertex 0 0 0\nvertex 1 0 0\ntri 0 1 2\n");
+        });
+
+        assertTrue(exception.getMessage().contains("CONTRAINTE DE VERTEX"));
+    }
+
+    @Test
+    void testParse_InstancesShareObjectMesh() throws Exception {
+        String sceneContent =
+                "size 10 10\n" +
+                        "camera 0 0 5 0 0 0 0 1 0 60\n" +
+                        "object quad\n" +
+                        "vertex -1 -1 0\n" +
+                        "vertex 1 -1 0\n" +
+                        "vertex 1 1 0\n" +
+                        "vertex -1 1 0\n" +
+                        "tri 0 1 2\n" +
+                        "tri 0 2 3\n" +
+                        "endobject\n" +
+                        "diffuse 0.2 0.4 0.6\n" +
+                        "instance quad 0 0 0 0 0 0 1\n" +
+                        "instance quad 3 0 0 0 90 0 2\n";
+
+        Scene scene = parseTempScene(sceneContent);
+
+        // Les faces de l'objet ne vont pas dans le maillage de la scène : chaque instance est une forme.
+        assertEquals(0, scene.getMesh().getTriangleCount());
+        assertEquals(2, scene.getShapes().size());
+        Instance first = (Instance) scene.getShapes().get(0);
+        Instance second = (Instance) scene.getShapes().get(1);
+        assertSame(first.getObject(), second.getObject(), "Les instances doivent partager le même maillage.");
+        assertEquals(2, first.getObject().getMesh().getTriangleCount());
+        assertEquals(0.4, second.getDiffuse().getG(), EPSILON);
+        assertEquals(2.0, second.getScale(), EPSILON);
+    }
+
+    @Test
+    void testParse_InvalidObjects_Fail() {
+        String object = "object quad\nvertex 0 0 0\nvertex 1 0 0\nvertex 0 1 0\ntri 0 1 2\n";
+
+        assertTrue(assertThrows(SceneParseException.class, () -> parseTempScene("instance quad 0 0 0 0 0 0 1\n"))
+                .getMessage().contains("inconnu"));
+        assertTrue(assertThrows(SceneParseException.class, () -> parseTempScene(object))
+                .getMessage().contains("endobject"));
+        assertTrue(assertThrows(SceneParseException.class, () -> parseTempScene(object + "endobject\n" + object + "endobject\n"))
+                .getMessage().contains("déjà défini"));
+        assertTrue(assertThrows(SceneParseException.class, () -> parseTempScene("object quad\nvertex 0 0 0\ntri 0 1 2\nendobject\n"))
+                .getMessage().contains("CONTRAINTE DE VERTEX"));
+        assertTrue(assertThrows(SceneParseException.class, () -> parseTempScene(object + "endobject\ninstance quad 0 0 0 0 0 0 0\n"))
+                .getMessage().contains("strictement positive"));
+    }
+
+    @Test
+    void testParse_AcceleratorDirective() throws Exception {
+        assertEquals(AcceleratorType.BVH, parseTempScene("sphere 0 0 -5 1\n").getAcceleratorType(), "BVH par défaut.");
+        assertEquals(AcceleratorType.GRID, parseTempScene("accel grid\nsphere 0 0 -5 1\n").getAcceleratorType());
+        assertEquals(AcceleratorType.AUTO, parseTempScene("accel AUTO\n").getAcceleratorType());
+        assertTrue(assertThrows(SceneParseException.class, () -> parseTempScene("accel kdtree\n"))
+                .getMessage().contains("CONTRAINTE D'ACCÉLÉRATION"));
+    }
+}
@@ -0,0 +1,92 @@
+package raytracer.parsing;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+class SceneTokenizerTest {
+
+    private Path writeTemp(String content) throws IOException {
+        Path tempFile = Files.createTempFile("tokenizer", ".scene");
+        tempFile.toFile().deleteOnExit();
+        Files.writeString(tempFile, content);
+        return tempFile;
+    }
+
+    @Test
+    void testNextDouble_MatchesParseDouble() throws IOException {
+        String[] values = {
+                "0", "-0", "1", "+2.5", "-3.25", "0.1", "0.2", "0.3", ".5", "7.", "1e3", "1E-3", "-2.5e+2",
+                "0.000123456789", "123456.789012345", "3.141592653589793", "0.1234567890123456789",
+                "1e-30", "4.9e-324", "1.7976931348623157e308", "12345678901234567890", "0x1p3", "1.5d", "NaN", "-Infinity"
+        };
+        try (SceneTokenizer tokens = new SceneTokenizer(writeTemp("v " + String.join(" ", values) + "\n"))) {
+            assertTrue(tokens.nextLine());
+            assertEquals("v", tokens.command());
+            for (String value : values) {
+                assertEquals(Double.doubleToRawLongBits(Double.parseDouble(value)), Double.doubleToRawLongBits(tokens.nextDouble()),
+                        "Conversion différente de Double.parseDouble pour " + value);
+            }
+        }
+    }
+
+    @Test
+    void testNextInt_MatchesParseInt() throws IOException {
+        String[] values = {"0", "7", "-12", "+42", "007", "2147483647", "-2147483648"};
+        try (SceneTokenizer tokens = new SceneTokenizer(writeTemp("tri " + String.join(" ", values)))) {
+            assertTrue(tokens.nextLine());
+            tokens.command();
+            for (String value : values) {
+                assertEquals(Integer.parseInt(value), tokens.nextInt());
+            }
+        }
+    }
+
+    @Test
+    void testInvalidNumbers_ThrowNumberFormatException() throws IOException {
+        try (SceneTokenizer tokens = new SceneTokenizer(writeTemp("x 1.2.3 abc 2147483648 - 1,5 e5"))) {
+            assertTrue(tokens.nextLine());
+            tokens.command();
+            assertThrows(NumberFormatException.class, tokens::nextDouble);
+            assertThrows(NumberFormatException.class, tokens::nextInt);
+            assertThrows(NumberFormatException.class, tokens::nextInt);
+            assertThrows(NumberFormatException.class, tokens::nextDouble);
+            assertThrows(NumberFormatException.class, tokens::nextDouble);
+            assertThrows(NumberFormatException.class, tokens::nextDouble);
+            assertThrows(NoSuchElementException.class, tokens::nextDouble);
+        }
+    }
+
+    @Test
+    void testLines_SkipBlankAndComments() throws IOException {
+        String content = "\n  # commentaire\r\n\t size  640\t480  \r\r\noutput  image.png\rpoint 1 2 3";
+        try (SceneTokenizer tokens = new SceneTokenizer(writeTemp(content), "size", "point")) {
+            assertTrue(tokens.nextLine());
+            assertSame("size", tokens.command(), "Une commande connue doit être l'instance partagée");
+            assertEquals(640, tokens.nextInt());
+            assertEquals(480, tokens.nextInt());
+            assertEquals("size  640\t480", tokens.line());
+
+            assertTrue(tokens.nextLine());
+            assertEquals("output", tokens.command());
+            assertEquals("image.png", tokens.nextString());
+
+            assertTrue(tokens.nextLine());
+            assertSame("point", tokens.command());
+            assertEquals(3.0, tokens.nextDouble() + tokens.nextDouble(), 1e-12);
+            assertEquals(3.0, tokens.nextDouble(), 1e-12);
+
+            assertFalse(tokens.nextLine());
+        }
+    }
+
+    @Test
+    void testEmptyFile() throws IOException {
+        try (SceneTokenizer tokens = new SceneTokenizer(writeTemp(""))) {
+            assertFalse(tokens.nextLine());
+        }
+    }
+}
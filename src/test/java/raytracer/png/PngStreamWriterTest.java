@@ -0,0 +1,160 @@
+package raytracer.png;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Adler32;
+import javax.imageio.ImageIO;
+
+class PngStreamWriterTest {
+
+    /**
+     * Mélange de dégradés (favorables aux filtres Sub, Up, Average et Paeth) et de bruit.
+     */
+    private int[] testPixels(int width, int height) {
+        Random random = new Random(3);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb;
+                if (y < height / 3) {
+                    rgb = (x * 255 / width) << 16 | (y * 7 & 0xFF) << 8 | (x + y) & 0xFF;
+                } else if (y < 2 * height / 3) {
+                    rgb = random.nextInt(1 << 24);
+                } else {
+                    rgb = 0x336699;
+                }
+                pixels[y * width + x] = rgb;
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    void testWriteRows_DecodesToSamePixels() throws IOException {
+        int width = 257;
+        int height = 301;
+        int[] pixels = testPixels(width, height);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PngStreamWriter writer = new PngStreamWriter(out, width, height)) {
+            // Groupes de lignes de tailles variées, dont un groupe vide.
+            int row = 0;
+            for (int count : new int[] {1, 0, 64, 100, 17}) {
+                writer.writeRows(pixels, row * width, count);
+                row += count;
+            }
+            writer.writeRows(pixels, row * width, height - row);
+            assertEquals(height, writer.getRowsWritten());
+        }
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(pixels[y * width + x], image.getRGB(x, y) & 0xFFFFFF, "Pixel différent en (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    void testParallelChunks_DecodeToSamePixels() throws IOException {
+        // Plusieurs morceaux par lot et plusieurs lots, à tous les niveaux de compression extrêmes.
+        int width = 257;
+        int height = 1500;
+        int[] pixels = testPixels(width, height);
+
+        for (int level : new int[] {0, 1, 9}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (PngStreamWriter writer = new PngStreamWriter(out, width, height, level, 3)) {
+                for (int row = 0; row < height; row += 100) {
+                    writer.writeRows(pixels, row * width, Math.min(100, height - row));
+                }
+            }
+
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    assertEquals(pixels[y * width + x], image.getRGB(x, y) & 0xFFFFFF, "Niveau " + level + ", pixel (" + x + ", " + y + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testWrite_SameImageWhateverTheThreadCount() throws IOException {
+        int width = 300;
+        int height = 900;
+        BufferedImage source = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, width, height, testPixels(width, height), 0, width);
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        PngStreamWriter.write(source, sequential, PngStreamWriter.DEFAULT_LEVEL, 1);
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        PngStreamWriter.write(source, parallel, PngStreamWriter.DEFAULT_LEVEL, 4);
+
+        // Les morceaux ne dépendent pas du nombre de threads : les fichiers sont identiques octet pour octet.
+        assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(parallel.toByteArray()));
+        assertEquals(source.getRGB(17, 611), decoded.getRGB(17, 611));
+    }
+
+    @Test
+    void testWrite_FlushesWithoutClosingStream() throws IOException {
+        BufferedImage source = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        boolean[] closed = {false};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BufferedOutputStream out = new BufferedOutputStream(new FilterOutputStream(bytes) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        });
+
+        PngStreamWriter.write(source, out, PngStreamWriter.DEFAULT_LEVEL, 1);
+
+        assertFalse(closed[0], "Le flux appartient à l'appelant : l'encodeur ne doit pas le fermer");
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(bytes.toByteArray())), "L'image doit être entièrement vidée dans le flux");
+    }
+
+    @Test
+    void testCombineAdler_MatchesWholeChecksum() {
+        byte[] data = new byte[200_000];
+        new Random(5).nextBytes(data);
+        int split = 123_457;
+
+        Adler32 whole = new Adler32();
+        whole.update(data);
+        Adler32 first = new Adler32();
+        first.update(data, 0, split);
+        Adler32 second = new Adler32();
+        second.update(data, split, data.length - split);
+
+        assertEquals(whole.getValue(), PngStreamWriter.combineAdler(first.getValue(), second.getValue(), data.length - split));
+        assertEquals(first.getValue(), PngStreamWriter.combineAdler(first.getValue(), 1, 0), "Une suite vide ne change pas la somme");
+    }
+
+    @Test
+    void testRowCount_IsChecked() throws IOException {
+        int[] pixels = testPixels(4, 3);
+
+        PngStreamWriter tooMany = new PngStreamWriter(new ByteArrayOutputStream(), 4, 2);
+        assertThrows(IllegalStateException.class, () -> tooMany.writeRows(pixels, 0, 3));
+
+        PngStreamWriter incomplete = new PngStreamWriter(new ByteArrayOutputStream(), 4, 3);
+        incomplete.writeRows(pixels, 0, 2);
+        assertThrows(IOException.class, incomplete::close, "Une image incomplète ne doit pas être terminée");
+        assertThrows(IllegalStateException.class, () -> incomplete.writeRows(pixels, 8, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> new PngStreamWriter(new ByteArrayOutputStream(), 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new PngStreamWriter(new ByteArrayOutputStream(), 4, 3, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PngStreamWriter(new ByteArrayOutputStream(), 4, 3, 4, 0));
+    }
+}
@@ -0,0 +1,104 @@
+package raytracer.scene;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.geometry.Material;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Sphere;
+import raytracer.light.DirectionalLight;
+import raytracer.light.PointLight;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+
+class CompiledSceneTest {
+    private static final double EPSILON = 1e-12;
+
+    private Scene setupScene() {
+        Scene scene = new Scene();
+        scene.setWidth(40);
+        scene.setHeight(20);
+        scene.setMaxDepth(3);
+        scene.setCamera(new Camera(new Point(0, 0, 5), new Point(0, 0, 0), new Vector(0, 1, 0), 60));
+        scene.addLight(new PointLight(new Point(1, 2, 3), new Color(0.2, 0.3, 0.4)));
+        scene.addLight(new DirectionalLight(new Vector(0, -2, 0), new Color(0.5, 0.5, 0.5)));
+
+        Sphere sphere = new Sphere(new Point(0, 0, 0), 1.0);
+        sphere.setDiffuse(new Color(1, 0, 0));
+        sphere.setShininess(42);
+        scene.addShape(sphere);
+        scene.addShape(new Plane(new Point(0, -1, 0), new Vector(0, 1, 0)));
+
+        scene.addVertex(new Point(0, 0, 0));
+        scene.addVertex(new Point(1, 0, 0));
+        scene.addVertex(new Point(0, 1, 0));
+        scene.addTriangle(0, 1, 2, new Material(new Color(0, 1, 0), new Color(0.3, 0.3, 0.3), 7));
+        scene.addTriangle(0, 2, 1, new Material(new Color(0, 0, 1), new Color(), 9));
+        return scene;
+    }
+
+    @Test
+    void testLights_InSceneOrder() {
+        CompiledScene compiled = CompiledScene.compile(setupScene());
+
+        assertEquals(2, compiled.getLightCount());
+        assertArrayEquals(new int[] {CompiledScene.POINT, CompiledScene.DIRECTIONAL}, compiled.getLightKinds());
+        double[] data = compiled.getLightData();
+        assertArrayEquals(new double[] {1, 2, 3}, new double[] {data[0], data[1], data[2]}, EPSILON);
+        // Direction unitaire vers la lumière : opposée à la direction d'éclairage.
+        assertArrayEquals(new double[] {0, 1, 0}, new double[] {data[3], data[4], data[5]}, EPSILON);
+        assertEquals(0.4, compiled.getLightColors()[2], EPSILON);
+    }
+
+    @Test
+    void testMaterialTable_ShapesAndTriangles() {
+        CompiledScene compiled = CompiledScene.compile(setupScene());
+        double[] table = compiled.getMaterialTable();
+        int stride = CompiledScene.MATERIAL_STRIDE;
+
+        int sphere = compiled.materialOf(0) * stride;
+        assertEquals(1.0, table[sphere], EPSILON);
+        assertEquals(42.0, table[sphere + 6], EPSILON);
+
+        // Les faces du maillage suivent les formes dans la numérotation des primitives.
+        int first = compiled.materialOf(2) * stride;
+        int second = compiled.materialOf(3) * stride;
+        assertEquals(1.0, table[first + 1], EPSILON);
+        assertEquals(0.3, table[first + 3], EPSILON);
+        assertEquals(7.0, table[first + 6], EPSILON);
+        assertEquals(1.0, table[second + 2], EPSILON);
+        assertEquals(9.0, table[second + 6], EPSILON);
+    }
+
+    @Test
+    void testSnapshot_IgnoresLaterChanges() {
+        Scene scene = setupScene();
+        CompiledScene compiled = CompiledScene.compile(scene);
+
+        scene.addShape(new Sphere(new Point(3, 0, 0), 1.0));
+        scene.addLight(new PointLight(new Point(0, 5, 0), new Color(0.1, 0.1, 0.1)));
+        scene.getShapes().get(0).setShininess(1);
+
+        assertEquals(2, compiled.getShapes().size());
+        assertEquals(2, compiled.getLightCount());
+        assertEquals(42.0, compiled.getMaterialTable()[compiled.materialOf(0) * CompiledScene.MATERIAL_STRIDE + 6], EPSILON);
+        assertThrows(UnsupportedOperationException.class, () -> compiled.getShapes().clear());
+    }
+
+    @Test
+    void testCamera() {
+        CompiledScene compiled = CompiledScene.compile(setupScene());
+
+        assertEquals(Math.tan(Math.toRadians(30)), compiled.getPixelHeight(), EPSILON);
+        assertEquals(2 * compiled.getPixelHeight(), compiled.getPixelWidth(), EPSILON);
+        assertEquals(1.0, compiled.getW().getZ(), EPSILON);
+        assertEquals(1.0, compiled.getU().getX(), EPSILON);
+    }
+
+    @Test
+    void testMissingCamera() {
+        Scene scene = setupScene();
+        scene.setCamera(null);
+        assertThrows(IllegalArgumentException.class, () -> CompiledScene.compile(scene));
+    }
+}
@@ -0,0 +1,178 @@
+package raytracer.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.accel.Accelerator;
+import raytracer.accel.AcceleratorType;
+import raytracer.geometry.Material;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.parsing.SceneFileParser;
+import raytracer.scene.Camera;
+import raytracer.scene.CompiledScene;
+import raytracer.scene.Scene;
+import raytracer.trace.ImageRenderer;
+import raytracer.trace.TestScenes;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+
+class RenderServerTest {
+    private static final String SCENE =
+            "size 60 40\n" +
+            "output server.png\n" +
+            "camera 0 1 6 0 0 0 0 1 0 50\n" +
+            "ambient 0.1 0.1 0.1\n" +
+            "maxdepth 2\n" +
+            "specular 0.4 0.4 0.4\n" +
+            "sphere 0 0 0 1\n" +
+            "specular 0 0 0\n" +
+            "diffuse 0.3 0.6 0.3\n" +
+            "plane 0 -1 0 0 1 0\n" +
+            "point 3 5 4 0.7 0.7 0.7\n";
+    private static final long CACHE_BYTES = 64L * 1024 * 1024;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private HttpResponse<byte[]> post(RenderServer server, String scene) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/render"))
+                .POST(HttpRequest.BodyPublishers.ofString(scene)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpResponse<byte[]> get(RenderServer server, String query) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/render" + query)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private void assertSameImage(BufferedImage expected, byte[] png) throws Exception {
+        BufferedImage actual = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(actual, "La réponse doit être une image PNG");
+        TestScenes.assertSameImage(expected, actual);
+    }
+
+    @Test
+    void testRender_CachesPreparedScenes(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("server.scene");
+        Files.writeString(file, SCENE);
+        BufferedImage expected = new ImageRenderer(1, 16).renderImage(new SceneFileParser().parse(file.toString()));
+
+        try (RenderServer server = new RenderServer(0, CACHE_BYTES, new ImageRenderer(2, 16))) {
+            HttpResponse<byte[]> first = post(server, SCENE);
+            assertEquals(200, first.statusCode());
+            assertEquals("miss", first.headers().firstValue("X-Cache").orElseThrow());
+            assertEquals("image/png", first.headers().firstValue("Content-Type").orElseThrow());
+            assertSameImage(expected, first.body());
+
+            // Même texte par chemin : la scène préparée est reprise.
+            HttpResponse<byte[]> second = get(server, "?scene=" + URLEncoder.encode(file.toString(), StandardCharsets.UTF_8));
+            assertEquals(200, second.statusCode());
+            assertEquals("hit", second.headers().firstValue("X-Cache").orElseThrow());
+            assertSameImage(expected, second.body());
+
+            // Une scène modifiée est reparsée.
+            Files.writeString(file, SCENE.replace("sphere 0 0 0 1", "sphere 0 0.5 0 1"));
+            HttpResponse<byte[]> changed = get(server, "?scene=" + URLEncoder.encode(file.toString(), StandardCharsets.UTF_8));
+            assertEquals("miss", changed.headers().firstValue("X-Cache").orElseThrow());
+            assertEquals(2, server.getCachedSceneCount());
+        }
+    }
+
+    @Test
+    void testRender_Errors(@TempDir Path dir) throws Exception {
+        try (RenderServer server = new RenderServer(0, CACHE_BYTES, new ImageRenderer(1, 16))) {
+            assertEquals(400, post(server, "size 10 10\nsphere 0 0 0\n").statusCode(), "Scène mal formée");
+            assertEquals(400, post(server, "size 10 10\nsphere 0 0 0 1\n").statusCode(), "Scène sans caméra");
+            assertEquals(400, get(server, "").statusCode(), "Chemin manquant");
+            assertEquals(404, get(server, "?scene=" + dir.resolve("absente.scene")).statusCode());
+            assertEquals(400, get(server, "?scene=" + dir).statusCode(), "Un dossier n'est pas un fichier de scène");
+            assertEquals(0, server.getCachedSceneCount());
+
+            HttpRequest delete = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/render")).DELETE().build();
+            assertEquals(405, client.send(delete, HttpResponse.BodyHandlers.discarding()).statusCode());
+
+            assertEquals(200, post(server, SCENE).statusCode(), "Le serveur répond toujours après une erreur");
+        }
+    }
+
+    @Test
+    void testRender_EncodingFailureAbortsResponse() throws Exception {
+        // Rendu dont le premier encodage échoue après l'envoi d'une partie de l'image.
+        ImageRenderer failing = new ImageRenderer(1, 16) {
+            private boolean failed;
+
+            @Override
+            public void writePng(BufferedImage image, OutputStream out) throws IOException {
+                if (!failed) {
+                    failed = true;
+                    out.write(new byte[] {(byte) 0x89, 'P', 'N', 'G'});
+                    out.flush();
+                    throw new IllegalStateException("encodage impossible");
+                }
+                super.writePng(image, out);
+            }
+        };
+        try (RenderServer server = new RenderServer(0, CACHE_BYTES, failing)) {
+            assertThrows(IOException.class, () -> post(server, SCENE), "Une image tronquée ne doit pas passer pour une réponse complète");
+            assertEquals(200, post(server, SCENE).statusCode(), "Le serveur répond toujours après un échec d'encodage");
+        }
+    }
+
+    @Test
+    void testCache_EvictsLeastRecentlyUsedOverBudget() {
+        PreparedSceneCache cache = new PreparedSceneCache(100);
+        PreparedSceneCache.Entry a = new PreparedSceneCache.Entry(null, null, 40);
+        PreparedSceneCache.Entry b = new PreparedSceneCache.Entry(null, null, 40);
+        PreparedSceneCache.Entry c = new PreparedSceneCache.Entry(null, null, 40);
+
+        cache.put("a", a);
+        cache.put("b", b);
+        assertSame(a, cache.get("a").orElseThrow());
+        cache.put("c", c);
+
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.getRetainedBytes());
+        assertTrue(cache.get("b").isEmpty(), "La scène la moins récemment utilisée est évincée");
+        assertSame(a, cache.get("a").orElseThrow());
+        assertSame(c, cache.get("c").orElseThrow());
+
+        cache.put("d", new PreparedSceneCache.Entry(null, null, 150));
+        assertEquals(0, cache.size(), "Une scène plus grosse que le budget n'est pas gardée");
+        assertEquals(0, cache.getRetainedBytes());
+        assertThrows(IllegalArgumentException.class, () -> new PreparedSceneCache(0));
+    }
+
+    @Test
+    void testCache_EstimatesMeshAndAccelerator() {
+        Scene scene = new Scene();
+        scene.setCamera(new Camera(new Point(0, 0, 5), new Point(0, 0, 0), new Vector(0, 1, 0), 45));
+        Material material = new Material(new Color(0.5, 0.5, 0.5), new Color(0, 0, 0), 1);
+        for (int i = 0; i < 1000; i++) {
+            scene.addVertex(new Point(i, 0, 0));
+            scene.addVertex(new Point(i, 1, 0));
+            scene.addVertex(new Point(i, 0, 1));
+            scene.addTriangle(3 * i, 3 * i + 1, 3 * i + 2, material);
+        }
+        CompiledScene compiled = CompiledScene.compile(scene);
+        Accelerator bvh = Accelerator.create(AcceleratorType.BVH, compiled.getShapes(), compiled.getMesh());
+
+        PreparedSceneCache.Entry entry = new PreparedSceneCache.Entry(compiled, bvh);
+
+        // 1000 faces : au moins leurs sommets (9 doubles) et leurs indices (3 entiers), plus la hiérarchie.
+        assertTrue(entry.getRetainedBytes() >= 1000L * (9 * Double.BYTES + 3 * Integer.BYTES) + bvh.getRetainedBytes(),
+                "Estimation : " + entry.getRetainedBytes());
+        assertTrue(bvh.getRetainedBytes() > 0);
+    }
+}
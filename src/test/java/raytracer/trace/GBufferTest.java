@@ -0,0 +1,162 @@
+package raytracer.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.geometry.Instance;
+import raytracer.geometry.InstancedMesh;
+import raytracer.geometry.Material;
+import raytracer.geometry.Mesh;
+import raytracer.geometry.Sphere;
+import raytracer.light.DirectionalLight;
+import raytracer.light.PointLight;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.scene.Camera;
+import raytracer.scene.CompiledScene;
+import raytracer.scene.Scene;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+class GBufferTest {
+
+    /**
+     * Scène de test ; lightColor, sphereDiffuse et sphereSpecular ne changent pas le G-buffer.
+     */
+    private Scene setupScene(Color lightColor, Color sphereDiffuse, Color sphereSpecular, Point spherePosition) {
+        Scene scene = TestScenes.sphereOnPlane(45, 29, 3, lightColor, spherePosition);
+        scene.addLight(new DirectionalLight(new Vector(-1, -1, -1), new Color(0.3, 0.3, 0.3)));
+        scene.getShapes().get(0).setDiffuse(sphereDiffuse);
+        scene.getShapes().get(0).setSpecular(sphereSpecular);
+        scene.addShape(new Sphere(new Point(1.5, 0.2, -1), 0.5));
+        return scene;
+    }
+
+    private Scene setupScene() {
+        return setupScene(new Color(0.5, 0.5, 0.5), new Color(0.8, 0.2, 0.2), new Color(0.4, 0.4, 0.4), new Point(0, 0, 0));
+    }
+
+    private GBuffer capture(ImageRenderer renderer, Scene scene) {
+        RenderStats stats = new RenderStats();
+        return renderer.captureGBuffer(new RayTracer(scene, stats), stats);
+    }
+
+    private BufferedImage relight(ImageRenderer renderer, Scene scene, GBuffer gbuffer) {
+        RenderStats stats = new RenderStats();
+        CompiledScene compiled = CompiledScene.compile(scene);
+        gbuffer.checkCompatible(compiled);
+        return renderer.relightImage(new RayTracer(compiled, stats), gbuffer, stats);
+    }
+
+
+    @Test
+    void testRelight_UnchangedScene_IdenticalToRender() {
+        Scene scene = setupScene();
+        ImageRenderer renderer = new ImageRenderer(3, 7);
+
+        GBuffer gbuffer = capture(renderer, scene);
+
+        assertEquals(scene.getWidth(), gbuffer.getWidth());
+        assertEquals(scene.getHeight(), gbuffer.getHeight());
+        assertEquals(2, gbuffer.getLightCount());
+        TestScenes.assertSameImage(new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene), relight(renderer, scene, gbuffer));
+    }
+
+    @Test
+    void testRelight_EditedMaterialsAndLights_IdenticalToFullRender() {
+        ImageRenderer renderer = new ImageRenderer(2, 16);
+        GBuffer gbuffer = capture(renderer, setupScene());
+
+        // Couleur de lumière, matériaux, ambiance et profondeur modifiés : seul l'ombrage est recalculé.
+        Scene edited = setupScene(new Color(0.9, 0.6, 0.2), new Color(0.1, 0.7, 0.3), new Color(0.0, 0.0, 0.0), new Point(0, 0, 0));
+        edited.setAmbient(new Color(0.2, 0.1, 0.0));
+        edited.getShapes().get(1).setSpecular(new Color(0.5, 0.5, 0.5));
+        edited.setMaxDepth(5);
+        assertTrue(gbuffer.needsTracing(CompiledScene.compile(edited)), "Le sol réfléchissant demande des rayons réfléchis");
+        TestScenes.assertSameImage(new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(edited), relight(renderer, edited, gbuffer));
+
+        Scene matte = setupScene(new Color(0.9, 0.6, 0.2), new Color(0.1, 0.7, 0.3), new Color(0.0, 0.0, 0.0), new Point(0, 0, 0));
+        assertFalse(gbuffer.needsTracing(CompiledScene.compile(matte)), "Sans surface réfléchissante, aucun rayon n'est tracé");
+        TestScenes.assertSameImage(new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(matte), relight(renderer, matte, gbuffer));
+    }
+
+    @Test
+    void testCheckCompatible_RejectsChangedGeometry() {
+        GBuffer gbuffer = capture(new ImageRenderer(1, 32), setupScene());
+
+        Scene moved = setupScene(new Color(0.5, 0.5, 0.5), new Color(0.8, 0.2, 0.2), new Color(0.4, 0.4, 0.4), new Point(0, 0.1, 0));
+        assertThrows(IllegalArgumentException.class, () -> gbuffer.checkCompatible(CompiledScene.compile(moved)));
+
+        Scene camera = setupScene();
+        camera.setCamera(new Camera(new Point(0, 1, 7), new Point(0, 0, 0), new Vector(0, 1, 0), 50));
+        assertThrows(IllegalArgumentException.class, () -> gbuffer.checkCompatible(CompiledScene.compile(camera)));
+
+        Scene light = setupScene();
+        light.addLight(new PointLight(new Point(-3, 5, 4), new Color(0.2, 0.2, 0.2)));
+        assertThrows(IllegalArgumentException.class, () -> gbuffer.checkCompatible(CompiledScene.compile(light)));
+
+        Scene size = setupScene();
+        size.setWidth(46);
+        assertThrows(IllegalArgumentException.class, () -> gbuffer.checkCompatible(CompiledScene.compile(size)));
+    }
+
+    @Test
+    void testWriteRead_RoundTrip(@TempDir Path dir) throws IOException {
+        Scene scene = setupScene();
+        ImageRenderer renderer = new ImageRenderer(1, 32);
+        GBuffer gbuffer = capture(renderer, scene);
+        Path file = dir.resolve("scene.gbuf");
+
+        gbuffer.write(file);
+        GBuffer read = GBuffer.read(file).orElseThrow();
+
+        assertArrayEquals(gbuffer.primitive, read.primitive);
+        assertArrayEquals(gbuffer.t, read.t);
+        assertArrayEquals(gbuffer.normalY, read.normalY);
+        assertArrayEquals(gbuffer.directionZ, read.directionZ);
+        assertArrayEquals(gbuffer.shadowed, read.shadowed);
+        TestScenes.assertSameImage(renderer.renderImage(scene), relight(renderer, scene, read));
+
+        byte[] bytes = Files.readAllBytes(file);
+        // Indicateur d'ordre des octets, en fin d'en-tête : un fichier d'une machine d'un autre ordre est refusé.
+        byte[] otherOrder = bytes.clone();
+        ByteBuffer header = ByteBuffer.wrap(otherOrder).order(ByteOrder.nativeOrder());
+        header.putLong(28, 1 - header.getLong(28));
+        Files.write(file, otherOrder);
+        assertTrue(GBuffer.read(file).isEmpty(), "Un G-buffer d'un autre ordre des octets doit être refusé");
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertTrue(GBuffer.read(file).isEmpty(), "Un G-buffer tronqué doit être refusé");
+        Files.writeString(file, "pas un G-buffer");
+        assertTrue(GBuffer.read(file).isEmpty(), "Un fichier quelconque doit être refusé");
+    }
+
+    @Test
+    void testFingerprint_LongInstanceName() {
+        // Noms plus longs que le tampon du condensé : ils ne doivent ni le déborder ni être tronqués.
+        String name = "objet".repeat(20_000);
+        long first = GBuffer.fingerprint(CompiledScene.compile(sceneWithInstance(name + "a")));
+        long second = GBuffer.fingerprint(CompiledScene.compile(sceneWithInstance(name + "b")));
+
+        assertNotEquals(first, second);
+        assertEquals(first, GBuffer.fingerprint(CompiledScene.compile(sceneWithInstance(name + "a"))));
+    }
+
+    private Scene sceneWithInstance(String objectName) {
+        Scene scene = setupScene();
+        InstancedMesh object = new InstancedMesh(objectName);
+        Mesh mesh = object.getMesh();
+        mesh.addVertex(-1, -1, 0);
+        mesh.addVertex(1, -1, 0);
+        mesh.addVertex(0, 1, 0);
+        mesh.addTriangle(0, 1, 2, mesh.addMaterial(new Material(new Color(0.5, 0.5, 0.5), new Color(), 10)));
+        object.build();
+        scene.addShape(new Instance(object, new Point(-2, 0, -2), new Vector(0, 30, 0), 0.5));
+        return scene;
+    }
+}
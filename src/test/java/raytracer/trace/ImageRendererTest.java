@@ -0,0 +1,226 @@
+package raytracer.trace;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.geometry.Material;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Sphere;
+import raytracer.imgcompare.ComparisonResult;
+import raytracer.imgcompare.ImageComparator;
+import raytracer.light.DirectionalLight;
+import raytracer.light.PointLight;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.scene.Camera;
+import raytracer.scene.Scene;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import javax.imageio.ImageIO;
+
+class ImageRendererTest {
+
+    private Scene setupScene() {
+        Scene scene = TestScenes.sphereOnPlane(61, 37, 3, new Color(0.5, 0.5, 0.5), new Point(0, 0, 0));
+        scene.addLight(new DirectionalLight(new Vector(-1, -1, -1), new Color(0.3, 0.3, 0.3)));
+        scene.addShape(new Sphere(new Point(1.5, 0.2, -1), 0.5));
+        return scene;
+    }
+
+    @Test
+    void testParallelRender_IdenticalToSequential() {
+        Scene scene = setupScene();
+
+        BufferedImage sequential = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+        BufferedImage parallel = new ImageRenderer(4, 7).renderImage(scene);
+
+        TestScenes.assertSameImage(sequential, parallel);
+    }
+
+    @Test
+    void testRender_MatchesPixelColors() {
+        Scene scene = setupScene();
+        RayTracer rayTracer = new RayTracer(scene);
+
+        BufferedImage image = new ImageRenderer(3, 5).renderImage(scene);
+
+        for (int y = 0; y < scene.getHeight(); y++) {
+            for (int x = 0; x < scene.getWidth(); x++) {
+                int expected = rayTracer.getPixelColor(x, scene.getHeight() - 1 - y).toRGB();
+                assertEquals(expected, image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void testPacketRender_IdenticalToSequential() {
+        Scene scene = setupScene();
+
+        BufferedImage sequential = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+        for (int packetSize : new int[] {4, 8, 16}) {
+            // Tuiles de 13 px : la dernière partie de chaque ligne de tuile forme un paquet incomplet.
+            BufferedImage packets = new ImageRenderer(2, 13, packetSize).renderImage(scene);
+
+            TestScenes.assertSameImage(sequential, packets, "avec des paquets de " + packetSize);
+        }
+    }
+
+    @Test
+    void testWavefrontRender_IdenticalToSequential() {
+        Scene scene = setupScene();
+
+        BufferedImage sequential = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+        for (int packetSize : new int[] {1, 8}) {
+            ImageRenderer renderer = new ImageRenderer(2, 13, packetSize);
+            renderer.setWavefront(true);
+            BufferedImage wavefront = renderer.renderImage(scene);
+
+            TestScenes.assertSameImage(sequential, wavefront, "en front d'onde, paquets de " + packetSize);
+        }
+    }
+
+    @Test
+    void testWavefront_DeepReflectionsInBatches() throws Exception {
+        // Deux miroirs face à face : les rayons rebondissent jusqu'à la profondeur maximale, et une tuile de
+        // 32 x 32 pixels dépasse la taille d'un lot du journal pour cette profondeur.
+        Scene scene = new Scene();
+        scene.setWidth(32);
+        scene.setHeight(32);
+        scene.setMaxDepth(1100);
+        scene.setCamera(new Camera(new Point(0, 0, 0), new Point(0, 0.05, -1), new Vector(0, 1, 0), 45));
+        scene.setAmbient(new Color(0.02, 0.02, 0.02));
+        scene.addLight(new PointLight(new Point(0, 0, -2), new Color(0.5, 0.5, 0.5)));
+        Plane front = new Plane(new Point(0, 0, -5), new Vector(0, 0, 1));
+        Plane back = new Plane(new Point(0, 0, 5), new Vector(0, 0, -1));
+        for (Plane mirror : new Plane[] {front, back}) {
+            mirror.setDiffuse(new Color(0.1, 0.1, 0.1));
+            mirror.setSpecular(new Color(0.9, 0.9, 0.9));
+            scene.addShape(mirror);
+        }
+        scene.addShape(new Plane(new Point(0, -3, 0), new Vector(0, 1, 0)));
+
+        // Le tracé récursif a besoin d'une pile bien plus grande que celle d'un thread ordinaire.
+        BufferedImage[] recursive = new BufferedImage[1];
+        Thread thread = new Thread(null, () -> recursive[0] = new ImageRenderer(1, 32).renderImage(scene), "recursive", 256L << 20);
+        thread.start();
+        thread.join();
+        ImageRenderer renderer = new ImageRenderer(1, 32);
+        renderer.setWavefront(true);
+        BufferedImage wavefront = renderer.renderImage(scene);
+
+        for (int y = 0; y < scene.getHeight(); y++) {
+            for (int x = 0; x < scene.getWidth(); x++) {
+                assertEquals(recursive[0].getRGB(x, y), wavefront.getRGB(x, y), "Pixel différent en (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    void testAntialiasing_RefinesOnlyContrastedPixels() {
+        Scene scene = setupScene();
+        BufferedImage base = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+
+        ImageRenderer renderer = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE);
+        renderer.setAntialiasingThreshold(0.1);
+        BufferedImage antialiased = renderer.renderImage(scene);
+
+        long pixelCount = (long) scene.getWidth() * scene.getHeight();
+        assertTrue(renderer.getRefinedPixels() > 0, "Les contours des sphères doivent être affinés");
+        assertTrue(renderer.getRefinedPixels() < pixelCount / 2, "Seule une partie de l'image doit être affinée");
+        assertTrue(renderer.getExtraSamples() >= 4 * renderer.getRefinedPixels());
+        assertTrue(renderer.getExtraSamples() <= 16 * renderer.getRefinedPixels());
+
+        long changed = 0;
+        for (int y = 0; y < scene.getHeight(); y++) {
+            for (int x = 0; x < scene.getWidth(); x++) {
+                if (base.getRGB(x, y) != antialiased.getRGB(x, y)) {
+                    changed++;
+                }
+            }
+        }
+        assertTrue(changed > 0 && changed <= renderer.getRefinedPixels());
+    }
+
+    @Test
+    void testAntialiasing_IndependentOfTiling() {
+        Scene scene = setupScene();
+
+        ImageRenderer sequential = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE);
+        sequential.setAntialiasingThreshold(0.05);
+        ImageRenderer parallel = new ImageRenderer(4, 7);
+        parallel.setAntialiasingThreshold(0.05);
+        BufferedImage expected = sequential.renderImage(scene);
+        BufferedImage actual = parallel.renderImage(scene);
+
+        TestScenes.assertSameImage(expected, actual);
+        assertEquals(sequential.getExtraSamples(), parallel.getExtraSamples());
+    }
+
+    @Test
+    void testStreamedRender_IdenticalToImage() throws Exception {
+        Scene scene = setupScene();
+        BufferedImage expected = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+
+        // Bandes de 10 lignes (la dernière incomplète), tuiles plus grandes que les bandes.
+        ImageRenderer renderer = new ImageRenderer(3, 16, 4);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        RenderStats stats = new RenderStats();
+        renderer.renderStreamed(new RayTracer(scene, stats), png, 10, stats);
+
+        BufferedImage streamed = ImageIO.read(new ByteArrayInputStream(png.toByteArray()));
+        TestScenes.assertSameImage(expected, streamed);
+        assertTrue(stats.getPhaseNanos(RenderStats.ENCODE) > 0);
+
+        renderer.setAntialiasingThreshold(0.1);
+        assertThrows(IllegalStateException.class,
+                () -> renderer.renderStreamed(new RayTracer(scene), new ByteArrayOutputStream(), 10, new RenderStats()));
+    }
+
+    @Test
+    void testFloatMesh_WithinDocumentedBound() {
+        // Sphère maillée loin de l'origine, là où l'arrondi en float des sommets est le plus grossier.
+        Scene scene = new Scene();
+        scene.setWidth(64);
+        scene.setHeight(48);
+        scene.setMaxDepth(3);
+        scene.setCamera(new Camera(new Point(1000, 1, 6), new Point(1000, 0, 0), new Vector(0, 1, 0), 40));
+        scene.setAmbient(new Color(0.1, 0.1, 0.1));
+        scene.addLight(new PointLight(new Point(1003, 5, 4), new Color(0.7, 0.7, 0.7)));
+        scene.addShape(new Plane(new Point(0, -1.2, 0), new Vector(0, 1, 0)));
+        Material material = new Material(new Color(0.6, 0.3, 0.2), new Color(0.3, 0.3, 0.3), 30);
+        int rings = 24, segments = 48;
+        for (int i = 0; i <= rings; i++) {
+            for (int j = 0; j < segments; j++) {
+                double theta = Math.PI * i / rings, phi = 2 * Math.PI * j / segments;
+                scene.addVertex(new Point(1000 + Math.sin(theta) * Math.cos(phi), Math.cos(theta), Math.sin(theta) * Math.sin(phi)));
+            }
+        }
+        for (int i = 0; i < rings; i++) {
+            for (int j = 0; j < segments; j++) {
+                int a = i * segments + j, b = i * segments + (j + 1) % segments;
+                scene.addTriangle(a, a + segments, b, material);
+                scene.addTriangle(b, a + segments, b + segments, material);
+            }
+        }
+        scene.getMesh().prepare();
+        ImageRenderer renderer = new ImageRenderer(1, 8, 16);
+
+        BufferedImage reference = renderer.renderImage(scene);
+        scene.getMesh().setSinglePrecision(true);
+        BufferedImage single = renderer.renderImage(scene);
+
+        ComparisonResult result = new ImageComparator(1).compare(reference, single);
+        assertTrue(result.getPsnr() >= 60.0, "PSNR du maillage en float trop faible: " + result.getPsnr());
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new ImageRenderer(0, 16));
+        assertThrows(IllegalArgumentException.class, () -> new ImageRenderer(2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ImageRenderer(2, 16, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ImageRenderer(2, 16, 17));
+        assertThrows(IllegalArgumentException.class, () -> new ImageRenderer().setAntialiasingThreshold(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> new ImageRenderer().setAntialiasingThreshold(Double.NaN));
+    }
+}
@@ -0,0 +1,77 @@
+package raytracer.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.scene.Scene;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+class ProgressiveRendererTest {
+
+    private Scene setupScene() {
+        // Dimensions non multiples du pas le plus grossier : les blocs de bord sont incomplets.
+        return TestScenes.sphereOnPlane(53, 35, 2);
+    }
+
+
+    @Test
+    void testFinalImage_IdenticalToImageRenderer() {
+        Scene scene = setupScene();
+        BufferedImage expected = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+
+        TestScenes.assertSameImage(expected, new ProgressiveRenderer(1, 1000).renderImage(scene));
+        TestScenes.assertSameImage(expected, new ProgressiveRenderer(3, 1000).renderImage(scene));
+    }
+
+    @Test
+    void testCoarsePass_FillsBlocks() {
+        Scene scene = setupScene();
+        BufferedImage expected = new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene);
+        BufferedImage image = new BufferedImage(scene.getWidth(), scene.getHeight(), BufferedImage.TYPE_INT_RGB);
+        List<Integer> steps = new ArrayList<>();
+        int step = ProgressiveRenderer.COARSEST_STEP;
+
+        new ProgressiveRenderer(2, 1000).renderImage(scene, image, new RenderStats(), passStep -> {
+            if (steps.isEmpty()) {
+                // Après la première passe, chaque pixel reprend la couleur du coin de son bloc.
+                for (int y = 0; y < scene.getHeight(); y++) {
+                    for (int x = 0; x < scene.getWidth(); x++) {
+                        assertEquals(expected.getRGB(x / step * step, y / step * step), image.getRGB(x, y),
+                                "Bloc mal rempli en (" + x + ", " + y + ")");
+                    }
+                }
+            }
+            steps.add(passStep);
+        });
+
+        assertEquals(List.of(16, 8, 4, 2, 1), steps);
+    }
+
+    @Test
+    void testRender_WritesFinalImage(@TempDir Path dir) throws IOException {
+        Scene scene = setupScene();
+        File output = dir.resolve("progressive.png").toFile();
+        scene.setOutput(output.getPath());
+
+        new ProgressiveRenderer(2, 1).render(scene);
+
+        TestScenes.assertSameImage(new ImageRenderer(1, ImageRenderer.DEFAULT_TILE_SIZE).renderImage(scene), ImageIO.read(output));
+        assertEquals(1, dir.toFile().list().length, "Aucun fichier temporaire ne doit rester");
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new ProgressiveRenderer(0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ProgressiveRenderer(2, 0));
+        Scene scene = setupScene();
+        BufferedImage wrongSize = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        assertThrows(IllegalArgumentException.class,
+                () -> new ProgressiveRenderer(1, 1000).renderImage(scene, wrongSize, new RenderStats(), step -> { }));
+    }
+}
@@ -0,0 +1,83 @@
+package raytracer.trace;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.geometry.Material;
+import raytracer.light.DirectionalLight;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.scene.Scene;
+import java.lang.management.ManagementFactory;
+
+class RayTracerTest {
+
+    private Scene setupScene() {
+        Scene scene = TestScenes.sphereOnPlane(48, 32, 4, new Color(0.4, 0.4, 0.4), new Point(0, 0, 0));
+        scene.addLight(new DirectionalLight(new Vector(-1, -1, -1), new Color(0.3, 0.3, 0.3)));
+        TestScenes.addTriangle(scene, new Material(new Color(0.2, 0.6, 0.2), new Color(0.3, 0.3, 0.3), 30));
+        return scene;
+    }
+
+    private long renderAll(RayTracer rayTracer, Scene scene) {
+        long checksum = 0;
+        for (int j = 0; j < scene.getHeight(); j++) {
+            for (int i = 0; i < scene.getWidth(); i++) {
+                checksum += rayTracer.getPixelRGB(i, j);
+            }
+        }
+        return checksum;
+    }
+
+    @Test
+    void testPixelRGB_MatchesPixelColor() {
+        Scene scene = setupScene();
+        RayTracer rayTracer = new RayTracer(scene);
+
+        for (int j = 0; j < scene.getHeight(); j++) {
+            for (int i = 0; i < scene.getWidth(); i++) {
+                assertEquals(rayTracer.getPixelColor(i, j).toRGB(), rayTracer.getPixelRGB(i, j));
+            }
+        }
+    }
+
+    @Test
+    void testSampleColor_AtCenterMatchesPixelRGB() {
+        Scene scene = setupScene();
+        RayTracer rayTracer = new RayTracer(scene);
+        double[] rgb = new double[3];
+
+        for (int j = 0; j < scene.getHeight(); j++) {
+            for (int i = 0; i < scene.getWidth(); i++) {
+                rayTracer.getSampleColor(i, j, 0.5, 0.5, rgb);
+                assertEquals(rayTracer.getPixelRGB(i, j), Color.toRGB(rgb[0], rgb[1], rgb[2]), "Échantillon central différent en (" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    @Test
+    void testTracing_DoesNotAllocateAfterWarmUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+
+        Scene scene = setupScene();
+        RayTracer rayTracer = new RayTracer(scene);
+
+        long checksum = 0;
+        for (int k = 0; k < 20; k++) {
+            checksum += renderAll(rayTracer, scene);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        checksum += renderAll(rayTracer, scene);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertNotEquals(0, checksum);
+        // Marge pour l'appel de mesure lui-même, indépendante du nombre de rayons tracés.
+        assertTrue(allocated < 1024, "Octets alloués pour " + scene.getWidth() * scene.getHeight() + " pixels: " + allocated);
+    }
+}
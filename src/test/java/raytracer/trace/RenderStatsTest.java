@@ -0,0 +1,115 @@
+package raytracer.trace;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.accel.IntersectionCounters;
+import raytracer.geometry.Material;
+import raytracer.light.PointLight;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.scene.Scene;
+import java.awt.image.BufferedImage;
+import java.nio.file.Paths;
+
+class RenderStatsTest {
+
+    private Scene setupScene() {
+        Scene scene = TestScenes.sphereOnPlane(40, 30, 3);
+        TestScenes.addTriangle(scene, new Material(new Color(0.2, 0.6, 0.2), new Color(0, 0, 0), 1));
+        return scene;
+    }
+
+    @Test
+    void testCounters_MatchRenderedImage() {
+        Scene scene = setupScene();
+        RenderStats stats = new RenderStats();
+
+        new ImageRenderer(2, 8).renderImage(scene, stats);
+
+        assertEquals((long) scene.getWidth() * scene.getHeight(), stats.getPrimaryRays(), "Un rayon primaire par pixel");
+        assertTrue(stats.getShadowRays() > 0);
+        assertTrue(stats.getReflectionRays() > 0, "La sphère spéculaire réfléchit des rayons");
+        assertTrue(stats.getHits() <= stats.getPrimaryRays() + stats.getReflectionRays());
+        assertTrue(stats.getMaxDepth() >= 2 && stats.getMaxDepth() <= scene.getMaxDepth());
+
+        IntersectionCounters intersections = stats.getIntersections();
+        assertTrue(intersections.getTests(IntersectionCounters.SPHERE) > 0);
+        assertTrue(intersections.getTests(IntersectionCounters.PLANE) >= stats.getTotalRays() - stats.getOccluderCacheHits(),
+                "Le plan infini est testé par chaque rayon qui parcourt la BVH");
+        assertTrue(intersections.getTests(IntersectionCounters.TRIANGLE) > 0);
+        assertEquals(0, intersections.getTests(IntersectionCounters.OTHER));
+        assertTrue(intersections.getNodeVisits() > 0);
+
+        assertTrue(stats.getPhaseNanos(RenderStats.BUILD) > 0);
+        assertTrue(stats.getPhaseNanos(RenderStats.RENDER) > 0);
+        assertEquals(0, stats.getPhaseNanos(RenderStats.PARSE));
+    }
+
+    @Test
+    void testOccluderCache_ResolvesCoherentShadowRays() {
+        Scene scene = setupScene();
+        // Plusieurs lumières masquées par la sphère pour une grande partie du plan.
+        scene.addLight(new PointLight(new Point(0, 4, 0), new Color(0.2, 0.2, 0.2)));
+        scene.addLight(new PointLight(new Point(-1, 5, -1), new Color(0.2, 0.2, 0.2)));
+        RenderStats stats = new RenderStats();
+
+        BufferedImage image = new ImageRenderer(2, 8).renderImage(scene, stats);
+
+        assertTrue(stats.getOccluderCacheHits() > 0);
+        assertTrue(stats.getOccluderCacheHits() < stats.getShadowRays());
+        assertEquals((double) stats.getOccluderCacheHits() / stats.getShadowRays(), stats.getOccluderCacheHitRate());
+        assertTrue(stats.toJson().contains("\"occluderCache\": {\"hits\": " + stats.getOccluderCacheHits()));
+
+        // Le cache ne change pas l'image : chaque pixel reste celui d'un rendu par un moteur neuf.
+        RayTracer fresh = new RayTracer(scene);
+        for (int y = 0; y < scene.getHeight(); y += 3) {
+            for (int x = 0; x < scene.getWidth(); x += 3) {
+                assertEquals(fresh.getPixelRGB(x, scene.getHeight() - 1 - y) & 0xFFFFFF, image.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+
+    @Test
+    void testPacketCounters_MatchSingleRays() {
+        Scene scene = setupScene();
+        RenderStats single = new RenderStats();
+        RenderStats packets = new RenderStats();
+
+        new ImageRenderer(1, 8).renderImage(scene, single);
+        new ImageRenderer(1, 8, 8).renderImage(scene, packets);
+
+        assertEquals(single.getPrimaryRays(), packets.getPrimaryRays());
+        assertEquals(single.getShadowRays(), packets.getShadowRays());
+        assertEquals(single.getReflectionRays(), packets.getReflectionRays());
+        assertEquals(single.getHits(), packets.getHits());
+        assertEquals(single.getMaxDepth(), packets.getMaxDepth());
+    }
+
+    @Test
+    void testJsonReport() {
+        Scene scene = setupScene();
+        RenderStats stats = new RenderStats();
+        stats.putInfo("scene", "scènes/\"test\".scene");
+        stats.recordPhase(RenderStats.PARSE, 2_500_000);
+        new ImageRenderer(1, 16).renderImage(scene, stats);
+
+        String json = stats.toJson();
+
+        assertTrue(json.startsWith("{") && json.trim().endsWith("}"));
+        assertTrue(json.contains("\"scene\": \"scènes/\\\"test\\\".scene\""), "Les guillemets doivent être échappés");
+        assertTrue(json.contains("\"width\": 40"));
+        assertTrue(json.contains("\"parse\": 2.500"));
+        assertTrue(json.contains("\"primary\": " + stats.getPrimaryRays()));
+        assertTrue(json.contains("\"triangle\": "));
+        assertTrue(json.contains("\"maxDepth\": " + stats.getMaxDepth()));
+        assertTrue(json.contains("\"allocatedBytes\": "));
+        assertEquals(1, stats.getThreadCount());
+    }
+
+    @Test
+    void testReportFile_NextToImage() {
+        assertEquals(Paths.get("out/final.stats.json"), RenderStats.reportFile("out/final.png"));
+        assertEquals(Paths.get("image.stats.json"), RenderStats.reportFile("image"));
+        assertEquals(Paths.get("dir.v2/image.stats.json"), RenderStats.reportFile("dir.v2/image"));
+    }
+}
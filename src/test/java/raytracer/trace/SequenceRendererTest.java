@@ -0,0 +1,84 @@
+package raytracer.trace;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.geometry.Sphere;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.scene.Animation;
+import raytracer.scene.Camera;
+import raytracer.scene.Scene;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+class SequenceRendererTest {
+    private static final Camera START = TestScenes.CAMERA;
+    private static final Camera END = new Camera(new Point(4, 2, 4), new Point(0, 0, 0), new Vector(0, 1, 0), 40);
+
+    private Scene setupScene(Camera camera, Vector sphereOffset) {
+        Scene scene = TestScenes.sphereOnPlane(40, 30, 2, new Color(0.7, 0.7, 0.7), new Point(0, 0, 0).add(sphereOffset));
+        scene.setCamera(camera);
+        scene.addShape(new Sphere(new Point(-2, 0, -1), 0.5));
+        return scene;
+    }
+
+    private Animation setupAnimation() {
+        Animation animation = new Animation();
+        animation.setFrameCount(3);
+        animation.addCameraKey(0, START);
+        animation.addCameraKey(2, END);
+        animation.addTranslationKey(0, 0, new Vector(0, 0, 0));
+        animation.addTranslationKey(0, 2, new Vector(0, 1, 0));
+        return animation;
+    }
+
+
+    @Test
+    void testKeyFrames_MatchStaticRenders() throws Exception {
+        ImageRenderer renderer = new ImageRenderer(2, 8);
+        List<BufferedImage> frames = new ArrayList<>();
+        List<Integer> order = new ArrayList<>();
+        RenderStats stats = new RenderStats();
+
+        new SequenceRenderer(renderer).render(setupScene(START, new Vector(0, 0, 0)), setupAnimation(), stats, (frame, image) -> {
+            order.add(frame);
+            frames.add(image);
+        });
+
+        assertEquals(List.of(0, 1, 2), order);
+        TestScenes.assertSameImage(renderer.renderImage(setupScene(START, new Vector(0, 0, 0))), frames.get(0));
+        // La dernière image, sur une hiérarchie réajustée, est celle d'une scène construite avec la sphère déplacée.
+        TestScenes.assertSameImage(renderer.renderImage(setupScene(END, new Vector(0, 1, 0))), frames.get(2));
+        assertTrue(stats.getPhaseNanos(RenderStats.REFIT) > 0);
+        assertTrue(stats.getPhaseNanos(RenderStats.ENCODE) > 0);
+        assertTrue(stats.getThreadCount() <= 2, "Une entrée par thread de rendu, pas par image : " + stats.getThreadCount());
+        assertEquals(3L * 40 * 30, stats.getPrimaryRays());
+    }
+
+    @Test
+    void testCameraOnly_ReusesHierarchy() throws Exception {
+        Animation animation = new Animation();
+        animation.setFrameCount(2);
+        animation.addCameraKey(1, END);
+        List<BufferedImage> frames = new ArrayList<>();
+        RenderStats stats = new RenderStats();
+
+        new SequenceRenderer(new ImageRenderer(1, 16)).render(setupScene(START, new Vector(0, 0, 0)), animation, stats,
+                (frame, image) -> frames.add(image));
+
+        assertEquals(2, frames.size());
+        TestScenes.assertSameImage(new ImageRenderer(1, 16).renderImage(setupScene(END, new Vector(0, 0, 0))), frames.get(0));
+        assertEquals(0, stats.getPhaseNanos(RenderStats.REFIT), "Sans déplacement, la hiérarchie n'est pas réajustée");
+    }
+
+    @Test
+    void testUnknownShape() {
+        Animation animation = setupAnimation();
+        animation.addTranslationKey(7, 1, new Vector(1, 0, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> new SequenceRenderer(new ImageRenderer(1, 16))
+                .render(setupScene(START, new Vector(0, 0, 0)), animation, new RenderStats(), (frame, image) -> { }));
+    }
+}
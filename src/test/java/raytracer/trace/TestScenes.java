@@ -0,0 +1,74 @@
+package raytracer.trace;
+
+import static org.junit.jupiter.api.Assertions.*;
+import raytracer.geometry.Material;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Sphere;
+import raytracer.imgcompare.ComparisonResult;
+import raytracer.imgcompare.ImageComparator;
+import raytracer.light.PointLight;
+import raytracer.math.Color;
+import raytracer.math.Point;
+import raytracer.math.Vector;
+import raytracer.scene.Camera;
+import raytracer.scene.Scene;
+import java.awt.image.BufferedImage;
+
+/**
+ * Scène et assertions partagées par les tests de rendu.
+ */
+public final class TestScenes {
+    public static final Camera CAMERA = new Camera(new Point(0, 1, 6), new Point(0, 0, 0), new Vector(0, 1, 0), 50);
+
+    private TestScenes() {
+    }
+
+    /**
+     * Sphère spéculaire de rayon 1 posée au-dessus du plan y = -1, vue par CAMERA et éclairée par une lumière
+     * ponctuelle en (3, 5, 4). La sphère est la forme 0, le plan la forme 1.
+     */
+    public static Scene sphereOnPlane(int width, int height, int maxDepth, Color lightColor, Point sphereCenter) {
+        Scene scene = new Scene();
+        scene.setWidth(width);
+        scene.setHeight(height);
+        scene.setMaxDepth(maxDepth);
+        scene.setCamera(CAMERA);
+        scene.setAmbient(new Color(0.1, 0.1, 0.1));
+        scene.addLight(new PointLight(new Point(3, 5, 4), lightColor));
+
+        Sphere sphere = new Sphere(sphereCenter, 1.0);
+        sphere.setSpecular(new Color(0.4, 0.4, 0.4));
+        scene.addShape(sphere);
+        scene.addShape(new Plane(new Point(0, -1, 0), new Vector(0, 1, 0)));
+        return scene;
+    }
+
+    public static Scene sphereOnPlane(int width, int height, int maxDepth) {
+        return sphereOnPlane(width, height, maxDepth, new Color(0.7, 0.7, 0.7), new Point(0, 0, 0));
+    }
+
+    /**
+     * Ajoute au maillage de la scène un triangle vertical à droite de la sphère.
+     */
+    public static void addTriangle(Scene scene, Material material) {
+        int first = scene.getMesh().getVertexCount();
+        scene.addVertex(new Point(1, -1, -1));
+        scene.addVertex(new Point(3, -1, -1));
+        scene.addVertex(new Point(2, 1, -1));
+        scene.addTriangle(first, first + 1, first + 2, material);
+    }
+
+    public static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        assertSameImage(expected, actual, "");
+    }
+
+    /**
+     * Vérifie que les deux images sont identiques au pixel près.
+     * @param context Précision ajoutée au message d'échec.
+     */
+    public static void assertSameImage(BufferedImage expected, BufferedImage actual, String context) {
+        ComparisonResult result = new ImageComparator(1).compare(expected, actual);
+        assertEquals(0, result.getDifferentPixels(), "Pixels différents" + (context.isEmpty() ? "" : " " + context)
+                + " (écart maximal " + result.getMaxChannelError() + ")");
+    }
+}